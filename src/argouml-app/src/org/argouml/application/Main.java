@@ -45,9 +45,13 @@ import java.awt.Frame;
 import java.awt.GraphicsEnvironment;
 import java.awt.Rectangle;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.logging.Level;
@@ -61,6 +65,7 @@ import javax.swing.UIManager;
 
 import org.argouml.application.api.Argo;
 import org.argouml.application.api.CommandLineInterface;
+import org.argouml.application.api.InitSubsystem;
 import org.argouml.application.security.ArgoAwtExceptionHandler;
 import org.argouml.cognitive.AbstractCognitiveTranslator;
 import org.argouml.cognitive.Designer;
@@ -78,6 +83,7 @@ import org.argouml.notation.InitNotation;
 import org.argouml.notation.providers.java.InitNotationJava;
 import org.argouml.notation.providers.uml.InitNotationUml;
 import org.argouml.notation.ui.InitNotationUI;
+import org.argouml.persistence.AutoSave;
 import org.argouml.persistence.PersistenceManager;
 import org.argouml.profile.init.InitProfileSubsystem;
 import org.argouml.ui.LookAndFeelMgr;
@@ -127,8 +133,19 @@ public class Main {
     private static final String DEFAULT_MODEL_IMPLEMENTATION =
         "org.argouml.model.mdr.MDRModelImplementation";
 
+    /**
+     * The system property naming the file to write the startup report to.
+     */
+    public static final String STARTUP_REPORT_PROPERTY =
+        "argouml.startup.report";
+
     private static List<Runnable> postLoadActions = new ArrayList<Runnable>();
 
+    /**
+     * The timings of the initialization of the subsystems.
+     */
+    private static List<String> startupSteps = new ArrayList<String>();
+
     private static boolean doSplash = true;
 
     private static boolean reloadRecent = false;
@@ -214,6 +231,9 @@ public class Main {
             Runnable moduleLoader = new LoadModules();
             Main.addPostLoadAction(moduleLoader);
 
+            st.mark("start autosave");
+            AutoSave.getInstance().start();
+
             PostLoad pl = new PostLoad(postLoadActions);
             Thread postLoadThead = new Thread(pl);
             postLoadThead.start();
@@ -222,7 +242,11 @@ public class Main {
             for (Enumeration i = st.result(); i.hasMoreElements();) {
                 LOG.log(Level.INFO, "{0}", i.nextElement());
             }
+            for (String step : startupSteps) {
+                LOG.log(Level.INFO, "{0}", step);
+            }
             LOG.log(Level.INFO, "#################################\n");
+            writeStartupReport(st);
 
             st = null;
             ArgoFrame.getFrame().setCursor(
@@ -242,6 +266,37 @@ public class Main {
         }
     }
 
+    /**
+     * Write the durations of the phases of the startup and of the steps
+     * of the initialization of the subsystems to the file named by the
+     * system property {@value #STARTUP_REPORT_PROPERTY}, if it is set, so
+     * that startup times can be compared between versions.
+     *
+     * @param st the timer of the phases
+     */
+    private static void writeStartupReport(SimpleTimer st) {
+        String fileName = System.getProperty(STARTUP_REPORT_PROPERTY);
+        if (fileName == null) {
+            return;
+        }
+        try {
+            PrintWriter writer = new PrintWriter(new FileWriter(fileName));
+            try {
+                for (String phase : st.getReport()) {
+                    writer.println("phase\t" + phase);
+                }
+                for (String step : startupSteps) {
+                    writer.println("step\t" + step);
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING,
+                    "Could not write the startup report to " + fileName, e);
+        }
+    }
+
     private static void showUml2Warning() {
         if (showUml2warning
                 && Model.getFacade().getUmlVersion().startsWith("2")) {
@@ -420,37 +475,88 @@ public class Main {
 
 
     private static ProjectBrowser initializeSubsystems(SimpleTimer st,
-            SplashScreen splash) {
+            final SplashScreen splash) {
         ProjectBrowser pb = null;
 
-        st.mark("initialize model subsystem");
-        initModel();
-        updateProgress(splash, 5, "statusmsg.bar.model-subsystem");
-
-        st.mark("initialize the profile subsystem");
-        new InitProfileSubsystem().init();
+        final InitSubsystem[] notations = {
+            new InitNotation(),
+            new InitNotationUml(),
+            new InitNotationJava(),
+        };
+        final InitSubsystem[] diagrams = {
+            new InitActivityDiagram(),
+            new InitCollaborationDiagram(),
+            new InitDeploymentDiagram(),
+            new InitStateDiagram(),
+            new InitClassDiagram(),
+            new InitUseCaseDiagram(),
+        };
 
+        /*
+         * The model, profiles and notations are initialized concurrently.
+         * The diagrams come after the profiles, since the property panel
+         * factory added last is asked first. The subsystems creating
+         * Swing components are initialized on this thread, as before.
+         */
+        st.mark("initialize subsystems");
+        StartupScheduler scheduler = new StartupScheduler();
+        scheduler.add("model", new Runnable() {
+            public void run() {
+                initModel();
+            }
+        });
+        scheduler.add("profiles", new Runnable() {
+            public void run() {
+                new InitProfileSubsystem().init();
+            }
+        }, "model");
+        scheduler.add("notations", new Runnable() {
+            public void run() {
+                for (InitSubsystem subsystem : notations) {
+                    subsystem.init();
+                }
+            }
+        }, "model");
+        scheduler.add("diagrams", new Runnable() {
+            public void run() {
+                for (InitSubsystem subsystem : diagrams) {
+                    subsystem.init();
+                }
+            }
+        }, "profiles");
         // The reason the gui is initialized before the commands are run
         // is that some of the commands will use the projectbrowser.
-        st.mark("initialize gui");
-        pb = initializeGUI(splash);
-
-        st.mark("initialize subsystems");
-        SubsystemUtility.initSubsystem(new InitUiCmdSubsystem());
-        SubsystemUtility.initSubsystem(new InitNotationUI());
-        SubsystemUtility.initSubsystem(new InitNotation());
-        SubsystemUtility.initSubsystem(new InitNotationUml());
-        SubsystemUtility.initSubsystem(new InitNotationJava());
-        SubsystemUtility.initSubsystem(new InitDiagramAppearanceUI());
-        SubsystemUtility.initSubsystem(new InitActivityDiagram());
-        SubsystemUtility.initSubsystem(new InitCollaborationDiagram());
-        SubsystemUtility.initSubsystem(new InitDeploymentDiagram());
-        SubsystemUtility.initSubsystem(new InitStateDiagram());
-        SubsystemUtility.initSubsystem(new InitClassDiagram());
-        SubsystemUtility.initSubsystem(new InitUseCaseDiagram());
-        SubsystemUtility.initSubsystem(new InitUmlUI());
-        SubsystemUtility.initSubsystem(new InitCheckListUI());
-        SubsystemUtility.initSubsystem(new InitCognitiveUI());
+        final ProjectBrowser[] browser = new ProjectBrowser[1];
+        scheduler.addOnCaller("gui", new Runnable() {
+            public void run() {
+                updateProgress(splash, 5, "statusmsg.bar.model-subsystem");
+                browser[0] = initializeGUI(splash);
+            }
+        }, "profiles", "notations", "diagrams");
+        scheduler.run();
+        startupSteps = scheduler.getReport();
+        pb = browser[0];
+
+        st.mark("initialize gui subsystems");
+        List<InitSubsystem> initialized = new ArrayList<InitSubsystem>();
+        initialized.addAll(Arrays.asList(notations));
+        initialized.addAll(Arrays.asList(diagrams));
+        List<InitSubsystem> subsystems = new ArrayList<InitSubsystem>();
+        subsystems.add(new InitUiCmdSubsystem());
+        subsystems.add(new InitNotationUI());
+        subsystems.addAll(Arrays.asList(notations));
+        subsystems.add(new InitDiagramAppearanceUI());
+        subsystems.addAll(Arrays.asList(diagrams));
+        subsystems.add(new InitUmlUI());
+        subsystems.add(new InitCheckListUI());
+        subsystems.add(new InitCognitiveUI());
+        for (InitSubsystem subsystem : subsystems) {
+            if (initialized.contains(subsystem)) {
+                SubsystemUtility.addTabs(subsystem);
+            } else {
+                SubsystemUtility.initSubsystem(subsystem);
+            }
+        }
 
         /*
          * Initialize the module loader. At least the plug-ins that provide
@@ -43,6 +43,7 @@ import java.util.logging.Logger;
 
 import org.argouml.application.api.Argo;
 import org.argouml.application.helpers.ResourceLoaderWrapper;
+import org.argouml.cognitive.CriticProfiler;
 import org.argouml.cognitive.Designer;
 import org.argouml.configuration.Configuration;
 import org.argouml.kernel.Project;
@@ -68,6 +69,7 @@ public class StartCritics implements Runnable {
      */
     public void run() {
         Designer dsgr = Designer.theDesigner();
+        CriticProfiler.theProfiler().registerMBean();
         SubsystemUtility.initSubsystem(new InitCognitiveCritics());
         SubsystemUtility.initSubsystem(new InitPatternCritics());
         org.argouml.uml.cognitive.checklist.Init.init();
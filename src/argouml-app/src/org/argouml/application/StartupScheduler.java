@@ -0,0 +1,221 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the initialisation steps of the application, each as soon as the
+ * steps it depends on are done. Steps which don't depend on each other run
+ * at the same time on a few worker threads. Steps which touch the user
+ * interface run on the calling thread instead.<p>
+ *
+ * The start and duration of each step are kept for the startup report.
+ */
+final class StartupScheduler {
+
+    private static final Logger LOG =
+        Logger.getLogger(StartupScheduler.class.getName());
+
+    private static final int MAX_THREADS = 4;
+
+    private final Map<String, Step> steps = new LinkedHashMap<String, Step>();
+
+    private final long origin = System.currentTimeMillis();
+
+    /**
+     * Add a step to run on a worker thread.
+     *
+     * @param name the name of the step
+     * @param work what the step does
+     * @param dependencies the names of the steps which must be done first
+     */
+    void add(String name, Runnable work, String... dependencies) {
+        addStep(new Step(name, work, false, dependencies));
+    }
+
+    /**
+     * Add a step to run on the thread calling {@link #run()}.
+     *
+     * @param name the name of the step
+     * @param work what the step does
+     * @param dependencies the names of the steps which must be done first
+     */
+    void addOnCaller(String name, Runnable work, String... dependencies) {
+        addStep(new Step(name, work, true, dependencies));
+    }
+
+    private void addStep(Step step) {
+        if (steps.containsKey(step.name)) {
+            throw new IllegalArgumentException("Duplicate step " + step.name);
+        }
+        steps.put(step.name, step);
+    }
+
+    /**
+     * Run all steps and wait until they are done.
+     *
+     * @throws IllegalStateException if a step failed, or if the steps
+     *         depend on each other in a circle
+     */
+    void run() {
+        for (Step step : steps.values()) {
+            for (String dependency : step.dependencies) {
+                if (!steps.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Step " + step.name
+                            + " depends on unknown step " + dependency);
+                }
+            }
+        }
+        int threads = Math.max(1, Math.min(MAX_THREADS,
+                Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool =
+            Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count;
+                public synchronized Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "startup-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        final BlockingQueue<Step> done = new LinkedBlockingQueue<Step>();
+        Set<Step> waiting = new LinkedHashSet<Step>(steps.values());
+        Set<String> finished = new HashSet<String>();
+        int running = 0;
+        try {
+            while (!waiting.isEmpty() || running > 0) {
+                Step inline = null;
+                Iterator<Step> it = waiting.iterator();
+                while (it.hasNext()) {
+                    final Step step = it.next();
+                    if (!finished.containsAll(step.dependencies)) {
+                        continue;
+                    }
+                    if (step.onCaller) {
+                        if (inline == null) {
+                            inline = step;
+                            it.remove();
+                        }
+                    } else {
+                        it.remove();
+                        running++;
+                        pool.execute(new Runnable() {
+                            public void run() {
+                                step.run();
+                                done.add(step);
+                            }
+                        });
+                    }
+                }
+                if (inline != null) {
+                    inline.run();
+                    finish(inline, finished);
+                } else if (running > 0) {
+                    finish(done.take(), finished);
+                    running--;
+                } else {
+                    throw new IllegalStateException(
+                            "Circular dependencies between " + waiting);
+                }
+                Step step;
+                while ((step = done.poll()) != null) {
+                    finish(step, finished);
+                    running--;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Startup interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void finish(Step step, Set<String> finished) {
+        if (step.failure != null) {
+            throw new IllegalStateException("Initialising " + step.name
+                    + " failed", step.failure);
+        }
+        LOG.log(Level.FINE, "{0} took {1} msec on {2}",
+                new Object[] {step.name, step.end - step.start, step.thread});
+        finished.add(step.name);
+    }
+
+    /**
+     * @return one line for each step done, with the name, the thread, the
+     *         start in milliseconds since the scheduler was created and the
+     *         duration in milliseconds, separated by tabs
+     */
+    List<String> getReport() {
+        List<String> lines = new ArrayList<String>();
+        for (Step step : steps.values()) {
+            if (step.thread != null) {
+                lines.add(step.name + "\t" + step.thread + "\t"
+                        + (step.start - origin) + "\t"
+                        + (step.end - step.start));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * A step and when it ran.
+     */
+    private static class Step {
+        private final String name;
+        private final Runnable work;
+        private final boolean onCaller;
+        private final List<String> dependencies;
+        private volatile String thread;
+        private volatile long start;
+        private volatile long end;
+        private volatile Throwable failure;
+
+        Step(String theName, Runnable theWork, boolean runOnCaller,
+                String[] theDependencies) {
+            name = theName;
+            work = theWork;
+            onCaller = runOnCaller;
+            dependencies = Arrays.asList(theDependencies);
+        }
+
+        void run() {
+            thread = Thread.currentThread().getName();
+            start = System.currentTimeMillis();
+            try {
+                work.run();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            end = System.currentTimeMillis();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -61,6 +61,15 @@ public class SubsystemUtility {
      */
     static void initSubsystem(InitSubsystem subsystem) {
         subsystem.init();
+        addTabs(subsystem);
+    }
+
+    /**
+     * Add the tabs of a subsystem which has been initialised already.
+     *
+     * @param subsystem the subsystem
+     */
+    static void addTabs(InitSubsystem subsystem) {
         for (GUISettingsTabInterface tab : subsystem.getSettingsTabs()) {
             // TODO: This work should be deferred until actually 
             // needed for display
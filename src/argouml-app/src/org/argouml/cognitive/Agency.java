@@ -41,8 +41,11 @@ package org.argouml.cognitive;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Set;
@@ -101,6 +104,17 @@ public class Agency extends Observable { //implements java.io.Serialization
     private static Hashtable<String, Critic> singletonCritics =
         new Hashtable<String, Critic>(40);
 
+    /**
+     * The active critics for each design material class that has been
+     * critiqued. The map is never modified once published, it is
+     * replaced as a whole, so the critiquing threads read it without
+     * locking.
+     *
+     * @see #invalidateDispatchTable()
+     */
+    private static volatile Map<Class, Dispatch> dispatchTable =
+        Collections.emptyMap();
+
 
     /**
      * Construct a new Agency instance with the given ControlMech as the
@@ -232,11 +246,40 @@ public class Agency extends Observable { //implements java.io.Serialization
             theCritics.add(cr);
             notifyStaticObservers(cr);
             LOG.log(Level.FINE, "Registered: {0}", theCritics );
-            cachedCritics.remove(clazz);
+            // Subclasses of clazz inherit the critic, so drop them all
+            cachedCritics.clear();
+            invalidateDispatchTable();
             addCritic(cr);
         }
     }
 
+    /**
+     * Remove a critic registered for a design material class. The critic is
+     * removed from the list of critics when it isn't registered for any
+     * other class.
+     *
+     * @param cr the critic to remove
+     * @param clazz the design material class it was registered for
+     */
+    static void unregister(Critic cr, Class clazz) {
+        List<Critic> theCritics = getCriticRegistry().get(clazz);
+        if (theCritics == null || !theCritics.remove(cr)) {
+            return;
+        }
+        boolean registered = false;
+        for (List<Critic> others : getCriticRegistry().values()) {
+            if (others.contains(cr)) {
+                registered = true;
+                break;
+            }
+        }
+        if (!registered) {
+            critics.remove(cr);
+        }
+        cachedCritics.clear();
+        invalidateDispatchTable();
+    }
+
     /**
      * Transitional method for migration purposes.  Don't use!
      * @param cr the critic to register
@@ -326,9 +369,7 @@ public class Agency extends Observable { //implements java.io.Serialization
         Object dm,
         Designer d,
         long reasonCode) {
-        Class dmClazz = dm.getClass();
-        Collection<Critic> c = criticsForClass(dmClazz);
-        applyCritics(dm, d, c, reasonCode);
+        dispatchFor(dm.getClass()).apply(dm, d, reasonCode, null);
     }
 
     /**
@@ -336,9 +377,88 @@ public class Agency extends Observable { //implements java.io.Serialization
      * @param d the designer
      */
     public static void applyAllCritics(Object dm, Designer d) {
-        Class dmClazz = dm.getClass();
-        Collection<Critic> c = criticsForClass(dmClazz);
-        applyCritics(dm, d, c, -1L);
+        applyAllCritics(dm, d, -1L);
+    }
+
+    /**
+     * Apply the critics to design material that is critiqued as soon as
+     * possible. Each critic is checked against the control mechanism again
+     * first, so that critics the designer disabled, snoozed or lowered the
+     * priority of since the active critics were last determined are not
+     * applied.
+     *
+     * @param dm the design material
+     * @param d the designer
+     * @param reasonCode the reason
+     */
+    static void applyRelevantCritics(Object dm, Designer d,
+            long reasonCode) {
+        dispatchFor(dm.getClass()).apply(dm, d, reasonCode,
+                d.getAgency().controlMech);
+    }
+
+    /**
+     * Get the dispatch table entry for a design material class, building
+     * it if this class has not been seen since the table was last
+     * invalidated.
+     *
+     * @param clazz the design material class
+     * @return the active critics for the class
+     */
+    private static Dispatch dispatchFor(Class clazz) {
+        Dispatch dispatch = dispatchTable.get(clazz);
+        if (dispatch == null) {
+            synchronized (Agency.class) {
+                Map<Class, Dispatch> table = dispatchTable;
+                dispatch = table.get(clazz);
+                if (dispatch == null) {
+                    dispatch = new Dispatch(criticsForClass(clazz));
+                    Map<Class, Dispatch> newTable =
+                        new HashMap<Class, Dispatch>(table);
+                    newTable.put(clazz, dispatch);
+                    dispatchTable = newTable;
+                }
+            }
+        }
+        return dispatch;
+    }
+
+    /**
+     * Forget the dispatch table. It is rebuilt class by class as design
+     * material is critiqued. This is needed whenever a critic is
+     * registered or becomes active or inactive.
+     */
+    static void invalidateDispatchTable() {
+        synchronized (Agency.class) {
+            dispatchTable = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Apply one critic, measuring it with the CriticProfiler. A critic
+     * that throws an exception is disabled.
+     *
+     * @param c the critic
+     * @param dm the design material
+     * @param d the designer
+     */
+    private static void applyCritic(Critic c, Object dm, Designer d) {
+        CriticProfiler profiler = CriticProfiler.theProfiler();
+        long start = profiler.start();
+        try {
+            c.critique(dm, d);
+        } catch (Exception ex) {
+            profiler.failed(c);
+            LOG.log(Level.SEVERE,
+                    "Disabling critique due to exception\n"
+                    + c + "\n" + dm,
+                    ex);
+            c.setEnabled(false);
+            return;
+        } finally {
+            profiler.finished(c, start);
+        }
+        d.critiqued(c, dm);
     }
 
     /**
@@ -355,15 +475,7 @@ public class Agency extends Observable { //implements java.io.Serialization
 
         for (Critic c : theCritics) {
             if (c.isActive() && c.matchReason(reasonCode)) {
-                try {
-                    c.critique(dm, d);
-                } catch (Exception ex) {
-                    LOG.log(Level.SEVERE,
-                            "Disabling critique due to exception\n"
-                            + c + "\n" + dm,
-                            ex);
-                    c.setEnabled(false);
-                }
+                applyCritic(c, dm, d);
             }
         }
     }
@@ -382,15 +494,20 @@ public class Agency extends Observable { //implements java.io.Serialization
      * TODO: should loop over simpler list of critics, not CompoundCritics
      *
      * @param d the designer
+     * @return true if any critic changed between active and inactive
      */
-    public void determineActiveCritics(Designer d) {
+    public boolean determineActiveCritics(Designer d) {
+        boolean changed = false;
         for (Critic c : critics) {
+            boolean wasActive = c.isActive();
             if (controlMech.isRelevant(c, d)) {
                 c.beActive();
             } else {
                 c.beInactive();
             }
+            changed |= wasActive != c.isActive();
         }
+        return changed;
     }
 
     /**
@@ -420,4 +537,66 @@ public class Agency extends Observable { //implements java.io.Serialization
         }
     }
 
+    /**
+     * The active critics for one design material class, flattened into
+     * arrays together with their trigger masks and whether they have
+     * been demoted to the slow tier.
+     */
+    private static final class Dispatch {
+        private final Critic[] critics;
+
+        private final long[] triggerMasks;
+
+        private final boolean[] slow;
+
+        /**
+         * @param candidates all critics registered for the class
+         */
+        Dispatch(Collection<Critic> candidates) {
+            List<Critic> active = new ArrayList<Critic>(candidates.size());
+            for (Critic c : candidates) {
+                if (c.isActive()) {
+                    active.add(c);
+                }
+            }
+            critics = active.toArray(new Critic[active.size()]);
+            triggerMasks = new long[critics.length];
+            slow = new boolean[critics.length];
+            CriticProfiler profiler = CriticProfiler.theProfiler();
+            for (int i = 0; i < critics.length; i++) {
+                triggerMasks[i] = critics[i].getTriggerMask();
+                slow[i] = profiler.isDemoted(critics[i]);
+            }
+        }
+
+        /**
+         * Apply the critics whose triggers match the reason code. The
+         * critics in the slow tier are skipped unless the designer
+         * currently includes them.
+         *
+         * @param dm the design material
+         * @param d the designer
+         * @param reasonCode the reason
+         * @param cm the control mechanism to check each critic against,
+         *            or null to rely on the critics being active
+         * @see Critic#matchReason(long)
+         */
+        void apply(Object dm, Designer d, long reasonCode, ControlMech cm) {
+            boolean includeSlow = d.includesSlowCritics();
+            for (int i = 0; i < critics.length; i++) {
+                if (slow[i] && !includeSlow) {
+                    continue;
+                }
+                if (!critics[i].isActive()
+                        || (cm != null && !cm.isRelevant(critics[i], d))) {
+                    continue;
+                }
+                long mask = triggerMasks[i];
+                if (mask == 0 || (mask & reasonCode) != 0) {
+                    applyCritic(critics[i], dm, d);
+                }
+            }
+        }
+    }
+
 }
@@ -40,9 +40,12 @@ package org.argouml.cognitive;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Set;
 import java.util.logging.Level;
@@ -56,6 +59,7 @@ import org.argouml.cognitive.critics.SnoozeOrder;
 import org.argouml.cognitive.critics.Wizard;
 import org.argouml.configuration.Configuration;
 import org.argouml.configuration.ConfigurationKey;
+import org.argouml.model.Model;
 
 /**
  * "Abstract" base class for design critics.  Each subclass should define
@@ -633,6 +637,7 @@ public class Critic
 	if (!isActive) {
 	    Configuration.setBoolean(getCriticKey(), true);
             isActive = true;
+            Agency.invalidateDispatchTable();
             setChanged();
             notifyObservers(this);
 	}
@@ -646,6 +651,8 @@ public class Critic
 	if (isActive) {
 	    Configuration.setBoolean(getCriticKey(), false);
             isActive = false;
+            Agency.invalidateDispatchTable();
+            Designer.theDesigner().getToDoList().recheckPoster(this);
             setChanged();
             notifyObservers(this);
 	}
@@ -989,6 +996,38 @@ public class Critic
         return ret;
     }
 
+    /**
+     * Reply the model elements whose modification can change the verdict
+     * of this critic on the given design material, each mapped to the
+     * names of the properties that matter. A <code>null</code> set of
+     * names stands for any property.<p>
+     *
+     * This is used to re-critique only what is affected by a model
+     * change. By default any property of the design material itself, of
+     * the model elements it contains and of the model elements it is
+     * linked to is considered. Critics that look further should override
+     * this to list the elements they look at.
+     *
+     * @param dm the design material
+     * @return the elements and properties the verdict depends on
+     */
+    public Map<Object, Set<String>> getDependencies(Object dm) {
+        if (!Model.getFacade().isAModelElement(dm)) {
+            return Collections.singletonMap(dm, null);
+        }
+        Map<Object, Set<String>> dependencies =
+            new HashMap<Object, Set<String>>();
+        dependencies.put(dm, null);
+        for (Object element : Model.getFacade().getModelElementContents(dm)) {
+            dependencies.put(element, null);
+        }
+        for (Object element
+                : Model.getFacade().getModelElementAssociated(dm)) {
+            dependencies.put(element, null);
+        }
+        return dependencies;
+    }
+
     ////////////////////////////////////////////////////////////////
     // design feedback
 
@@ -0,0 +1,309 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.configuration.ConfigurationKey;
+
+/**
+ * Measures what each critic costs: how often it is applied, how long it
+ * takes, how many ToDoItems it posts and how often it fails.<p>
+ *
+ * Profiling is off unless it is turned on in the configuration, over JMX
+ * or in the Critic Statistics dialog. When a budget is configured as
+ * well, critics whose mean time per invocation exceeds it are demoted to
+ * the slow tier. The Designer only applies those on some of its warm
+ * sweeps, while changed design material is still checked by all active
+ * critics. There is no budget by default, since demoting critics changes
+ * the critiques the designer sees, and every demotion is logged.<p>
+ *
+ * The measurements are available through this class, over JMX as
+ * <code>org.argouml:type=CriticProfiler</code> and in the Critic
+ * Statistics dialog.
+ *
+ * @see CriticStatistics
+ */
+public final class CriticProfiler implements CriticProfilerMBean {
+
+    private static final Logger LOG =
+        Logger.getLogger(CriticProfiler.class.getName());
+
+    /**
+     * Whether the critics are measured. Off by default.
+     */
+    public static final ConfigurationKey KEY_PROFILING =
+        Configuration.makeKey("cognitive", "profiling");
+
+    /**
+     * The mean time per invocation, in microseconds, above which a critic
+     * is demoted to the slow tier. 0, the default, disables demotion.
+     */
+    public static final ConfigurationKey KEY_BUDGET =
+        Configuration.makeKey("cognitive", "profiling", "budget");
+
+    private static final int DEFAULT_BUDGET_MICROS = 0;
+
+    /**
+     * A critic is only demoted once it has been measured this many
+     * times, so that a single slow first run does not count.
+     */
+    private static final long MIN_INVOCATIONS = 50;
+
+    private static final String OBJECT_NAME = "org.argouml:type=CriticProfiler";
+
+    private static final CriticProfiler THE_PROFILER = new CriticProfiler();
+
+    private final ConcurrentMap<Critic, CriticStatistics> statistics =
+        new ConcurrentHashMap<Critic, CriticStatistics>();
+
+    private volatile boolean enabled;
+
+    private volatile long budgetNanos;
+
+    private CriticProfiler() {
+        enabled = Configuration.getBoolean(KEY_PROFILING, false);
+        budgetNanos = Configuration.getInteger(KEY_BUDGET,
+                DEFAULT_BUDGET_MICROS) * 1000L;
+    }
+
+    /**
+     * @return the profiler
+     */
+    public static CriticProfiler theProfiler() {
+        return THE_PROFILER;
+    }
+
+    /**
+     * Publish the profiler on the platform MBean server.
+     */
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already published
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * @param critic the critic
+     * @return the measurements for the critic
+     */
+    public CriticStatistics getStatistics(Critic critic) {
+        CriticStatistics stats = statistics.get(critic);
+        if (stats == null) {
+            stats = new CriticStatistics(critic);
+            CriticStatistics old = statistics.putIfAbsent(critic, stats);
+            if (old != null) {
+                stats = old;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the measurements of all critics that have been applied,
+     *         most expensive first
+     */
+    public List<CriticStatistics> getAllStatistics() {
+        List<CriticStatistics> all =
+            new ArrayList<CriticStatistics>(statistics.values());
+        Collections.sort(all, new Comparator<CriticStatistics>() {
+            public int compare(CriticStatistics s1, CriticStatistics s2) {
+                return Long.signum(s2.getTotalNanos() - s1.getTotalNanos());
+            }
+        });
+        return all;
+    }
+
+    /**
+     * @param critic the critic
+     * @return true if the critic is in the slow tier
+     */
+    public boolean isDemoted(Critic critic) {
+        CriticStatistics stats = statistics.get(critic);
+        return stats != null && stats.isDemoted();
+    }
+
+    /**
+     * Move a critic back to the normal tier. It will be demoted again
+     * if it keeps exceeding the budget.
+     *
+     * @param critic the critic
+     */
+    public void promote(Critic critic) {
+        CriticStatistics stats = statistics.get(critic);
+        if (stats != null && stats.isDemoted()) {
+            LOG.log(Level.INFO, "Moving {0} back to the normal tier",
+                    critic.getCriticName());
+            stats.reset();
+            stats.setDemoted(false);
+            Agency.invalidateDispatchTable();
+        }
+    }
+
+    /**
+     * @return the time to pass to {@link #finished(Critic, long)}
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record one invocation of a critic.
+     *
+     * @param critic the critic
+     * @param start the value returned by {@link #start()}
+     */
+    void finished(Critic critic, long start) {
+        if (start == 0L) {
+            return;
+        }
+        CriticStatistics stats = getStatistics(critic);
+        stats.record(System.nanoTime() - start);
+        long budget = budgetNanos;
+        if (budget > 0 && !stats.isDemoted()
+                && stats.getInvocations() >= MIN_INVOCATIONS
+                && stats.getMeanNanos() > budget) {
+            stats.setDemoted(true);
+            LOG.log(Level.WARNING, "Moving {0} to the slow tier, its mean time"
+                    + " of {1} microseconds exceeds the budget of {2}",
+                    new Object[] {critic.getCriticName(),
+                        stats.getMeanNanos() / 1000, budget / 1000});
+            Agency.invalidateDispatchTable();
+        }
+    }
+
+    /**
+     * @param critic the critic that threw an exception
+     */
+    void failed(Critic critic) {
+        if (enabled) {
+            getStatistics(critic).recordException();
+        }
+    }
+
+    /**
+     * @param item the item posted to the Designer
+     */
+    void itemPosted(ToDoItem item) {
+        if (enabled && item.getPoster() instanceof Critic) {
+            getStatistics((Critic) item.getPoster()).recordItemPosted();
+        }
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#isEnabled()
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#setEnabled(boolean)
+     */
+    public void setEnabled(boolean e) {
+        enabled = e;
+        Configuration.setBoolean(KEY_PROFILING, e);
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getBudgetMicros()
+     */
+    public long getBudgetMicros() {
+        return budgetNanos / 1000;
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#setBudgetMicros(long)
+     */
+    public void setBudgetMicros(long micros) {
+        budgetNanos = micros * 1000;
+        Configuration.setInteger(KEY_BUDGET, (int) micros);
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getTotalMillis()
+     */
+    public long getTotalMillis() {
+        long total = 0;
+        for (CriticStatistics stats : statistics.values()) {
+            total += stats.getTotalNanos();
+        }
+        return total / 1000000;
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getValidityChecks()
+     */
+    public long getValidityChecks() {
+        return Designer.theDesigner().getToDoList().getValidityChecks();
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getSkippedValidityChecks()
+     */
+    public long getSkippedValidityChecks() {
+        return Designer.theDesigner().getToDoList()
+                .getSkippedValidityChecks();
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getReport()
+     */
+    public String[] getReport() {
+        List<String> report = new ArrayList<String>();
+        for (CriticStatistics stats : getAllStatistics()) {
+            report.add(stats.toString());
+        }
+        return report.toArray(new String[report.size()]);
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#getDemotedCritics()
+     */
+    public String[] getDemotedCritics() {
+        List<String> demoted = new ArrayList<String>();
+        for (CriticStatistics stats : getAllStatistics()) {
+            if (stats.isDemoted()) {
+                demoted.add(stats.getCritic().getCriticName());
+            }
+        }
+        return demoted.toArray(new String[demoted.size()]);
+    }
+
+    /*
+     * @see org.argouml.cognitive.CriticProfilerMBean#reset()
+     */
+    public void reset() {
+        for (CriticStatistics stats : statistics.values()) {
+            stats.reset();
+            stats.setDemoted(false);
+        }
+        Agency.invalidateDispatchTable();
+    }
+}
@@ -0,0 +1,73 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+/**
+ * The management interface of the CriticProfiler, as published over JMX.
+ *
+ * @see CriticProfiler
+ */
+public interface CriticProfilerMBean {
+
+    /**
+     * @return true if the critics are being measured
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled true to measure the critics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the mean time per invocation above which a critic is moved
+     *         to the slow tier, in microseconds; 0 if critics are never
+     *         demoted
+     */
+    long getBudgetMicros();
+
+    /**
+     * @param micros the new budget in microseconds, 0 to never demote
+     */
+    void setBudgetMicros(long micros);
+
+    /**
+     * @return the total time spent in critics, in milliseconds
+     */
+    long getTotalMillis();
+
+    /**
+     * @return the number of ToDoItem validity checks done
+     */
+    long getValidityChecks();
+
+    /**
+     * @return the number of ToDoItem validity checks skipped because
+     *         nothing changed for the item
+     */
+    long getSkippedValidityChecks();
+
+    /**
+     * @return one line per critic, most expensive first
+     */
+    String[] getReport();
+
+    /**
+     * @return the names of the critics in the slow tier
+     */
+    String[] getDemotedCritics();
+
+    /**
+     * Clear all measurements and move all critics back to the normal
+     * tier.
+     */
+    void reset();
+}
@@ -0,0 +1,185 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The cost of running one critic, as measured by the CriticProfiler.<p>
+ *
+ * Latencies are kept in a histogram with power of two buckets, so the
+ * percentiles are upper bounds that can be off by up to a factor two.
+ * All counters can be updated concurrently by several critiquing
+ * threads.
+ *
+ * @see CriticProfiler
+ */
+public class CriticStatistics {
+
+    /**
+     * Bucket i counts the invocations that took less than 2^i ns.
+     */
+    private static final int BUCKETS = 40;
+
+    private final Critic critic;
+
+    private final AtomicLong invocations = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private final AtomicLong itemsPosted = new AtomicLong();
+
+    private final AtomicLong exceptions = new AtomicLong();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    private volatile boolean demoted;
+
+    /**
+     * @param c the critic measured
+     */
+    CriticStatistics(Critic c) {
+        critic = c;
+    }
+
+    /**
+     * @return the critic measured
+     */
+    public Critic getCritic() {
+        return critic;
+    }
+
+    /**
+     * @return the number of times the critic has been applied
+     */
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    /**
+     * @return the total time spent in the critic, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * @return the average time per invocation, in nanoseconds
+     */
+    public long getMeanNanos() {
+        long count = invocations.get();
+        return count == 0 ? 0 : totalNanos.get() / count;
+    }
+
+    /**
+     * @return the slowest invocation, in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Estimate a latency percentile.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return an upper bound for the latency, in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = invocations.get();
+        if (count == 0) {
+            return 0;
+        }
+        long wanted = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= wanted) {
+                return Math.min(1L << i, maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * @return the number of ToDoItems the critic has posted
+     */
+    public long getItemsPosted() {
+        return itemsPosted.get();
+    }
+
+    /**
+     * @return the number of times the critic has thrown an exception
+     */
+    public long getExceptions() {
+        return exceptions.get();
+    }
+
+    /**
+     * @return true if the critic has been moved to the slow tier for
+     *         exceeding its budget
+     */
+    public boolean isDemoted() {
+        return demoted;
+    }
+
+    void setDemoted(boolean d) {
+        demoted = d;
+    }
+
+    /**
+     * @param nanos the duration of one invocation
+     */
+    void record(long nanos) {
+        invocations.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+        histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    void recordItemPosted() {
+        itemsPosted.incrementAndGet();
+    }
+
+    void recordException() {
+        exceptions.incrementAndGet();
+    }
+
+    /**
+     * Clear all counters. The demotion is kept.
+     */
+    void reset() {
+        invocations.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+        itemsPosted.set(0);
+        exceptions.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return critic.getCriticName() + ": " + getInvocations()
+            + " invocations, " + getTotalNanos() / 1000000 + " ms total, "
+            + getMeanNanos() / 1000 + " us mean, "
+            + getPercentileNanos(95) / 1000 + " us p95, "
+            + getItemsPosted() + " items, " + getExceptions()
+            + " exceptions" + (demoted ? ", demoted" : "");
+    }
+}
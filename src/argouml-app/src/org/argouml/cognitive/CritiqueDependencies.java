@@ -0,0 +1,290 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.argouml.model.AddAssociationEvent;
+import org.argouml.model.DeleteInstanceEvent;
+import org.argouml.model.Model;
+import org.argouml.model.RemoveAssociationEvent;
+
+/**
+ * Keeps track of which model elements and properties the verdict of each
+ * (critic, design material) pair depends on, as reported by
+ * {@link Critic#getDependencies(Object)} when the critic was applied.<p>
+ *
+ * It listens to the ModelEventPump for every element that some verdict
+ * depends on and asks the Designer to re-critique exactly the affected
+ * pairs when such an element changes.<p>
+ *
+ * Elements nothing depends on yet are found by also listening to the
+ * links between all model elements. An element linked to or unlinked from
+ * another one, which is how new elements are added to their namespace or
+ * owner and how elements are moved, is critiqued with all critics.
+ *
+ * @see Designer#critiqueASAP(Critic, Object)
+ */
+class CritiqueDependencies implements PropertyChangeListener {
+
+    private final Designer designer;
+
+    /**
+     * Watched element to the pairs depending on it and the property names
+     * they depend on (<code>null</code> for any property).
+     */
+    private final Map<Object, Map<Verdict, Set<String>>> byElement =
+        new HashMap<Object, Map<Verdict, Set<String>>>();
+
+    /**
+     * The elements each pair currently depends on.
+     */
+    private final Map<Verdict, Collection<Object>> byVerdict =
+        new HashMap<Verdict, Collection<Object>>();
+
+    /**
+     * The pairs for each critiqued design material.
+     */
+    private final Map<Object, Set<Verdict>> byDesignMaterial =
+        new HashMap<Object, Set<Verdict>>();
+
+    /**
+     * Queues the elements whose links change for a full critique.
+     */
+    private final PropertyChangeListener structureListener =
+        new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt instanceof AddAssociationEvent) {
+                    designer.critiqueASAP(evt.getSource(),
+                            evt.getPropertyName());
+                    Object added =
+                        ((AddAssociationEvent) evt).getChangedValue();
+                    if (Model.getFacade().isAModelElement(added)) {
+                        designer.critiqueASAP(added, evt.getPropertyName());
+                    }
+                } else if (evt instanceof RemoveAssociationEvent) {
+                    designer.critiqueASAP(evt.getSource(),
+                            evt.getPropertyName());
+                }
+            }
+        };
+
+    private boolean watchingStructure;
+
+    /**
+     * @param d the designer to notify of affected pairs
+     */
+    CritiqueDependencies(Designer d) {
+        designer = d;
+    }
+
+    /**
+     * Replace the recorded dependencies of a pair by the ones the critic
+     * now reports.
+     *
+     * @param critic the critic that was applied
+     * @param dm the design material it was applied to
+     */
+    void record(Critic critic, Object dm) {
+        Map<Object, Set<String>> dependencies = critic.getDependencies(dm);
+        Verdict verdict = new Verdict(critic, dm);
+        List<Object> newlyWatched = new ArrayList<Object>();
+        synchronized (this) {
+            removeVerdict(verdict);
+            byVerdict.put(verdict,
+                    new ArrayList<Object>(dependencies.keySet()));
+            Set<Verdict> critiques = byDesignMaterial.get(dm);
+            if (critiques == null) {
+                critiques = new HashSet<Verdict>();
+                byDesignMaterial.put(dm, critiques);
+            }
+            critiques.add(verdict);
+            for (Map.Entry<Object, Set<String>> entry
+                    : dependencies.entrySet()) {
+                Map<Verdict, Set<String>> verdicts =
+                    byElement.get(entry.getKey());
+                if (verdicts == null) {
+                    verdicts = new HashMap<Verdict, Set<String>>();
+                    byElement.put(entry.getKey(), verdicts);
+                    newlyWatched.add(entry.getKey());
+                }
+                verdicts.put(verdict, entry.getValue());
+            }
+        }
+        for (Object element : newlyWatched) {
+            Model.getPump().addModelEventListener(this, element);
+        }
+    }
+
+    /**
+     * Start listening to the links between all model elements.
+     */
+    void watchStructure() {
+        synchronized (this) {
+            if (watchingStructure) {
+                return;
+            }
+            watchingStructure = true;
+        }
+        Model.getPump().addClassModelEventListener(structureListener,
+                Model.getMetaTypes().getModelElement(), (String[]) null);
+    }
+
+    /**
+     * Stop listening to the links between all model elements.
+     */
+    void stopWatchingStructure() {
+        synchronized (this) {
+            if (!watchingStructure) {
+                return;
+            }
+            watchingStructure = false;
+        }
+        Model.getPump().removeClassModelEventListener(structureListener,
+                Model.getMetaTypes().getModelElement(), (String[]) null);
+    }
+
+    /**
+     * @return the number of elements being listened to
+     */
+    synchronized int getWatchedCount() {
+        return byElement.size();
+    }
+
+    /**
+     * Forget all dependencies and stop listening.
+     */
+    void clear() {
+        List<Object> watched;
+        synchronized (this) {
+            watched = new ArrayList<Object>(byElement.keySet());
+            byElement.clear();
+            byVerdict.clear();
+            byDesignMaterial.clear();
+        }
+        for (Object element : watched) {
+            Model.getPump().removeModelEventListener(this, element);
+        }
+    }
+
+    /*
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        Object element = evt.getSource();
+        if (evt instanceof DeleteInstanceEvent) {
+            forget(element);
+            return;
+        }
+        String property = evt.getPropertyName();
+        List<Verdict> affected = new ArrayList<Verdict>();
+        synchronized (this) {
+            Map<Verdict, Set<String>> verdicts = byElement.get(element);
+            if (verdicts == null) {
+                return;
+            }
+            for (Map.Entry<Verdict, Set<String>> entry
+                    : verdicts.entrySet()) {
+                if (entry.getValue() == null
+                        || entry.getValue().contains(property)) {
+                    affected.add(entry.getKey());
+                }
+            }
+        }
+        for (Verdict verdict : affected) {
+            designer.critiqueASAP(verdict.critic, verdict.designMaterial);
+        }
+    }
+
+    /**
+     * Drop everything about a deleted element: the pairs that critique it
+     * and the interest of other pairs in it.
+     *
+     * @param element the deleted element
+     */
+    private void forget(Object element) {
+        synchronized (this) {
+            Map<Verdict, Set<String>> verdicts = byElement.remove(element);
+            if (verdicts != null) {
+                for (Verdict verdict : verdicts.keySet()) {
+                    Collection<Object> elements = byVerdict.get(verdict);
+                    if (elements != null) {
+                        elements.remove(element);
+                    }
+                }
+            }
+            Set<Verdict> critiques = byDesignMaterial.remove(element);
+            if (critiques != null) {
+                for (Verdict verdict : critiques) {
+                    removeVerdict(verdict);
+                }
+            }
+        }
+        Model.getPump().removeModelEventListener(this, element);
+    }
+
+    /**
+     * Remove a pair from both maps. Elements nobody depends on any more
+     * are left in place with an empty map and keep their listener, since
+     * they are likely to be depended upon again on the next evaluation.
+     *
+     * @param verdict the pair
+     */
+    private void removeVerdict(Verdict verdict) {
+        Collection<Object> elements = byVerdict.remove(verdict);
+        if (elements == null) {
+            return;
+        }
+        for (Object element : elements) {
+            Map<Verdict, Set<String>> verdicts = byElement.get(element);
+            if (verdicts != null) {
+                verdicts.remove(verdict);
+            }
+        }
+    }
+
+    /**
+     * A critic applied to a design material.
+     */
+    private static final class Verdict {
+        private final Critic critic;
+
+        private final Object designMaterial;
+
+        Verdict(Critic c, Object dm) {
+            critic = c;
+            designMaterial = dm;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * critic.hashCode() + designMaterial.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Verdict)) {
+                return false;
+            }
+            Verdict other = (Verdict) o;
+            return critic == other.critic
+                && designMaterial.equals(other.designMaterial);
+        }
+    }
+}
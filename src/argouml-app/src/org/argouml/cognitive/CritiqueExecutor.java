@@ -0,0 +1,50 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.List;
+
+/**
+ * A strategy for applying the critics to a batch of design material.
+ * The Designer's critiquing thread hands over elements taken from its
+ * hot and warm queues and the executor decides how (and on how many
+ * threads) the critics are run.<p>
+ *
+ * Implementations must have delivered every ToDoItem posted by the
+ * critics to the Designer by the time
+ * {@link #critique(List, Designer, long)} returns.
+ *
+ * @see Designer#setCritiqueExecutor(CritiqueExecutor)
+ */
+public interface CritiqueExecutor {
+
+    /**
+     * @return the preferred number of elements to hand over in a single
+     *         call to {@link #critique(List, Designer, long)}
+     */
+    int getBatchSize();
+
+    /**
+     * Apply all critics to each of the given design materials.
+     *
+     * @param designMaterials the design materials to critique
+     * @param designer the designer
+     * @param reasonCode the reason code, -1 for all reasons
+     */
+    void critique(List<Object> designMaterials, Designer designer,
+            long reasonCode);
+
+    /**
+     * Release any threads held by this executor. The executor is not
+     * used after this call.
+     */
+    void shutdown();
+}
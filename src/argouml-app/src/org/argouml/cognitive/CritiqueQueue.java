@@ -0,0 +1,185 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A FIFO queue of design material waiting to be critiqued, together with
+ * the reason code it was queued for.<p>
+ *
+ * Each design material is queued at most once. Adding one that is
+ * already queued merges the reason codes and keeps its place in the
+ * queue. Membership tests, removal and dequeueing take constant time.<p>
+ *
+ * Design material queued for a reason matching the priority mask is
+ * dequeued before all other design material.<p>
+ *
+ * This class is not thread safe. The Designer only uses it while holding
+ * its own monitor.
+ */
+public class CritiqueQueue {
+
+    private final long priorityMask;
+
+    /**
+     * Design material matching the priority mask, mapped to its reason
+     * code. The single element array allows merging reasons without
+     * disturbing the insertion order.
+     */
+    private final Map<Object, long[]> priority =
+        new LinkedHashMap<Object, long[]>();
+
+    private final Map<Object, long[]> normal =
+        new LinkedHashMap<Object, long[]>();
+
+    /**
+     * Create a queue without priorities.
+     */
+    public CritiqueQueue() {
+        this(0L);
+    }
+
+    /**
+     * @param mask the reason codes that make design material jump the
+     *            queue
+     * @see Critic#reasonCodeFor(String)
+     */
+    public CritiqueQueue(long mask) {
+        priorityMask = mask;
+    }
+
+    /**
+     * Queue design material for all critics.
+     *
+     * @param dm the design material
+     * @return true if it was not queued yet
+     */
+    public boolean add(Object dm) {
+        return add(dm, -1L);
+    }
+
+    /**
+     * Queue design material for the given reason.
+     *
+     * @param dm the design material
+     * @param reasonCode the reason code
+     * @return true if it was not queued yet
+     */
+    public boolean add(Object dm, long reasonCode) {
+        long[] code = priority.get(dm);
+        if (code != null) {
+            code[0] |= reasonCode;
+            return false;
+        }
+        code = normal.get(dm);
+        if (code != null) {
+            code[0] |= reasonCode;
+            if ((code[0] & priorityMask) != 0) {
+                normal.remove(dm);
+                priority.put(dm, code);
+            }
+            return false;
+        }
+        code = new long[] {reasonCode};
+        if ((reasonCode & priorityMask) != 0) {
+            priority.put(dm, code);
+        } else {
+            normal.put(dm, code);
+        }
+        return true;
+    }
+
+    /**
+     * @param dm the design material
+     * @return true if it is queued
+     */
+    public boolean contains(Object dm) {
+        return priority.containsKey(dm) || normal.containsKey(dm);
+    }
+
+    /**
+     * @param dm the design material
+     * @return true if it was queued
+     */
+    public boolean remove(Object dm) {
+        return priority.remove(dm) != null || normal.remove(dm) != null;
+    }
+
+    /**
+     * Take design material off the head of the queue.
+     *
+     * @param max the maximum number to take
+     * @return the design material, in queue order
+     */
+    public List<Object> poll(int max) {
+        List<Object> result = new ArrayList<Object>(Math.min(max, size()));
+        drain(max, result, null);
+        return result;
+    }
+
+    /**
+     * Take all design material off the queue.
+     *
+     * @param dms the list to add the design material to, in queue order
+     * @param reasonCodes the list to add the matching reason codes to
+     */
+    public void drainTo(List<Object> dms, List<Long> reasonCodes) {
+        drain(Integer.MAX_VALUE, dms, reasonCodes);
+    }
+
+    private void drain(int max, List<Object> dms, List<Long> reasonCodes) {
+        int count = drain(priority, max, dms, reasonCodes);
+        drain(normal, max - count, dms, reasonCodes);
+    }
+
+    private static int drain(Map<Object, long[]> queue, int max,
+            List<Object> dms, List<Long> reasonCodes) {
+        int count = 0;
+        Iterator<Map.Entry<Object, long[]>> it = queue.entrySet().iterator();
+        while (count < max && it.hasNext()) {
+            Map.Entry<Object, long[]> entry = it.next();
+            dms.add(entry.getKey());
+            if (reasonCodes != null) {
+                reasonCodes.add(entry.getValue()[0]);
+            }
+            it.remove();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of queued design materials
+     */
+    public int size() {
+        return priority.size() + normal.size();
+    }
+
+    /**
+     * @return true if nothing is queued
+     */
+    public boolean isEmpty() {
+        return priority.isEmpty() && normal.isEmpty();
+    }
+
+    /**
+     * Remove everything from the queue.
+     */
+    public void clear() {
+        priority.clear();
+        normal.clear();
+    }
+}
@@ -42,9 +42,14 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -124,6 +129,21 @@ public final class Designer
     public static final ConfigurationKey AUTO_CRITIQUE =
         Configuration.makeKey("cognitive", "autocritique");
 
+    /**
+     * The number of threads used to apply the critics. A value of 1 (the
+     * default) keeps all critiquing on the critiquing thread.
+     */
+    public static final ConfigurationKey CRITIQUE_THREADS =
+        Configuration.makeKey("cognitive", "critique", "threads");
+
+    /**
+     * Whether to re-critique only what is affected by model changes once
+     * the whole design has been critiqued, instead of sweeping the whole
+     * design over and over again.
+     */
+    public static final ConfigurationKey CRITIQUE_INCREMENTAL =
+        Configuration.makeKey("cognitive", "critique", "incremental");
+
     ////////////////////////////////////////////////////////////////
     // instance variables
 
@@ -187,15 +207,7 @@ public final class Designer
    /**
      * dm's that should be critiqued ASAP.
      */
-    private List<Object> hotQueue;
-
-    private List<Long> hotReasonQueue;
-
-    private List<Object> addQueue;
-
-    private List<Long> addReasonQueue;
-
-    private List<Object> removeQueue;
+    private CritiqueQueue hotQueue;
 
     private static int longestAdd;
 
@@ -204,10 +216,50 @@ public final class Designer
     /**
      * dm's that should be critiqued relatively soon.
      */
-    private List<Object> warmQueue;
+    private CritiqueQueue warmQueue;
 
     private ChildGenerator childGenerator;
 
+    private volatile CritiqueExecutor critiqueExecutor;
+
+    /**
+     * ToDoItems posted on threads that are collecting them rather than
+     * informing the ToDoList directly.
+     *
+     * @see #startCollectingItems()
+     */
+    private final ThreadLocal<List<ToDoItem>> collectedItems =
+        new ThreadLocal<List<ToDoItem>>();
+
+    /**
+     * Critics to be re-applied to design materials because something
+     * their verdict depends on has changed.
+     */
+    private Map<Object, Set<Critic>> dirtyVerdicts;
+
+    private CritiqueDependencies dependencies;
+
+    private boolean incrementalCritiquing;
+
+    /**
+     * True when the warm queue has drained since it was last seeded with
+     * the critiquing root.
+     */
+    private boolean sweepDone;
+
+    /**
+     * Critics demoted to the slow tier by the {@link CriticProfiler} only
+     * take part in every this many sweeps of the warm queue. They are
+     * always applied to hot elements and dirty verdicts.
+     */
+    private static final int SLOW_TIER_SWEEPS = 4;
+
+    private int sweepCount;
+
+    private boolean slowSweep = true;
+
+    private volatile boolean slowCriticsIncluded = true;
+
     private static Object critiquingRoot;
 
     private long critiqueDuration;
@@ -248,18 +300,19 @@ public final class Designer
         critiquingInterval = 8000;
         critiqueCPUPercent = 10;
 
-        hotQueue = new ArrayList<Object>();
-        hotReasonQueue = new ArrayList<Long>();
-        addQueue = new ArrayList<Object>();
-        addReasonQueue = new ArrayList<Long>();
-        removeQueue = new ArrayList<Object>();
+        hotQueue = new CritiqueQueue();
         longestAdd = 0;
         longestHot = 0;
 
-        warmQueue = new ArrayList<Object>();
+        warmQueue = new CritiqueQueue();
 
         childGenerator = new EmptyChildGenerator();
 
+        critiqueExecutor = new SerialCritiqueExecutor();
+
+        dirtyVerdicts = new LinkedHashMap<Object, Set<Critic>>();
+        dependencies = new CritiqueDependencies(this);
+
         critiqueLock = 0;
     }
 
@@ -281,6 +334,12 @@ public final class Designer
      * @param root the rootobject the critiques will check
      */
     public void spawnCritiquer(Object root) {
+        int threads = Configuration.getInteger(CRITIQUE_THREADS, 1);
+        if (threads > 1) {
+            setCritiqueExecutor(new ParallelCritiqueExecutor(threads));
+        }
+        setIncrementalCritiquing(
+                Configuration.getBoolean(CRITIQUE_INCREMENTAL, false));
         /* TODO: really should be a separate class */
         critiquerThread = new Thread(this, "CritiquingThread");
         critiquerThread.setDaemon(true);
@@ -333,93 +392,128 @@ public final class Designer
           }
       }
   
-      private void critiqueCurrentRoot() {
-          long critiqueStartTime;
-          long cutoffTime;
+      /**
+       * Run one critiquing cycle. The Designer monitor is only held while
+       * the queues are manipulated, not while the critics run, so that
+       * {@link #critiqueASAP(Object, String)} callers are not blocked for
+       * the duration of the cycle. Package visible for the tests.
+       */
+      void critiqueCurrentRoot() {
+          long critiqueStartTime = System.currentTimeMillis();
+          long cutoffTime = critiqueStartTime + 3000;
+          CritiqueExecutor executor = critiqueExecutor;
+          List<Object> hot = new ArrayList<Object>();
+          List<Long> hotReasons = new ArrayList<Long>();
+          Map<Object, Set<Critic>> dirty;
           synchronized (this) {
-              critiqueStartTime = System.currentTimeMillis();
-              cutoffTime = critiqueStartTime + 3000;
+              longestHot = Math.max(longestHot, hotQueue.size());
+              if (agency.determineActiveCritics(this)) {
+                  sweepDone = false;
+              }
   
-              moveAddQueueToHotQueue();
+              hotQueue.drainTo(hot, hotReasons);
+
+              dirty = dirtyVerdicts;
+              dirtyVerdicts = new LinkedHashMap<Object, Set<Critic>>();
   
-              longestHot = Math.max(longestHot, hotQueue.size());
-              agency.determineActiveCritics(this);
+              ensureWarmQueueNotEmpty();
+          }
   
-              critiqueHotQueueElements();
+          slowCriticsIncluded = true;
+          critiqueHotQueueElements(hot, hotReasons);
   
-              removeFromWarmQueue();
+          critiqueDirtyVerdicts(dirty);
   
-              ensureWarmQueueNotEmpty();
+          slowCriticsIncluded = slowSweep;
+          critiqueWarmQueueElements(executor, cutoffTime);
   
-              critiqueWarmQueueElements(cutoffTime);
-          }
           updateCritiqueDuration(critiqueStartTime);
       }
   
-      private void critiqueHotQueueElements() {
-          int size = hotQueue.size();
+      private void critiqueHotQueueElements(List<Object> hot,
+              List<Long> hotReasons) {
+          int size = hot.size();
           for (int i = 0; i < size; i++) {
-              Object dm = hotQueue.get(0);
-              Long reasonCode = hotReasonQueue.get(0);
-              hotQueue.remove(0);
-              hotReasonQueue.remove(0);
-              Agency.applyAllCritics(dm, theDesigner(), reasonCode.longValue());
+              try {
+                  Agency.applyRelevantCritics(hot.get(i), this,
+                          hotReasons.get(i).longValue());
+              } catch (InvalidElementException e) {
+                  // The element has been deleted since it was queued
+                  LOG.log(Level.FINE, "Element " + hot.get(i)
+                          + " was deleted before it was critiqued");
+              }
           }
       }
   
-      private void removeFromWarmQueue() {
-          int size = removeQueue.size();
-          for (int i = 0; i < size; i++) {
-              warmQueue.remove(removeQueue.get(i));
+      private void critiqueDirtyVerdicts(Map<Object, Set<Critic>> dirty) {
+          for (Map.Entry<Object, Set<Critic>> entry : dirty.entrySet()) {
+              try {
+                  Agency.applyCritics(entry.getKey(), this, entry.getValue(),
+                          -1L);
+              } catch (InvalidElementException e) {
+                  // The element has been deleted since it changed
+                  LOG.log(Level.FINE, "Element " + entry.getKey()
+                          + " was deleted before it was critiqued");
+              }
           }
-          removeQueue.clear();
       }
   
       private void ensureWarmQueueNotEmpty() {
-          if (warmQueue.size() == 0) {
+          if (warmQueue.isEmpty()) {
+              if (incrementalCritiquing && sweepDone) {
+                  // Changes are picked up through the dependencies
+                  return;
+              }
               warmQueue.add(critiquingRoot);
+              sweepDone = false;
+              slowSweep = sweepCount++ % SLOW_TIER_SWEEPS == 0;
           }
       }
+
+      /**
+       * @return true if critics in the slow tier should be applied in
+       *         the current pass
+       */
+      boolean includesSlowCritics() {
+          return slowCriticsIncluded;
+      }
   
-      private void critiqueWarmQueueElements(long cutoffTime) {
+      private void critiqueWarmQueueElements(CritiqueExecutor executor,
+              long cutoffTime) {
           int minWarmElements = 5;
-          while (warmQueue.size() > 0
-              && (System.currentTimeMillis() < cutoffTime || minWarmElements > 0)) {
-              if (minWarmElements > 0) {
-                  minWarmElements--;
+          while (System.currentTimeMillis() < cutoffTime
+                  || minWarmElements > 0) {
+              List<Object> batch = takeWarmBatch(executor.getBatchSize());
+              if (batch.isEmpty()) {
+                  break;
               }
-              Object dm = warmQueue.get(0);
-              warmQueue.remove(0);
-              try {
-                  Agency.applyAllCritics(dm, theDesigner());
-                  addChildrenToWarmQueue(dm);
-              } catch (InvalidElementException e) {
-                  // Don't let a transient error kill the thread
-                  LOG.log(Level.WARNING, "Element " + dm
-                      + "caused an InvalidElementException.  "
-                      + "Ignoring for this pass.");
+              minWarmElements -= batch.size();
+              executor.critique(batch, this, -1L);
+              for (Object dm : batch) {
+                  try {
+                      addChildrenToWarmQueue(dm);
+                  } catch (InvalidElementException e) {
+                      // Don't let a transient error kill the thread
+                      LOG.log(Level.WARNING, "Element " + dm
+                          + "caused an InvalidElementException.  "
+                          + "Ignoring for this pass.");
+                  }
               }
           }
       }
   
-      private void addChildrenToWarmQueue(Object dm) {
-          java.util.Enumeration subDMs = childGenerator.gen(dm);
-          while (subDMs.hasMoreElements()) {
-              Object nextDM = subDMs.nextElement();
-              if (!(warmQueue.contains(nextDM))) {
-                  warmQueue.add(nextDM);
-              }
+      private synchronized List<Object> takeWarmBatch(int batchSize) {
+          if (warmQueue.isEmpty()) {
+              sweepDone = true;
           }
+          return warmQueue.poll(batchSize);
       }
   
-      private void moveAddQueueToHotQueue() {
-          int size = addQueue.size();
-          for (int i = 0; i < size; i++) {
-              hotQueue.add(addQueue.get(i));
-              hotReasonQueue.add(addReasonQueue.get(i));
+      private synchronized void addChildrenToWarmQueue(Object dm) {
+          java.util.Enumeration subDMs = childGenerator.gen(dm);
+          while (subDMs.hasMoreElements()) {
+              warmQueue.add(subDMs.nextElement());
           }
-          addQueue.clear();
-          addReasonQueue.clear();
       }
   
       private void updateCritiqueDuration() {
@@ -466,20 +560,43 @@ public final class Designer
             return;
         }
         LOG.log(Level.FINE, "critiqueASAP: {0}", dm);
-        int addQueueIndex = addQueue.indexOf(dm);
-        if (addQueueIndex == -1) {
-            addQueue.add(dm);
-            Long reasonCodeObj = new Long(rCode);
-            addReasonQueue.add(reasonCodeObj);
-        } else {
-            Long reasonCodeObj =
-		addReasonQueue.get(addQueueIndex);
-            long rc = reasonCodeObj.longValue() | rCode;
-            Long newReasonCodeObj = new Long(rc);
-            addReasonQueue.set(addQueueIndex, newReasonCodeObj);
+        // Repeated requests for the same element are merged by the queue
+        hotQueue.add(dm, rCode);
+        warmQueue.remove(dm);
+        longestAdd = Math.max(longestAdd, hotQueue.size());
+    }
+
+    /**
+     * Something the verdict of the given critic on the given design
+     * material depends on has changed. Re-apply that critic on the next
+     * critiquing cycle.
+     *
+     * @param critic the critic
+     * @param dm the design material
+     */
+    synchronized void critiqueASAP(Critic critic, Object dm) {
+        if (!userWorking) {
+            return;
+        }
+        Set<Critic> critics = dirtyVerdicts.get(dm);
+        if (critics == null) {
+            critics = new LinkedHashSet<Critic>();
+            dirtyVerdicts.put(dm, critics);
+        }
+        critics.add(critic);
+    }
+
+    /**
+     * Called by the Agency after the given critic has been applied to the
+     * given design material.
+     *
+     * @param critic the critic
+     * @param dm the design material
+     */
+    void critiqued(Critic critic, Object dm) {
+        if (incrementalCritiquing) {
+            dependencies.record(critic, dm);
         }
-        removeQueue.add(dm);
-        longestAdd = Math.max(longestAdd, addQueue.size());
     }
 
     /**
@@ -644,12 +761,11 @@ public final class Designer
         synchronized (theDesigner()) {
             theDesigner().toDoList.removeAllElements(); //v71
             theDesigner().hotQueue.clear();
-            theDesigner().hotReasonQueue.clear();
-            theDesigner().addQueue.clear();
-            theDesigner().addReasonQueue.clear();
-            theDesigner().removeQueue.clear();
             theDesigner().warmQueue.clear();
+            theDesigner().dirtyVerdicts.clear();
+            theDesigner().sweepDone = false;
         }
+        theDesigner().dependencies.clear();
         //clear out queues! @@@
     }
 
@@ -659,6 +775,7 @@ public final class Designer
     public static void setCritiquingRoot(Object d) {
         synchronized (theDesigner()) {
             critiquingRoot = d;
+            theDesigner().sweepDone = false;
         }
         /* Don't clear everything here, breaks loading! */
     }
@@ -686,6 +803,58 @@ public final class Designer
         childGenerator = cg;
     }
 
+    /**
+     * @return true if only the critics affected by model changes are
+     *         re-applied once the whole design has been critiqued
+     * @see #CRITIQUE_INCREMENTAL
+     */
+    public boolean isIncrementalCritiquing() {
+        return incrementalCritiquing;
+    }
+
+    /**
+     * @param incremental true to re-critique only what is affected by
+     *            model changes, false to keep sweeping the whole design
+     * @see #CRITIQUE_INCREMENTAL
+     */
+    public void setIncrementalCritiquing(boolean incremental) {
+        synchronized (this) {
+            incrementalCritiquing = incremental;
+            sweepDone = false;
+        }
+        if (incremental) {
+            dependencies.watchStructure();
+        } else {
+            dependencies.stopWatchingStructure();
+            dependencies.clear();
+        }
+    }
+
+    /**
+     * @return the executor used to apply the critics
+     */
+    public CritiqueExecutor getCritiqueExecutor() {
+        return critiqueExecutor;
+    }
+
+    /**
+     * Replace the executor used to apply the critics. The previous
+     * executor is shut down, so this should not be called while a
+     * critiquing cycle is running on it.
+     *
+     * @param executor the new executor
+     */
+    public void setCritiqueExecutor(CritiqueExecutor executor) {
+        CritiqueExecutor old;
+        synchronized (this) {
+            old = critiqueExecutor;
+            critiqueExecutor = executor;
+        }
+        if (old != null && old != executor) {
+            old.shutdown();
+        }
+    }
+
     /**
      * @return the decisions
      */
@@ -906,7 +1075,37 @@ public final class Designer
      * @param item the todo item
      */
     public void inform(ToDoItem item) {
-        toDoList.addElement(item);
+        CriticProfiler.theProfiler().itemPosted(item);
+        List<ToDoItem> collected = collectedItems.get();
+        if (collected != null) {
+            collected.add(item);
+        } else {
+            toDoList.addElement(item);
+        }
+    }
+
+    /**
+     * Make {@link #inform(ToDoItem)} collect the items posted on the
+     * current thread instead of adding them to the ToDoList. This lets a
+     * CritiqueExecutor hand the results of a batch over to the ToDoList
+     * at once.
+     */
+    void startCollectingItems() {
+        collectedItems.set(new ArrayList<ToDoItem>());
+    }
+
+    /**
+     * Stop collecting the items posted on the current thread.
+     *
+     * @return the items posted since {@link #startCollectingItems()}
+     */
+    List<ToDoItem> stopCollectingItems() {
+        List<ToDoItem> collected = collectedItems.get();
+        collectedItems.remove();
+        if (collected == null) {
+            return Collections.emptyList();
+        }
+        return collected;
     }
 
     /**
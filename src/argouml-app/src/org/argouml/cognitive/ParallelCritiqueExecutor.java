@@ -0,0 +1,143 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A CritiqueExecutor that splits a batch of design material over a
+ * ForkJoinPool.<p>
+ *
+ * The ToDoItems posted by the critics on the worker threads are collected
+ * per task and handed to the ToDoList in one go once the whole batch has
+ * been critiqued, so the ToDoList listeners see one event per batch
+ * instead of one per item.<p>
+ *
+ * This requires the critics to be safe to run concurrently against a
+ * model that is not being modified, which is why it is not the default.
+ *
+ * @see SerialCritiqueExecutor
+ */
+public class ParallelCritiqueExecutor implements CritiqueExecutor {
+
+    /**
+     * Below this number of elements a task is not split any further.
+     */
+    private static final int ELEMENTS_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+
+    private final SerialCritiqueExecutor serial = new SerialCritiqueExecutor();
+
+    /**
+     * Create an executor using one worker thread per available processor.
+     */
+    public ParallelCritiqueExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     */
+    public ParallelCritiqueExecutor(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /*
+     * Enough work to keep every worker busy for a few tasks.
+     *
+     * @see org.argouml.cognitive.CritiqueExecutor#getBatchSize()
+     */
+    public int getBatchSize() {
+        return ELEMENTS_PER_TASK * pool.getParallelism() * 4;
+    }
+
+    /*
+     * @see org.argouml.cognitive.CritiqueExecutor#critique(java.util.List, org.argouml.cognitive.Designer, long)
+     */
+    public void critique(List<Object> designMaterials, Designer designer,
+            long reasonCode) {
+        if (designMaterials.size() <= ELEMENTS_PER_TASK) {
+            // Not worth the hand-over to the pool
+            serial.critique(designMaterials, designer, reasonCode);
+            return;
+        }
+        List<ToDoItem> posted = pool.invoke(new CritiqueTask(
+                designMaterials, designer, reasonCode));
+        designer.getToDoList().addElements(posted);
+    }
+
+    /*
+     * @see org.argouml.cognitive.CritiqueExecutor#shutdown()
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Critiques a slice of the batch, splitting it in halves until the
+     * slices are small enough.
+     */
+    private class CritiqueTask extends RecursiveTask<List<ToDoItem>> {
+
+        private final List<Object> designMaterials;
+
+        private final Designer designer;
+
+        private final long reasonCode;
+
+        CritiqueTask(List<Object> dms, Designer d, long reason) {
+            designMaterials = dms;
+            designer = d;
+            reasonCode = reason;
+        }
+
+        @Override
+        protected List<ToDoItem> compute() {
+            int size = designMaterials.size();
+            if (size <= ELEMENTS_PER_TASK) {
+                List<ToDoItem> posted;
+                designer.startCollectingItems();
+                try {
+                    serial.critique(designMaterials, designer, reasonCode);
+                } finally {
+                    posted = designer.stopCollectingItems();
+                }
+                return posted;
+            }
+            int middle = size / 2;
+            CritiqueTask left = new CritiqueTask(
+                    designMaterials.subList(0, middle), designer, reasonCode);
+            CritiqueTask right = new CritiqueTask(
+                    designMaterials.subList(middle, size), designer,
+                    reasonCode);
+            left.fork();
+            List<ToDoItem> result = new ArrayList<ToDoItem>(right.compute());
+            result.addAll(left.join());
+            return result;
+        }
+
+        /**
+         * The UID.
+         */
+        private static final long serialVersionUID = -2307435215409453276L;
+    }
+}
@@ -0,0 +1,59 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.model.InvalidElementException;
+
+/**
+ * The default CritiqueExecutor. The critics are applied one element at a
+ * time on the calling thread, which is how the critiquing thread has
+ * always worked.
+ */
+public class SerialCritiqueExecutor implements CritiqueExecutor {
+
+    private static final Logger LOG =
+        Logger.getLogger(SerialCritiqueExecutor.class.getName());
+
+    /*
+     * @see org.argouml.cognitive.CritiqueExecutor#getBatchSize()
+     */
+    public int getBatchSize() {
+        return 1;
+    }
+
+    /*
+     * @see org.argouml.cognitive.CritiqueExecutor#critique(java.util.List, org.argouml.cognitive.Designer, long)
+     */
+    public void critique(List<Object> designMaterials, Designer designer,
+            long reasonCode) {
+        for (Object dm : designMaterials) {
+            try {
+                Agency.applyAllCritics(dm, designer, reasonCode);
+            } catch (InvalidElementException e) {
+                // Don't let a transient error kill the thread
+                LOG.log(Level.WARNING, "Element " + dm
+                        + " caused an InvalidElementException.  "
+                        + "Ignoring for this pass.");
+            }
+        }
+    }
+
+    /*
+     * @see org.argouml.cognitive.CritiqueExecutor#shutdown()
+     */
+    public void shutdown() {
+        // no threads of our own
+    }
+}
@@ -40,13 +40,17 @@
 package org.argouml.cognitive;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,8 +63,9 @@ import org.argouml.model.InvalidElementException;
  * Implements a list of ToDoItem's.
  * <p>
  *
- * It spawns a "sweeper" thread that periodically goes through the list and
- * eliminates ToDoItem's that are no longer valid.
+ * It spawns a "sweeper" thread that periodically eliminates ToDoItem's that
+ * are no longer valid. Only the items for which a model event was received
+ * since the previous pass are checked, see {@link ToDoValidityWatcher}.
  * <p>
  *
  * One difficulty designers face is keeping track of all the myriad details of
@@ -77,6 +82,13 @@ import org.argouml.model.InvalidElementException;
  * Items are shown under all applicable headings.
  * <p>
  *
+ * Reading the list never blocks: the items are kept in a copy on write
+ * list, so iteration works on a snapshot, and indexes by offender, poster
+ * and decision answer the per heading queries without scanning the list.
+ * Changes are serialized on a private lock so that the indexes stay
+ * consistent with the list.
+ * <p>
+ *
  * This class is dependent on Designer.
  * <p>
  *
@@ -95,12 +107,34 @@ public class ToDoList extends Observable implements Runnable {
      */
     private static final int SLEEP_SECONDS = 3;
 
+    /**
+     * Every this many passes the validity checker also checks the items
+     * of critics that don't declare what their verdict depends on.
+     */
+    private static final int FULL_CHECK_PASSES = 10;
+
     /**
      * Pending ToDoItems for the designer to consider.
      */
-    private List<ToDoItem> items;
+    private final List<ToDoItem> items;
+
+    private final Set<ToDoItem> itemSet;
+
+    /**
+     * The items for each offender, poster and decision. The lists are
+     * never modified once they are in a map, they are replaced instead.
+     * The decision index is only filled for the decisions asked for.
+     */
+    private final Map<Object, List<ToDoItem>> itemsByOffender;
+
+    private final Map<Poster, List<ToDoItem>> itemsByPoster;
 
-    private Set<ToDoItem> itemSet;
+    private final Map<Decision, List<ToDoItem>> itemsByDecision;
+
+    /**
+     * Serializes the changes to the list and its indexes.
+     */
+    private final Object writeLock = new Object();
 
     /**
      * These are computed when needed.
@@ -137,6 +171,19 @@ public class ToDoList extends Observable implements Runnable {
 
     private static int numNotValid;
 
+    /**
+     * Decides which items the validity checker thread looks at.
+     */
+    private final ToDoValidityWatcher watcher = new ToDoValidityWatcher();
+
+    /**
+     * The number of validity checks done by the validity checker thread
+     * and the number it could skip because nothing changed for the item.
+     */
+    private final AtomicLong validityChecks = new AtomicLong();
+
+    private final AtomicLong skippedValidityChecks = new AtomicLong();
+
     /**
      * state variable for whether the validity checking thread is paused
      * (waiting).
@@ -150,10 +197,13 @@ public class ToDoList extends Observable implements Runnable {
      */
     ToDoList() {
 
-        items = Collections.synchronizedList(new ArrayList<ToDoItem>(100));
-        itemSet = Collections.synchronizedSet(new HashSet<ToDoItem>(100));
-        resolvedItems =
-            Collections.synchronizedSet(new LinkedHashSet<ResolvedCritic>(100));
+        items = new CopyOnWriteArrayList<ToDoItem>();
+        itemSet = Collections.newSetFromMap(
+                new ConcurrentHashMap<ToDoItem, Boolean>(100));
+        itemsByOffender = new ConcurrentHashMap<Object, List<ToDoItem>>();
+        itemsByPoster = new ConcurrentHashMap<Poster, List<ToDoItem>>();
+        itemsByDecision = new ConcurrentHashMap<Decision, List<ToDoItem>>();
+        resolvedItems = new CopyOnWriteArraySet<ResolvedCritic>();
         listenerList = new EventListenerList();
         longestToDoList = 0;
         numNotValid = 0;
@@ -175,10 +225,13 @@ public class ToDoList extends Observable implements Runnable {
 
     /**
      * Entry point for validity checker thread. Periodically check to see if
-     * items on the list are still valid.
+     * the items on the list that may have been affected by a change are
+     * still valid. Every few passes the items of critics that don't declare
+     * their dependencies are checked as well.
      */
     public void run() {
         final List<ToDoItem> removes = new ArrayList<ToDoItem>();
+        int pass = 0;
 
         while (true) {
 
@@ -193,7 +246,12 @@ public class ToDoList extends Observable implements Runnable {
                 }
             }
 
-            forceValidityCheck(removes);
+            List<ToDoItem> candidates =
+                watcher.takeItemsToCheck(++pass % FULL_CHECK_PASSES == 0);
+            validityChecks.addAndGet(candidates.size());
+            skippedValidityChecks.addAndGet(
+                    Math.max(0, items.size() - candidates.size()));
+            forceValidityCheck(candidates, removes);
             removes.clear();
             try {
                 Thread.sleep(SLEEP_SECONDS * 1000);
@@ -205,13 +263,13 @@ public class ToDoList extends Observable implements Runnable {
 
     /**
      * Check each ToDoItem on the list to see if it is still valid. If not, then
-     * remove that item. This is called automatically by the
-     * ValidityCheckingThread, and it can be called by the user pressing a
-     * button via forceValidityCheck().
+     * remove that item. The ValidityCheckingThread only checks the items
+     * affected by a change, this can be called by the user pressing a
+     * button to check them all.
      */
     public void forceValidityCheck() {
         final List<ToDoItem> removes = new ArrayList<ToDoItem>();
-        forceValidityCheck(removes);
+        forceValidityCheck(items, removes);
     }
 
     /**
@@ -224,43 +282,71 @@ public class ToDoList extends Observable implements Runnable {
      * <em>Warning: Fragile code!</em> No method that this method calls can
      * synchronized the Designer, otherwise there will be deadlock.
      *
+     * @param candidates the items to check
      * @param removes a list containing the items to be removed
      */
     private synchronized void forceValidityCheck(
+            final Collection<ToDoItem> candidates,
             final List<ToDoItem> removes) {
-        synchronized (items) {
-            for (ToDoItem item : items) {
-                boolean valid;
-                try {
-                    valid = item.stillValid(designer);
-                } catch (InvalidElementException ex) {
-                    // If element has been deleted, it's no longer valid
-                    valid = false;
-                } catch (Exception ex) {
-                    valid = false;
-                    StringBuffer buf = new StringBuffer(
-                            "Exception raised in ToDo list cleaning");
-                    buf.append("\n");
-                    buf.append(item.toString());
-                    LOG.log(Level.SEVERE,buf.toString(), ex);
-                }
-                if (!valid) {
-                    numNotValid++;
-                    removes.add(item);
-                }
+        for (ToDoItem item : candidates) {
+            boolean valid;
+            try {
+                valid = item.stillValid(designer);
+            } catch (InvalidElementException ex) {
+                // If element has been deleted, it's no longer valid
+                valid = false;
+            } catch (Exception ex) {
+                valid = false;
+                StringBuffer buf = new StringBuffer(
+                        "Exception raised in ToDo list cleaning");
+                buf.append("\n");
+                buf.append(item.toString());
+                LOG.log(Level.SEVERE,buf.toString(), ex);
+            }
+            if (!valid) {
+                numNotValid++;
+                removes.add(item);
             }
         }
 
-        for (ToDoItem item : removes) {
-            removeE(item);
-            // History.TheHistory.addItemResolution(item,
-            // "no longer valid");
-            // ((ToDoItem)item).resolve("no longer valid");
-            // notifyObservers("removeElement", item);
+        if (removes.isEmpty()) {
+            return;
         }
+        List<ToDoItem> removed = removeE(removes);
+        // History.TheHistory.addItemResolution(item,
+        // "no longer valid");
+        // ((ToDoItem)item).resolve("no longer valid");
+        // notifyObservers("removeElement", item);
         recomputeAllOffenders();
         recomputeAllPosters();
-        fireToDoItemsRemoved(removes);
+        fireToDoItemsRemoved(removed);
+    }
+
+    /**
+     * @return the number of item validity checks done by the validity
+     *         checker thread
+     */
+    public long getValidityChecks() {
+        return validityChecks.get();
+    }
+
+    /**
+     * @return the number of item validity checks the validity checker
+     *         thread skipped because nothing changed for the item
+     */
+    public long getSkippedValidityChecks() {
+        return skippedValidityChecks.get();
+    }
+
+    /**
+     * Have all the items of a poster checked on the next pass of the
+     * validity checker thread, for example because the poster has been
+     * switched off.
+     *
+     * @param poster the poster
+     */
+    void recheckPoster(Poster poster) {
+        watcher.suspect(elementListForPoster(poster));
     }
 
     /**
@@ -337,18 +423,10 @@ public class ToDoList extends Observable implements Runnable {
 
 
     /**
-     * Returns the List of the ToDoItems.  It is <em>mandatory</em> that
-     * code iterating over this list synchronize access to the list as described
-     * in {@link Collections#synchronizedList(List)}.
-     * <pre>
-     *  List<ToDoItem> list = toDoList.getToDoItemList();
-     *      ...
-     *  synchronized(list) {
-     *      for (ToDoItem item : list ) { // Must be in synchronized block
-     *      ....
-     *  }
-     * </pre>
-     * @see Collections#synchronizedList(List)
+     * Returns the List of the ToDoItems. The list is safe to iterate
+     * without locking: an iteration sees the items as they were when it
+     * started. The list must not be modified directly.
+     *
      * @return the List of ToDo items.
      */
     public List<ToDoItem> getToDoItemList() {
@@ -356,18 +434,10 @@ public class ToDoList extends Observable implements Runnable {
     }
 
     /**
-     * Returns the set of ResolvedCritics.  It is <em>mandatory</em> that
-     * code iterating over this set synchronize access to the set as described
-     * in {@link Collections#synchronizedSet(Set)}.
-     * <pre>
-     *  Set<ResolvedCritic> set = toDoList.getResolvedItems();
-     *      ...
-     *  synchronized(set) {
-     *      for (ResolvedCritic item : set ) { // Must be in synchronized block
-     *      ....
-     *  }
-     * </pre>
-     * @see Collections#synchronizedSet(Set)
+     * Returns the set of ResolvedCritics. The set is safe to iterate
+     * without locking: an iteration sees the resolved critics as they were
+     * when it started.
+     *
      * @return the resolved items
      */
     public Set<ResolvedCritic> getResolvedItems() {
@@ -384,21 +454,29 @@ public class ToDoList extends Observable implements Runnable {
         // this method is running.
         ListSet all = allOffenders;
         if (all == null) {
-            int size = items.size();
-            all = new ListSet(size * 2);
-            synchronized (items) {
-                for (ToDoItem item : items) {
-                    all.addAll(item.getOffenders());
-                }
+            all = new ListSet(itemsByOffender.size() * 2);
+            for (ToDoItem item : items) {
+                all.addAll(item.getOffenders());
             }
             allOffenders = all;
         }
         return all;
     }
 
+    /**
+     * Extend the cached set of offenders. The cached set is replaced rather
+     * than modified, as it may be being iterated. Must be called while
+     * holding the write lock.
+     *
+     * @param newoffs the offenders of a new item
+     */
     private void addOffenders(ListSet newoffs) {
-        if (allOffenders != null) {
-            allOffenders.addAll(newoffs);
+        ListSet all = allOffenders;
+        if (all != null && !all.containsAll(newoffs)) {
+            ListSet copy = new ListSet(all.size() + newoffs.size());
+            copy.addAll(all);
+            copy.addAll(newoffs);
+            allOffenders = copy;
         }
     }
 
@@ -411,19 +489,28 @@ public class ToDoList extends Observable implements Runnable {
         ListSet<Poster> all = allPosters;
         if (all == null) {
             all = new ListSet<Poster>();
-            synchronized (items) {
-                for (ToDoItem item : items) {
-                    all.add(item.getPoster());
-                }
+            for (ToDoItem item : items) {
+                all.add(item.getPoster());
             }
             allPosters = all;
         }
         return all;
     }
 
+    /**
+     * Extend the cached set of posters. The cached set is replaced rather
+     * than modified, as it may be being iterated. Must be called while
+     * holding the write lock.
+     *
+     * @param newp the poster of a new item
+     */
     private void addPosters(Poster newp) {
-        if (allPosters != null) {
-            allPosters.add(newp);
+        ListSet<Poster> all = allPosters;
+        if (all != null && !all.contains(newp)) {
+            ListSet<Poster> copy = new ListSet<Poster>(all.size() + 1);
+            copy.addAll(all);
+            copy.add(newp);
+            allPosters = copy;
         }
     }
 
@@ -443,13 +530,19 @@ public class ToDoList extends Observable implements Runnable {
         return new ArrayList<Goal>();
     }
 
-    /*
-     * TODO: needs documenting, why synchronized?
+    /**
+     * Check whether an item may be added, and if so add it to the indexes.
+     * The caller adds it to the list itself. Must be called while holding
+     * the write lock.
+     *
+     * @param item the todo item to be added
+     * @return true if the item should be added, false if it was already on
+     *         the list or has been resolved
      */
-    private void addE(ToDoItem item) {
+    private boolean addE(ToDoItem item) {
         /* skip any identical items already on the list */
         if (itemSet.contains(item)) {
-            return;
+            return false;
         }
 
         if (item.getPoster() instanceof Critic) {
@@ -457,51 +550,92 @@ public class ToDoList extends Observable implements Runnable {
             try {
                 rc = new ResolvedCritic((Critic) item.getPoster(), item
                         .getOffenders(), false);
-                Iterator<ResolvedCritic> elems = resolvedItems.iterator();
                 // cat.debug("Checking for inhibitors " + rc);
-                while (elems.hasNext()) {
-                    if (elems.next().equals(rc)) {
+                for (ResolvedCritic resolved : resolvedItems) {
+                    if (resolved.equals(rc)) {
                         LOG.log(Level.FINE, "ToDoItem not added because it was resolved");
-                        return;
+                        return false;
                     }
                 }
             } catch (UnresolvableException ure) {
             }
         }
 
-        items.add(item);
         itemSet.add(item);
-        longestToDoList = Math.max(longestToDoList, items.size());
+        for (Object offender : item.getOffenders()) {
+            itemsByOffender.put(offender,
+                    with(itemsByOffender.get(offender), item));
+        }
+        Poster poster = item.getPoster();
+        itemsByPoster.put(poster, with(itemsByPoster.get(poster), item));
+        for (Map.Entry<Decision, List<ToDoItem>> entry
+                : itemsByDecision.entrySet()) {
+            if (poster.supports(entry.getKey())) {
+                itemsByDecision.put(entry.getKey(),
+                        with(entry.getValue(), item));
+            }
+        }
         addOffenders(item.getOffenders());
-        addPosters(item.getPoster());
+        addPosters(poster);
         // if (item.getPoster() instanceof Designer)
         // History.TheHistory.addItem(item, "note: ");
         // else
         // History.TheHistory.addItemCritique(item);
-        notifyObservers("addElement", item);
-        fireToDoItemAdded(item);
+        return true;
     }
 
     /**
      * @param item the todo item to be added
      */
     public void addElement(ToDoItem item) {
-        addE(item);
+        boolean added;
+        synchronized (writeLock) {
+            added = addE(item);
+            if (added) {
+                items.add(item);
+                longestToDoList = Math.max(longestToDoList, items.size());
+            }
+        }
+        if (added) {
+            watcher.watch(item);
+            notifyObservers("addElement", item);
+            fireToDoItemAdded(item);
+        }
     }
 
     /**
-     * @param list the todo items to be removed
+     * Add several items at once. The listeners are informed with a single
+     * event for all the items that were actually added.
+     *
+     * @param newItems the todo items to be added
      */
-    public void removeAll(ToDoList list) {
-        List<ToDoItem> itemList = list.getToDoItemList();
-        synchronized (itemList) {
-            for (ToDoItem item : itemList) {
-                removeE(item);
+    public void addElements(List<ToDoItem> newItems) {
+        List<ToDoItem> added = new ArrayList<ToDoItem>(newItems.size());
+        synchronized (writeLock) {
+            for (ToDoItem item : newItems) {
+                if (addE(item)) {
+                    added.add(item);
+                }
             }
-            recomputeAllOffenders();
-            recomputeAllPosters();
-            fireToDoItemsRemoved(itemList);
+            items.addAll(added);
+            longestToDoList = Math.max(longestToDoList, items.size());
+        }
+        for (ToDoItem item : added) {
+            watcher.watch(item);
+            notifyObservers("addElement", item);
         }
+        fireToDoItemsAdded(added);
+    }
+
+    /**
+     * @param list the todo items to be removed
+     */
+    public void removeAll(ToDoList list) {
+        List<ToDoItem> removed =
+            removeE(new ArrayList<ToDoItem>(list.getToDoItemList()));
+        recomputeAllOffenders();
+        recomputeAllPosters();
+        fireToDoItemsRemoved(removed);
     }
 
     /**
@@ -510,8 +644,82 @@ public class ToDoList extends Observable implements Runnable {
      *         <code>false</code> otherwise
      */
     private boolean removeE(ToDoItem item) {
-        itemSet.remove(item);
-        return items.remove(item);
+        return !removeE(Collections.singletonList(item)).isEmpty();
+    }
+
+    /**
+     * Remove several items from the list and the indexes, copying the list
+     * only once.
+     *
+     * @param oldItems the todo items to be removed
+     * @return the items that were a component of this list
+     */
+    private List<ToDoItem> removeE(List<ToDoItem> oldItems) {
+        List<ToDoItem> removed = new ArrayList<ToDoItem>(oldItems.size());
+        synchronized (writeLock) {
+            for (ToDoItem item : oldItems) {
+                if (!itemSet.remove(item)) {
+                    continue;
+                }
+                removed.add(item);
+                for (Object offender : item.getOffenders()) {
+                    unindex(itemsByOffender, offender, item, false);
+                }
+                unindex(itemsByPoster, item.getPoster(), item, false);
+                for (Decision decision : itemsByDecision.keySet()) {
+                    if (item.getPoster().supports(decision)) {
+                        unindex(itemsByDecision, decision, item, true);
+                    }
+                }
+            }
+            if (!removed.isEmpty()) {
+                items.removeAll(new HashSet<ToDoItem>(removed));
+            }
+        }
+        // Includes the items no longer on the list: the watcher may still
+        // hold one that was removed while it was being added
+        for (ToDoItem item : oldItems) {
+            watcher.unwatch(item);
+        }
+        return removed;
+    }
+
+    /**
+     * @param old an index entry, possibly null
+     * @param item the item to add to it
+     * @return a new index entry with the item appended
+     */
+    private static List<ToDoItem> with(List<ToDoItem> old, ToDoItem item) {
+        if (old == null) {
+            return Collections.singletonList(item);
+        }
+        List<ToDoItem> result = new ArrayList<ToDoItem>(old.size() + 1);
+        result.addAll(old);
+        result.add(item);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Remove an item from one entry of an index.
+     *
+     * @param index the index
+     * @param key the key of the entry
+     * @param item the item to remove
+     * @param keepEmpty false to drop the entry when it becomes empty
+     */
+    private static <K> void unindex(Map<K, List<ToDoItem>> index, K key,
+            ToDoItem item, boolean keepEmpty) {
+        List<ToDoItem> old = index.get(key);
+        if (old == null || !old.contains(item)) {
+            return;
+        }
+        List<ToDoItem> result = new ArrayList<ToDoItem>(old);
+        result.remove(item);
+        if (result.isEmpty() && !keepEmpty) {
+            index.remove(key);
+        } else {
+            index.put(key, Collections.unmodifiableList(result));
+        }
     }
 
     /**
@@ -586,9 +794,16 @@ public class ToDoList extends Observable implements Runnable {
      */
     public void removeAllElements() {
         LOG.log(Level.FINE, "removing all todo items");
-        List<ToDoItem> oldItems = new ArrayList<ToDoItem>(items);
-        items.clear();
-        itemSet.clear();
+        List<ToDoItem> oldItems;
+        synchronized (writeLock) {
+            oldItems = new ArrayList<ToDoItem>(items);
+            items.clear();
+            itemSet.clear();
+            itemsByOffender.clear();
+            itemsByPoster.clear();
+            itemsByDecision.clear();
+        }
+        watcher.clear();
 
         recomputeAllOffenders();
         recomputeAllPosters();
@@ -609,15 +824,56 @@ public class ToDoList extends Observable implements Runnable {
      *         it.
      */
     public List<ToDoItem> elementListForOffender(Object offender) {
-        List<ToDoItem> offenderItems = new ArrayList<ToDoItem>();
-        synchronized (items) {
-            for (ToDoItem item : items) {
-                if (item.getOffenders().contains(offender)) {
-                    offenderItems.add(item);
+        return copyOf(itemsByOffender.get(offender));
+    }
+
+    /**
+     * @param poster the poster
+     * @return A private copy of the list of todo items posted by the
+     *         poster, in the order of the ToDoList.
+     */
+    public List<ToDoItem> elementListForPoster(Poster poster) {
+        return copyOf(itemsByPoster.get(poster));
+    }
+
+    /**
+     * @param decision the decision
+     * @return A private copy of the list of todo items whose poster
+     *         supports the decision, in the order of the ToDoList.
+     */
+    public List<ToDoItem> elementListForDecision(Decision decision) {
+        List<ToDoItem> decisionItems = itemsByDecision.get(decision);
+        if (decisionItems == null) {
+            synchronized (writeLock) {
+                decisionItems = itemsByDecision.get(decision);
+                if (decisionItems == null) {
+                    List<ToDoItem> found = new ArrayList<ToDoItem>();
+                    for (ToDoItem item : items) {
+                        if (item.getPoster().supports(decision)) {
+                            found.add(item);
+                        }
+                    }
+                    decisionItems = Collections.unmodifiableList(found);
+                    itemsByDecision.put(decision, decisionItems);
                 }
             }
         }
-        return offenderItems;
+        return copyOf(decisionItems);
+    }
+
+    /**
+     * @param offender the offender
+     * @return true if there is an item for the offender
+     */
+    public boolean hasElementsForOffender(Object offender) {
+        return itemsByOffender.containsKey(offender);
+    }
+
+    private static List<ToDoItem> copyOf(List<ToDoItem> indexed) {
+        if (indexed == null) {
+            return new ArrayList<ToDoItem>();
+        }
+        return new ArrayList<ToDoItem>(indexed);
     }
 
     /**
@@ -758,11 +1014,8 @@ public class ToDoList extends Observable implements Runnable {
     public String toString() {
         StringBuffer res = new StringBuffer(100);
         res.append(getClass().getName()).append(" {\n");
-        List<ToDoItem> itemList = getToDoItemList();
-        synchronized (itemList) {
-            for (ToDoItem item : itemList) {
-                res.append("    ").append(item.toString()).append("\n");
-            }
+        for (ToDoItem item : items) {
+            res.append("    ").append(item.toString()).append("\n");
         }
         res.append("  }");
         return res.toString();
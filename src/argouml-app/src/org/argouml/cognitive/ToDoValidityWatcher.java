@@ -0,0 +1,269 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.argouml.model.Model;
+import org.argouml.model.ModelEventBatch;
+import org.argouml.model.ModelEventBatchListener;
+
+/**
+ * Decides which ToDoItems the validity checker of the ToDoList has to
+ * look at. It listens to the ModelEventPump for the offenders of the
+ * items posted by critics, and for the elements the critic reports the
+ * verdict depends on, and marks an item as suspect when one of those
+ * changes.<p>
+ *
+ * Items with an offender that is not a model element, such as a Fig,
+ * cannot be watched and are checked on every pass. Items posted by the
+ * Designer are always valid and are never checked.<p>
+ *
+ * The default {@link Critic#getDependencies(Object)} only guesses what a
+ * verdict depends on. The items of critics that don't override it are
+ * watched with that guess, and also checked on every full pass of the
+ * validity checker, so that an item resolved through an element nobody
+ * listens to is removed eventually.<p>
+ *
+ * When the ModelEventPump batches events, the changes of a whole
+ * transaction are taken at once.
+ *
+ * @see ToDoList
+ */
+class ToDoValidityWatcher implements ModelEventBatchListener {
+
+    /**
+     * Watched element to the items depending on it.
+     */
+    private final Map<Object, Set<ToDoItem>> byElement =
+        new HashMap<Object, Set<ToDoItem>>();
+
+    /**
+     * The elements each watched item depends on.
+     */
+    private final Map<ToDoItem, Collection<Object>> byItem =
+        new HashMap<ToDoItem, Collection<Object>>();
+
+    /**
+     * Items that have to be checked on every pass.
+     */
+    private final Set<ToDoItem> unwatched = new LinkedHashSet<ToDoItem>();
+
+    /**
+     * Watched items of critics that don't declare their dependencies.
+     */
+    private final Set<ToDoItem> undeclared = new LinkedHashSet<ToDoItem>();
+
+    /**
+     * Whether each critic class declares its dependencies.
+     */
+    private static final Map<Class, Boolean> DECLARING =
+        new HashMap<Class, Boolean>();
+
+    /**
+     * Items for which something changed since the last pass.
+     */
+    private Set<ToDoItem> suspects = new LinkedHashSet<ToDoItem>();
+
+    /**
+     * Start watching a new item.
+     *
+     * @param item the item added to the ToDoList
+     */
+    void watch(ToDoItem item) {
+        Poster poster = item.getPoster();
+        if (poster == null || poster instanceof Designer) {
+            return;
+        }
+        Collection<Object> elements = dependencies(item);
+        List<Object> newlyWatched = new ArrayList<Object>();
+        synchronized (this) {
+            if (elements == null) {
+                unwatched.add(item);
+                return;
+            }
+            byItem.put(item, elements);
+            if (!declaresDependencies((Critic) poster)) {
+                undeclared.add(item);
+            }
+            for (Object element : elements) {
+                Set<ToDoItem> watchers = byElement.get(element);
+                if (watchers == null) {
+                    watchers = new LinkedHashSet<ToDoItem>();
+                    byElement.put(element, watchers);
+                    newlyWatched.add(element);
+                }
+                watchers.add(item);
+            }
+        }
+        for (Object element : newlyWatched) {
+            Model.getPump().addModelEventListener(this, element);
+        }
+    }
+
+    /**
+     * Stop watching an item removed from the ToDoList.
+     *
+     * @param item the item
+     */
+    void unwatch(ToDoItem item) {
+        List<Object> unused = new ArrayList<Object>();
+        synchronized (this) {
+            unwatched.remove(item);
+            undeclared.remove(item);
+            suspects.remove(item);
+            Collection<Object> elements = byItem.remove(item);
+            if (elements == null) {
+                return;
+            }
+            for (Object element : elements) {
+                Set<ToDoItem> watchers = byElement.get(element);
+                if (watchers != null) {
+                    watchers.remove(item);
+                    if (watchers.isEmpty()) {
+                        byElement.remove(element);
+                        unused.add(element);
+                    }
+                }
+            }
+        }
+        for (Object element : unused) {
+            Model.getPump().removeModelEventListener(this, element);
+        }
+    }
+
+    /**
+     * Have some items checked on the next pass whether or not their
+     * elements changed.
+     *
+     * @param items the items
+     */
+    synchronized void suspect(Collection<ToDoItem> items) {
+        suspects.addAll(items);
+    }
+
+    /**
+     * @param full true for a full pass
+     * @return the items to check on this pass: the ones that cannot be
+     *         watched and the ones for which something changed since the
+     *         last call, and on a full pass also the ones of critics that
+     *         don't declare their dependencies
+     */
+    synchronized List<ToDoItem> takeItemsToCheck(boolean full) {
+        Set<ToDoItem> result = new LinkedHashSet<ToDoItem>(unwatched);
+        result.addAll(suspects);
+        if (full) {
+            result.addAll(undeclared);
+        }
+        suspects = new LinkedHashSet<ToDoItem>();
+        return new ArrayList<ToDoItem>(result);
+    }
+
+    /**
+     * Forget all items and stop listening.
+     */
+    void clear() {
+        List<Object> watched;
+        synchronized (this) {
+            watched = new ArrayList<Object>(byElement.keySet());
+            byElement.clear();
+            byItem.clear();
+            unwatched.clear();
+            undeclared.clear();
+            suspects.clear();
+        }
+        for (Object element : watched) {
+            Model.getPump().removeModelEventListener(this, element);
+        }
+    }
+
+    /*
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        synchronized (this) {
+            Set<ToDoItem> watchers = byElement.get(evt.getSource());
+            if (watchers != null) {
+                suspects.addAll(watchers);
+            }
+        }
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventBatchListener#modelEventsChanged(org.argouml.model.ModelEventBatch)
+     */
+    public void modelEventsChanged(ModelEventBatch batch) {
+        synchronized (this) {
+            for (Object element : batch.getElements()) {
+                Set<ToDoItem> watchers = byElement.get(element);
+                if (watchers != null) {
+                    suspects.addAll(watchers);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param critic the critic
+     * @return true if the critic overrides
+     *         {@link Critic#getDependencies(Object)}
+     */
+    static boolean declaresDependencies(Critic critic) {
+        Class clazz = critic.getClass();
+        synchronized (DECLARING) {
+            Boolean declares = DECLARING.get(clazz);
+            if (declares == null) {
+                try {
+                    declares = clazz.getMethod("getDependencies",
+                            Object.class).getDeclaringClass() != Critic.class;
+                } catch (NoSuchMethodException e) {
+                    declares = Boolean.FALSE;
+                }
+                DECLARING.put(clazz, declares);
+            }
+            return declares;
+        }
+    }
+
+    /**
+     * @param item the item
+     * @return the model elements the validity of the item depends on, or
+     *         null if it cannot be determined from model events
+     */
+    private static Collection<Object> dependencies(ToDoItem item) {
+        if (!(item.getPoster() instanceof Critic)
+                || item.getOffenders().isEmpty()) {
+            return null;
+        }
+        Critic critic = (Critic) item.getPoster();
+        Set<Object> elements = new LinkedHashSet<Object>();
+        for (Object offender : item.getOffenders()) {
+            if (!Model.getFacade().isAUMLElement(offender)) {
+                return null;
+            }
+            elements.add(offender);
+            for (Object dependency
+                    : critic.getDependencies(offender).keySet()) {
+                if (Model.getFacade().isAUMLElement(dependency)) {
+                    elements.add(dependency);
+                }
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,44 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive.ui;
+
+import java.awt.event.ActionEvent;
+
+import javax.swing.Action;
+
+import org.argouml.i18n.Translator;
+import org.argouml.ui.UndoableAction;
+
+
+/**
+ * Action to open the Critic Statistics dialog.
+ */
+public class ActionOpenCriticStatistics extends UndoableAction {
+
+    /**
+     * The constructor.
+     */
+    public ActionOpenCriticStatistics() {
+        super(Translator.localize("action.critic-statistics"), null);
+        // Set the tooltip string:
+        putValue(Action.SHORT_DESCRIPTION,
+                Translator.localize("action.critic-statistics"));
+    }
+
+    /*
+     * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+     */
+    public void actionPerformed(ActionEvent ae) {
+        super.actionPerformed(ae);
+        CriticStatisticsDialog d = new CriticStatisticsDialog();
+        d.setVisible(true);
+    }
+} /* end class ActionOpenCriticStatistics */
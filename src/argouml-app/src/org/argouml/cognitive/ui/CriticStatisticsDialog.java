@@ -0,0 +1,184 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import org.argouml.cognitive.CriticProfiler;
+import org.argouml.cognitive.CriticStatistics;
+import org.argouml.cognitive.Translator;
+import org.argouml.util.ArgoDialog;
+
+/**
+ * The dialog showing how much time each critic has taken, as measured by
+ * the {@link CriticProfiler}.
+ */
+public class CriticStatisticsDialog extends ArgoDialog {
+
+    private static final int DIALOG_WIDTH = 640;
+    private static final int DIALOG_HEIGHT = 400;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final double PERCENTILE = 95;
+
+    private StatisticsTableModel tableModel = new StatisticsTableModel();
+
+    /**
+     * The constructor.
+     */
+    public CriticStatisticsDialog() {
+        super(Translator.localize("dialog.title.critic-statistics"), false);
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(DIALOG_WIDTH, DIALOG_HEIGHT));
+
+        JButton refreshButton = new JButton(Translator.localize(
+                "dialog.critic-statistics.button.refresh"));
+        refreshButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                tableModel.refresh();
+            }
+        });
+        JButton resetButton = new JButton(Translator.localize(
+                "dialog.critic-statistics.button.reset"));
+        resetButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                CriticProfiler.theProfiler().reset();
+                tableModel.refresh();
+            }
+        });
+        final JCheckBox measureBox = new JCheckBox(Translator.localize(
+                "dialog.critic-statistics.checkbox.measure"),
+                CriticProfiler.theProfiler().isEnabled());
+        measureBox.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                CriticProfiler.theProfiler().setEnabled(
+                        measureBox.isSelected());
+            }
+        });
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttons.add(measureBox);
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        mainPanel.add(scroll, BorderLayout.CENTER);
+        mainPanel.add(buttons, BorderLayout.SOUTH);
+
+        setContent(mainPanel);
+    }
+
+    /**
+     * A snapshot of the statistics of all critics, one row per critic.
+     */
+    private static class StatisticsTableModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {
+            "critic", "invocations", "total", "mean", "percentile",
+            "max", "items", "exceptions", "demoted",
+        };
+
+        private List<CriticStatistics> rows =
+            new ArrayList<CriticStatistics>();
+
+        StatisticsTableModel() {
+            refresh();
+        }
+
+        void refresh() {
+            rows = CriticProfiler.theProfiler().getAllStatistics();
+            fireTableDataChanged();
+        }
+
+        /*
+         * @see javax.swing.table.TableModel#getRowCount()
+         */
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        /*
+         * @see javax.swing.table.TableModel#getColumnCount()
+         */
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        /*
+         * @see javax.swing.table.AbstractTableModel#getColumnName(int)
+         */
+        @Override
+        public String getColumnName(int column) {
+            return Translator.localize("dialog.critic-statistics.column-name."
+                    + COLUMNS[column]);
+        }
+
+        /*
+         * @see javax.swing.table.AbstractTableModel#getColumnClass(int)
+         */
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+            case 0:
+                return String.class;
+            case 8:
+                return Boolean.class;
+            default:
+                return Long.class;
+            }
+        }
+
+        /*
+         * @see javax.swing.table.TableModel#getValueAt(int, int)
+         */
+        public Object getValueAt(int row, int column) {
+            CriticStatistics stats = rows.get(row);
+            switch (column) {
+            case 0:
+                return stats.getCritic().getCriticName();
+            case 1:
+                return stats.getInvocations();
+            case 2:
+                return stats.getTotalNanos() / NANOS_PER_MILLI;
+            case 3:
+                return stats.getMeanNanos() / NANOS_PER_MICRO;
+            case 4:
+                return stats.getPercentileNanos(PERCENTILE) / NANOS_PER_MICRO;
+            case 5:
+                return stats.getMaxNanos() / NANOS_PER_MICRO;
+            case 6:
+                return stats.getItemsPosted();
+            case 7:
+                return stats.getExceptions();
+            default:
+                return stats.isDemoted();
+            }
+        }
+    }
+}
@@ -38,7 +38,6 @@
 
 package org.argouml.cognitive.ui;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.event.TreeModelListener;
@@ -68,18 +67,10 @@ public class GoListToDecisionsToItems extends AbstractGoList2 {
 	    return getDecisionList().get(index);
 	}
 	if (parent instanceof Decision) {
-            Decision dec = (Decision) parent;
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPoster().supports(dec)) {
-                        if (index == 0) {
-                            return item;
-                        }
-                        index--;
-                    }
-                }
+            List<ToDoItem> itemList = Designer.theDesigner().getToDoList()
+                    .elementListForDecision((Decision) parent);
+            if (index < itemList.size()) {
+                return itemList.get(index);
             }
         }
 
@@ -92,19 +83,10 @@ public class GoListToDecisionsToItems extends AbstractGoList2 {
 	    return getDecisionList().size();
 	}
 	if (parent instanceof Decision) {
-	    Decision dec = (Decision) parent;
-            int count = 0;
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPoster().supports(dec)) {
-                        count++;
-                    }
-                    if (stopafterone && count > 0) {
-                        break;
-                    }
-                }
+            int count = Designer.theDesigner().getToDoList()
+                    .elementListForDecision((Decision) parent).size();
+            if (stopafterone) {
+                return Math.min(count, 1);
             }
 	    return count;
 	}
@@ -136,20 +118,8 @@ public class GoListToDecisionsToItems extends AbstractGoList2 {
 	    return getDecisionList().indexOf(child);
 	}
 	if (parent instanceof Decision) {
-	    // instead of making a new list, decrement index, return when
-	    // found and index == 0
-	    List<ToDoItem> candidates = new ArrayList<ToDoItem>();
-	    Decision dec = (Decision) parent;
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPoster().supports(dec)) {
-                        candidates.add(item);
-                    }
-                }
-            }
-	    return candidates.indexOf(child);
+            return Designer.theDesigner().getToDoList()
+                    .elementListForDecision((Decision) parent).indexOf(child);
 	}
 	return -1;
     }
@@ -38,7 +38,6 @@
 
 package org.argouml.cognitive.ui;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -107,17 +106,8 @@ public class GoListToOffenderToItem extends AbstractGoList2 {
 //            return false;
 //        }
         
-        List<ToDoItem> itemList = 
-            Designer.theDesigner().getToDoList().getToDoItemList();
-        synchronized (itemList) {
-            for (ToDoItem item : itemList) {
-                if (item.getOffenders().contains(node)) {
-                    return false;
-                }
-            }
-        }
-        
-        return true;
+        return !Designer.theDesigner().getToDoList().hasElementsForOffender(
+                node);
     }
 
 
@@ -149,20 +139,8 @@ public class GoListToOffenderToItem extends AbstractGoList2 {
         
         //otherwise parent must be an offending design material
         if (allOffenders.contains(parent)) {
-            List<ToDoItem> result = new ArrayList<ToDoItem>();
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    ListSet offs = new ListSet();
-                    offs.addAllElementsSuchThat(item.getOffenders(),
-                            getPredicate());
-                    if (offs.contains(parent)) {
-                        result.add(item);
-                    }
-                }
-            }
-            cachedChildrenList = result;
+            cachedChildrenList = Designer.theDesigner().getToDoList()
+                    .elementListForOffender(parent);
             return cachedChildrenList;
         }
         cachedChildrenList = Collections.emptyList();
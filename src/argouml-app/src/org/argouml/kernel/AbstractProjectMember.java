@@ -38,6 +38,8 @@
 
 package org.argouml.kernel;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.argouml.persistence.PersistenceManager;
 
 /**
@@ -49,6 +51,8 @@ public abstract class AbstractProjectMember implements ProjectMember {
     private String uniqueName;
     private Project project = null;
 
+    private final AtomicLong revision = new AtomicLong();
+
     /**
      * The constructor.
      *
@@ -165,6 +169,21 @@ public abstract class AbstractProjectMember implements ProjectMember {
         return "." + getType();
     }
 
+    /*
+     * @see org.argouml.kernel.ProjectMember#getRevision()
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Record that the member has changed since it was last saved. Only
+     * the {@link MemberChangeTracker} of the project does this.
+     */
+    void markChanged() {
+        revision.incrementAndGet();
+    }
+
     /**
      * Remove this member from its project.
      */
@@ -0,0 +1,277 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.kernel;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.argouml.model.DeleteInstanceEvent;
+import org.argouml.model.Model;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.tigris.gef.graph.GraphEvent;
+import org.tigris.gef.graph.GraphListener;
+import org.tigris.gef.graph.GraphModel;
+import org.tigris.gef.presentation.Fig;
+
+/**
+ * Keeps the revisions of the members of a project up to date, so that a
+ * save only has to write the members which changed.<p>
+ *
+ * Any model event changes the model members. The diagrams showing a
+ * changed element are only looked for when a save asks for it through
+ * {@link #resolveDiagramChanges()}, since their figs may have been
+ * resized or restyled by the change. A diagram also changes when it is
+ * renamed or moved to another namespace, and when nodes or edges are
+ * added to or removed from its graph model, whether it is on display or
+ * not. Other edits of the figs are reported through
+ * {@link #diagramChanged(ArgoDiagram)}.
+ */
+public class MemberChangeTracker implements PropertyChangeListener {
+
+    private final Project project;
+
+    /**
+     * The watchers of the diagram members by diagram.
+     */
+    private final Map<ArgoDiagram, DiagramWatcher> diagrams =
+        new HashMap<ArgoDiagram, DiagramWatcher>();
+
+    /**
+     * The elements changed since the last call of resolveDiagramChanges.
+     */
+    private Set<Object> changedElements = new HashSet<Object>();
+
+    private boolean elementDeleted;
+
+    /**
+     * Create a tracker and start listening to the model.
+     *
+     * @param theProject the project whose members are tracked
+     */
+    MemberChangeTracker(Project theProject) {
+        project = theProject;
+        Model.getPump().addClassModelEventListener(this,
+                Model.getMetaTypes().getElement(), (String[]) null);
+    }
+
+    /**
+     * Start tracking the member of a diagram.
+     *
+     * @param diagram the diagram
+     * @param member its member
+     */
+    void watch(ArgoDiagram diagram, AbstractProjectMember member) {
+        DiagramWatcher watcher = new DiagramWatcher(diagram, member);
+        DiagramWatcher old;
+        synchronized (diagrams) {
+            old = diagrams.put(diagram, watcher);
+        }
+        if (old != null) {
+            old.remove();
+        }
+        watcher.add();
+    }
+
+    /**
+     * Stop tracking the member of a diagram.
+     *
+     * @param diagram the diagram
+     */
+    void unwatch(ArgoDiagram diagram) {
+        DiagramWatcher watcher;
+        synchronized (diagrams) {
+            watcher = diagrams.remove(diagram);
+        }
+        if (watcher != null) {
+            watcher.remove();
+        }
+    }
+
+    /**
+     * Stop listening to the model and to the diagrams.
+     */
+    void remove() {
+        Model.getPump().removeClassModelEventListener(this,
+                Model.getMetaTypes().getElement(), (String[]) null);
+        List<DiagramWatcher> watchers;
+        synchronized (diagrams) {
+            watchers = new ArrayList<DiagramWatcher>(diagrams.values());
+            diagrams.clear();
+        }
+        for (DiagramWatcher watcher : watchers) {
+            watcher.remove();
+        }
+        synchronized (this) {
+            changedElements.clear();
+        }
+    }
+
+    /*
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        synchronized (this) {
+            changedElements.add(evt.getSource());
+            if (evt instanceof DeleteInstanceEvent) {
+                elementDeleted = true;
+            }
+        }
+    }
+
+    /**
+     * Record that the figs of a diagram have been edited.
+     *
+     * @param diagram the diagram
+     */
+    public void diagramChanged(ArgoDiagram diagram) {
+        DiagramWatcher watcher;
+        synchronized (diagrams) {
+            watcher = diagrams.get(diagram);
+        }
+        if (watcher != null) {
+            watcher.member.markChanged();
+        }
+    }
+
+    /**
+     * Bring the revisions up to date before a save. If any element changed
+     * since the last call, the model members are marked as changed, and so
+     * are the diagrams showing a changed element. Deleting an element
+     * changes every diagram, since its figs are gone by now.
+     */
+    public void resolveDiagramChanges() {
+        Set<Object> changed;
+        boolean deleted;
+        synchronized (this) {
+            if (changedElements.isEmpty()) {
+                return;
+            }
+            changed = changedElements;
+            deleted = elementDeleted;
+            changedElements = new HashSet<Object>();
+            elementDeleted = false;
+        }
+        for (ProjectMember member : project.getMembers()) {
+            if ("xmi".equals(member.getType())
+                    && member instanceof AbstractProjectMember) {
+                ((AbstractProjectMember) member).markChanged();
+            }
+        }
+        List<DiagramWatcher> watchers;
+        synchronized (diagrams) {
+            watchers = new ArrayList<DiagramWatcher>(diagrams.values());
+        }
+        for (DiagramWatcher watcher : watchers) {
+            if (deleted || shows(watcher.diagram, changed)) {
+                watcher.member.markChanged();
+            }
+        }
+    }
+
+    private static boolean shows(ArgoDiagram diagram, Set<Object> elements) {
+        Iterator<Fig> it = diagram.getFigIterator();
+        while (it.hasNext()) {
+            if (elements.contains(it.next().getOwner())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the member of a diagram as changed when the diagram changes
+     * its name or namespace, or its graph model gains or loses a node or
+     * an edge.
+     */
+    private static class DiagramWatcher
+        implements PropertyChangeListener, GraphListener {
+
+        private final ArgoDiagram diagram;
+
+        private final AbstractProjectMember member;
+
+        private final GraphModel graphModel;
+
+        DiagramWatcher(ArgoDiagram theDiagram,
+                AbstractProjectMember theMember) {
+            diagram = theDiagram;
+            member = theMember;
+            graphModel = theDiagram.getGraphModel();
+        }
+
+        void add() {
+            diagram.addPropertyChangeListener("name", this);
+            diagram.addPropertyChangeListener(ArgoDiagram.NAMESPACE_KEY,
+                    this);
+            if (graphModel != null) {
+                graphModel.addGraphEventListener(this);
+            }
+        }
+
+        void remove() {
+            diagram.removePropertyChangeListener("name", this);
+            diagram.removePropertyChangeListener(ArgoDiagram.NAMESPACE_KEY,
+                    this);
+            if (graphModel != null) {
+                graphModel.removeGraphEventListener(this);
+            }
+        }
+
+        /*
+         * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+         */
+        public void propertyChange(PropertyChangeEvent evt) {
+            member.markChanged();
+        }
+
+        /*
+         * @see org.tigris.gef.graph.GraphListener#nodeAdded(org.tigris.gef.graph.GraphEvent)
+         */
+        public void nodeAdded(GraphEvent e) {
+            member.markChanged();
+        }
+
+        /*
+         * @see org.tigris.gef.graph.GraphListener#edgeAdded(org.tigris.gef.graph.GraphEvent)
+         */
+        public void edgeAdded(GraphEvent e) {
+            member.markChanged();
+        }
+
+        /*
+         * @see org.tigris.gef.graph.GraphListener#nodeRemoved(org.tigris.gef.graph.GraphEvent)
+         */
+        public void nodeRemoved(GraphEvent e) {
+            member.markChanged();
+        }
+
+        /*
+         * @see org.tigris.gef.graph.GraphListener#edgeRemoved(org.tigris.gef.graph.GraphEvent)
+         */
+        public void edgeRemoved(GraphEvent e) {
+            member.markChanged();
+        }
+
+        /*
+         * @see org.tigris.gef.graph.GraphListener#graphChanged(org.tigris.gef.graph.GraphEvent)
+         */
+        public void graphChanged(GraphEvent e) {
+            member.markChanged();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.kernel;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.argouml.model.DeleteInstanceEvent;
+import org.argouml.model.InvalidElementException;
+import org.argouml.model.Model;
+import org.argouml.util.Predicate;
+import org.argouml.util.PredicateStringMatch;
+import org.argouml.util.PredicateTrue;
+
+/**
+ * The model elements of the user defined models of a project by their
+ * names, so that elements can be found by name without visiting the whole
+ * model.<p>
+ *
+ * The index is built the first time it is asked for something, and again
+ * when the user defined models of the project change. In between it is
+ * kept up to date from the name changes and deletions reported by the
+ * model. Elements without a name are not indexed.<p>
+ *
+ * Patterns are those of {@link PredicateStringMatch}. A pattern without
+ * wildcards is looked up directly, and a pattern starting with a fixed
+ * prefix looks at the names with that prefix only. Otherwise the names
+ * sharing the rarest three character substring of the pattern are looked
+ * at.
+ */
+public class ModelNameIndex implements PropertyChangeListener {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Project project;
+
+    private final Map<Object, String> names = new HashMap<Object, String>();
+
+    private final TreeMap<String, Set<Object>> elementsByName =
+        new TreeMap<String, Set<Object>>();
+
+    private final Map<String, Set<String>> namesByTrigram =
+        new HashMap<String, Set<String>>();
+
+    /**
+     * The models the index was built from, or null if it has to be built.
+     */
+    private List<Object> indexedModels;
+
+    /**
+     * Counts the times the index was emptied, so a build started before
+     * is not used.
+     */
+    private long generation;
+
+    private int builds;
+
+    /**
+     * The elements changed while the index was built.
+     */
+    private final Set<Object> changedWhileBuilding = new HashSet<Object>();
+
+    /**
+     * Create an index and start listening to the model.
+     *
+     * @param theProject the project whose models are indexed
+     */
+    public ModelNameIndex(Project theProject) {
+        project = theProject;
+        Model.getPump().addClassModelEventListener(this,
+                Model.getMetaTypes().getModelElement(),
+                new String[] {"name", "remove"});
+    }
+
+    /**
+     * Stop listening to the model and forget all elements.
+     */
+    public void remove() {
+        Model.getPump().removeClassModelEventListener(this,
+                Model.getMetaTypes().getModelElement(),
+                new String[] {"name", "remove"});
+        clear();
+    }
+
+    /**
+     * Forget all elements. The index is built again when it is next used.
+     */
+    public synchronized void clear() {
+        names.clear();
+        elementsByName.clear();
+        namesByTrigram.clear();
+        indexedModels = null;
+        generation++;
+    }
+
+    /**
+     * @param pattern a name pattern
+     * @return false if the pattern matches every element, also those
+     *         without a name, which the index can't find
+     */
+    public static boolean canFind(String pattern) {
+        return PredicateStringMatch.create(pattern)
+            != PredicateTrue.getInstance();
+    }
+
+    /**
+     * Find the elements whose name matches a pattern.
+     *
+     * @param pattern the pattern, as for {@link PredicateStringMatch}
+     * @return the elements of the user defined models matching the pattern
+     */
+    public Collection<Object> find(String pattern) {
+        ensureBuilt();
+        Predicate match = PredicateStringMatch.create(pattern);
+        Collection<Object> found = new ArrayList<Object>();
+        synchronized (this) {
+            for (String name : getCandidateNames(pattern.trim())) {
+                if (match.evaluate(name)) {
+                    found.addAll(elementsByName.get(name));
+                }
+            }
+        }
+        return retainInModels(found);
+    }
+
+    /**
+     * @param name the name
+     * @return the elements of the user defined models with exactly the
+     *         given name
+     */
+    public Collection<Object> findByName(String name) {
+        ensureBuilt();
+        Collection<Object> found;
+        synchronized (this) {
+            Set<Object> elements = elementsByName.get(name);
+            if (elements == null) {
+                return Collections.emptyList();
+            }
+            found = new ArrayList<Object>(elements);
+        }
+        return retainInModels(found);
+    }
+
+    /*
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        Object element = evt.getSource();
+        synchronized (this) {
+            if (indexedModels == null && builds == 0) {
+                return;
+            }
+            if (builds > 0) {
+                changedWhileBuilding.add(element);
+            }
+            if (evt instanceof DeleteInstanceEvent) {
+                unindex(element);
+            } else if ("name".equals(evt.getPropertyName())) {
+                Object name = evt.getNewValue();
+                index(element, name instanceof String ? (String) name : null);
+            }
+        }
+    }
+
+    /**
+     * Build the index if it was not built from the current models. The
+     * model is read without holding the lock, so events can be received
+     * meanwhile. They are newer than what was read, so they win.
+     */
+    private void ensureBuilt() {
+        List<Object> models =
+            new ArrayList<Object>(project.getUserDefinedModelList());
+        long before;
+        synchronized (this) {
+            if (models.equals(indexedModels)) {
+                return;
+            }
+            clear();
+            before = generation;
+            builds++;
+        }
+        Map<Object, String> found = new HashMap<Object, String>();
+        try {
+            for (Object model : models) {
+                found.put(model, Model.getFacade().getName(model));
+                for (Object element : Model.getModelManagementHelper()
+                        .getAllModelElementsOfKind(model,
+                                Model.getMetaTypes().getModelElement())) {
+                    found.put(element, Model.getFacade().getName(element));
+                }
+            }
+        } finally {
+            synchronized (this) {
+                builds--;
+                if (generation == before) {
+                    for (Map.Entry<Object, String> entry : found.entrySet()) {
+                        if (!changedWhileBuilding.contains(entry.getKey())) {
+                            index(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    indexedModels = models;
+                }
+                if (builds == 0) {
+                    changedWhileBuilding.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * The names which may match a pattern, to be checked one by one.
+     */
+    private Collection<String> getCandidateNames(String pattern) {
+        if (pattern.indexOf('*') < 0) {
+            if (elementsByName.containsKey(pattern)) {
+                return Collections.singleton(pattern);
+            }
+            return Collections.emptySet();
+        }
+        Collection<String> candidates = null;
+        for (String part : pattern.split("\\*")) {
+            for (int i = 0; i + GRAM_LENGTH <= part.length(); i++) {
+                Set<String> withGram =
+                    namesByTrigram.get(part.substring(i, i + GRAM_LENGTH));
+                if (withGram == null) {
+                    return Collections.emptySet();
+                }
+                if (candidates == null || withGram.size() < candidates.size()) {
+                    candidates = withGram;
+                }
+            }
+        }
+        if (candidates == null && !pattern.startsWith("*")) {
+            String prefix = pattern.substring(0, pattern.indexOf('*'));
+            candidates = elementsByName.subMap(prefix,
+                    prefix + Character.MAX_VALUE).keySet();
+        }
+        if (candidates == null) {
+            candidates = elementsByName.keySet();
+        }
+        return new ArrayList<String>(candidates);
+    }
+
+    /**
+     * Keep only the elements which are in one of the user defined models,
+     * not ones removed from the model or not added to it yet.
+     */
+    private Collection<Object> retainInModels(Collection<Object> elements) {
+        Collection models = project.getUserDefinedModelList();
+        Collection<Object> result = new LinkedHashSet<Object>();
+        for (Object element : elements) {
+            try {
+                if (models.contains(Model.getFacade().getRoot(element))) {
+                    result.add(element);
+                }
+            } catch (InvalidElementException e) {
+                // Deleted while we were looking
+            }
+        }
+        return result;
+    }
+
+    private void index(Object element, String name) {
+        String old = names.get(element);
+        if (old != null && old.equals(name)) {
+            return;
+        }
+        unindex(element);
+        if (name == null || name.length() == 0) {
+            return;
+        }
+        names.put(element, name);
+        Set<Object> elements = elementsByName.get(name);
+        if (elements == null) {
+            elements = new HashSet<Object>();
+            elementsByName.put(name, elements);
+            for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+                String gram = name.substring(i, i + GRAM_LENGTH);
+                Set<String> withGram = namesByTrigram.get(gram);
+                if (withGram == null) {
+                    withGram = new HashSet<String>();
+                    namesByTrigram.put(gram, withGram);
+                }
+                withGram.add(name);
+            }
+        }
+        elements.add(element);
+    }
+
+    private void unindex(Object element) {
+        String name = names.remove(element);
+        if (name == null) {
+            return;
+        }
+        Set<Object> elements = elementsByName.get(name);
+        elements.remove(element);
+        if (!elements.isEmpty()) {
+            return;
+        }
+        elementsByName.remove(name);
+        for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+            String gram = name.substring(i, i + GRAM_LENGTH);
+            Set<String> withGram = namesByTrigram.get(gram);
+            if (withGram != null) {
+                withGram.remove(name);
+                if (withGram.isEmpty()) {
+                    namesByTrigram.remove(gram);
+                }
+            }
+        }
+    }
+}
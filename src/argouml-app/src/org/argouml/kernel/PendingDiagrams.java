@@ -0,0 +1,35 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.kernel;
+
+/**
+ * The diagrams of a project which have been read, but whose figs have not
+ * been created yet. They are added to the project as they are loaded.
+ */
+public interface PendingDiagrams {
+
+    /**
+     * Load all the diagrams still pending.
+     */
+    void loadAll();
+
+    /**
+     * Load the pending diagrams which show a model element.
+     *
+     * @param element the model element
+     */
+    void loadFor(Object element);
+
+    /**
+     * Forget the pending diagrams without loading them.
+     */
+    void cancel();
+}
@@ -604,6 +604,27 @@ public interface Project {
      */
     public void setSavedDiagramName(String diagramName);
 
+    /**
+     * @return the name of the diagram to show by default after loading, or
+     *         null
+     */
+    public String getSavedDiagramName();
+
+    /**
+     * Set the diagrams whose loading has been put off until they are
+     * needed.
+     *
+     * @param pending the pending diagrams, or null if there are none
+     */
+    public void setPendingDiagrams(PendingDiagrams pending);
+
+    /**
+     * Load all diagrams whose loading has been put off. Anything which
+     * needs every diagram of the project, like saving it, must call this
+     * first.
+     */
+    public void loadPendingDiagrams();
+
     /**
      * Remove the project.
      */
@@ -667,6 +688,21 @@ public interface Project {
      * @param isDirty true if the project should be marked as dirty
      */
     public void setDirty(boolean isDirty);
+
+    /**
+     * The file persisters ask the tracker to bring the revisions up to
+     * date before a save, and the undo manager of the diagrams reports the
+     * edits of figs to it.
+     *
+     * @return the tracker keeping the revisions of the project members up
+     *         to date
+     */
+    public MemberChangeTracker getMemberChangeTracker();
+
+    /**
+     * @return the index of the elements of the user defined models by name
+     */
+    public ModelNameIndex getNameIndex();
     
     /**
      * Add a project listener for any class interested in addition and removal of diagrams
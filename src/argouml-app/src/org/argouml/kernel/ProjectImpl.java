@@ -66,6 +66,7 @@ import org.argouml.i18n.Translator;
 import org.argouml.model.Defaults;
 import org.argouml.model.InvalidElementException;
 import org.argouml.model.Model;
+import org.argouml.notation.Notation;
 import org.argouml.profile.Profile;
 import org.argouml.profile.ProfileFacade;
 import org.argouml.ui.targetmanager.TargetManager;
@@ -175,6 +176,15 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
     private boolean dirty = false;
 
+    private transient MemberChangeTracker memberChangeTracker;
+
+    private transient ModelNameIndex nameIndex;
+
+    /**
+     * The diagrams not loaded yet, if any.
+     */
+    private transient PendingDiagrams pendingDiagrams;
+
     /**
      * Constructor.
      *
@@ -203,6 +213,9 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
         projectSettings = new ProjectSettings(this);
 
+        memberChangeTracker = new MemberChangeTracker(this);
+        nameIndex = new ModelNameIndex(this);
+
         Model.getModelManagementFactory().setRootModel(null);
 
         authorname = Configuration.getString(Argo.KEY_USER_FULLNAME);
@@ -296,10 +309,11 @@ public class ProjectImpl implements java.io.Serializable, Project {
                 serial++;
             }
         }
-        ProjectMember pm = new ProjectMemberDiagram(d, this);
+        ProjectMemberDiagram pm = new ProjectMemberDiagram(d, this);
         addDiagram(d);
         // if diagram added successfully, add the member too
         members.add(pm);
+        memberChangeTracker.watch(d, pm);
     }
 
     /**
@@ -429,6 +443,7 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
         removeDiagram(d);
         members.remove(d);
+        memberChangeTracker.unwatch(d);
         d.remove();
         setSaveEnabled(true);
     }
@@ -666,6 +681,9 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
 
     public Collection<Fig> findFigsForMember(Object member) {
+        if (pendingDiagrams != null) {
+            pendingDiagrams.loadFor(member);
+        }
         Collection<Fig> figs = new ArrayList<Fig>();
         for (ArgoDiagram diagram : diagrams) {
             Fig fig = diagram.getContainingFig(member);
@@ -699,6 +717,17 @@ public class ProjectImpl implements java.io.Serializable, Project {
                     + ". A namespace was expected.");
     	}
 
+        if (models.contains(Model.getFacade().getRoot(namespace))) {
+            // The index only knows the user defined models
+            for (Object element : nameIndex.findByName(typeName)) {
+                if (Model.getFacade().isAClassifier(element)
+                        && isContainedIn(element, namespace)) {
+                    return element;
+                }
+            }
+            return null;
+        }
+
         Collection allClassifiers =
             Model.getModelManagementHelper()
 	        .getAllModelElementsOfKind(namespace,
@@ -714,6 +743,18 @@ public class ProjectImpl implements java.io.Serializable, Project {
     }
 
 
+    private static boolean isContainedIn(Object element, Object namespace) {
+        Object container = Model.getFacade().getModelElementContainer(element);
+        while (container != null) {
+            if (container.equals(namespace)) {
+                return true;
+            }
+            container = Model.getFacade().getModelElementContainer(container);
+        }
+        return false;
+    }
+
+
     @SuppressWarnings("deprecation")
     @Deprecated
     public void setCurrentNamespace(final Object m) {
@@ -744,6 +785,15 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
 
     public ArgoDiagram getDiagram(String name) {
+        ArgoDiagram diagram = findDiagram(name);
+        if (diagram == null && pendingDiagrams != null) {
+            pendingDiagrams.loadAll();
+            diagram = findDiagram(name);
+        }
+        return diagram;
+    }
+
+    private ArgoDiagram findDiagram(String name) {
         for (ArgoDiagram ad : diagrams) {
             if (ad.getName() != null && ad.getName().equals(name)) {
                 return ad;
@@ -816,6 +866,9 @@ public class ProjectImpl implements java.io.Serializable, Project {
         if (!Model.getFacade().isAUMLElement(me)) {
             throw new IllegalArgumentException();
     	}
+        if (pendingDiagrams != null) {
+            pendingDiagrams.loadFor(me);
+        }
 
         int presentations = 0;
         for (ArgoDiagram d : diagrams) {
@@ -1103,12 +1156,33 @@ public class ProjectImpl implements java.io.Serializable, Project {
         savedDiagramName = diagramName;
     }
 
+    public String getSavedDiagramName() {
+        return savedDiagramName;
+    }
+
+    public void setPendingDiagrams(PendingDiagrams pending) {
+        pendingDiagrams = pending;
+    }
+
+    public void loadPendingDiagrams() {
+        if (pendingDiagrams != null) {
+            pendingDiagrams.loadAll();
+        }
+    }
+
     public void remove() {
+        memberChangeTracker.remove();
+        nameIndex.remove();
+        if (pendingDiagrams != null) {
+            pendingDiagrams.cancel();
+            pendingDiagrams = null;
+        }
         for (ArgoDiagram diagram : diagrams) {
             diagram.remove();
         }
 
         members.clear();
+        Notation.clearRenderCache();
         if (!roots.isEmpty()) {
             try {
                 Model.getUmlFactory().deleteExtent(roots.iterator().next());
@@ -1206,6 +1280,18 @@ public class ProjectImpl implements java.io.Serializable, Project {
         // a per-project basis is implemented
         dirty = isDirty;
         ProjectManager.getManager().setSaveEnabled(isDirty);
+        if (isDirty && activeDiagram != null) {
+            // Most edits are made in the diagram on display
+            memberChangeTracker.diagramChanged(activeDiagram);
+        }
+    }
+
+    public MemberChangeTracker getMemberChangeTracker() {
+        return memberChangeTracker;
+    }
+
+    public ModelNameIndex getNameIndex() {
+        return nameIndex;
     }
 
     private void checkProfileFor(Object o, Object m) {
@@ -102,6 +102,12 @@ public final class ProjectManager implements ModelCommandCreationObserver {
      */
     public static final String OPEN_PROJECTS_PROPERTY = "openProjects";
 
+    /**
+     * Property name for a diagram whose loading was put off, added to its
+     * project later. The new value is the diagram.
+     */
+    public static final String DIAGRAM_LOADED_PROPERTY = "diagramLoaded";
+
     private static final Logger LOG =
         Logger.getLogger(ProjectManager.class.getName());
 
@@ -237,6 +243,17 @@ public final class ProjectManager implements ModelCommandCreationObserver {
         notifyProjectAdded(newProject, oldProject);
     }
 
+    /**
+     * Tell the listeners that a diagram whose loading was put off has been
+     * added to its project.
+     *
+     * @param diagram the diagram
+     * @see #DIAGRAM_LOADED_PROPERTY
+     */
+    public void diagramLoaded(ArgoDiagram diagram) {
+        firePropertyChanged(DIAGRAM_LOADED_PROPERTY, null, diagram);
+    }
+
     private void notifyProjectAdded(Project newProject, Project oldProject) {
         firePropertyChanged(CURRENT_PROJECT_PROPERTY_NAME,
                 oldProject, newProject);
@@ -84,4 +84,14 @@ public interface ProjectMember {
      * @return A text that explains what is repaired.
      */
     String repair();
+
+    /**
+     * A member's revision changes whenever the member changes. A copy of
+     * the member saved at the same revision can be reused instead of
+     * saving it again. The revisions are kept by the project's
+     * {@link MemberChangeTracker} and read by the file persisters.
+     *
+     * @return the current revision
+     */
+    long getRevision();
 }
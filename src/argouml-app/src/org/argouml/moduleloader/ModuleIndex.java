@@ -0,0 +1,170 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.moduleloader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The module classes found in each jar file, remembered between runs so
+ * that a jar file which hasn't changed isn't searched again.<p>
+ *
+ * For each jar file the index keeps the checksum of its contents and the
+ * names of the module classes found in it. The names are only given back
+ * if the jar file still has the same checksum.
+ */
+class ModuleIndex {
+
+    private static final Logger LOG =
+        Logger.getLogger(ModuleIndex.class.getName());
+
+    private static final String SEPARATOR = ",";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Where the index is kept, or null if it is only kept in memory.
+     */
+    private final File file;
+
+    private final Properties entries = new Properties();
+
+    private boolean changed;
+
+    /**
+     * Create an index and read what was saved in the file.
+     *
+     * @param theFile the file to keep the index in, or null to not keep it
+     */
+    ModuleIndex(File theFile) {
+        file = theFile;
+        if (file == null || !file.isFile()) {
+            return;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            entries.load(in);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Unable to read module index " + file, e);
+            entries.clear();
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * @param jar the jar file
+     * @param checksum the checksum of the jar file
+     * @return the names of the module classes in the jar file, or null if
+     *         the jar file isn't in the index with this checksum
+     */
+    synchronized List<String> get(File jar, String checksum) {
+        String value = entries.getProperty(jar.getAbsolutePath());
+        if (value == null || !value.startsWith(checksum + SEPARATOR)) {
+            return null;
+        }
+        List<String> classNames = new ArrayList<String>();
+        String[] parts = value.split(SEPARATOR);
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].length() > 0) {
+                classNames.add(parts[i]);
+            }
+        }
+        return Collections.unmodifiableList(classNames);
+    }
+
+    /**
+     * Remember the module classes of a jar file.
+     *
+     * @param jar the jar file
+     * @param checksum the checksum of the jar file
+     * @param classNames the names of the module classes in the jar file
+     */
+    synchronized void put(File jar, String checksum,
+            List<String> classNames) {
+        StringBuilder value = new StringBuilder(checksum);
+        value.append(SEPARATOR);
+        for (String className : classNames) {
+            value.append(className).append(SEPARATOR);
+        }
+        Object old = entries.setProperty(jar.getAbsolutePath(),
+                value.toString());
+        if (!value.toString().equals(old)) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Write the index to its file, if something was added.
+     */
+    synchronized void save() {
+        if (file == null || !changed) {
+            return;
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            entries.store(out, "ArgoUML module classes by jar file");
+            changed = false;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Unable to write module index " + file, e);
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Compute the checksum of the contents of a file.
+     *
+     * @param jar the file
+     * @return the length and the CRC-32 of the contents
+     * @throws IOException if the file can't be read
+     */
+    static String checksum(File jar) throws IOException {
+        CRC32 crc = new CRC32();
+        long length = 0;
+        InputStream in = new FileInputStream(jar);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+                length += read;
+            }
+        } finally {
+            close(in);
+        }
+        return length + ":" + Long.toHexString(crc.getValue());
+    }
+
+    private static void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Ignoring failure to close", e);
+            }
+        }
+    }
+}
@@ -38,9 +38,11 @@
 
 package org.argouml.moduleloader;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -48,6 +50,7 @@ import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -55,7 +58,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -120,12 +130,42 @@ public final class ModuleLoader2 {
      */
     public static final String CLASS_SUFFIX = ".class";
 
+    /**
+     * The service provider file in a jar file naming its module classes.
+     */
+    static final String SERVICE_FILE =
+        "META-INF/services/" + ModuleInterface.class.getName();
+
+    /**
+     * The name of the file in the user's ArgoUML directory that keeps
+     * the module classes found in each jar file.
+     */
+    private static final String INDEX_FILE = "modules.index";
+
+    /**
+     * The largest number of jar files searched at the same time.
+     */
+    private static final int MAX_SCAN_THREADS = 4;
+
+    /**
+     * The module classes found in each jar file, kept between runs.
+     */
+    private final ModuleIndex moduleIndex;
+
+    /**
+     * The jar files already searched for modules.
+     */
+    private final Set<File> processedJars = new HashSet<File>();
+
     /**
      * Constructor for this object.
      */
     private ModuleLoader2() {
         moduleStatus = new HashMap<ModuleInterface, ModuleStatus>();
         computeExtensionLocations();
+        File argoDir = new File(System.getProperty("user.home"), ".argouml");
+        moduleIndex = new ModuleIndex(argoDir.isDirectory()
+                ? new File(argoDir, INDEX_FILE) : null);
     }
 
     /**
@@ -561,135 +601,293 @@ public final class ModuleLoader2 {
     }
 
     /**
-     * Find and enable a module from a given directory.
+     * Find and enable a module from a given directory.<p>
+     *
+     * The jar files not seen before are searched for module classes at the
+     * same time, and then the modules are added one jar file at a time in
+     * the order of the names of the jar files.
      *
      * @param dirname The name of the directory.
      */
     private void huntModulesFromNamedDirectory(String dirname) {
-	File extensionDir = new File(dirname);
-	if (extensionDir.isDirectory()) {
-	    File[] files = extensionDir.listFiles(new JarFileFilter());
-	    for (File file : files) {
-		JarFile jarfile = null;
-		// Try-catch only the JarFile instantiation so we
-		// don't accidentally mask anything in ArgoJarClassLoader
-		// or processJarFile.
-		try {
-		    jarfile = new JarFile(file);
-		    if (jarfile != null) {
-	                ClassLoader classloader =
-			    new URLClassLoader(new URL[] {
-				file.toURI().toURL(),
-			    }, getClass().getClassLoader());
-	                try {
-	                    processJarFile(classloader, file);
-	                } catch (ClassNotFoundException e) {
-                            LOG.log(Level.SEVERE, "The class is not found.", e);
-	                    return;
-	                }
-		    }
-		} catch (IOException ioe) {
-                    LOG.log(Level.SEVERE, "Cannot open Jar file " + file, ioe);
-		}
-	    }
-	}
+        File extensionDir = new File(dirname);
+        if (!extensionDir.isDirectory()) {
+            return;
+        }
+        File[] files = extensionDir.listFiles(new JarFileFilter());
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        List<File> jars = new ArrayList<File>();
+        for (File file : files) {
+            if (processedJars.add(file)) {
+                jars.add(file);
+            }
+        }
+        for (JarModules jar : findModuleClasses(jars)) {
+            addModules(jar);
+        }
+        moduleIndex.save();
     }
 
     /**
-     * Check a jar file for an ArgoUML extension/module.<p>
+     * Find the module classes of a number of jar files, several jar files
+     * at the same time.
      *
-     * If there isn't a manifest or it isn't readable, we fall back to using
-     * the raw JAR entries.
+     * @param jars the jar files
+     * @return the module classes of the jar files which could be read, in
+     *         the order of the jar files
+     */
+    private List<JarModules> findModuleClasses(List<File> jars) {
+        List<JarModules> result = new ArrayList<JarModules>();
+        if (jars.isEmpty()) {
+            return result;
+        }
+        int threads = Math.max(1, Math.min(Math.min(MAX_SCAN_THREADS,
+                jars.size()), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool =
+            Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private int count;
+                public synchronized Thread newThread(Runnable r) {
+                    Thread thread =
+                        new Thread(r, "module-scan-" + (++count));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        try {
+            List<Future<JarModules>> scans =
+                new ArrayList<Future<JarModules>>();
+            for (final File file : jars) {
+                scans.add(pool.submit(new Callable<JarModules>() {
+                    public JarModules call() {
+                        return findModuleClasses(file);
+                    }
+                }));
+            }
+            for (int i = 0; i < scans.size(); i++) {
+                try {
+                    JarModules jar = scans.get(i).get();
+                    if (jar != null) {
+                        result.add(jar);
+                    }
+                } catch (ExecutionException e) {
+                    LOG.log(Level.SEVERE, "Unable to search jar file "
+                            + jars.get(i), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.log(Level.SEVERE, "Interrupted while searching for modules",
+                    e);
+        } finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    /**
+     * Find the module classes of a jar file. If the jar file is in the
+     * module index with the same contents, the module classes are taken from
+     * the index without opening the jar file.
+     *
+     * @param file the jar file
+     * @return the class loader and the module classes of the jar file, or
+     *         null if the jar file can't be read
+     */
+    private JarModules findModuleClasses(File file) {
+        ClassLoader classloader;
+        String checksum;
+        try {
+            classloader = new URLClassLoader(new URL[] {
+                file.toURI().toURL(),
+            }, getClass().getClassLoader());
+            checksum = ModuleIndex.checksum(file);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Cannot open Jar file " + file, e);
+            return null;
+        }
+        List<String> classNames = moduleIndex.get(file, checksum);
+        if (classNames == null) {
+            classNames = processJarFile(classloader, file);
+            if (classNames == null) {
+                return null;
+            }
+            moduleIndex.put(file, checksum, classNames);
+        } else {
+            LOG.log(Level.FINE, "Module classes of {0} are indexed", file);
+        }
+        return new JarModules(file, classloader, classNames);
+    }
+
+    /**
+     * Check a jar file for ArgoUML extensions/modules.<p>
+     *
+     * The module classes are taken from the service provider file for
+     * {@link ModuleInterface} in the jar file. If there isn't one, the
+     * classes named by entries in the manifest are checked. If there isn't a
+     * manifest or it isn't readable, we fall back to checking all classes
+     * in the jar file. The classes are checked without creating modules.
      *
      * @param classloader The classloader to use.
      * @param file The file to process.
-     * @throws ClassNotFoundException if the manifest file contains a class
-     *         that doesn't exist.
+     * @return the names of the module classes, or null if the jar file
+     *         can't be read
      */
-    private void processJarFile(ClassLoader classloader, File file)
-        throws ClassNotFoundException {
+    private List<String> processJarFile(ClassLoader classloader, File file) {
 
         LOG.log(Level.INFO, "Opening jar file {0}", file);
         JarFile jarfile;
-	try {
-	    jarfile = new JarFile(file);
-	} catch (IOException e) {
+        try {
+            jarfile = new JarFile(file);
+        } catch (IOException e) {
             LOG.log(Level.SEVERE, "Unable to open " + file, e);
-            return;
-	}
+            return null;
+        }
 
-        Manifest manifest;
         try {
-            manifest = jarfile.getManifest();
-            if (manifest == null) {
-                // We expect all extensions to have a manifest even though we
-                // can operate without one if necessary.
-                LOG.log(Level.WARNING,file + " does not have a manifest");
+            List<String> declared = readServiceFile(jarfile);
+            if (declared != null) {
+                return declared;
             }
-        } catch (IOException e) {
-            LOG.log(Level.SEVERE, "Unable to read manifest of " + file, e);
-            return;
-        }
 
-        // TODO: It is a performance drain to load all classes at startup time.
-        // They should be lazy loaded when needed.  Instead of scanning all
-        // classes for ones which implement our loadable module interface, we
-        // should use a manifest entry or a special name/name pattern that we
-        // look for to find the single main module class to load here.  - tfm
+            Manifest manifest;
+            try {
+                manifest = jarfile.getManifest();
+                if (manifest == null) {
+                    // We expect all extensions to have a manifest even
+                    // though we can operate without one if necessary.
+                    LOG.log(Level.WARNING, file + " does not have a manifest");
+                }
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Unable to read manifest of " + file, e);
+                return null;
+            }
 
-        boolean loadedClass = false;
-        if (manifest == null) {
-            Enumeration<JarEntry> jarEntries = jarfile.entries();
-            while (jarEntries.hasMoreElements()) {
-                JarEntry entry = jarEntries.nextElement();
-                loadedClass =
-                        loadedClass
-                                | processEntry(classloader, entry.getName());
+            List<String> classNames = new ArrayList<String>();
+            if (manifest == null) {
+                Enumeration<JarEntry> jarEntries = jarfile.entries();
+                while (jarEntries.hasMoreElements()) {
+                    JarEntry entry = jarEntries.nextElement();
+                    processEntry(classloader, entry.getName(), classNames);
+                }
+            } else {
+                Map<String, Attributes> entries = manifest.getEntries();
+                for (String key : entries.keySet()) {
+                    // Look for our specification
+                    processEntry(classloader, key, classNames);
+                }
             }
-        } else {
-            Map<String, Attributes> entries = manifest.getEntries();
-            for (String key : entries.keySet()) {
-                // Look for our specification
-                loadedClass =
-                    loadedClass
-                            | processEntry(classloader, key);
+            return classNames;
+        } finally {
+            try {
+                jarfile.close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Unable to close " + file, e);
             }
         }
+    }
 
-        // Add this to search list for I18N properties
-        // (Done for both modules & localized property file sets)
-        Translator.addClassLoader(classloader);
-
-        // If it didn't have a loadable module class and it doesn't look like
-        // a localized property set, warn the user that something funny is in
-        // their extension directory
-        if (!loadedClass && !file.getName().contains("argouml-i18n-")) {
-            LOG.log(Level.SEVERE,
-                    "Failed to find any loadable ArgoUML modules in jar "
-                    + file);
+    /**
+     * Read the names of the module classes from the service provider file
+     * for {@link ModuleInterface}, one name on each line.
+     *
+     * @param jarfile the jar file
+     * @return the names of the classes, or null if there is no such file
+     *         in the jar file
+     */
+    static List<String> readServiceFile(JarFile jarfile) {
+        JarEntry entry = jarfile.getJarEntry(SERVICE_FILE);
+        if (entry == null) {
+            return null;
+        }
+        List<String> classNames = new ArrayList<String>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    jarfile.getInputStream(entry), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comment = line.indexOf('#');
+                    if (comment >= 0) {
+                        line = line.substring(0, comment);
+                    }
+                    line = line.trim();
+                    if (line.length() > 0 && !classNames.contains(line)) {
+                        classNames.add(line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Unable to read " + SERVICE_FILE + " of "
+                    + jarfile.getName(), e);
+            return null;
         }
+        return classNames;
     }
 
     /**
-     * Process a JAR file entry, attempting to load anything that looks like a
-     * Java class.
+     * Process a JAR file entry, checking if anything that looks like a
+     * Java class is a module class.
      *
      * @param classloader
      *            the classloader to use when loading the class
      * @param cname
      *            the class name
-     * @throws ClassNotFoundException
-     * @return true if class was a module class and loaded successfully
+     * @param classNames
+     *            the names of the module classes found so far
      */
-    private boolean processEntry(ClassLoader classloader, String cname)
-        throws ClassNotFoundException {
+    private void processEntry(ClassLoader classloader, String cname,
+            List<String> classNames) {
         if (cname.endsWith(CLASS_SUFFIX)) {
             int classNamelen = cname.length() - CLASS_SUFFIX.length();
             String className = cname.substring(0, classNamelen);
             className = className.replace('/', '.');
-            return addClass(classloader, className);
+            try {
+                Class<?> moduleClass =
+                    loadModuleClass(classloader, className);
+                if (moduleClass != null
+                        && ModuleInterface.class.isAssignableFrom(
+                                moduleClass)) {
+                    classNames.add(className);
+                }
+            } catch (ClassNotFoundException e) {
+                LOG.log(Level.SEVERE, "The class is not found.", e);
+            }
+        }
+    }
+
+    /**
+     * Create and add the modules of a jar file.
+     *
+     * @param jar the jar file and its module classes
+     */
+    private void addModules(JarModules jar) {
+        boolean loadedClass = false;
+        for (String className : jar.classNames) {
+            try {
+                loadedClass = loadedClass
+                        | addClass(jar.classloader, className);
+            } catch (ClassNotFoundException e) {
+                LOG.log(Level.SEVERE, "The class is not found.", e);
+            }
+        }
+
+        // Add this to search list for I18N properties
+        // (Done for both modules & localized property file sets)
+        Translator.addClassLoader(jar.classloader);
+
+        // If it didn't have a loadable module class and it doesn't look like
+        // a localized property set, warn the user that something funny is in
+        // their extension directory
+        if (!loadedClass && !jar.file.getName().contains("argouml-i18n-")) {
+            LOG.log(Level.SEVERE,
+                    "Failed to find any loadable ArgoUML modules in jar "
+                    + jar.file);
         }
-        return false;
     }
 
     /**
@@ -769,8 +967,10 @@ public final class ModuleLoader2 {
      * @param classLoader The ClassLoader to load from.
      * @param classname The name of the class to load.
      * @return The loaded Class object, or null if loading failed.
+     * @throws ClassNotFoundException if the class classname is not found.
      */
-    private Class<?> loadModuleClass(ClassLoader classLoader, String classname) {
+    private Class<?> loadModuleClass(ClassLoader classLoader, String classname)
+        throws ClassNotFoundException {
         try {
             return classLoader.loadClass(classname);
         } catch (UnsupportedClassVersionError e) {
@@ -924,6 +1124,23 @@ public final class ModuleLoader2 {
 		    && pathname.getPath().toLowerCase().endsWith(".jar"));
 	}
     }
+
+    /**
+     * A jar file with the class loader for it and the names of the module
+     * classes in it.
+     */
+    private static class JarModules {
+        private final File file;
+        private final ClassLoader classloader;
+        private final List<String> classNames;
+
+        JarModules(File theFile, ClassLoader theClassloader,
+                List<String> theClassNames) {
+            file = theFile;
+            classloader = theClassloader;
+            classNames = theClassNames;
+        }
+    }
 }
 
 
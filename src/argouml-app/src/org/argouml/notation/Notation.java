@@ -250,6 +250,15 @@ public final class Notation implements PropertyChangeListener {
             new ArgoNotationEvent(ArgoEventTypes.NOTATION_CHANGED, pce));
     }
 
+    /**
+     * Forget the texts the notation providers generated, which hold on to
+     * the model elements they were generated for. To be called when a
+     * project is removed.
+     */
+    public static void clearRenderCache() {
+        NotationRenderCache.getInstance().clear();
+    }
+
     ////////////////////////////////////////////////////////////////
     // Static workers for dealing with notation names.
 
@@ -40,8 +40,14 @@ package org.argouml.notation;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,12 +74,18 @@ public abstract class NotationProvider implements PropertyChangeListener {
     private NotationRenderer renderer;
 
     /**
-     * A collection of properties of listeners registered for this notation.
-     * Each entry is a 2 element array containing the element and the property
-     * name(s) for which a listener is registered. This facilitates easy removal
-     * of a complex set of listeners.
+     * The listeners registered for this notation, with the element and the
+     * property names for which they are registered. This facilitates easy
+     * removal of a complex set of listeners.
      */
-    private final Collection<Object[]> listeners = new ArrayList<Object[]>();
+    private final Collection<Registration> listeners =
+        new LinkedHashSet<Registration>();
+
+    /**
+     * While the listeners are updated, the registrations asked for by
+     * initialiseListener() are collected here instead of being made.
+     */
+    private Collection<Registration> wanted;
 
     /**
      * @return a i18 key that represents a help string
@@ -127,18 +139,19 @@ public abstract class NotationProvider implements PropertyChangeListener {
     /**
      * Update the set of listeners based on the given event. <p>
      *
-     * The default implementation just removes all listeners, and then
-     * re-initializes completely - this is method 1.
-     * A more efficient way would be to dissect
+     * A way to do this would be to remove all listeners, and then
+     * re-initialize completely - this is method 1.
+     * A more efficient way is to dissect
      * the propertyChangeEvent, and only adapt the listeners
      * that need to be adapted - this is method 2. <p>
      *
      * Method 2 is explained by the code below that is commented out.
-     * Method 1 is the easiest to implement, since at every arrival of an event,
-     * we just remove all old listeners, and then inspect the current model,
-     * and add listeners where we need them. I.e. the advantage is
-     * that we only need to traverse the model structure in one location, i.e.
-     * the initialiseListener() method.
+     * The default implementation gets the same result without knowing the
+     * model structure: it collects the registrations initialiseListener()
+     * asks for, and only adds and removes those that differ from the ones
+     * made before. I.e. the advantage is that we only need to traverse the
+     * model structure in one location, i.e. the initialiseListener()
+     * method, while the event pump only sees the changes.
      *
      * @param modelElement the modelelement that we provide
      * notation for
@@ -163,8 +176,26 @@ public abstract class NotationProvider implements PropertyChangeListener {
                     + modelElement);
             return;
         }
-        cleanListener();
-        initialiseListener(modelElement);
+        Collection<Registration> required = new LinkedHashSet<Registration>();
+        wanted = required;
+        try {
+            initialiseListener(modelElement);
+        } finally {
+            wanted = null;
+        }
+        Iterator<Registration> it = listeners.iterator();
+        while (it.hasNext()) {
+            Registration registration = it.next();
+            if (!required.contains(registration)) {
+                it.remove();
+                registration.unregister();
+            }
+        }
+        for (Registration registration : required) {
+            if (listeners.add(registration)) {
+                registration.register();
+            }
+        }
     }
 
     public void propertyChange(PropertyChangeEvent evt) {
@@ -180,12 +211,14 @@ public abstract class NotationProvider implements PropertyChangeListener {
                             + owner);
                     return;
                 }
-                renderer.notationRenderingChanged(this,
-                        toString(owner, renderer.getNotationSettings(this)));
+                NotationRenderCache cache = NotationRenderCache.getInstance();
+                cache.invalidate(evt);
                 if (evt instanceof AddAssociationEvent
                         || evt instanceof RemoveAssociationEvent) {
-                    initialiseListener(owner);
+                    updateListener(owner, evt);
                 }
+                renderer.notationRenderingChanged(this, cache.render(this,
+                        owner, renderer.getNotationSettings(this)));
             }
         }
     }
@@ -199,18 +232,7 @@ public abstract class NotationProvider implements PropertyChangeListener {
      */
     protected final void addElementListener(PropertyChangeListener listener,
             Object element) {
-        if (Model.getUmlFactory().isRemoved(element)) {
-            LOG.log(Level.WARNING, "Encountered deleted object during delete of " + element);
-            return;
-        }
-        Object[] entry = new Object[] {element, null};
-        if (!listeners.contains(entry)) {
-            listeners.add(entry);
-            Model.getPump().addModelEventListener(listener, element);
-        } else {
-            LOG.log(Level.WARNING, "Attempted duplicate registration of event listener"
-                    + " - Element: " + element + " Listener: " + listener);
-        }
+        addRegistration(new Registration(listener, element, null));
     }
 
     /**
@@ -236,18 +258,8 @@ public abstract class NotationProvider implements PropertyChangeListener {
      */
     protected final void addElementListener(PropertyChangeListener listener,
             Object element, String property) {
-        if (Model.getUmlFactory().isRemoved(element)) {
-            LOG.log(Level.WARNING, "Encountered deleted object during delete of " + element);
-            return;
-        }
-        Object[] entry = new Object[] {element, property};
-        if (!listeners.contains(entry)) {
-            listeners.add(entry);
-            Model.getPump().addModelEventListener(listener, element, property);
-        } else {
-            LOG.log(Level.FINE, "Attempted duplicate registration of event listener"
-                    + " - Element: {0} Listener: {1}", new Object[]{element, listener});
-        }
+        addRegistration(new Registration(listener, element,
+                new String[] {property}));
     }
 
     /**
@@ -274,19 +286,7 @@ public abstract class NotationProvider implements PropertyChangeListener {
      */
     protected final void addElementListener(PropertyChangeListener listener,
             Object element, String[] property) {
-        if (Model.getUmlFactory().isRemoved(element)) {
-            LOG.log(Level.WARNING, "Encountered deleted object during delete of " + element);
-            return;
-        }
-        Object[] entry = new Object[] {element, property};
-        if (!listeners.contains(entry)) {
-            listeners.add(entry);
-            Model.getPump().addModelEventListener(listener, element, property);
-        } else {
-            LOG.log(Level.FINE,
-                    "Attempted duplicate registration of event listener"
-                    + " - Element: " + element + " Listener: " + listener);
-        }
+        addRegistration(new Registration(listener, element, property));
     }
 
     /**
@@ -301,6 +301,24 @@ public abstract class NotationProvider implements PropertyChangeListener {
         addElementListener(this, element, property);
     }
 
+    private void addRegistration(Registration registration) {
+        if (Model.getUmlFactory().isRemoved(registration.element)) {
+            LOG.log(Level.WARNING, "Encountered deleted object during delete of "
+                    + registration.element);
+            return;
+        }
+        if (wanted != null) {
+            wanted.add(registration);
+        } else if (listeners.add(registration)) {
+            registration.register();
+        } else {
+            LOG.log(Level.FINE, "Attempted duplicate registration of event listener"
+                    + " - Element: {0} Listener: {1}", new Object[] {
+                        registration.element, registration.listener,
+                    });
+        }
+    }
+
     /*
      * Utility function to remove an element listener
      * and adapt the remembered list of registration.
@@ -311,7 +329,7 @@ public abstract class NotationProvider implements PropertyChangeListener {
      */
     protected final void removeElementListener(PropertyChangeListener listener,
             Object element) {
-        listeners.remove(new Object[] {element, null});
+        listeners.remove(new Registration(listener, element, null));
         Model.getPump().removeModelEventListener(listener, element);
     }
 
@@ -333,20 +351,9 @@ public abstract class NotationProvider implements PropertyChangeListener {
      */
     protected final void removeAllElementListeners(
             PropertyChangeListener listener) {
-        for (Object[] lis : listeners) {
-            Object property = lis[1];
-            if (property == null) {
-                Model.getPump().removeModelEventListener(listener, lis[0]);
-            } else if (property instanceof String[]) {
-                Model.getPump().removeModelEventListener(listener, lis[0],
-                        (String[]) property);
-            } else if (property instanceof String) {
-                Model.getPump().removeModelEventListener(listener, lis[0],
-                        (String) property);
-            } else {
-                throw new RuntimeException(
-                        "Internal error in removeAllElementListeners");
-            }
+        for (Registration registration : listeners) {
+            new Registration(listener, registration.element,
+                    registration.properties).unregister();
         }
         listeners.clear();
     }
@@ -359,10 +366,86 @@ public abstract class NotationProvider implements PropertyChangeListener {
         removeAllElementListeners(this);
     }
 
+    /**
+     * The model elements the text depends on, as far as the registered
+     * listeners tell.
+     *
+     * @return the names of the properties listened to by element, or null
+     *         for an element of which all properties are listened to
+     */
+    Map<Object, Set<String>> getDependencies() {
+        Map<Object, Set<String>> dependencies =
+            new HashMap<Object, Set<String>>();
+        for (Registration registration : listeners) {
+            Object element = registration.element;
+            if (registration.properties == null) {
+                dependencies.put(element, null);
+            } else if (!dependencies.containsKey(element)) {
+                dependencies.put(element, new HashSet<String>(
+                        Arrays.asList(registration.properties)));
+            } else if (dependencies.get(element) != null) {
+                dependencies.get(element).addAll(
+                        Arrays.asList(registration.properties));
+            }
+        }
+        return dependencies;
+    }
+
     /**
      * @param nr the NotationRenderer
      */
     void setRenderer(NotationRenderer nr) {
         renderer = nr;
     }
+
+    /**
+     * A listener registered with the event pump for (some of) the
+     * properties of an element.
+     */
+    private static final class Registration {
+        private final PropertyChangeListener listener;
+        private final Object element;
+        private final String[] properties;
+
+        Registration(PropertyChangeListener theListener, Object theElement,
+                String[] theProperties) {
+            listener = theListener;
+            element = theElement;
+            properties = theProperties;
+        }
+
+        void register() {
+            if (properties == null) {
+                Model.getPump().addModelEventListener(listener, element);
+            } else {
+                Model.getPump().addModelEventListener(listener, element,
+                        properties);
+            }
+        }
+
+        void unregister() {
+            if (properties == null) {
+                Model.getPump().removeModelEventListener(listener, element);
+            } else {
+                Model.getPump().removeModelEventListener(listener, element,
+                        properties);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Registration)) {
+                return false;
+            }
+            Registration other = (Registration) obj;
+            return listener == other.listener && element == other.element
+                && Arrays.equals(properties, other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(element) * 31
+                + Arrays.hashCode(properties);
+        }
+    }
 }
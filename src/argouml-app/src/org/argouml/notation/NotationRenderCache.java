@@ -0,0 +1,268 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.notation;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The text last generated by the notation providers, so it is not generated
+ * again when a model event leaves it unchanged.<p>
+ *
+ * A text is remembered for a model element, the type of the provider and
+ * the values of the notation settings. It depends on the elements and
+ * properties the provider listens to. An event drops only the texts which
+ * depend on the property of the element that changed. Since every provider
+ * listening to an element receives the same event, an event is only looked
+ * at the first time.
+ */
+final class NotationRenderCache {
+
+    /**
+     * The largest number of texts remembered.
+     */
+    static final int MAX_ENTRIES = 5000;
+
+    private static final NotationRenderCache INSTANCE =
+        new NotationRenderCache();
+
+    private final Map<Key, Entry> entries =
+        new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= MAX_ENTRIES) {
+                    return false;
+                }
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+
+    /**
+     * The texts by the elements they depend on.
+     */
+    private final Map<Object, Set<Key>> dependents =
+        new HashMap<Object, Set<Key>>();
+
+    private PropertyChangeEvent lastEvent;
+
+    /**
+     * Counts the events which dropped texts, so a text generated while an
+     * event arrives is not remembered.
+     */
+    private long generation;
+
+    private long hits;
+
+    private long misses;
+
+    private NotationRenderCache() {
+    }
+
+    /**
+     * @return the cache shared by all notation providers
+     */
+    static NotationRenderCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the text for an element, generating it if it is not known.
+     *
+     * @param provider the notation provider
+     * @param element the element to generate the text for
+     * @param settings the notation settings
+     * @return the text
+     */
+    String render(NotationProvider provider, Object element,
+            NotationSettings settings) {
+        Key key = new Key(element, provider.getClass(), settings);
+        long before;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.text;
+            }
+            misses++;
+            before = generation;
+        }
+        String text = provider.toString(element, settings);
+        Map<Object, Set<String>> dependencies = provider.getDependencies();
+        if (dependencies.isEmpty()) {
+            // Nothing would tell us when the text changes
+            return text;
+        }
+        synchronized (this) {
+            if (generation == before) {
+                Entry entry = new Entry(text, dependencies);
+                Entry old = entries.put(key, entry);
+                if (old != null) {
+                    unindex(key, old);
+                }
+                for (Object dependency : dependencies.keySet()) {
+                    Set<Key> keys = dependents.get(dependency);
+                    if (keys == null) {
+                        keys = new HashSet<Key>();
+                        dependents.put(dependency, keys);
+                    }
+                    keys.add(key);
+                }
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Drop the texts a change makes out of date.
+     *
+     * @param event the model event
+     */
+    synchronized void invalidate(PropertyChangeEvent event) {
+        if (event == lastEvent) {
+            return;
+        }
+        lastEvent = event;
+        generation++;
+        Object source = event.getSource();
+        Set<Key> keys = dependents.get(source);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : new ArrayList<Key>(keys)) {
+            Entry entry = entries.get(key);
+            if (entry != null
+                    && entry.dependsOn(source, event.getPropertyName())) {
+                entries.remove(key);
+                unindex(key, entry);
+            }
+        }
+    }
+
+    /**
+     * Forget all texts.
+     */
+    synchronized void clear() {
+        entries.clear();
+        dependents.clear();
+        lastEvent = null;
+        generation++;
+    }
+
+    /**
+     * @return the number of texts found in the cache
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of texts which had to be generated
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private void unindex(Key key, Entry entry) {
+        for (Object dependency : entry.dependencies.keySet()) {
+            Set<Key> keys = dependents.get(dependency);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+    }
+
+    /**
+     * A text and the properties it was generated from.
+     */
+    private static class Entry {
+        private final String text;
+        private final Map<Object, Set<String>> dependencies;
+
+        Entry(String theText, Map<Object, Set<String>> theDependencies) {
+            text = theText;
+            dependencies = theDependencies;
+        }
+
+        boolean dependsOn(Object element, String property) {
+            if (!dependencies.containsKey(element)) {
+                return false;
+            }
+            Set<String> properties = dependencies.get(element);
+            return properties == null || property == null
+                || properties.contains(property);
+        }
+    }
+
+    /**
+     * What a text is generated from. The settings are copied, since they
+     * may change, and settings with the same values give the same text.
+     */
+    private static class Key {
+        private final Object element;
+        private final Class providerType;
+        private final String language;
+        private final int flags;
+
+        Key(Object theElement, Class theProviderType,
+                NotationSettings settings) {
+            element = theElement;
+            providerType = theProviderType;
+            language = settings.getNotationLanguage();
+            boolean[] values = {
+                settings.isFullyHandleStereotypes(),
+                settings.isShowSingularMultiplicities(),
+                settings.isUseGuillemets(),
+                settings.isShowTypes(),
+                settings.isShowProperties(),
+                settings.isShowInitialValues(),
+                settings.isShowMultiplicities(),
+                settings.isShowAssociationNames(),
+                settings.isShowVisibilities(),
+                settings.isShowPaths(),
+            };
+            int bits = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i]) {
+                    bits |= 1 << i;
+                }
+            }
+            flags = bits;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return element == other.element
+                && providerType == other.providerType
+                && flags == other.flags
+                && (language == null ? other.language == null
+                        : language.equals(other.language));
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(element) * 31
+                    + providerType.hashCode()) * 31 + flags;
+        }
+    }
+}
@@ -439,7 +439,7 @@ class ArgoAny implements Any, Type2 {
 	    ArgoAny other = (ArgoAny) type;
 	    return equals(type)
 		|| Model.getCoreHelper()
-		    .getAllSupertypes(classifier).contains(other.classifier);
+		    .isAncestor(other.classifier, classifier);
 	}
         return false;
     }
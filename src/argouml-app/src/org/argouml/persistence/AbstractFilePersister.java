@@ -275,6 +275,10 @@ public abstract class AbstractFilePersister extends FileFilter
     public final void save(Project project, File file) throws SaveException,
     InterruptedException {
         preSave(project, file);
+        if (project != null) {
+            // Diagrams which are not loaded would be left out
+            project.loadPendingDiagrams();
+        }
         doSave(project, file);
         postSave(project, file);
     }
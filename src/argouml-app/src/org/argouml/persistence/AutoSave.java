@@ -0,0 +1,228 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipOutputStream;
+
+import javax.swing.SwingUtilities;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.configuration.ConfigurationKey;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.kernel.ProjectMember;
+import org.argouml.persistence.OldZargoFilePersister.RenderedMember;
+
+/**
+ * Periodically writes a snapshot of the current project next to its file,
+ * without holding up the user.<p>
+ *
+ * The snapshot of <code>project.zargo</code> is
+ * <code>project.zargo.autosave</code>. Only the .argo entry and the
+ * diagrams which changed since the previous snapshot are saved on the
+ * event dispatch thread, since they read the figs. The model is written in
+ * the background, inside a read transaction of the model repository, and
+ * the entries of unchanged members are copied from the previous snapshot.
+ * Projects which have never been saved are skipped.
+ */
+public final class AutoSave {
+
+    private static final Logger LOG =
+        Logger.getLogger(AutoSave.class.getName());
+
+    /**
+     * The configuration key to turn autosave on.
+     */
+    public static final ConfigurationKey KEY_ENABLED =
+        Configuration.makeKey("autosave", "enabled");
+
+    /**
+     * The configuration key for the number of seconds between snapshots.
+     */
+    public static final ConfigurationKey KEY_INTERVAL =
+        Configuration.makeKey("autosave", "interval");
+
+    /**
+     * The extension added to the name of the project file for a snapshot.
+     */
+    public static final String EXTENSION = ".autosave";
+
+    private static final int DEFAULT_INTERVAL = 300;
+
+    private static final AutoSave INSTANCE = new AutoSave();
+
+    private ScheduledExecutorService executor;
+
+    private AutoSave() {
+    }
+
+    /**
+     * @return the singleton
+     */
+    public static AutoSave getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start taking snapshots. Whether they are taken is checked every
+     * time, so turning the option on or off needs no restart.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ArgoUML autosave");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+        int interval = Math.max(1, Configuration.getInteger(KEY_INTERVAL,
+                DEFAULT_INTERVAL));
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    if (Configuration.getBoolean(KEY_ENABLED, false)) {
+                        save();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    // Never let an exception cancel the schedule.
+                    LOG.log(Level.WARNING, "Autosave failed", e);
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop taking snapshots.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Write a snapshot of the current project if it has changes which are
+     * not saved.
+     *
+     * @throws Exception if the snapshot can't be taken
+     */
+    void save() throws Exception {
+        final Snapshot snapshot = new Snapshot();
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                snapshot.take();
+            }
+        });
+        if (snapshot.failure != null) {
+            throw snapshot.failure;
+        }
+        if (snapshot.project == null) {
+            return;
+        }
+
+        File temp = new File(snapshot.file.getPath() + "#");
+        ZipOutputStream stream = null;
+        try {
+            stream = new ZipOutputStream(new FileOutputStream(temp));
+            snapshot.persister.writeArchive(snapshot.project, stream,
+                    snapshot.incremental, snapshot.argo, snapshot.rendered);
+            stream.close();
+            stream = null;
+            snapshot.incremental.commit();
+        } finally {
+            if (stream != null) {
+                snapshot.incremental.close();
+                try {
+                    stream.close();
+                } catch (Exception e) {
+                    // Do nothing.
+                }
+                temp.delete();
+            }
+        }
+        snapshot.file.delete();
+        if (!temp.renameTo(snapshot.file)) {
+            LOG.log(Level.WARNING, "Can't rename {0} to {1}",
+                    new Object[] {temp, snapshot.file});
+            return;
+        }
+        LOG.log(Level.INFO, "Saved a snapshot to {0}", snapshot.file);
+    }
+
+    /**
+     * What has to be read on the event dispatch thread.
+     */
+    private static class Snapshot {
+        private Project project;
+        private File file;
+        private OldZargoFilePersister persister;
+        private IncrementalSave incremental;
+        private byte[] argo;
+        private Map<ProjectMember, RenderedMember> rendered =
+            new HashMap<ProjectMember, RenderedMember>();
+        private Exception failure;
+
+        void take() {
+            Project current =
+                ProjectManager.getManager().getCurrentProject();
+            if (current == null || !current.isDirty()) {
+                return;
+            }
+            URI uri = current.getURI();
+            if (uri == null || !"file".equals(uri.getScheme())) {
+                return;
+            }
+            file = new File(new File(uri).getPath() + EXTENSION);
+            persister = new OldZargoFilePersister();
+            try {
+                current.loadPendingDiagrams();
+                current.getMemberChangeTracker().resolveDiagramChanges();
+                // The snapshot is the previous copy of the temporary
+                // file it is renamed from.
+                incremental = new IncrementalSave(current,
+                        new File(file.getPath() + "#"), file);
+                argo = persister.renderArgo(current);
+                for (ProjectMember member : current.getMembers()) {
+                    if (!"xmi".equalsIgnoreCase(member.getType())
+                            && !(OldZargoFilePersister.isReusable(member)
+                                    && incremental.isUnchanged(member))) {
+                        rendered.put(member, persister.render(member));
+                    }
+                }
+                project = current;
+            } catch (Exception e) {
+                if (incremental != null) {
+                    incremental.close();
+                }
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.argouml.kernel.PendingDiagrams;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.Model;
+import org.argouml.uml.UUIDHelper;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Creates the figs of the diagrams of a project after the project has been
+ * opened.<p>
+ *
+ * The PGML of each diagram is read and scanned for the model elements it
+ * shows while the model is still loading, on as many threads as there are
+ * diagrams. Creating the figs touches GEF and the model, so it is done on
+ * the event dispatch thread, one diagram per event so the user is never
+ * held up for long. A diagram which is needed before its turn, because it
+ * is asked for by name or because it shows an element somebody looks for,
+ * is loaded straight away.
+ */
+final class DeferredDiagramLoader implements PendingDiagrams {
+
+    private static final Logger LOG =
+        Logger.getLogger(DeferredDiagramLoader.class.getName());
+
+    private static final SAXParserFactory FACTORY =
+        SAXParserFactory.newInstance();
+
+    private final Project project;
+
+    private final DiagramMemberFilePersister persister;
+
+    private final Map<String, Object> uuidRefs;
+
+    private final List<ScannedDiagram> pending;
+
+    /**
+     * The constructor.
+     *
+     * @param theProject the project the diagrams belong to
+     * @param thePersister the persister which reads the diagrams
+     * @param theUuidRefs the model elements of the project by UUID. The
+     *            project drops its reference to the map once it is loaded,
+     *            so this must be taken before.
+     * @param diagrams the diagrams to load
+     */
+    DeferredDiagramLoader(Project theProject,
+            DiagramMemberFilePersister thePersister,
+            final Map<String, Object> theUuidRefs,
+            List<ScannedDiagram> diagrams) {
+        project = theProject;
+        persister = thePersister;
+        // Elements may be deleted before the diagrams showing them are
+        // loaded. Those have to be left out, as if they were never there.
+        uuidRefs = new AbstractMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                Object element = theUuidRefs.get(key);
+                if (element != null
+                        && Model.getUmlFactory().isRemoved(element)) {
+                    return null;
+                }
+                return element;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                return theUuidRefs.entrySet();
+            }
+        };
+        pending = new LinkedList<ScannedDiagram>(diagrams);
+    }
+
+    /**
+     * Start loading the diagrams in the background, on the event dispatch
+     * thread.
+     */
+    void start() {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                if (loadNext()) {
+                    SwingUtilities.invokeLater(this);
+                }
+            }
+        });
+    }
+
+    private synchronized boolean loadNext() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        load(pending.remove(0));
+        return !pending.isEmpty();
+    }
+
+    /*
+     * @see org.argouml.kernel.PendingDiagrams#loadAll()
+     */
+    public synchronized void loadAll() {
+        while (!pending.isEmpty()) {
+            load(pending.remove(0));
+        }
+    }
+
+    /*
+     * @see org.argouml.kernel.PendingDiagrams#loadFor(java.lang.Object)
+     */
+    public synchronized void loadFor(Object element) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String uuid = null;
+        if (Model.getFacade().isAUMLElement(element)) {
+            uuid = UUIDHelper.getUUID(element);
+        }
+        if (uuid == null) {
+            // We only know which diagrams show which model elements
+            loadAll();
+            return;
+        }
+        Iterator<ScannedDiagram> it = pending.iterator();
+        while (it.hasNext()) {
+            ScannedDiagram diagram = it.next();
+            if (diagram.references.contains(uuid)) {
+                it.remove();
+                load(diagram);
+            }
+        }
+    }
+
+    /*
+     * @see org.argouml.kernel.PendingDiagrams#cancel()
+     */
+    public synchronized void cancel() {
+        pending.clear();
+    }
+
+    private void load(ScannedDiagram scanned) {
+        if (pending.isEmpty()) {
+            project.setPendingDiagrams(null);
+        }
+        ProjectManager manager = ProjectManager.getManager();
+        boolean current = manager.getCurrentProject() == project;
+        boolean dirty = current && project.isDirty();
+        try {
+            ArgoDiagram diagram = persister.readDiagram(project, uuidRefs,
+                    scanned.getInputSource());
+            project.addMember(diagram);
+            diagram.postLoad();
+            manager.diagramLoaded(diagram);
+            LOG.log(Level.FINE, "Loaded diagram {0}", scanned.name);
+        } catch (OpenException e) {
+            LOG.log(Level.SEVERE,
+                    "Failed to load diagram " + scanned.name, e);
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE,
+                    "Failed to load diagram " + scanned.name, e);
+        }
+        if (current && !dirty) {
+            // Loading a diagram is no change to the project
+            project.setDirty(false);
+        }
+    }
+
+    /**
+     * Read the name of a diagram and the UUIDs of the model elements it
+     * refers to, without creating anything. Safe to call from any thread.
+     *
+     * @param systemId the URL the PGML was read from
+     * @param pgml the PGML of the diagram
+     * @return what was found
+     * @throws OpenException if the PGML can't be parsed
+     */
+    static ScannedDiagram scan(String systemId, byte[] pgml)
+        throws OpenException {
+        final ScannedDiagram scanned = new ScannedDiagram(systemId, pgml);
+        try {
+            XMLReader reader;
+            // The factory is not guaranteed to be thread safe
+            synchronized (FACTORY) {
+                reader = FACTORY.newSAXParser().getXMLReader();
+            }
+            reader.setEntityResolver(new EntityResolver() {
+                public InputSource resolveEntity(String publicId,
+                        String id) {
+                    // Nothing in pgml.dtd matters here
+                    return new InputSource(new StringReader(""));
+                }
+            });
+            reader.setContentHandler(new DefaultHandler() {
+                private boolean root = true;
+
+                @Override
+                public void startElement(String uri, String localName,
+                        String qName, Attributes attributes) {
+                    if (root) {
+                        root = false;
+                        scanned.name = attributes.getValue("name");
+                        // The description ends with the UUID of the owner
+                        String description =
+                            attributes.getValue("description");
+                        if (description != null
+                                && description.indexOf('|') >= 0) {
+                            scanned.references.add(description.substring(
+                                    description.lastIndexOf('|') + 1));
+                        }
+                    }
+                    String href = attributes.getValue("href");
+                    if (href != null) {
+                        scanned.references.add(href);
+                    }
+                }
+            });
+            reader.parse(scanned.getInputSource());
+        } catch (ParserConfigurationException e) {
+            throw new OpenException(e);
+        } catch (SAXException e) {
+            throw new OpenException(e);
+        } catch (IOException e) {
+            throw new OpenException(e);
+        }
+        return scanned;
+    }
+
+    /**
+     * A diagram read, but not loaded yet.
+     */
+    static class ScannedDiagram {
+        private final String systemId;
+        private final byte[] pgml;
+        private final Set<String> references = new HashSet<String>();
+        private String name;
+
+        ScannedDiagram(String theSystemId, byte[] thePgml) {
+            systemId = theSystemId;
+            pgml = thePgml;
+        }
+
+        /**
+         * @return the name of the diagram, or null if it has none
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the PGML of the diagram, to read it from
+         */
+        InputSource getInputSource() {
+            InputSource source =
+                new InputSource(new ByteArrayInputStream(pgml));
+            source.setSystemId(systemId);
+            return source;
+        }
+    }
+}
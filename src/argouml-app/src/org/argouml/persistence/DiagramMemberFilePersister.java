@@ -38,11 +38,13 @@
 
 package org.argouml.persistence;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -94,6 +96,21 @@ class DiagramMemberFilePersister extends MemberFilePersister {
     @Override
     public void load(Project project, InputSource inputSource)
         throws OpenException {
+        project.addMember(
+                readDiagram(project, project.getUUIDRefs(), inputSource));
+    }
+
+    /**
+     * Read a diagram without adding it to its project.
+     *
+     * @param project the project the diagram belongs to
+     * @param uuidRefs the model elements of the project by UUID
+     * @param inputSource the PGML of the diagram
+     * @return the diagram
+     * @throws OpenException if the diagram can't be read
+     */
+    ArgoDiagram readDiagram(Project project, Map<String, Object> uuidRefs,
+            InputSource inputSource) throws OpenException {
 
         // If the model repository doesn't manage a DI model
         // then we must generate our Figs by inspecting PGML
@@ -105,7 +122,7 @@ class DiagramMemberFilePersister extends MemberFilePersister {
             DiagramSettings defaultSettings =
                 project.getProjectSettings().getDefaultDiagramSettings();
             // TODO: We need the project specific diagram settings here
-            PGMLStackParser parser = new PGMLStackParser(project.getUUIDRefs(),
+            PGMLStackParser parser = new PGMLStackParser(uuidRefs,
                     defaultSettings);
             LOG.log(Level.INFO, "Adding translations registered by modules");
             for (Map.Entry<String, String> translation
@@ -114,8 +131,7 @@ class DiagramMemberFilePersister extends MemberFilePersister {
                         translation.getKey(),
                         translation.getValue());
             }
-            ArgoDiagram d = parser.readArgoDiagram(inputSource, false);
-            project.addMember(d);
+            return parser.readArgoDiagram(inputSource, false);
         } catch (Exception e) {
             if (e instanceof OpenException) {
                 throw (OpenException) e;
@@ -139,6 +155,36 @@ class DiagramMemberFilePersister extends MemberFilePersister {
     public void save(ProjectMember member, OutputStream outStream)
         throws SaveException {
 
+        ProjectMemberDiagram diagramMember = (ProjectMemberDiagram) member;
+        Writer outputWriter;
+        try {
+            outputWriter = new BufferedWriter(
+                    new OutputStreamWriter(outStream, Argo.getEncoding()));
+        } catch (UnsupportedEncodingException e1) {
+            throw new SaveException("Bad encoding", e1);
+        }
+
+        try {
+            new PgmlWriter(outputWriter).write(diagramMember.getDiagram());
+        } catch (IOException e) {
+            throw new SaveException(e);
+        } catch (RuntimeException e) {
+            throw new SaveException(e);
+        }
+    }
+
+    /**
+     * Save a diagram by expanding PGML.tee, which is what
+     * {@link PgmlWriter} replaces. Kept to check the two against each
+     * other.
+     *
+     * @param member the diagram member
+     * @param outStream the stream to write to
+     * @throws SaveException if the expansion fails
+     */
+    void saveFromTemplate(ProjectMember member, OutputStream outStream)
+        throws SaveException {
+
         ProjectMemberDiagram diagramMember = (ProjectMemberDiagram) member;
         OCLExpander expander;
         try {
@@ -0,0 +1,237 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectMember;
+
+/**
+ * Reuses the entries of members which did not change since a project was
+ * last saved to the same archive.<p>
+ *
+ * For every archive written, the revision of each member at the time its
+ * entry was generated is remembered. The next save to that archive copies
+ * the entry of a member with the same revision from the previous archive
+ * instead of generating it again. The previous archive is only trusted if
+ * its length and modification time are what we left behind, so a file
+ * changed by anybody else is always written in full.
+ */
+final class IncrementalSave {
+
+    private static final Logger LOG =
+        Logger.getLogger(IncrementalSave.class.getName());
+
+    /**
+     * The archives written per project, by absolute path.
+     */
+    private static final Map<Project, Map<String, SavedArchive>> ARCHIVES =
+        new WeakHashMap<Project, Map<String, SavedArchive>>();
+
+    private final Project project;
+
+    private final File target;
+
+    private final ZipFile previous;
+
+    private final SavedArchive previousArchive;
+
+    private final SavedArchive archive = new SavedArchive();
+
+    private int reused;
+
+    /**
+     * Start saving a project.
+     *
+     * @param theProject the project being saved
+     * @param theTarget the archive being written
+     * @param previousCopy a copy of the archive as it was before this save,
+     *            or null if there is none
+     */
+    IncrementalSave(Project theProject, File theTarget, File previousCopy) {
+        project = theProject;
+        target = theTarget.getAbsoluteFile();
+        SavedArchive saved = get(project, target);
+        ZipFile zip = null;
+        if (saved != null && previousCopy != null && previousCopy.exists()
+                && previousCopy.length() == saved.length
+                && previousCopy.lastModified() == saved.lastModified) {
+            try {
+                zip = new ZipFile(previousCopy);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Can't reopen " + previousCopy, e);
+            }
+        }
+        previous = zip;
+        previousArchive = zip == null ? null : saved;
+    }
+
+    /**
+     * @param member the member
+     * @return true if the entry of the member in the previous archive can
+     *         be reused
+     */
+    boolean isUnchanged(ProjectMember member) {
+        if (previousArchive == null) {
+            return false;
+        }
+        SavedEntry saved = previousArchive.entries.get(member);
+        return saved != null && saved.revision == member.getRevision()
+            && previous.getEntry(saved.name) != null;
+    }
+
+    /**
+     * Copy the entry of a member from the previous archive if the member
+     * did not change since that was written.
+     *
+     * @param member the member
+     * @param name the name of the entry in the new archive
+     * @param stream the stream the entry is written to
+     * @return true if the entry was copied, false if the member has to be
+     *         saved
+     * @throws IOException if writing the entry fails half way
+     */
+    boolean copyIfUnchanged(ProjectMember member, String name,
+            OutputStream stream) throws IOException {
+        return isUnchanged(member) && copyPrevious(member, name, stream);
+    }
+
+    /**
+     * Copy the entry of a member from the previous archive, even if the
+     * member changed since. The entry keeps the revision it was saved at,
+     * so the next save does save the member.
+     *
+     * @param member the member
+     * @param name the name of the entry in the new archive
+     * @param stream the stream the entry is written to
+     * @return true if the entry was copied, false if there is none
+     * @throws IOException if writing the entry fails half way
+     */
+    boolean copyPrevious(ProjectMember member, String name,
+            OutputStream stream) throws IOException {
+        if (previousArchive == null) {
+            return false;
+        }
+        SavedEntry saved = previousArchive.entries.get(member);
+        ZipEntry entry = saved == null ? null : previous.getEntry(saved.name);
+        if (entry == null) {
+            return false;
+        }
+        InputStream in = previous.getInputStream(entry);
+        try {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                stream.write(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        written(member, name, saved.revision);
+        reused++;
+        return true;
+    }
+
+    /**
+     * Record the entry written for a member.
+     *
+     * @param member the member
+     * @param name the name of the entry
+     * @param revision the revision of the member before its entry was
+     *            generated
+     */
+    void written(ProjectMember member, String name, long revision) {
+        archive.entries.put(member, new SavedEntry(name, revision));
+    }
+
+    /**
+     * Remember what was written once the archive is complete. Must be
+     * called after the archive is closed.
+     */
+    void commit() {
+        close();
+        archive.length = target.length();
+        archive.lastModified = target.lastModified();
+        synchronized (ARCHIVES) {
+            Map<String, SavedArchive> archives = ARCHIVES.get(project);
+            if (archives == null) {
+                archives = new HashMap<String, SavedArchive>();
+                ARCHIVES.put(project, archives);
+            }
+            archives.put(target.getPath(), archive);
+        }
+        LOG.log(Level.FINE, "Reused {0} of {1} entries in {2}",
+                new Object[] {reused, archive.entries.size(), target});
+    }
+
+    /**
+     * Release the previous archive. Forgets the target, since a save which
+     * does not get to commit leaves it in an unknown state.
+     */
+    void close() {
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Failed to close previous archive", e);
+            }
+        }
+        synchronized (ARCHIVES) {
+            Map<String, SavedArchive> archives = ARCHIVES.get(project);
+            if (archives != null) {
+                archives.remove(target.getPath());
+            }
+        }
+    }
+
+    private static SavedArchive get(Project project, File file) {
+        synchronized (ARCHIVES) {
+            Map<String, SavedArchive> archives = ARCHIVES.get(project);
+            return archives == null ? null : archives.get(file.getPath());
+        }
+    }
+
+    /**
+     * What was written to an archive.
+     */
+    private static class SavedArchive {
+        private long length;
+        private long lastModified;
+        // Weak, since the members refer to the project, which would
+        // otherwise never be released from ARCHIVES.
+        private final Map<ProjectMember, SavedEntry> entries =
+            new WeakHashMap<ProjectMember, SavedEntry>();
+    }
+
+    /**
+     * The entry written for a member.
+     */
+    private static class SavedEntry {
+        private final String name;
+        private final long revision;
+
+        SavedEntry(String theName, long theRevision) {
+            name = theName;
+            revision = theRevision;
+        }
+    }
+}
@@ -40,14 +40,18 @@
 package org.argouml.persistence;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
@@ -141,10 +145,17 @@ class OldZargoFilePersister extends ZargoFilePersister {
             }
         }
 
-        BufferedWriter writer = null;
+        // Only the copy made for a safe save survives long enough to
+        // reuse its entries.
+        project.getMemberChangeTracker().resolveDiagramChanges();
+        IncrementalSave incremental =
+            new IncrementalSave(project, file, tempFile);
+        ZipOutputStream stream = null;
         try {
-            writer = prepareOutputStream(file, project);
-            saveProjectMembers(project, writer);
+            stream = new ZipOutputStream(new FileOutputStream(file));
+            writeArchive(project, stream, incremental, null, null);
+            stream.close();
+            incremental.commit();
 
             if (doSafeSaves) {
                 handleSafeSaves(lastArchiveFile, tempFile);
@@ -154,8 +165,9 @@ class OldZargoFilePersister extends ZargoFilePersister {
 
         } catch (Exception e) {
             LOG.log(Level.SEVERE, "Exception occured during save attempt", e);
+            incremental.close();
             try {
-                writer.close();
+                stream.close();
             } catch (Exception ex) {
                 // Do nothing.
             }
@@ -166,12 +178,6 @@ class OldZargoFilePersister extends ZargoFilePersister {
             // we have to give a message to user and set the system to unsaved!
             throw new SaveException(e);
         }
-
-        try {
-            writer.close();
-        } catch (IOException ex) {
-            LOG.log(Level.SEVERE, "Failed to close save output writer", ex);
-        }
     }
 
     private void rollbackSave(File file, File tempFile) {
@@ -197,14 +203,45 @@ class OldZargoFilePersister extends ZargoFilePersister {
         }
     }
 
-    private void saveProjectMembers(Project project, BufferedWriter writer)
+    /**
+     * Write all entries of a project archive.<p>
+     *
+     * Members whose entry can be reused from the previous archive are
+     * copied and the others are saved. If <code>rendered</code> is given,
+     * all members but the model must be in it or be reusable, so that only
+     * the model is saved here.
+     *
+     * @param project the project
+     * @param stream the archive
+     * @param incremental the entries of the previous archive
+     * @param argo the .argo entry, or null to expand it now
+     * @param rendered the saved members with the revision they were saved
+     *            at, or null
+     * @throws IOException if writing fails
+     * @throws SaveException if a member can't be saved
+     */
+    void writeArchive(Project project, ZipOutputStream stream,
+            IncrementalSave incremental, byte[] argo,
+            Map<ProjectMember, RenderedMember> rendered)
         throws IOException, SaveException {
-        ZipOutputStream stream = (ZipOutputStream) writer.append(null);
+
+        // TODO: Cyclic dependency with PersistenceManager
+        // move PersistenceManager..getProjectBaseName() someplace else
+        stream.putNextEntry(new ZipEntry(PersistenceManager.getInstance()
+                .getProjectBaseName(project)
+                + FileConstants.UNCOMPRESSED_FILE_EXT));
+        if (argo == null) {
+            expandArgo(project, stream);
+        } else {
+            stream.write(argo);
+        }
+        stream.closeEntry();
+
+        List<ProjectMember> members =
+            new ArrayList<ProjectMember>(project.getMembers());
         int counter = 0;
-        int size = project.getMembers().size();
         Collection<String> names = new ArrayList<String>();
-        for (int i = 0; i < size; i++) {
-            ProjectMember projectMember = project.getMembers().get(i);
+        for (ProjectMember projectMember : members) {
             if (!(projectMember.getType().equalsIgnoreCase("xmi"))) {
 
                 LOG.log(Level.INFO,
@@ -218,57 +255,149 @@ class OldZargoFilePersister extends ZargoFilePersister {
                 }
                 names.add(name);
                 stream.putNextEntry(new ZipEntry(name));
-                MemberFilePersister persister =
-                    getMemberFilePersister(projectMember);
-                persister.save(projectMember, stream);
+                writeMember(projectMember, name, stream, incremental,
+                        rendered);
                 stream.flush();
                 stream.closeEntry();
             }
         }
 
-        for (int i = 0; i < size; i++) {
-            ProjectMember projectMember = project.getMembers().get(i);
+        for (ProjectMember projectMember : members) {
             if (projectMember.getType().equalsIgnoreCase("xmi")) {
 
                 LOG.log(Level.INFO,
                     "Saving member of type: {0}",
                     projectMember.getType());
 
-                stream.putNextEntry(
-                    new ZipEntry(projectMember.getZipName()));
-                OldModelMemberFilePersister persister =
-                    new OldModelMemberFilePersister();
-                persister.save(projectMember, stream);
+                String name = projectMember.getZipName();
+                stream.putNextEntry(new ZipEntry(name));
+                writeMember(projectMember, name, stream, incremental,
+                        rendered);
                 stream.flush();
+                stream.closeEntry();
             }
         }
     }
 
-    private BufferedWriter prepareOutputStream(File file, Project project)
+    private void writeMember(ProjectMember member, String name,
+            ZipOutputStream stream, IncrementalSave incremental,
+            Map<ProjectMember, RenderedMember> rendered)
+        throws IOException, SaveException {
+
+        boolean reusable = isReusable(member);
+        if (rendered != null && !member.getType().equalsIgnoreCase("xmi")) {
+            // Everything but the model was read up front, either into
+            // rendered or by finding it unchanged.
+            RenderedMember saved = rendered.get(member);
+            if (saved != null) {
+                stream.write(saved.getBytes());
+                if (reusable) {
+                    incremental.written(member, name, saved.getRevision());
+                }
+                return;
+            }
+            if (reusable && incremental.copyPrevious(member, name, stream)) {
+                return;
+            }
+            throw new SaveException("Member added while saving: " + name);
+        }
+        if (reusable && incremental.copyIfUnchanged(member, name, stream)) {
+            return;
+        }
+        // Read the revision first, so that a change made while saving
+        // gets the member saved again next time.
+        long revision = member.getRevision();
+        getPersister(member).save(member, stream);
+        if (reusable) {
+            incremental.written(member, name, revision);
+        }
+    }
+
+    /**
+     * Save a member to memory, so that it can be written to an archive
+     * later.
+     *
+     * @param member the member
+     * @return the saved member
+     * @throws SaveException if the member can't be saved
+     */
+    RenderedMember render(ProjectMember member) throws SaveException {
+        long revision = member.getRevision();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        getPersister(member).save(member, out);
+        return new RenderedMember(out.toByteArray(), revision);
+    }
+
+    /**
+     * Expand the .argo entry to memory.
+     *
+     * @param project the project
+     * @return the entry
+     * @throws IOException if the expansion fails
+     */
+    byte[] renderArgo(Project project) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expandArgo(project, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Only the model and the diagrams have their revisions kept up to
+     * date. The other members are small and always saved.
+     *
+     * @param member the member
+     * @return true if an unchanged entry of the member can be reused
+     */
+    static boolean isReusable(ProjectMember member) {
+        return "xmi".equalsIgnoreCase(member.getType())
+            || "pgml".equalsIgnoreCase(member.getType());
+    }
+
+    private MemberFilePersister getPersister(ProjectMember member) {
+        if (member.getType().equalsIgnoreCase("xmi")) {
+            return new OldModelMemberFilePersister();
+        }
+        return getMemberFilePersister(member);
+    }
+
+    private void expandArgo(Project project, OutputStream stream)
         throws IOException {
-        ZipOutputStream stream =
-            new ZipOutputStream(new FileOutputStream(file));
         BufferedWriter writer =
             new BufferedWriter(new OutputStreamWriter(stream, "UTF-8"));
 
-        // Save the .argo entry
-        // TODO: Cyclic dependency with PersistenceManager
-        // move PersistenceManager..getProjectBaseName() someplace else
-        ZipEntry zipEntry =
-            new ZipEntry(PersistenceManager.getInstance()
-                .getProjectBaseName(project)
-                + FileConstants.UNCOMPRESSED_FILE_EXT);
-        stream.putNextEntry(zipEntry);
-
         Hashtable templates =
             TemplateReader.getInstance().read(ARGO_MINI_TEE);
         OCLExpander expander = new OCLExpander(templates);
         expander.expand(writer, project);
 
         writer.flush();
+    }
 
-        stream.closeEntry();
-        return writer;
+    /**
+     * A member saved to memory.
+     */
+    static class RenderedMember {
+        private final byte[] bytes;
+        private final long revision;
+
+        RenderedMember(byte[] theBytes, long theRevision) {
+            bytes = theBytes;
+            revision = theRevision;
+        }
+
+        /**
+         * @return the saved member
+         */
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the revision of the member when it was saved
+         */
+        long getRevision() {
+            return revision;
+        }
     }
 //Refactoring end
 
@@ -110,6 +110,13 @@ public final class PersistenceManager {
      */
     public static final ConfigurationKey KEY_IMPORT_XMI_PATH =
         Configuration.makeKey("xmi", "import", "path");
+
+    /**
+     * The configuration key to put off loading all diagrams but the one
+     * shown first until the project is open.
+     */
+    public static final ConfigurationKey KEY_LAZY_DIAGRAMS =
+        Configuration.makeKey("project", "lazy", "diagrams");
     
     /**
      * The configuration to do safe saves, i.e. retain the 
@@ -0,0 +1,430 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.argouml.uml.UUIDHelper;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.static_structure.ui.FigEdgeNote;
+import org.argouml.uml.diagram.ui.FigEdgeModelElement;
+import org.argouml.uml.diagram.ui.FigNodeModelElement;
+import org.argouml.uml.diagram.ui.PathItemPlacement;
+import org.argouml.util.ItemUID;
+import org.tigris.gef.base.Diagram;
+import org.tigris.gef.base.PathConv;
+import org.tigris.gef.presentation.Fig;
+import org.tigris.gef.presentation.FigCircle;
+import org.tigris.gef.presentation.FigEdge;
+import org.tigris.gef.presentation.FigGroup;
+import org.tigris.gef.presentation.FigInk;
+import org.tigris.gef.presentation.FigLine;
+import org.tigris.gef.presentation.FigPoly;
+import org.tigris.gef.presentation.FigRRect;
+import org.tigris.gef.presentation.FigSpline;
+import org.tigris.gef.presentation.FigText;
+
+/**
+ * Writes a diagram as PGML.<p>
+ *
+ * The output is exactly what expanding PGML.tee with the GEF OCLExpander
+ * produces, without evaluating any expression by reflection. Every method
+ * here corresponds to a template of PGML.tee, and the figs are dispatched
+ * to them in the same way the expander picks the template of the closest
+ * superclass. A change to one must be made to the other.
+ *
+ * @see DiagramMemberFilePersister
+ */
+class PgmlWriter {
+
+    private static final String LINE_SEPARATOR =
+        System.getProperty("line.separator");
+
+    private final Writer writer;
+
+    /**
+     * @param theWriter the writer to write to. It is flushed, but not
+     *            closed.
+     */
+    PgmlWriter(Writer theWriter) {
+        writer = theWriter;
+    }
+
+    /**
+     * Write a diagram.
+     *
+     * @param diagram the diagram
+     * @throws IOException if writing fails
+     */
+    void write(Diagram diagram) throws IOException {
+        line("", "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+        line("", "<!DOCTYPE pgml SYSTEM \"pgml.dtd\">");
+        attribute("", "<pgml description", diagram.getClassAndModelID(), "");
+        line("", "      xmlns:argouml="
+                + "\"http://argouml.tigris.org/pgml-extensions\"");
+        attribute("", "      name", diagram.getName(), "");
+        line("", ">");
+        ItemUID uid = null;
+        if (diagram instanceof ArgoDiagram) {
+            uid = ((ArgoDiagram) diagram).getItemUID();
+        }
+        optionalAttribute("", "  <private>ItemUID", uid, "</private>");
+        for (Object fig : (List) diagram.getLayer().getContents()) {
+            writeObject("  ", fig);
+        }
+        line("", "</pgml>");
+        writer.flush();
+    }
+
+    private void writeObject(String prefix, Object o) throws IOException {
+        if (o instanceof FigNodeModelElement) {
+            writeNode(prefix, (FigNodeModelElement) o);
+        } else if (o instanceof FigGroup) {
+            writeGroup(prefix, (FigGroup) o);
+        } else if (o instanceof FigEdgeModelElement) {
+            writeEdge(prefix, (FigEdgeModelElement) o);
+        } else if (o instanceof FigEdgeNote) {
+            writeEdgeNote(prefix, (FigEdgeNote) o);
+        } else if (o instanceof FigEdge) {
+            writeEdge(prefix, (FigEdge) o);
+        } else if (o instanceof FigText) {
+            writeText(prefix, (FigText) o);
+        } else if (o instanceof FigRRect) {
+            writeRRect(prefix, (FigRRect) o);
+        } else if (o instanceof FigCircle) {
+            writeCircle(prefix, (FigCircle) o);
+        } else if (o instanceof FigLine) {
+            writeLine(prefix, (FigLine) o);
+        } else if (o instanceof FigSpline || o instanceof FigInk) {
+            writePoly(prefix, (FigPoly) o, 0);
+        } else if (o instanceof FigPoly) {
+            writePoly(prefix, (FigPoly) o, 1);
+        } else if (o instanceof Fig) {
+            // FigRect, FigCube and Fig all share this template
+            writeRect(prefix, (Fig) o);
+        } else if (o instanceof PathItemPlacement) {
+            writePathItem(prefix, (PathItemPlacement) o);
+        } else if (o instanceof PathConv) {
+            writePathConv(prefix, (PathConv) o);
+        } else if (o != null) {
+            line(prefix, escape(o.toString()));
+        }
+    }
+
+    private void writeRect(String prefix, Fig fig) throws IOException {
+        attribute(prefix, "<rectangle name", PgmlUtility.getId(fig), "");
+        writeBounds(prefix + "  ", fig.getBounds());
+        writeFillAndStroke(prefix + "  ", fig);
+        line(prefix, "/>");
+    }
+
+    private void writeRRect(String prefix, FigRRect fig) throws IOException {
+        attribute(prefix, "<rectangle name", PgmlUtility.getId(fig), "");
+        writeBounds(prefix + "  ", fig.getBounds());
+        writeFillAndStroke(prefix + "  ", fig);
+        attribute(prefix, "  rounding", fig.getCornerRadius(), "");
+        line(prefix, "/>");
+    }
+
+    private void writeCircle(String prefix, FigCircle fig)
+        throws IOException {
+        Point center = fig.getCenter();
+        attribute(prefix, "<ellipse name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "  x", center.x, "");
+        attribute(prefix, "  y", center.y, "");
+        attribute(prefix, "  rx", (int) fig.getHalfWidth(), "");
+        attribute(prefix, "  ry", (int) fig.getHalfHeight(), "");
+        writeFillAndStroke(prefix + "  ", fig);
+        line(prefix, "/>");
+    }
+
+    private void writeText(String prefix, FigText fig) throws IOException {
+        attribute(prefix, "<text name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "  x", fig.getX(), "");
+        attribute(prefix, "  y", fig.getY(), "");
+        attribute(prefix, "  width", fig.getWidth(), "");
+        attribute(prefix, "  height", fig.getHeight(), "");
+        writeFillAndStroke(prefix + "  ", fig);
+        attribute(prefix, "  textcolor", color(fig.getTextColor()), "");
+        attribute(prefix, "  font", fig.getFontFamily(), "");
+        attribute(prefix, "  italic", fig.getItalic(), "");
+        attribute(prefix, "  bold", fig.getBold(), "");
+        attribute(prefix, "  textsize", fig.getFontSize(), "");
+        attribute(prefix, "  justification", fig.getJustificationByName(),
+                "");
+        line(prefix, ">" + value(fig.getText()) + "</text>");
+    }
+
+    private void writeLine(String prefix, FigLine fig) throws IOException {
+        writePathStart(prefix, fig);
+        writeMoveTo(prefix + "  ", fig.getX1(), fig.getY1());
+        writeLineTo(prefix + "  ", fig.getX2(), fig.getY2());
+        line(prefix, "</path>");
+    }
+
+    /**
+     * FigPoly leaves out the first point after moving to it, FigSpline and
+     * FigInk don't.
+     */
+    private void writePoly(String prefix, FigPoly fig, int from)
+        throws IOException {
+        writePathStart(prefix, fig);
+        Point first = fig.getFirstPoint();
+        writeMoveTo(prefix + "  ", first.x, first.y);
+        Point[] points = fig.getPoints();
+        for (int i = from; i < points.length; i++) {
+            writeLineTo(prefix + "  ", points[i].x, points[i].y);
+        }
+        line(prefix, "</path>");
+    }
+
+    private void writePathStart(String prefix, Fig fig) throws IOException {
+        attribute(prefix, "<path name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "  description", fig.getClass().getName(), "");
+        writeFillAndStroke(prefix + "  ", fig);
+        line(prefix, ">");
+    }
+
+    private void writeMoveTo(String prefix, int x, int y)
+        throws IOException {
+        attribute(prefix, "<moveto x", x, "");
+        attribute(prefix, "        y", y, " />");
+    }
+
+    private void writeLineTo(String prefix, int x, int y)
+        throws IOException {
+        attribute(prefix, "<lineto x", x, "");
+        attribute(prefix, "        y", y, " />");
+    }
+
+    private void writeGroup(String prefix, FigGroup fig) throws IOException {
+        attribute(prefix, "<group name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "     description", fig.classNameAndBounds(), "");
+        optionalAttribute(prefix, "     href", UUIDHelper.getUUID(fig), "");
+        writeFillAndStroke(prefix + "     ", fig);
+        line(prefix, ">");
+        line(prefix, "  <private>");
+        optionalAttribute(prefix, "    enclosingFig",
+                PgmlUtility.getEnclosingId(fig), "");
+        line(prefix, "  </private>");
+        writeFigs(prefix, fig);
+    }
+
+    private void writeNode(String prefix, FigNodeModelElement fig)
+        throws IOException {
+        attribute(prefix, "<group name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "     description", fig.classNameAndBounds(), "");
+        optionalAttribute(prefix, "     href", UUIDHelper.getUUID(fig), "");
+        writeFillAndStroke(prefix + "     ", fig);
+        line(prefix, ">");
+        line(prefix, "  <private>");
+        optionalAttribute(prefix, "    ItemUID", fig.getItemUID(), "");
+        optionalAttribute(prefix, "    enclosingFig",
+                PgmlUtility.getEnclosingId(fig), "");
+        line(prefix, "  </private>");
+        writeFigs(prefix, fig);
+    }
+
+    private void writeFigs(String prefix, FigGroup fig) throws IOException {
+        line(prefix, "  ");
+        for (Object child : (List) fig.getFigs()) {
+            writeObject(prefix + "  ", child);
+        }
+        line(prefix, "</group>");
+    }
+
+    private void writeEdge(String prefix, FigEdge fig) throws IOException {
+        attribute(prefix, "<group name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "     description", fig.getClass().getName(), "");
+        optionalAttribute(prefix, "     href", UUIDHelper.getUUID(fig), "");
+        writeStroke(prefix, fig);
+        line(prefix, "  <private>");
+        writeConnections(prefix, fig);
+        line(prefix, "  </private>");
+        writeObject(prefix + "  ", fig.getFig());
+        line(prefix, "</group>");
+    }
+
+    private void writeEdgeNote(String prefix, FigEdgeNote fig)
+        throws IOException {
+        attribute(prefix, "<group name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "     description", fig.getClass().getName(), "");
+        writeStroke(prefix, fig);
+        line(prefix, "  <private>");
+        optionalAttribute(prefix, "    ItemUID", fig.getItemUID(), "");
+        writeConnections(prefix, fig);
+        line(prefix, "  </private>");
+        writeObject(prefix + "  ", fig.getFig());
+        line(prefix, "</group>");
+    }
+
+    private void writeEdge(String prefix, FigEdgeModelElement fig)
+        throws IOException {
+        attribute(prefix, "<group name", PgmlUtility.getId(fig), "");
+        attribute(prefix, "     description", fig.getClass().getName(), "");
+        optionalAttribute(prefix, "     href", UUIDHelper.getUUID(fig), "");
+        optionalAttribute(prefix, "     sourceConnector",
+                UUIDHelper.getUUID(fig.getSourceConnector()), "");
+        optionalAttribute(prefix, "     destConnector",
+                UUIDHelper.getUUID(fig.getDestinationConnector()), "");
+        writeStroke(prefix, fig);
+        line(prefix, "  <private>");
+        optionalAttribute(prefix, "    ItemUID", fig.getItemUID(), "");
+        writeConnections(prefix, fig);
+        for (Object strategy : fig.getPathItemStrategies()) {
+            writeObject(prefix + "    ", strategy);
+        }
+        line(prefix, "  </private>");
+        writeObject(prefix + "  ", fig.getFig());
+        line(prefix, "</group>");
+    }
+
+    private void writeStroke(String prefix, FigEdge fig) throws IOException {
+        attribute(prefix, "     stroke", fig.getLineWidth(), "");
+        attribute(prefix, "     strokecolor", color(fig.getLineColor()), "");
+        line(prefix, ">");
+    }
+
+    private void writeConnections(String prefix, FigEdge fig)
+        throws IOException {
+        attribute(prefix, "    sourcePortFig",
+                PgmlUtility.getId(fig.getSourcePortFig()), "");
+        attribute(prefix, "    destPortFig",
+                PgmlUtility.getId(fig.getDestPortFig()), "");
+        attribute(prefix, "    sourceFigNode",
+                PgmlUtility.getId(fig.getSourceFigNode()), "");
+        attribute(prefix, "    destFigNode",
+                PgmlUtility.getId(fig.getDestFigNode()), "");
+    }
+
+    private void writePathConv(String prefix, PathConv path)
+        throws IOException {
+        attribute(prefix, "<argouml:pathitem classname",
+                path.getClass().getName(), "");
+        optionalAttribute(prefix, "                  ownerhref",
+                UUIDHelper.getUUID(path.getPathFig()), " />");
+    }
+
+    private void writePathItem(String prefix, PathItemPlacement path)
+        throws IOException {
+        Fig item = path.getItemFig();
+        attribute(prefix, "<argouml:pathitem figname",
+                PgmlUtility.getId(item), "");
+        attribute(prefix, "                  classname",
+                path.getClass().getName(), "");
+        attribute(prefix, "                  figclassname",
+                item.getClass().getName(), "");
+        attribute(prefix, "                  ownerhref",
+                UUIDHelper.getUUID(item), "");
+        attribute(prefix, "                  angle", path.getAngle(), "");
+        attribute(prefix, "                  offset", path.getVectorOffset(),
+                " />");
+    }
+
+    private void writeBounds(String prefix, Rectangle bounds)
+        throws IOException {
+        attribute(prefix, "x", bounds.x, "");
+        attribute(prefix, "y", bounds.y, "");
+        attribute(prefix, "width", bounds.width, "");
+        attribute(prefix, "height", bounds.height, "");
+    }
+
+    /**
+     * The FILL_AND_STROKE macro.
+     */
+    private void writeFillAndStroke(String prefix, Fig fig)
+        throws IOException {
+        attribute(prefix, "fill", fig.isFilled() ? 1 : 0, "");
+        attribute(prefix, "fillcolor", color(fig.getFillColor()), "");
+        attribute(prefix, "stroke", fig.getLineWidth(), "");
+        attribute(prefix, "strokecolor", color(fig.getLineColor()), "");
+        optionalAttribute(prefix, "visibility",
+                PgmlUtility.getVisibility(fig), "");
+    }
+
+    private static String color(Color color) {
+        if (color == null) {
+            return null;
+        }
+        return org.tigris.gef.persistence.pgml.PgmlUtility.getColor(color);
+    }
+
+    /**
+     * Write an attribute, like an <code>&lt;ocl&gt;</code> expression
+     * which writes an empty value for null.
+     */
+    private void attribute(String prefix, String name, Object value,
+            String suffix) throws IOException {
+        line(prefix, name + "=\"" + value(value) + "\"" + suffix);
+    }
+
+    /**
+     * Write an attribute, like an <code>&lt;ocl ignoreNull&gt;</code>
+     * expression which leaves out the whole line for null.
+     */
+    private void optionalAttribute(String prefix, String name, Object value,
+            String suffix) throws IOException {
+        if (value != null) {
+            attribute(prefix, name, value, suffix);
+        }
+    }
+
+    private void line(String prefix, String text) throws IOException {
+        writer.write(prefix);
+        writer.write(text);
+        writer.write(LINE_SEPARATOR);
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : escape(value.toString());
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            String entity;
+            switch (s.charAt(i)) {
+            case '&':
+                entity = "&amp;";
+                break;
+            case '<':
+                entity = "&lt;";
+                break;
+            case '>':
+                entity = "&gt;";
+                break;
+            case '"':
+                entity = "&quot;";
+                break;
+            case '\'':
+                entity = "&apos;";
+                break;
+            default:
+                entity = null;
+            }
+            if (entity != null && sb == null) {
+                sb = new StringBuilder(s.length() + 16);
+                sb.append(s, 0, i);
+            }
+            if (entity != null) {
+                sb.append(entity);
+            } else if (sb != null) {
+                sb.append(s.charAt(i));
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+}
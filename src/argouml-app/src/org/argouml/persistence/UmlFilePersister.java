@@ -42,6 +42,7 @@ package org.argouml.persistence;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -56,13 +57,13 @@ import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.logging.Level;
@@ -70,20 +71,16 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.transform.Result;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 
 import org.argouml.application.api.Argo;
 import org.argouml.application.helpers.ApplicationVersion;
+import org.argouml.configuration.Configuration;
 import org.argouml.i18n.Translator;
 import org.argouml.kernel.Project;
 import org.argouml.kernel.ProjectFactory;
 import org.argouml.kernel.ProjectMember;
 import org.argouml.model.UmlException;
+import org.argouml.persistence.DeferredDiagramLoader.ScannedDiagram;
 import org.argouml.util.ThreadUtils;
 import org.tigris.gef.ocl.ExpansionException;
 import org.tigris.gef.ocl.OCLExpander;
@@ -345,17 +342,16 @@ public class UmlFilePersister extends AbstractFilePersister {
                 progressMgr.setNumberOfPhases(progressMgr.getNumberOfPhases()
                         + (PERSISTENCE_VERSION - fileVersion));
 
-                while (fileVersion < PERSISTENCE_VERSION) {
-                    ++fileVersion;
-
-                    LOG.log(Level.INFO, "Upgrading to version {0}", fileVersion);
+                LOG.log(Level.INFO, "Upgrading from version {0}", fileVersion);
 
-                    long startTime = System.currentTimeMillis();
-                    file = transform(file, fileVersion);
+                long startTime = System.currentTimeMillis();
+                file = upgrade(file, fileVersion);
 
-                    long endTime = System.currentTimeMillis();
-                    LOG.log(Level.INFO, "Upgrading took " + ((endTime - startTime) / 1000)
-                            + " seconds");
+                long endTime = System.currentTimeMillis();
+                LOG.log(Level.INFO, "Upgrading took " + ((endTime - startTime) / 1000)
+                        + " seconds");
+                while (fileVersion < PERSISTENCE_VERSION) {
+                    ++fileVersion;
                     progressMgr.nextPhase();
                 }
             }
@@ -374,12 +370,30 @@ public class UmlFilePersister extends AbstractFilePersister {
 
             LOG.log(Level.INFO,memberList.size() + " members");
 
+            boolean lazy = isLazyDiagrams(memberList);
+            List<ScannedDiagram> diagrams = new ArrayList<ScannedDiagram>();
+            DeferredDiagramLoader loader = null;
+
             for (int i = 0; i < memberList.size(); ++i) {
                 MemberFilePersister persister = getMemberFilePersister((String) memberList
                         .get(i));
                 LOG.log(Level.INFO, "Loading member with "+ persister.getClass().getName());
 
                 inputStream.reopen(persister.getMainTag());
+                if (lazy && "pgml".equals(memberList.get(i))) {
+                    diagrams.add(DeferredDiagramLoader.scan(originalFile
+                            .toURI().toURL().toExternalForm(),
+                            readMember(inputStream)));
+                    // Load one once the last diagram is read, before any
+                    // member which may refer to it
+                    if (i + 1 == memberList.size()
+                            || !"pgml".equals(memberList.get(i + 1))) {
+                        loader = loadDiagrams(p,
+                                (DiagramMemberFilePersister) persister,
+                                diagrams);
+                    }
+                    continue;
+                }
                 // TODO: Do we need to set the input encoding here? It was
                 // done for ToDo parsing, but none of the other member types
                 // InputSource inputSource = new InputSource(
@@ -412,6 +426,10 @@ public class UmlFilePersister extends AbstractFilePersister {
             ThreadUtils.checkIfInterrupted();
             inputStream.realClose();
             p.postLoad();
+            if (loader != null) {
+                p.setPendingDiagrams(loader);
+                loader.start();
+            }
             return p;
         } catch (InterruptedException e) {
             throw e;
@@ -424,6 +442,70 @@ public class UmlFilePersister extends AbstractFilePersister {
         }
     }
 
+    /**
+     * Tell whether the diagrams of a project after the first should be put
+     * off until the project is open.
+     *
+     * @param memberList the types of the members of the project
+     * @return true if there is more than one diagram and they are to be
+     *         put off
+     */
+    boolean isLazyDiagrams(List memberList) {
+        if (!Configuration.getBoolean(PersistenceManager.KEY_LAZY_DIAGRAMS,
+                false)
+                || !(getMemberFilePersister("pgml")
+                        instanceof DiagramMemberFilePersister)) {
+            return false;
+        }
+        int count = 0;
+        for (Object type : memberList) {
+            if ("pgml".equals(type)) {
+                ++count;
+            }
+        }
+        return count > 1;
+    }
+
+    /**
+     * Load the diagram shown first once the project is open, and put off
+     * loading the others.
+     *
+     * @param p the project being loaded
+     * @param persister the persister reading the diagrams
+     * @param diagrams the diagrams read
+     * @return the loader of the other diagrams
+     * @throws OpenException if the first diagram can't be loaded
+     */
+    DeferredDiagramLoader loadDiagrams(Project p,
+            DiagramMemberFilePersister persister,
+            List<ScannedDiagram> diagrams) throws OpenException {
+        ScannedDiagram first = diagrams.get(0);
+        for (ScannedDiagram diagram : diagrams) {
+            if (diagram.getName() != null
+                    && diagram.getName().equals(p.getSavedDiagramName())) {
+                first = diagram;
+                break;
+            }
+        }
+        List<ScannedDiagram> others = new ArrayList<ScannedDiagram>(diagrams);
+        others.remove(first);
+        persister.load(p, first.getInputSource());
+        LOG.log(Level.INFO, "Putting off loading {0} diagrams",
+                others.size());
+        return new DeferredDiagramLoader(p, persister, p.getUUIDRefs(),
+                others);
+    }
+
+    private byte[] readMember(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
+
     protected boolean checkVersion(int fileVersion, String releaseVersion)
         throws OpenException, VersionException {
         // If we're trying to load a file from a future version
@@ -449,45 +531,41 @@ public class UmlFilePersister extends AbstractFilePersister {
      * @throws OpenException on XSLT transformation error or file read
      */
     public final File transform(File file, int version) throws OpenException {
+        return upgrade(file, version - 1, version);
+    }
 
-        try {
-            String upgradeFilesPath = "/org/argouml/persistence/upgrades/";
-            String upgradeFile = "upgrade" + version + ".xsl";
-
-            String xsltFileName = upgradeFilesPath + upgradeFile;
-            URL xsltUrl = UmlFilePersister.class.getResource(xsltFileName);
-
-            LOG.log(Level.INFO, "Resource is {0}", xsltUrl);
-
-            // Read xsltStream into a temporary file
-            // Get url for temp file.
-            // openStream from url and wrap in StreamSource
-            StreamSource xsltStreamSource = new StreamSource(xsltUrl
-                    .openStream());
-            xsltStreamSource.setSystemId(xsltUrl.toExternalForm());
+    /**
+     * Upgrade a file of an older persistence version to the current one in
+     * a single pass through the chained upgrade stylesheets.
+     *
+     * @param file the XML file to be upgraded
+     * @param fileVersion the persistence version of the file
+     * @return the upgraded XML file
+     * @throws OpenException on XSLT transformation error or file read
+     */
+    protected File upgrade(File file, int fileVersion) throws OpenException {
+        return upgrade(file, fileVersion, PERSISTENCE_VERSION);
+    }
 
-            TransformerFactory factory = TransformerFactory.newInstance();
-            Transformer transformer = factory.newTransformer(xsltStreamSource);
+    private File upgrade(File file, int fromVersion, int toVersion)
+        throws OpenException {
 
-            File transformedFile = File.createTempFile("upgrade_" + version
+        try {
+            File transformedFile = File.createTempFile("upgrade_" + toVersion
                     + "_", ".uml");
             transformedFile.deleteOnExit();
 
             FileOutputStream stream = new FileOutputStream(transformedFile);
             Writer writer = new BufferedWriter(new OutputStreamWriter(stream,
                     Argo.getEncoding()));
-            Result result = new StreamResult(writer);
-
-            StreamSource inputStreamSource = new StreamSource(file);
-            inputStreamSource.setSystemId(file);
-            transformer.transform(inputStreamSource, result);
-
-            writer.close();
+            try {
+                UpgradeChain.upgrade(file, fromVersion, toVersion, writer);
+            } finally {
+                writer.close();
+            }
             return transformedFile;
         } catch (IOException e) {
             throw new OpenException(e);
-        } catch (TransformerException e) {
-            throw new OpenException(e);
         }
     }
 
@@ -499,7 +577,7 @@ public class UmlFilePersister extends AbstractFilePersister {
      * @return The version number
      * @throws OpenException on any error
      */
-    private int getPersistenceVersionFromFile(File file) throws OpenException {
+    int getPersistenceVersionFromFile(File file) throws OpenException {
         InputStream stream = null;
         try {
             stream = new BufferedInputStream(file.toURI().toURL().openStream());
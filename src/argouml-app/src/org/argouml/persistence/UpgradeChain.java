@@ -0,0 +1,137 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * The XSLT stylesheets upgrading a .uml file from one persistence version
+ * to the next, chained together.<p>
+ *
+ * Each stylesheet is compiled once into a {@link Templates} object, which
+ * is thread safe and shared by all upgrades. The steps of an upgrade over
+ * several versions are connected through SAX, so the intermediate
+ * documents are never written out or parsed again.
+ */
+final class UpgradeChain {
+
+    private static final Logger LOG =
+        Logger.getLogger(UpgradeChain.class.getName());
+
+    private static final String UPGRADE_FILES_PATH =
+        "/org/argouml/persistence/upgrades/";
+
+    private static final ConcurrentMap<Integer, Templates> TEMPLATES =
+        new ConcurrentHashMap<Integer, Templates>();
+
+    /**
+     * Transformer factories aren't thread safe, so every use of this one
+     * is synchronized on it.
+     */
+    private static final SAXTransformerFactory FACTORY =
+        (SAXTransformerFactory) SAXTransformerFactory.newInstance();
+
+    private UpgradeChain() {
+    }
+
+    /**
+     * Upgrade a file.
+     *
+     * @param file the .uml file to upgrade
+     * @param fromVersion the persistence version of the file
+     * @param toVersion the persistence version to upgrade to
+     * @param writer the writer to write the upgraded file to
+     * @throws OpenException if a stylesheet can't be read or the
+     *             transformation fails
+     */
+    static void upgrade(File file, int fromVersion, int toVersion,
+            Writer writer) throws OpenException {
+        if (toVersion <= fromVersion) {
+            throw new IllegalArgumentException("Can't upgrade from version "
+                    + fromVersion + " to version " + toVersion);
+        }
+        try {
+            String systemId = file.toURI().toString();
+            Result result = new StreamResult(writer);
+            // Build the chain backwards from the last step, so that each
+            // step sends its output to the one after it
+            for (int version = toVersion; version > fromVersion + 1;
+                    --version) {
+                TransformerHandler handler;
+                synchronized (FACTORY) {
+                    handler = FACTORY.newTransformerHandler(
+                            getTemplates(version));
+                }
+                handler.setSystemId(systemId);
+                handler.setResult(result);
+                result = new SAXResult(handler);
+            }
+            StreamSource source = new StreamSource(file);
+            source.setSystemId(file);
+            getTemplates(fromVersion + 1).newTransformer().transform(
+                    source, result);
+        } catch (IOException e) {
+            throw new OpenException(e);
+        } catch (TransformerException e) {
+            throw new OpenException(e);
+        }
+    }
+
+    /**
+     * @param version the persistence version the stylesheet upgrades to
+     * @return the compiled stylesheet
+     */
+    private static Templates getTemplates(int version)
+        throws IOException, TransformerConfigurationException {
+        Templates templates = TEMPLATES.get(version);
+        if (templates == null) {
+            URL xsltUrl = UpgradeChain.class.getResource(UPGRADE_FILES_PATH
+                    + "upgrade" + version + ".xsl");
+            if (xsltUrl == null) {
+                throw new IOException("No upgrade to version " + version);
+            }
+            LOG.log(Level.INFO, "Compiling {0}", xsltUrl);
+            InputStream stream = xsltUrl.openStream();
+            try {
+                StreamSource xsltStreamSource = new StreamSource(stream);
+                xsltStreamSource.setSystemId(xsltUrl.toExternalForm());
+                synchronized (FACTORY) {
+                    templates = FACTORY.newTemplates(xsltStreamSource);
+                }
+            } finally {
+                stream.close();
+            }
+            Templates previous = TEMPLATES.putIfAbsent(version, templates);
+            if (previous != null) {
+                templates = previous;
+            }
+        }
+        return templates;
+    }
+}
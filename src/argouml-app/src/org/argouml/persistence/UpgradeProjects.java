@@ -0,0 +1,148 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.application.api.CommandLineInterface;
+
+/**
+ * Command to upgrade a directory of old projects to the current persistence
+ * version without loading them.<p>
+ *
+ * Every .uml and .zargo file in the directory given as the argument is
+ * converted to a .uml file of the current version in the subdirectory
+ * <code>upgraded</code>, using all available processors. From the command
+ * line: <pre>
+ * -batch -command org.argouml.persistence.UpgradeProjects=directory
+ * </pre>
+ */
+public class UpgradeProjects implements CommandLineInterface {
+
+    private static final Logger LOG =
+        Logger.getLogger(UpgradeProjects.class.getName());
+
+    /**
+     * The name of the directory the upgraded files are written to.
+     */
+    public static final String OUTPUT_DIRECTORY = "upgraded";
+
+    /*
+     * @see org.argouml.application.api.CommandLineInterface#doCommand(java.lang.String)
+     */
+    public boolean doCommand(String argument) {
+        if (argument == null || !new File(argument).isDirectory()) {
+            LOG.log(Level.SEVERE, "Expected a directory of projects, got "
+                    + argument);
+            return false;
+        }
+        File directory = new File(argument);
+        final File outputDirectory = new File(directory, OUTPUT_DIRECTORY);
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            LOG.log(Level.SEVERE, "Can't create " + outputDirectory);
+            return false;
+        }
+        File[] files = directory.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                String name = file.getName();
+                return file.isFile()
+                        && (name.endsWith(".uml") || name.endsWith(".zargo"));
+            }
+        });
+        if (files == null) {
+            LOG.log(Level.SEVERE, "Can't list " + directory);
+            return false;
+        }
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        List<Future<File>> results = new ArrayList<Future<File>>();
+        for (final File file : files) {
+            results.add(executor.submit(new Callable<File>() {
+                public File call() throws Exception {
+                    return upgrade(file, outputDirectory);
+                }
+            }));
+        }
+        executor.shutdown();
+
+        int failures = 0;
+        for (int i = 0; i < files.length; i++) {
+            try {
+                LOG.log(Level.INFO, "Upgraded " + files[i] + " to "
+                        + results.get(i).get());
+            } catch (ExecutionException e) {
+                failures++;
+                LOG.log(Level.SEVERE, "Failed to upgrade " + files[i],
+                        e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                return false;
+            }
+        }
+        LOG.log(Level.INFO, "Upgraded " + (files.length - failures) + " of "
+                + files.length + " projects in "
+                + (System.currentTimeMillis() - startTime) + " msec");
+        return failures == 0;
+    }
+
+    /**
+     * Upgrade one project.
+     *
+     * @param file the .uml or .zargo file
+     * @param outputDirectory the directory to write the result to
+     * @return the upgraded .uml file
+     * @throws OpenException if the project can't be read or upgraded
+     * @throws InterruptedException if the thread is interrupted
+     * @throws IOException if the result can't be written
+     */
+    File upgrade(File file, File outputDirectory)
+        throws OpenException, InterruptedException, IOException {
+
+        UmlFilePersister persister = new UmlFilePersister();
+        File umlFile = file;
+        String name = file.getName();
+        if (name.endsWith(".zargo")) {
+            umlFile = new ZargoFilePersister().combineToUml(file);
+            name = name.substring(0, name.length() - ".zargo".length())
+                + ".uml";
+        }
+        try {
+            File upgraded = umlFile;
+            int version = persister.getPersistenceVersionFromFile(umlFile);
+            if (version < UmlFilePersister.PERSISTENCE_VERSION) {
+                upgraded = persister.upgrade(umlFile, version);
+            }
+            File result = new File(outputDirectory, name);
+            persister.copyFile(upgraded, result);
+            if (upgraded != umlFile) {
+                upgraded.delete();
+            }
+            return result;
+        } finally {
+            if (umlFile != file) {
+                umlFile.delete();
+            }
+        }
+    }
+}
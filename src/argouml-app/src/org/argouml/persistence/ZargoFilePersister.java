@@ -41,10 +41,10 @@ package org.argouml.persistence;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -56,21 +56,29 @@ import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import org.argouml.application.api.Argo;
 import org.argouml.application.helpers.ApplicationVersion;
+import org.argouml.configuration.Configuration;
 import org.argouml.i18n.Translator;
 import org.argouml.kernel.ProfileConfiguration;
 import org.argouml.kernel.Project;
 import org.argouml.kernel.ProjectFactory;
 import org.argouml.kernel.ProjectMember;
 import org.argouml.model.Model;
+import org.argouml.persistence.DeferredDiagramLoader.ScannedDiagram;
 import org.argouml.util.FileConstants;
 import org.argouml.util.ThreadUtils;
 import org.xml.sax.InputSource;
@@ -88,6 +96,18 @@ class ZargoFilePersister extends UmlFilePersister {
     private static final Logger LOG =
         Logger.getLogger(ZargoFilePersister.class.getName());
 
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The number of temporary .uml files the members were combined into.
+     */
+    private int combinedFiles;
+
+    /**
+     * The number of projects loaded straight from the archive.
+     */
+    private int directLoads;
+
     /**
      * The constructor.
      */
@@ -229,6 +249,14 @@ class ZargoFilePersister extends UmlFilePersister {
     }
 
     /*
+     * The archive is opened once and its central directory read once. The
+     * small .argo descriptor is read into memory to get the versions. A
+     * project of the current version is then loaded by streaming every
+     * member straight from the archive into its MemberFilePersister. Only
+     * a project which needs an XSLT upgrade is still combined into a
+     * single .uml file first, because the upgrade stylesheets work on that
+     * format.
+     *
      * @see org.argouml.persistence.ProjectFilePersister#doLoad(java.io.File)
      */
     @Override
@@ -239,94 +267,222 @@ class ZargoFilePersister extends UmlFilePersister {
         progressMgr.setNumberOfPhases(3 + UML_PHASES_LOAD);
         ThreadUtils.checkIfInterrupted();
 
-        int fileVersion;
-        String releaseVersion;
+        ZipFile zip = null;
         try {
-            String argoEntry = getEntryNames(file, ".argo").iterator().next();
-            URL argoUrl = makeZipEntryUrl(toURL(file), argoEntry);
-            fileVersion = getPersistenceVersion(argoUrl.openStream());
-            releaseVersion = getReleaseVersion(argoUrl.openStream());
-        } catch (MalformedURLException e) {
-            throw new OpenException(e);
-        } catch (IOException e) {
-            throw new OpenException(e);
-        }
-
-        // TODO: The commented code below was commented out by Bob Tarling
-        // in order to resolve bugs 4845 and 4857. Hopefully we can
-        // determine the cause and reintroduce.
+            zip = new ZipFile(file);
+            ZipEntry argoEntry =
+                getFirstEntry(zip, FileConstants.PROJECT_FILE_EXT);
+            if (argoEntry == null) {
+                throw new OpenException(
+                        "There is no .argo file in the .zargo");
+            }
+            byte[] argo = readEntry(zip, argoEntry);
+            int fileVersion =
+                getPersistenceVersion(new ByteArrayInputStream(argo));
+            String releaseVersion =
+                getReleaseVersion(new ByteArrayInputStream(argo));
+
+            // Bugs 4845 and 4857 showed up when the members were loaded
+            // straight from the archive in archive order, so that diagrams
+            // and todo items could be read before the model or the profiles
+            // they refer to. loadFromZargo loads them in the order of a
+            // combined .uml file, so only projects needing an upgrade, or
+            // archives with more models than we save, are combined first.
+            boolean upgradeRequired =
+                !checkVersion(fileVersion, releaseVersion)
+                || getEntries(zip, ".xmi").size() > 1;
+
+            // Upgrade is in the way for UML2 projects, so we turn it off in
+            // that case:
+            if (Model.getFacade().getUmlVersion().charAt(0) == '2') {
+                upgradeRequired = false;
+            }
 
-        //boolean upgradeRequired = !checkVersion(fileVersion, releaseVersion)
-        boolean upgradeRequired = true;
+            LOG.log(Level.INFO, "Loading zargo file of version {0}",
+                    fileVersion);
 
-        // Upgrade is in the way for UML2 projects, so we turn it off in that case:
-        if (Model.getFacade().getUmlVersion().charAt(0) == '2') {
-            upgradeRequired = false;
-        }
+            final Project p;
+            if (upgradeRequired) {
+                File combinedFile = zargoToUml(zip, argo, progressMgr);
+                p = super.doLoad(file, combinedFile, progressMgr);
+                combinedFile.delete();
+            } else {
+                directLoads++;
+                p = loadFromZargo(file, zip, argoEntry, progressMgr);
+            }
 
-        LOG.log(Level.INFO, "Loading zargo file of version {0}", fileVersion);
+            progressMgr.nextPhase();
 
-        final Project p;
-        if (upgradeRequired) {
-            File combinedFile = zargoToUml(file, progressMgr);
-            p = super.doLoad(file, combinedFile, progressMgr);
-        } else {
-            p = loadFromZargo(file, progressMgr);
+            PersistenceManager.getInstance().setProjectURI(file.toURI(), p);
+            return p;
+        } catch (IOException e) {
+            throw new OpenException(e);
+        } finally {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                    // No more we can do here on failure
+                }
+            }
         }
+    }
 
-        progressMgr.nextPhase();
+    /**
+     * @return the number of temporary .uml files this persister combined
+     *         archives into
+     */
+    int getCombinedFiles() {
+        return combinedFiles;
+    }
 
-        PersistenceManager.getInstance().setProjectURI(file.toURI(), p);
-        return p;
+    /**
+     * @return the number of projects this persister loaded member by
+     *         member straight from the archive
+     */
+    int getDirectLoads() {
+        return directLoads;
+    }
 
+    /**
+     * Combine the members of a .zargo archive into a single .uml file
+     * without loading the project.
+     *
+     * @param file the .zargo file
+     * @return the temporary .uml file
+     * @throws OpenException if the archive can't be read
+     * @throws InterruptedException if the thread is interrupted
+     */
+    File combineToUml(File file) throws OpenException, InterruptedException {
+        ProgressMgr progressMgr = new ProgressMgr();
+        progressMgr.setNumberOfPhases(2);
+        ZipFile zip = null;
+        try {
+            zip = new ZipFile(file);
+            ZipEntry argoEntry =
+                getFirstEntry(zip, FileConstants.PROJECT_FILE_EXT);
+            if (argoEntry == null) {
+                throw new OpenException(
+                        "There is no .argo file in the .zargo");
+            }
+            return zargoToUml(zip, readEntry(zip, argoEntry), progressMgr);
+        } catch (IOException e) {
+            throw new OpenException(e);
+        } finally {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                    // No more we can do here on failure
+                }
+            }
+        }
     }
 
-    private Project loadFromZargo(File file, ProgressMgr progressMgr)
+    /**
+     * Load a project of the current version member by member, in the same
+     * order as the members of a combined .uml file: the profile
+     * configuration, the model, the diagrams and then the todo items, so
+     * that everything a member refers to exists before it is loaded.
+     */
+    private Project loadFromZargo(File file, final ZipFile zip,
+            ZipEntry argoEntry, ProgressMgr progressMgr)
         throws OpenException {
 
         Project p = ProjectFactory.getInstance().createProject(file.toURI());
+        ExecutorService executor = null;
         try {
             progressMgr.nextPhase();
+            URL url = toURL(file);
 
             // Load .argo project descriptor
             ArgoParser parser = new ArgoParser();
-            String argoEntry = getEntryNames(file, ".argo").iterator().next();
-            parser.readProject(p, new InputSource(makeZipEntryUrl(toURL(file),
-                    argoEntry).toExternalForm()));
-
-            List memberList = parser.getMemberList();
-
-            LOG.log(Level.INFO,memberList.size() + " members");
-
-            // Load .xmi file before any PGML files
-            // FIXME: the following is loading the model before anything else.
-            // Due to the Zargo containing the profiles, currently we have
-            // removed this hack in UmlFilePersister and I think it should be
-            // removed from here also.
-            String xmiEntry = getEntryNames(file, ".xmi").iterator().next();
-            MemberFilePersister persister = getMemberFilePersister("xmi");
-            URL url = makeZipEntryUrl(toURL(file), xmiEntry);
-            persister.load(p, new InputSource(url.toExternalForm()));
-
-            // Load the rest
-            List<String> entries = getEntryNames(file, null);
-            for (String name : entries) {
-                String ext = name.substring(name.lastIndexOf('.') + 1);
-                if (!"argo".equals(ext) && !"xmi".equals(ext)) {
-                    persister = getMemberFilePersister(ext);
+            InputStream stream = zip.getInputStream(argoEntry);
+            try {
+                parser.readProject(p, makeInputSource(url, argoEntry, stream));
+            } finally {
+                stream.close();
+            }
 
-                    LOG.log(Level.INFO,
-                            "Loading member with "
-                            + persister.getClass().getName());
+            LOG.log(Level.INFO, parser.getMemberList().size() + " members");
 
-                    url = makeZipEntryUrl(toURL(file), name);
-                    persister.load(p, new InputSource(url.toExternalForm()));
+            List<ZipEntry> xmiEntries = getEntries(zip, ".xmi");
+            List<ZipEntry> members = new ArrayList<ZipEntry>();
+            members.addAll(getEntries(zip,
+                    "." + ProfileConfiguration.EXTENSION));
+            if (!xmiEntries.isEmpty()) {
+                members.add(xmiEntries.get(0));
+            }
+            List<ZipEntry> pgmlEntries = getEntries(zip, ".pgml");
+            members.addAll(pgmlEntries);
+            members.addAll(getEntries(zip, ".todo"));
+            for (ZipEntry entry : getEntries(zip, null)) {
+                if (!members.contains(entry) && !entry.equals(argoEntry)
+                        && !xmiEntries.contains(entry)) {
+                    members.add(entry);
+                }
+            }
+
+            // Read and scan the diagrams while the model loads
+            List<Future<ScannedDiagram>> scans = null;
+            if (pgmlEntries.size() > 1
+                    && Configuration.getBoolean(
+                            PersistenceManager.KEY_LAZY_DIAGRAMS, false)
+                    && getMemberFilePersister("pgml")
+                        instanceof DiagramMemberFilePersister) {
+                executor = Executors.newFixedThreadPool(Math.min(
+                        pgmlEntries.size(),
+                        Runtime.getRuntime().availableProcessors()));
+                scans = new ArrayList<Future<ScannedDiagram>>();
+                for (final ZipEntry entry : pgmlEntries) {
+                    final String systemId =
+                        makeZipEntryUrl(url, entry.getName()).toExternalForm();
+                    scans.add(executor.submit(new Callable<ScannedDiagram>() {
+                        public ScannedDiagram call() throws Exception {
+                            return DeferredDiagramLoader.scan(systemId,
+                                    readEntry(zip, entry));
+                        }
+                    }));
+                }
+            }
+
+            DeferredDiagramLoader loader = null;
+            for (ZipEntry entry : members) {
+                ThreadUtils.checkIfInterrupted();
+                String name = entry.getName();
+                String ext = name.substring(name.lastIndexOf('.') + 1);
+                MemberFilePersister persister = getMemberFilePersister(ext);
+                if (persister == null) {
+                    LOG.log(Level.WARNING,
+                            "Skipping unknown zargo member {0}", name);
+                    continue;
+                }
+                if (scans != null && pgmlEntries.contains(entry)) {
+                    if (loader == null) {
+                        loader = loadDiagrams(p,
+                                (DiagramMemberFilePersister) persister,
+                                waitForScans(scans));
+                    }
+                    continue;
+                }
+                LOG.log(Level.INFO,
+                        "Loading member with "
+                        + persister.getClass().getName());
+                stream = zip.getInputStream(entry);
+                try {
+                    persister.load(p, makeInputSource(url, entry, stream));
+                } finally {
+                    stream.close();
                 }
             }
 
             progressMgr.nextPhase();
             ThreadUtils.checkIfInterrupted();
             p.postLoad();
+            if (loader != null) {
+                p.setPendingDiagrams(loader);
+                loader.start();
+            }
             return p;
         } catch (InterruptedException e) {
             return null;
@@ -336,20 +492,61 @@ class ZargoFilePersister extends UmlFilePersister {
             throw new OpenException(e);
         } catch (SAXException e) {
             throw new OpenException(e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
     }
 
+    /**
+     * Wait until all diagrams are read and scanned.
+     *
+     * @return the diagrams, in archive order
+     */
+    private List<ScannedDiagram> waitForScans(
+            List<Future<ScannedDiagram>> scans)
+        throws OpenException, InterruptedException {
+
+        List<ScannedDiagram> diagrams = new ArrayList<ScannedDiagram>();
+        for (Future<ScannedDiagram> scan : scans) {
+            try {
+                diagrams.add(scan.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof OpenException) {
+                    throw (OpenException) e.getCause();
+                }
+                throw new OpenException(e.getCause());
+            }
+        }
+        return diagrams;
+    }
+
+    /**
+     * Make an input source reading an entry from the already open archive.
+     * The system id is still set to the URL of the entry, so that relative
+     * references resolve as before.
+     */
+    private InputSource makeInputSource(URL url, ZipEntry entry,
+            InputStream stream) throws MalformedURLException {
+        InputSource source = new InputSource(stream);
+        source.setSystemId(
+                makeZipEntryUrl(url, entry.getName()).toExternalForm());
+        return source;
+    }
+
     private URL toURL(File file) throws MalformedURLException {
         return file.toURI().toURL();
     }
 
 
-    private File zargoToUml(File file, ProgressMgr progressMgr)
+    private File zargoToUml(ZipFile zip, byte[] argo, ProgressMgr progressMgr)
         throws OpenException, InterruptedException {
 
         File combinedFile = null;
         try {
             combinedFile = File.createTempFile("combinedzargo_", ".uml");
+            combinedFiles++;
             LOG.log(Level.INFO,
                     "Combining old style zargo sub files "
                     + "into new style uml file {0}",
@@ -366,20 +563,20 @@ class ZargoFilePersister extends UmlFilePersister {
             writer.println("<?xml version = \"1.0\" " + "encoding = \""
                     + encoding + "\" ?>");
 
-            copyArgo(file, encoding, writer);
+            copyArgo(zip, argo, encoding, writer);
 
             progressMgr.nextPhase();
 
-            copyMember(file, "profile", encoding, writer);
+            copyMember(zip, "profile", encoding, writer);
 
-            copyXmi(file, encoding, writer);
+            copyXmi(zip, encoding, writer);
 
-            copyDiagrams(file, encoding, writer);
+            copyDiagrams(zip, encoding, writer);
 
             // Copy the todo items after the model and diagrams so that
             // any model elements or figs that the todo items refer to
             // will exist before creating critics.
-            copyMember(file, "todo", encoding, writer);
+            copyMember(zip, "todo", encoding, writer);
 
             progressMgr.nextPhase();
 
@@ -393,26 +590,18 @@ class ZargoFilePersister extends UmlFilePersister {
     }
 
 
-    private void copyArgo(File file, String encoding, PrintWriter writer)
-        throws IOException, MalformedURLException, OpenException,
+    private void copyArgo(ZipFile zip, byte[] argo, String encoding,
+            PrintWriter writer) throws IOException, OpenException,
         UnsupportedEncodingException {
 
-        int pgmlCount = getPgmlCount(file);
-        boolean containsToDo = containsTodo(file);
-        boolean containsProfile = containsProfile(file);
-
-        // first read the .argo file from Zip
-        ZipInputStream zis =
-            openZipStreamAt(toURL(file), FileConstants.PROJECT_FILE_EXT);
-
-        if (zis == null) {
-            throw new OpenException(
-                    "There is no .argo file in the .zargo");
-        }
+        int pgmlCount = getEntries(zip, ".pgml").size();
+        boolean containsToDo = getFirstEntry(zip, ".todo") != null;
+        boolean containsProfile =
+            getFirstEntry(zip, "." + ProfileConfiguration.EXTENSION) != null;
 
         String line;
-        BufferedReader reader =
-            new BufferedReader(new InputStreamReader(zis, encoding));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(argo), encoding));
         // Keep reading till we hit the <argo> tag
         String rootLine;
         do {
@@ -454,67 +643,59 @@ class ZargoFilePersister extends UmlFilePersister {
 
         LOG.log(Level.INFO, "Member count = {0}", memberCount);
 
-        zis.close();
         reader.close();
     }
 
-    private void copyXmi(File file, String encoding, PrintWriter writer)
-        throws IOException, MalformedURLException,
-        UnsupportedEncodingException {
+    private void copyXmi(ZipFile zip, String encoding, PrintWriter writer)
+        throws IOException, UnsupportedEncodingException {
 
-        ZipInputStream zis = openZipStreamAt(toURL(file), ".xmi");
+        ZipEntry entry = getFirstEntry(zip, ".xmi");
+        if (entry == null) {
+            return;
+        }
         BufferedReader reader = new BufferedReader(
-                new InputStreamReader(zis, encoding));
+                new InputStreamReader(zip.getInputStream(entry), encoding));
         // Skip 1 lines
         reader.readLine();
 
         readerToWriter(reader, writer);
 
-        zis.close();
         reader.close();
     }
 
 
-    private void copyDiagrams(File file, String encoding, PrintWriter writer)
-        throws IOException {
+    private void copyDiagrams(ZipFile zip, String encoding,
+            PrintWriter writer) throws IOException {
 
         // Loop round loading the diagrams
-        ZipInputStream zis = new ZipInputStream(toURL(file).openStream());
-        SubInputStream sub = new SubInputStream(zis);
-
-        ZipEntry currentEntry = null;
-        while ((currentEntry = sub.getNextEntry()) != null) {
-            if (currentEntry.getName().endsWith(".pgml")) {
-
-                BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(sub, encoding));
-                String firstLine = reader.readLine();
-                if (firstLine.startsWith("<?xml")) {
-                    // Skip the 2 lines
-                    //<?xml version="1.0" encoding="UTF-8" ?>
-                    //<!DOCTYPE pgml SYSTEM "pgml.dtd">
-                    reader.readLine();
-                } else {
-                    writer.println(firstLine);
-                }
-
-                readerToWriter(reader, writer);
-                sub.close();
-                reader.close();
+        for (ZipEntry entry : getEntries(zip, ".pgml")) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    zip.getInputStream(entry), encoding));
+            String firstLine = reader.readLine();
+            if (firstLine.startsWith("<?xml")) {
+                // Skip the 2 lines
+                //<?xml version="1.0" encoding="UTF-8" ?>
+                //<!DOCTYPE pgml SYSTEM "pgml.dtd">
+                reader.readLine();
+            } else {
+                writer.println(firstLine);
             }
+
+            readerToWriter(reader, writer);
+            reader.close();
         }
-        zis.close();
     }
 
 
-    private void copyMember(File file, String tag, String outputEncoding,
-            PrintWriter writer) throws IOException, MalformedURLException,
+    private void copyMember(ZipFile zip, String tag, String outputEncoding,
+            PrintWriter writer) throws IOException,
                 UnsupportedEncodingException {
 
-        ZipInputStream zis = openZipStreamAt(toURL(file), "." + tag);
+        ZipEntry entry = getFirstEntry(zip, "." + tag);
 
-        if (zis != null) {
-            InputStreamReader isr = new InputStreamReader(zis, outputEncoding);
+        if (entry != null) {
+            InputStreamReader isr = new InputStreamReader(
+                    zip.getInputStream(entry), outputEncoding);
             BufferedReader reader = new BufferedReader(isr);
 
             String firstLine = reader.readLine();
@@ -529,7 +710,6 @@ class ZargoFilePersister extends UmlFilePersister {
 
             readerToWriter(reader, writer);
 
-            zis.close();
             reader.close();
         }
     }
@@ -551,112 +731,52 @@ class ZargoFilePersister extends UmlFilePersister {
         }
     }
 
-    /**
-     * Open a ZipInputStream to the first file found with a given extension.
-     *
-     * @param url
-     *            The URL of the zip file.
-     * @param ext
-     *            The required extension.
-     * @return the zip stream positioned at the required location or null
-     * if the requested extension is not found.
-     * @throws IOException
-     *             if there is a problem opening the file.
-     */
-    private ZipInputStream openZipStreamAt(URL url, String ext)
-        throws IOException {
-        ZipInputStream zis = new ZipInputStream(url.openStream());
-        ZipEntry entry = zis.getNextEntry();
-        while (entry != null && !entry.getName().endsWith(ext)) {
-            entry = zis.getNextEntry();
-        }
-        if (entry == null) {
-            zis.close();
-            return null;
-        }
-        return zis;
-    }
-
-    private InputStream openZipEntry(URL url, String entryName)
-        throws MalformedURLException, IOException {
-        return makeZipEntryUrl(url, entryName).openStream();
-    }
-
     private URL makeZipEntryUrl(URL url, String entryName)
         throws MalformedURLException {
         String entryURL = "jar:" + url + "!/" + entryName;
         return new URL(entryURL);
     }
 
-    /**
-     * A stream of input streams for reading the Zipped file.
-     */
-    private static class SubInputStream extends FilterInputStream {
-        private ZipInputStream in;
-
-        /**
-         * The constructor.
-         *
-         * @param z
-         *            the zip input stream
-         */
-        public SubInputStream(ZipInputStream z) {
-            super(z);
-            in = z;
-        }
-
-        /*
-         * @see java.io.InputStream#close()
-         */
-        @Override
-        public void close() throws IOException {
-            in.closeEntry();
-        }
-
-        /**
-         * Reads the next ZIP file entry and positions stream at the beginning
-         * of the entry data.
-         *
-         * @return the ZipEntry just read
-         * @throws IOException
-         *             if an I/O error has occurred
-         */
-        public ZipEntry getNextEntry() throws IOException {
-            return in.getNextEntry();
+    private byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        InputStream stream = zip.getInputStream(entry);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, count);
+            }
+            return bytes.toByteArray();
+        } finally {
+            stream.close();
         }
     }
 
-    private int getPgmlCount(File file) throws IOException {
-        return getEntryNames(file, ".pgml").size();
-    }
-
-    private boolean containsTodo(File file) throws IOException {
-        return !getEntryNames(file, ".todo").isEmpty();
-    }
-
-    private boolean containsProfile(File file) throws IOException {
-        return !getEntryNames(file, "." + ProfileConfiguration.EXTENSION)
-                .isEmpty();
+    /**
+     * @return the first entry of the archive ending with the given
+     *         extension, or null if there is none
+     */
+    private ZipEntry getFirstEntry(ZipFile zip, String extension) {
+        List<ZipEntry> entries = getEntries(zip, extension);
+        return entries.isEmpty() ? null : entries.get(0);
     }
 
     /**
-     * Get a list of zip file entries which end with the given extension.
-     * If the extension is null, all entries are returned.
+     * Get a list of zip file entries which end with the given extension,
+     * in archive order. If the extension is null, all entries are returned.
+     * The entries come from the central directory which ZipFile has already
+     * read, so nothing is read from the archive here.
      */
-    private List<String> getEntryNames(File file, String extension)
-        throws IOException, MalformedURLException {
-
-        ZipInputStream zis = new ZipInputStream(toURL(file).openStream());
-        List<String> result = new ArrayList<String>();
-        ZipEntry entry = zis.getNextEntry();
-        while (entry != null) {
-            String name = entry.getName();
-            if (extension == null || name.endsWith(extension)) {
-                result.add(name);
+    private List<ZipEntry> getEntries(ZipFile zip, String extension) {
+        List<ZipEntry> result = new ArrayList<ZipEntry>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && (extension == null
+                    || entry.getName().endsWith(extension))) {
+                result.add(entry);
             }
-            entry = zis.getNextEntry();
         }
-        zis.close();
         return result;
     }
 
@@ -40,6 +40,7 @@ package org.argouml.profile.internal.ocl;
 
 import java.io.PushbackReader;
 import java.io.StringReader;
+import java.util.LinkedHashMap;
 import java.util.Map;
 //import java.util.logging.Logger;
 
@@ -48,7 +49,11 @@ import tudresden.ocl.parser.lexer.Lexer;
 import tudresden.ocl.parser.node.Start;
 
 /**
- * Evaluates ocl expressions.
+ * Evaluates ocl expressions.<p>
+ *
+ * An expression is parsed the first time it is evaluated. The parse tree
+ * is kept for the next evaluations, since the trees are not changed by
+ * evaluating them.
  *
  * @author maurelio1234
  */
@@ -60,14 +65,43 @@ public class DefaultOclEvaluator implements OclExpressionEvaluator {
     // private static final Logger LOG =
     //     Logger.getLogger(DefaultOclEvaluator.class.getName());
 
+    /**
+     * The number of parse trees kept by the shared instance.
+     */
+    static final int CACHE_SIZE = 500;
+
     private static OclExpressionEvaluator instance = null;
 
+    private final Map<String, Start> trees;
+
+    /**
+     * The constructor, keeping as many parse trees as the shared instance.
+     */
+    public DefaultOclEvaluator() {
+        this(CACHE_SIZE);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param cacheSize the number of parse trees to keep, 0 to parse the
+     *            expressions every time
+     */
+    DefaultOclEvaluator(final int cacheSize) {
+        trees = new LinkedHashMap<String, Start>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Start> e) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
     /**
      * @return unique instance
      */
-    public static OclExpressionEvaluator getInstance() {
+    public static synchronized OclExpressionEvaluator getInstance() {
         if (instance == null) {
-            instance = new DefaultOclEvaluator();
+            instance = new DefaultOclEvaluator(CACHE_SIZE);
         }
         return instance;
     }
@@ -77,14 +111,29 @@ public class DefaultOclEvaluator implements OclExpressionEvaluator {
      */
     public Object evaluate(Map<String, Object> vt, ModelInterpreter mi,
             String ocl) throws InvalidOclException {
+        EvaluateExpression ee = new EvaluateExpression(vt, mi);
+        parse(ocl).apply(ee);
+        return ee.getValue();
+    }
+
+    /**
+     * Get the parse tree of an expression.
+     *
+     * @param ocl the expression
+     * @return the tree
+     * @throws InvalidOclException if the expression can't be parsed
+     */
+    Start parse(String ocl) throws InvalidOclException {
+        synchronized (trees) {
+            Start tree = trees.get(ocl);
+            if (tree != null) {
+                return tree;
+            }
+        }
         // XXX this seems to be a bug of the parser,
         // it always requires a context
 
         //LOG.log(Level.FINE, "OCL: " + ocl);
-        if (ocl.contains("ore")) {
-            // TODO: Convert this to some sensible logging
-            System.out.println("VOILA!");
-        }
         Lexer lexer = new Lexer(new PushbackReader(new StringReader(
                 "context X inv: " + ocl), 2));
         OclParser parser = new OclParser(lexer);
@@ -95,10 +144,10 @@ public class DefaultOclEvaluator implements OclExpressionEvaluator {
         } catch (Exception e) {
             throw new InvalidOclException(ocl);
         }
-
-        EvaluateExpression ee = new EvaluateExpression(vt, mi);
-        tree.apply(ee);
-        return ee.getValue();
+        synchronized (trees) {
+            trees.put(ocl, tree);
+        }
+        return tree;
     }
 
 }
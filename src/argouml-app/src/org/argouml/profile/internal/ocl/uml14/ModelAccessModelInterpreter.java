@@ -40,6 +40,7 @@ package org.argouml.profile.internal.ocl.uml14;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.logging.Level;
@@ -65,6 +66,12 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
 
     private static Uml14ModelInterpreter uml14mi = new Uml14ModelInterpreter();
 
+    /**
+     * The metatype of the elements by implementation class.
+     */
+    private static final Map<Class, Metatype> METATYPES =
+        new HashMap<Class, Metatype>();
+
     /*
      * @see org.argouml.profile.internal.ocl.ModelInterpreter#invokeFeature(java.util.Map,
      *      java.lang.Object, java.lang.String, java.lang.String,
@@ -78,73 +85,162 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
             subject = vt.get("self");
         }
 
-        Object result = null;
+        switch (getMetatype(subject)) {
+        case ASSOCIATION:
+            return handleAssociation(subject, type, feature);
+        case ASSOCIATION_END:
+            return handleAssociationEnd(subject, type, feature, vt);
+        case ATTRIBUTE:
+            return handleAttribute(subject, type, feature);
+        case BEHAVIORAL_FEATURE:
+            return handleBehavioralFeature(subject, type, feature);
+        case BINDING:
+            return handleBinding(subject, type, feature);
+        case CLASS:
+            return handleClass(subject, type, feature);
+        case CLASSIFIER:
+            return handleClassifier(subject, type, feature, vt);
+        case COMMENT:
+            return handleComment(subject, type, feature);
+        case COMPONENT:
+            return handleComponent(subject, type, feature, vt);
+        case CONSTRAINT:
+            return handleConstraint(subject, type, feature);
+        case DEPENDENCY:
+            return handleDependency(subject, type, feature);
+        case ELEMENT_RESIDENCE:
+            return handleElementResidence(subject, type, feature);
+        case ENUMERATION:
+            return handleEnumeration(subject, type, feature);
+        case ENUMERATION_LITERAL:
+            return handleEnumerationLiteral(subject, type, feature);
+        case FEATURE:
+            return handleFeature(subject, type, feature);
+        case GENERALIZABLE_ELEMENT:
+            return handleGeneralizableElement(subject, type, feature, vt);
+        case GENERALIZATION:
+            return handleGeneralization(subject, type, feature);
+        case METHOD:
+            return handleMethod(subject, type, feature);
+        case MODEL_ELEMENT:
+            return handleModelElement(subject, type, feature, vt);
+        case NAMESPACE:
+            return handleNamespace(subject, type, feature, vt);
+        case NODE:
+            return handleNode(subject, type, feature);
+        case OPERATION:
+            return handleOperation(subject, type, feature);
+        case PARAMETER:
+            return handleParameter(subject, type, feature);
+        case STRUCTURAL_FEATURE:
+            return handleStructuralFeature(subject, type, feature);
+        case TEMPLATE_ARGUMENT:
+            return handleTemplateArgument(subject, type, feature);
+        case TEMPLATE_PARAMETER:
+            return handleTemplateParameter(subject, type, feature);
+        case USE_CASE:
+            return handleUseCase(subject, type, feature);
+        case ASSOCIATION_CLASS:
+            return handleAssociationClass(subject, type, feature, vt);
+        case STEREOTYPE:
+            return handleStereotype(subject, type, feature);
+        case TAG_DEFINITION:
+            return handleTagDefinition(subject, type, feature);
+        case TAGGED_VALUE:
+            return handleTaggedValue(subject, type, feature);
+        default:
+            return null;
+        }
+    }
 
+    /**
+     * Get the first metatype in the order of {@link Metatype} that an
+     * element is an instance of. Whether an element is an instance of a
+     * metatype only depends on its implementation class, so the checks
+     * are only done for the first element of each class.
+     *
+     * @param subject the element
+     * @return the metatype
+     */
+    private static Metatype getMetatype(Object subject) {
+        if (subject == null) {
+            return Metatype.NONE;
+        }
+        synchronized (METATYPES) {
+            Metatype metatype = METATYPES.get(subject.getClass());
+            if (metatype == null) {
+                metatype = findMetatype(subject);
+                METATYPES.put(subject.getClass(), metatype);
+            }
+            return metatype;
+        }
+    }
+
+    private static Metatype findMetatype(Object subject) {
         if (Model.getFacade().isAAssociation(subject)) {
-            result = handleAssociation(subject, type, feature);
+            return Metatype.ASSOCIATION;
         } else if (Model.getFacade().isAAssociationEnd(subject)) {
-            result = handleAssociationEnd(subject, type, feature, vt);
+            return Metatype.ASSOCIATION_END;
         } else if (Model.getFacade().isAAttribute(subject)) {
-            result = handleAttribute(subject, type, feature);
+            return Metatype.ATTRIBUTE;
         } else if (Model.getFacade().isABehavioralFeature(subject)) {
-            result = handleBehavioralFeature(subject, type, feature);
+            return Metatype.BEHAVIORAL_FEATURE;
         } else if (Model.getFacade().isABinding(subject)) {
-            result = handleBinding(subject, type, feature);
+            return Metatype.BINDING;
         } else if (Model.getFacade().isAClass(subject)) {
-            result = handleClass(subject, type, feature);
+            return Metatype.CLASS;
         } else if (Model.getFacade().isAClassifier(subject)) {
-            result = handleClassifier(subject, type, feature, vt);
+            return Metatype.CLASSIFIER;
         } else if (Model.getFacade().isAComment(subject)) {
-            result = handleComment(subject, type, feature);
+            return Metatype.COMMENT;
         } else if (Model.getFacade().isAComponent(subject)) {
-            result = handleComponent(subject, type, feature, vt);
+            return Metatype.COMPONENT;
         } else if (Model.getFacade().isAConstraint(subject)) {
-            result = handleConstraint(subject, type, feature);
+            return Metatype.CONSTRAINT;
         } else if (Model.getFacade().isADependency(subject)) {
-            result = handleDependency(subject, type, feature);
+            return Metatype.DEPENDENCY;
         } else if (Model.getFacade().isAElementResidence(subject)) {
-            result = handleElementResidence(subject, type, feature);
+            return Metatype.ELEMENT_RESIDENCE;
         } else if (Model.getFacade().isAEnumeration(subject)) {
-            result = handleEnumeration(subject, type, feature);
+            return Metatype.ENUMERATION;
         } else if (Model.getFacade().isAEnumerationLiteral(subject)) {
-            result = handleEnumerationLiteral(subject, type, feature);
+            return Metatype.ENUMERATION_LITERAL;
         } else if (Model.getFacade().isAFeature(subject)) {
-            result = handleFeature(subject, type, feature);
+            return Metatype.FEATURE;
         } else if (Model.getFacade().isAGeneralizableElement(subject)) {
-            result = handleGeneralizableElement(subject, type, feature, vt);
+            return Metatype.GENERALIZABLE_ELEMENT;
         } else if (Model.getFacade().isAGeneralization(subject)) {
-            result = handleGeneralization(subject, type, feature);
+            return Metatype.GENERALIZATION;
         } else if (Model.getFacade().isAMethod(subject)) {
-            result = handleMethod(subject, type, feature);
+            return Metatype.METHOD;
         } else if (Model.getFacade().isAModelElement(subject)) {
-            result = handleModelElement(subject, type, feature, vt);
+            return Metatype.MODEL_ELEMENT;
         } else if (Model.getFacade().isANamespace(subject)) {
-            result = handleNamespace(subject, type, feature, vt);
+            return Metatype.NAMESPACE;
         } else if (Model.getFacade().isANode(subject)) {
-            result = handleNode(subject, type, feature);
+            return Metatype.NODE;
         } else if (Model.getFacade().isAOperation(subject)) {
-            result = handleOperation(subject, type, feature);
+            return Metatype.OPERATION;
         } else if (Model.getFacade().isAParameter(subject)) {
-            result = handleParameter(subject, type, feature);
+            return Metatype.PARAMETER;
         } else if (Model.getFacade().isAStructuralFeature(subject)) {
-            result = handleStructuralFeature(subject, type, feature);
+            return Metatype.STRUCTURAL_FEATURE;
         } else if (Model.getFacade().isATemplateArgument(subject)) {
-            result = handleTemplateArgument(subject, type, feature);
+            return Metatype.TEMPLATE_ARGUMENT;
         } else if (Model.getFacade().isATemplateParameter(subject)) {
-            result = handleTemplateParameter(subject, type, feature);
+            return Metatype.TEMPLATE_PARAMETER;
         } else if (Model.getFacade().isAUseCase(subject)) {
-            result = handleUseCase(subject, type, feature);
+            return Metatype.USE_CASE;
         } else if (Model.getFacade().isAAssociationClass(subject)) {
-            result = handleAssociationClass(subject, type, feature, vt);
+            return Metatype.ASSOCIATION_CLASS;
         } else if (Model.getFacade().isAStereotype(subject)) {
-            result = handleStereotype(subject, type, feature);
+            return Metatype.STEREOTYPE;
         } else if (Model.getFacade().isATagDefinition(subject)) {
-            result = handleTagDefinition(subject, type, feature);
+            return Metatype.TAG_DEFINITION;
         } else if (Model.getFacade().isATaggedValue(subject)) {
-            result = handleTaggedValue(subject, type, feature);
-        } 
-
-        return result;
+            return Metatype.TAGGED_VALUE;
+        }
+        return Metatype.NONE;
     }
 
     private Object handleAssociation(Object subject, String type, String feature) {
@@ -894,24 +990,6 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
         }
     }
 
-//Refactoring end
-
-    private Object internalOcl(Object subject, Map<String, Object> vt,
-            String ocl) {
-        try {
-            Object oldSelf = vt.get("self");
-
-            vt.put("self", subject);
-            Object ret = DefaultOclEvaluator.getInstance().evaluate(vt,
-                    uml14mi, ocl);
-            vt.put("self", oldSelf);
-            return ret;
-        } catch (InvalidOclException e) {
-            LOG.log(Level.SEVERE, "Exception", e);
-            return null;
-        }
-    }
-
     /**
      * Add the metamodel-metaclasses as built-in symbols
      *
@@ -928,4 +1006,41 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
         return null;
     }
 
+    /**
+     * The metatypes which have features, in the order they are checked.
+     */
+    private enum Metatype {
+        ASSOCIATION,
+        ASSOCIATION_END,
+        ATTRIBUTE,
+        BEHAVIORAL_FEATURE,
+        BINDING,
+        CLASS,
+        CLASSIFIER,
+        COMMENT,
+        COMPONENT,
+        CONSTRAINT,
+        DEPENDENCY,
+        ELEMENT_RESIDENCE,
+        ENUMERATION,
+        ENUMERATION_LITERAL,
+        FEATURE,
+        GENERALIZABLE_ELEMENT,
+        GENERALIZATION,
+        METHOD,
+        MODEL_ELEMENT,
+        NAMESPACE,
+        NODE,
+        OPERATION,
+        PARAMETER,
+        STRUCTURAL_FEATURE,
+        TEMPLATE_ARGUMENT,
+        TEMPLATE_PARAMETER,
+        USE_CASE,
+        ASSOCIATION_CLASS,
+        STEREOTYPE,
+        TAG_DEFINITION,
+        TAGGED_VALUE,
+        NONE
+    }
 }
@@ -64,6 +64,8 @@ import javax.swing.border.EmptyBorder;
 
 import org.argouml.application.api.AbstractArgoJPanel;
 import org.argouml.i18n.Translator;
+import org.argouml.kernel.ModelNameIndex;
+import org.argouml.kernel.Project;
 import org.argouml.kernel.ProjectManager;
 import org.argouml.model.Model;
 import org.argouml.swingext.SpacerPanel;
@@ -550,14 +552,17 @@ public class FindDialog extends ArgoDialog
         PredicateSearch pred =
             new PredicateSearch(eNamePred, pNamePred, dNamePred, typePred);
 
-        ChildGenSearch gen = new ChildGenSearch();
-        Object root = ProjectManager.getManager().getCurrentProject();
+        Project root = ProjectManager.getManager().getCurrentProject();
 
         TabResults newResults = new TabResults();
         newResults.setTitle(name);
         newResults.setPredicate(pred);
         newResults.setRoot(root);
-        newResults.setGenerator(gen);
+        if (ModelNameIndex.canFind(eName)) {
+            newResults.setCandidates(root.getNameIndex().find(eName));
+        } else {
+            newResults.setGenerator(new ChildGenSearch());
+        }
         resultTabs.add(newResults);
         results.addTab(name, newResults);
         clearTabs.setEnabled(true);
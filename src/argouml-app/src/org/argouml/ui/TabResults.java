@@ -47,6 +47,7 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -67,6 +68,7 @@ import javax.swing.event.ListSelectionListener;
 
 import org.argouml.application.api.AbstractArgoJPanel;
 import org.argouml.i18n.Translator;
+import org.argouml.kernel.Project;
 import org.argouml.model.Model;
 import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.uml.ChildGenRelated;
@@ -106,6 +108,7 @@ public class TabResults
 
     private PredicateSearch pred;
     private ChildGenerator cg;
+    private Collection candidates;
     private Object root;
     private JSplitPane mainPane;
     private List results = new ArrayList();
@@ -213,6 +216,16 @@ public class TabResults
         cg = gen;
     }
 
+    /**
+     * Search only the given elements, found by name, instead of walking
+     * the project with the generator. The root must be the project.
+     *
+     * @param elements the elements which may be found
+     */
+    public void setCandidates(Collection elements) {
+        candidates = elements;
+    }
+
     /**
      * @param res the results
      * @param dia the diagrams
@@ -404,7 +417,11 @@ public class TabResults
     public void run() {
 	resultsLabel.setText(Translator.localize("dialog.find.searching"));
 	results.clear();
-	depthFirst(root, null);
+        if (candidates != null) {
+            searchCandidates();
+        } else {
+            depthFirst(root, null);
+        }
 	setResults(results, diagrams);
     }
 
@@ -450,6 +467,54 @@ public class TabResults
 	}
     }
 
+    /**
+     * Find the candidates matching the predicate. Like the depth first
+     * search, an element is found on a diagram if the diagram shows it or
+     * an element containing it, and once more without a diagram.
+     */
+    private void searchCandidates() {
+        List matching = new ArrayList();
+        for (Object candidate : candidates) {
+            if (pred.evaluate(candidate)) {
+                matching.add(candidate);
+            }
+        }
+        if (matching.isEmpty()) {
+            return;
+        }
+        for (ArgoDiagram diagram : ((Project) root).getDiagramList()) {
+            if (!pred.matchDiagram(diagram)) {
+                continue;
+            }
+            Set shown = new HashSet();
+            shown.addAll(diagram.getGraphModel().getNodes());
+            shown.addAll(diagram.getGraphModel().getEdges());
+            for (Object element : matching) {
+                if (isShown(element, shown)) {
+                    results.add(element);
+                    diagrams.add(diagram);
+                }
+            }
+        }
+        if (pred.matchDiagram("")) {
+            for (Object element : matching) {
+                results.add(element);
+                diagrams.add(null);
+            }
+        }
+    }
+
+    private static boolean isShown(Object element, Set shown) {
+        Object container = element;
+        while (container != null) {
+            if (shown.contains(container)) {
+                return true;
+            }
+            container = Model.getFacade().getModelElementContainer(container);
+        }
+        return false;
+    }
+
     /**
      * The UID.
      */
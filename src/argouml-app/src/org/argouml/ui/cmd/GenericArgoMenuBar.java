@@ -60,6 +60,7 @@ import javax.swing.SwingUtilities;
 import org.argouml.application.helpers.ResourceLoaderWrapper;
 import org.argouml.cognitive.critics.ui.ActionOpenCritics;
 import org.argouml.cognitive.ui.ActionAutoCritique;
+import org.argouml.cognitive.ui.ActionOpenCriticStatistics;
 import org.argouml.cognitive.ui.ActionOpenDecisions;
 import org.argouml.cognitive.ui.ActionOpenGoals;
 import org.argouml.i18n.Translator;
@@ -917,6 +918,9 @@ public class GenericArgoMenuBar extends JMenuBar implements
         setMnemonic(browseCritics, "Browse Critics");
         ShortcutMgr.assignAccelerator(designIssues,
                 ShortcutMgr.ACTION_OPEN_CRITICS);
+        JMenuItem criticStatistics =
+            critique.add(new ActionOpenCriticStatistics());
+        setMnemonic(criticStatistics, "Critic Statistics");
     }
 
     /**
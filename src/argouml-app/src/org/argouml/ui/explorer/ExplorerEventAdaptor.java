@@ -59,6 +59,7 @@ import org.argouml.model.Model;
 import org.argouml.model.RemoveAssociationEvent;
 import org.argouml.model.UmlChangeEvent;
 import org.argouml.notation.Notation;
+import org.argouml.uml.diagram.ArgoDiagram;
 
 /**
  * All events going to the Explorer must pass through here first!<p>
@@ -225,6 +226,11 @@ public final class ExplorerEventAdaptor
             if ("remove".equals(pce.getPropertyName())) {
                 treeModel.modelElementRemoved(pce.getOldValue());
             }
+            if (ProjectManager.DIAGRAM_LOADED_PROPERTY.equals(
+                    pce.getPropertyName())) {
+                treeModel.modelElementAdded(
+                        ((ArgoDiagram) pce.getNewValue()).getNamespace());
+            }
         }
     }
 
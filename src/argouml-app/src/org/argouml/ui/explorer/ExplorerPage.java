@@ -0,0 +1,104 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.ui.explorer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.argouml.i18n.Translator;
+
+/**
+ * A placeholder in the explorer tree for a range of the children of an
+ * element which has too many to show at once. Only the pages are created
+ * when the element is expanded; the nodes of the children of a page are
+ * created when the page is expanded.<p>
+ *
+ * Pages are equal if they are the same range of the same element, so a
+ * page node is kept when the children of the element change. Its items are
+ * replaced then.
+ */
+final class ExplorerPage {
+
+    /**
+     * The largest number of children shown without pages.
+     */
+    static final int PAGE_SIZE = 1000;
+
+    private final Object owner;
+
+    private final int index;
+
+    private final List items;
+
+    private ExplorerPage(Object theOwner, int theIndex, List theItems) {
+        owner = theOwner;
+        index = theIndex;
+        items = theItems;
+    }
+
+    /**
+     * Split the children of an element into pages, if there are too many.
+     *
+     * @param owner the element
+     * @param children the ordered children
+     * @return the children, or the pages holding them
+     */
+    static List paginate(Object owner, List children) {
+        if (children.size() <= PAGE_SIZE) {
+            return children;
+        }
+        List<ExplorerPage> pages = new ArrayList<ExplorerPage>();
+        for (int first = 0; first < children.size(); first += PAGE_SIZE) {
+            int last = Math.min(first + PAGE_SIZE, children.size());
+            pages.add(new ExplorerPage(owner, pages.size(),
+                    Collections.unmodifiableList(
+                            new ArrayList(children.subList(first, last)))));
+        }
+        return pages;
+    }
+
+    /**
+     * @return the children on this page, in order
+     */
+    List getItems() {
+        return items;
+    }
+
+    /**
+     * @return the position of the page among the pages of its owner
+     */
+    int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ExplorerPage)) {
+            return false;
+        }
+        ExplorerPage other = (ExplorerPage) obj;
+        return index == other.index && owner.equals(other.owner);
+    }
+
+    @Override
+    public int hashCode() {
+        return owner.hashCode() * 31 + index;
+    }
+
+    @Override
+    public String toString() {
+        int first = index * PAGE_SIZE + 1;
+        return Translator.localize("misc.name.page", new Object[] {
+            first, first + items.size() - 1,
+        });
+    }
+}
@@ -49,17 +49,20 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.MutableTreeNode;
-import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import org.argouml.kernel.Project;
@@ -98,6 +101,19 @@ public class ExplorerTreeModel extends DefaultTreeModel
      */
     private Map<Object, Set<ExplorerTreeNode>> modelElementMap;
 
+    /**
+     * a map from the objects in the modify set of the tree nodes to those
+     * nodes, which have to update their children when the object changes.
+     */
+    private Map<Object, Set<ExplorerTreeNode>> dependentNodeMap;
+
+    /**
+     * The objects changed since the tree was last updated. Updates are
+     * done once per run of the event queue, whatever the number of
+     * events.
+     */
+    private Set<Object> modifiedObjects = new LinkedHashSet<Object>();
+
     /**
      * the global order for siblings in the tree.
      */
@@ -117,6 +133,18 @@ public class ExplorerTreeModel extends DefaultTreeModel
 
     private ExplorerTree tree;
 
+    /**
+     * The thread the children of pending nodes are collected on.
+     */
+    private final ExecutorService collector =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ArgoUML explorer updater");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
     /**
      * Help class to semi-lazily update nodes in the tree.
      * This class is thread safe.
@@ -167,34 +195,94 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	}
 
 	/**
-	 * Call updateChildren for some pending nodes. Will call at most
-	 * MAX_UPDATES_PER_RUN each time. Should there still be pending
-	 * updates after that then it will reschedule itself.<p>
+	 * Update the children of some pending nodes. Will update at most
+	 * MAX_UPDATES_PER_RUN each time. Their children are collected and
+	 * sorted on a background thread, then merged into the tree on
+	 * AWT-EventQueue-0. Should there still be pending updates after
+	 * that then it will reschedule itself.<p>
 	 *
 	 * This method should not be called explicitly, instead schedule
 	 * should be called and this method will be called automatically.
 	 */
 	public void run() {
-	    boolean done = false;
-
-	    for (int i = 0; i < MAX_UPDATES_PER_RUN; i++) {
-		ExplorerTreeNode node = null;
-		synchronized (this) {
-		    if (!pendingUpdates.isEmpty()) {
-			node = pendingUpdates.removeFirst();
-			node.setPending(false);
-		    } else {
-			done = true;
-			hot = false;
-			break;
+	    final List<ExplorerTreeNode> nodes =
+		new ArrayList<ExplorerTreeNode>();
+	    final List<Object> elements = new ArrayList<Object>();
+	    synchronized (this) {
+		while (nodes.size() < MAX_UPDATES_PER_RUN
+		       && !pendingUpdates.isEmpty()) {
+		    ExplorerTreeNode node = pendingUpdates.removeFirst();
+		    node.setPending(false);
+		    nodes.add(node);
+		    elements.add(node.getUserObject());
+		}
+	    }
+
+	    // Avoid doing this too early in the initialization process
+	    if (nodes.isEmpty() || rules == null) {
+		next();
+		return;
+	    }
+
+	    final List<PerspectiveRule> currentRules = rules;
+	    final Comparator currentOrder = order;
+	    collector.execute(new Runnable() {
+		public void run() {
+		    final List<CollectedChildren> collected =
+			new ArrayList<CollectedChildren>();
+		    for (Object element : elements) {
+			CollectedChildren children = new CollectedChildren();
+			try {
+			    collectChildren(element, currentRules,
+					    currentOrder, children.children,
+					    children.deps);
+			} catch (RuntimeException e) {
+			    // The model changed under our feet, try again
+			    // on AWT-EventQueue-0 below
+			    LOG.log(Level.FINE, "Failed to collect children", e);
+			    children = null;
+			}
+			collected.add(children);
 		    }
+		    EventQueue.invokeLater(new Runnable() {
+			public void run() {
+			    apply(nodes, elements, collected);
+			}
+		    });
 		}
+	    });
+	}
 
-		updateChildren(new TreePath(getPathToRoot(node)));
+	private void apply(List<ExplorerTreeNode> nodes,
+			   List<Object> elements,
+			   List<CollectedChildren> collected) {
+	    for (int i = 0; i < nodes.size(); i++) {
+		ExplorerTreeNode node = nodes.get(i);
+		// Skip nodes which were removed in the meantime
+		if (node.getUserObject() != elements.get(i)) {
+		    continue;
+		}
+		CollectedChildren children = collected.get(i);
+		if (children == null) {
+		    updateChildren(new TreePath(getPathToRoot(node)));
+		} else {
+		    applyChildren(node, children.children, children.deps);
+		}
+	    }
+	    next();
+	}
+
+	private void next() {
+	    boolean done;
+	    synchronized (this) {
+		done = pendingUpdates.isEmpty();
+		if (done) {
+		    hot = false;
+		}
 	    }
 
 	    if (!done) {
-		schedule();
+		EventQueue.invokeLater(this);
             } else {
                 // TODO: This seems like a brute force workaround (and a very
                 // indirect one at that).  It appears to be needed though until
@@ -205,6 +293,41 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	}
     }
 
+    /**
+     * The children of an element and the objects they depend on, as
+     * collected off AWT-EventQueue-0.
+     */
+    private static class CollectedChildren {
+        private final List children = new ArrayList();
+        private final Set deps = new HashSet();
+    }
+
+    /**
+     * Orders pages by their position and before anything else. Everything
+     * else is in the order chosen by the user.
+     */
+    private static class PageOrder implements Comparator {
+        private final Comparator order;
+
+        PageOrder(Comparator theOrder) {
+            order = theOrder;
+        }
+
+        public int compare(Object o1, Object o2) {
+            if (o1 instanceof ExplorerPage) {
+                if (o2 instanceof ExplorerPage) {
+                    return ((ExplorerPage) o1).getIndex()
+                        - ((ExplorerPage) o2).getIndex();
+                }
+                return -1;
+            }
+            if (o2 instanceof ExplorerPage) {
+                return 1;
+            }
+            return order.compare(o1, o2);
+        }
+    }
+
     /**
      * The constructor of ExplorerTreeModel.
      *
@@ -215,47 +338,78 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	super(new DefaultMutableTreeNode());
 
         tree = myTree;
-	setRoot(new ExplorerTreeNode(root, this));
 	setAsksAllowsChildren(false);
 	modelElementMap = new HashMap<Object, Set<ExplorerTreeNode>>();
+	dependentNodeMap = new HashMap<Object, Set<ExplorerTreeNode>>();
+	ExplorerTreeNode rootNode = new ExplorerTreeNode(root, this);
+	addToMap(root, rootNode);
+	setRoot(rootNode);
 
 	ExplorerEventAdaptor.getInstance()
 	    .setTreeModelUMLEventListener(this);
 
-	order = new TypeThenNameOrder();
+	order = new PageOrder(new TypeThenNameOrder());
     }
 
     /*
      * @see org.argouml.ui.explorer.TreeModelUMLEventListener#modelElementChanged(java.lang.Object)
      */
     public void modelElementChanged(Object node) {
-        traverseModified((TreeNode) getRoot(), node);
+        nodeModified(node);
     }
 
     /*
      * @see org.argouml.ui.explorer.TreeModelUMLEventListener#modelElementAdded(java.lang.Object)
      */
     public void modelElementAdded(Object node) {
-        traverseModified((TreeNode) getRoot(), node);
+        nodeModified(node);
     }
 
     /**
-     * Traverses the children, finds those affected by the given node,
-     * and notifies them that they are modified.
+     * Remember that an object was modified, and schedule the update of the
+     * tree if this is the first one since the last update.
      *
-     * @param start the node to start from
      * @param node the given node
      */
-    private void traverseModified(TreeNode start, Object node) {
-	Enumeration children = start.children();
-	while (children.hasMoreElements()) {
-	    TreeNode child = (TreeNode) children.nextElement();
-	    traverseModified(child, node);
-	}
+    private void nodeModified(Object node) {
+        synchronized (modifiedObjects) {
+            if (modifiedObjects.isEmpty()) {
+                EventQueue.invokeLater(new Runnable() {
+                    public void run() {
+                        updateModified();
+                    }
+                });
+            }
+            modifiedObjects.add(node);
+        }
+    }
 
-	if (start instanceof ExplorerTreeNode) {
-	    ((ExplorerTreeNode) start).nodeModified(node);
-	}
+    /**
+     * Notifies the tree nodes affected by the objects modified since the
+     * last time. The nodes whose modify set contains an object get their
+     * children updated, the nodes which show it are redrawn. Only those
+     * nodes are visited, found through the maps.
+     */
+    private void updateModified() {
+        List<Object> modified;
+        synchronized (modifiedObjects) {
+            modified = new ArrayList<Object>(modifiedObjects);
+            modifiedObjects.clear();
+        }
+        Set<ExplorerTreeNode> changed = new LinkedHashSet<ExplorerTreeNode>();
+        for (Object node : modified) {
+            Set<ExplorerTreeNode> dependents = dependentNodeMap.get(node);
+            if (dependents != null) {
+                for (ExplorerTreeNode dependent
+                        : new ArrayList<ExplorerTreeNode>(dependents)) {
+                    nodeUpdater.schedule(dependent);
+                }
+            }
+            changed.addAll(findNodes(node));
+        }
+        for (ExplorerTreeNode node : changed) {
+            nodeChanged(node);
+        }
     }
 
     /*
@@ -269,7 +423,7 @@ public class ExplorerTreeModel extends DefaultTreeModel
             }
         }
 
-        traverseModified((TreeNode) getRoot(), node);
+        nodeModified(node);
     }
 
     /*
@@ -287,11 +441,13 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	    nodes.clear();
 	}
 	modelElementMap.clear();
+	dependentNodeMap.clear();
 
 	// This is somewhat inconsistent with the design of the constructor
 	// that receives the root object by argument. If this is okay
 	// then there may be no need for a constructor with that argument.
 	modelElementMap = new HashMap<Object, Set<ExplorerTreeNode>>();
+	dependentNodeMap = new HashMap<Object, Set<ExplorerTreeNode>>();
 	Project proj = ProjectManager.getManager().getCurrentProject();
 	ExplorerTreeNode rootNode = new ExplorerTreeNode(proj, this);
 
@@ -319,21 +475,66 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	if (updatingChildren.contains(node)) {
 	    return;
 	}
+
+	List newChildren = new ArrayList();
+	Set deps = new HashSet();
+	collectChildren(modelElement, rules, order, newChildren, deps);
+
+	applyChildren(node, newChildren, deps);
+    }
+
+    /**
+     * Replaces the children of a node with the ones collected for it.
+     *
+     * @param node the node
+     * @param newChildren the ordered new children of the node
+     * @param deps the objects the children of the node depend on
+     */
+    private void applyChildren(ExplorerTreeNode node, List newChildren,
+                               Set deps) {
+	// Avoid recursively updating the same child
+	if (updatingChildren.contains(node)) {
+	    return;
+	}
 	updatingChildren.add(node);
 
 	List children = reorderChildren(node);
 
-	List newChildren = new ArrayList();
-	Set deps = new HashSet();
-	collectChildren(modelElement, newChildren, deps);
+	setModifySet(node, deps);
 
-	node.setModifySet(deps);
+	updatePages(node, newChildren);
 
 	mergeChildren(node, children, newChildren);
 
 	updatingChildren.remove(node);
     }
 
+    /**
+     * Gives the page nodes among the children of a node which are kept
+     * their new items, and updates their children if they are shown.
+     *
+     * @param node the node
+     * @param newChildren the new children of the node
+     */
+    private void updatePages(ExplorerTreeNode node, List newChildren) {
+	Enumeration children = node.children();
+	while (children.hasMoreElements()) {
+	    ExplorerTreeNode child = (ExplorerTreeNode) children.nextElement();
+	    if (!(child.getUserObject() instanceof ExplorerPage)) {
+		continue;
+	    }
+	    int index = newChildren.indexOf(child.getUserObject());
+	    if (index >= 0) {
+		ExplorerPage page = (ExplorerPage) newChildren.get(index);
+		child.setUserObject(page);
+		if (child.isExpanded()) {
+		    applyChildren(child, new ArrayList(page.getItems()),
+				  Collections.EMPTY_SET);
+		}
+	    }
+	}
+    }
+
     /**
      * Sorts the child nodes of node using the current ordering.<p>
      *
@@ -431,7 +632,15 @@ public class ExplorerTreeModel extends DefaultTreeModel
      * responsibility to make sure that they are empty when it is called, or
      * to know what you are doing if they are not.
      *
+     * The children of a page are its items. Too many children are split
+     * into pages, after the dependencies are collected.<p>
+     *
+     * This reads nothing from the tree, so it can be called off
+     * AWT-EventQueue-0.
+     *
      * @param modelElement the element to collect children for.
+     * @param ruleList the rules of the perspective.
+     * @param childOrder the order of the children.
      * @param newChildren the new children of modelElement.
      * @param deps the set of objects that should be monitored for changes
      *        since these could affect this list.
@@ -442,15 +651,21 @@ public class ExplorerTreeModel extends DefaultTreeModel
      * @throws IllegalArgumentException if newChildren or deps rejects some
      *         element.
      */
-    private void collectChildren(Object modelElement, List newChildren,
+    private void collectChildren(Object modelElement,
+				 List<PerspectiveRule> ruleList,
+				 Comparator childOrder, List newChildren,
 				 Set deps) {
 	if (modelElement == null) {
 	    return;
 	}
+	if (modelElement instanceof ExplorerPage) {
+	    newChildren.addAll(((ExplorerPage) modelElement).getItems());
+	    return;
+	}
 
 	// Collect the current set of objects that should be children to
 	// this node
-        for (PerspectiveRule rule : rules) {
+        for (PerspectiveRule rule : ruleList) {
 
             // TODO: A better implementation would be to batch events into
             // logical groups and update the tree one time for the entire
@@ -487,8 +702,14 @@ public class ExplorerTreeModel extends DefaultTreeModel
 
 	// Order the new children, the dependencies cannot and
 	// need not be ordered
-	Collections.sort(newChildren, order);
+	Collections.sort(newChildren, childOrder);
 	deps.addAll(newChildren);
+
+	List pages = ExplorerPage.paginate(modelElement, newChildren);
+	if (pages != newChildren) {
+	    newChildren.clear();
+	    newChildren.addAll(pages);
+	}
     }
 
     /**
@@ -682,6 +903,44 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	    removeNodesFromMap(child);
 	}
 	removeFromMap(node.getUserObject(), node);
+	removeDependencies(node);
+    }
+
+    /**
+     * Sets the modify set of a node, keeping the map from the objects in
+     * it to the node up to date.
+     *
+     * @param node the node
+     * @param deps the objects whose modification affects the children
+     */
+    private void setModifySet(ExplorerTreeNode node, Set deps) {
+        removeDependencies(node);
+        node.setModifySet(deps);
+        for (Object dep : node.getModifySet()) {
+            Set<ExplorerTreeNode> nodes = dependentNodeMap.get(dep);
+            if (nodes == null) {
+                nodes = new HashSet<ExplorerTreeNode>();
+                dependentNodeMap.put(dep, nodes);
+            }
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * Unmap a node from the objects in its modify set.
+     *
+     * @param node the node
+     */
+    private void removeDependencies(ExplorerTreeNode node) {
+        for (Object dep : node.getModifySet()) {
+            Set<ExplorerTreeNode> nodes = dependentNodeMap.get(dep);
+            if (nodes != null) {
+                nodes.remove(node);
+                if (nodes.isEmpty()) {
+                    dependentNodeMap.remove(dep);
+                }
+            }
+        }
     }
 
     /**
@@ -744,7 +1003,7 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	if (e.getSource() instanceof PerspectiveComboBox) {
             rules = ((ExplorerPerspective) e.getItem()).getList();
 	} else { // it is the combo for "order"
-	    order = (Comparator) e.getItem();
+	    order = new PageOrder((Comparator) e.getItem());
 	}
 	structureChanged();
 	// TODO: temporary - let tree expand implicitly - tfm
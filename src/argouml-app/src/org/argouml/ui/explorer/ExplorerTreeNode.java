@@ -91,6 +91,13 @@ public class ExplorerTreeNode extends DefaultMutableTreeNode implements
 	return super.isLeaf();
     }
 
+    /**
+     * @return true if the children of this node have been collected
+     */
+    boolean isExpanded() {
+        return expanded;
+    }
+
     boolean getPending() {
 	return pending;
     }
@@ -110,6 +117,13 @@ public class ExplorerTreeNode extends DefaultMutableTreeNode implements
 	}
     }
 
+    /**
+     * @return the objects whose modification affects the children
+     */
+    Set getModifySet() {
+        return modifySet;
+    }
+
     /**
      * @param node the modified node in the tree
      */
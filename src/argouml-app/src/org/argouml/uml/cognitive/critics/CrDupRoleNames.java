@@ -40,8 +40,11 @@ package org.argouml.uml.cognitive.critics;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.argouml.cognitive.Designer;
@@ -162,6 +165,24 @@ public class CrDupRoleNames extends CrUML {
         return NO_PROBLEM;
     }
 
+    /*
+     * The association and the names of its ends.
+     *
+     * @see org.argouml.cognitive.Critic#getDependencies(java.lang.Object)
+     */
+    @Override
+    public Map<Object, Set<String>> getDependencies(Object dm) {
+        Map<Object, Set<String>> ret = new HashMap<Object, Set<String>>();
+        ret.put(dm, null);
+        if (Model.getFacade().isAAssociation(dm)) {
+            Set<String> name = Collections.singleton("name");
+            for (Object end : Model.getFacade().getConnections(dm)) {
+                ret.put(end, name);
+            }
+        }
+        return ret;
+    }
+
     /*
      * @see org.argouml.uml.cognitive.critics.CrUML#getCriticizedDesignMaterials()
      */
@@ -93,6 +93,10 @@ public class DiagramUndoManager extends UndoManager {
         // the correct project.
         Project p = ProjectManager.getManager().getCurrentProject();
         if (p != null) {
+            if (p.getActiveDiagram() != null) {
+                p.getMemberChangeTracker().diagramChanged(
+                        p.getActiveDiagram());
+            }
             org.argouml.kernel.UndoManager undo = p.getUndoManager();
             if (undo != null) {
                 if (startChain) {
@@ -0,0 +1,241 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.uml.diagram.ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.Timer;
+
+import org.argouml.model.AttributeChangeEvent;
+import org.argouml.model.InvalidElementException;
+import org.argouml.model.UmlChangeEvent;
+import org.tigris.gef.base.LayerPerspective;
+import org.tigris.gef.presentation.Fig;
+
+/**
+ * Collects the updates of the figs of a diagram caused by model events and
+ * notation changes, and does them at most once per frame on the event
+ * dispatch thread.<p>
+ *
+ * Updates which would do the same work are done once. A fig is updated
+ * once for all changes of the same attribute of the same element, since
+ * it only reads the current value. Other events are only merged if they
+ * are equal. A change of notation re-renders a fig once, however many
+ * events asked for it.
+ */
+public final class DiagramLayoutScheduler {
+
+    private static final Logger LOG =
+        Logger.getLogger(DiagramLayoutScheduler.class.getName());
+
+    /**
+     * The least number of milliseconds between two runs.
+     */
+    static final int FRAME_INTERVAL = 16;
+
+    /**
+     * The schedulers by diagram.
+     */
+    private static final Map<Object, DiagramLayoutScheduler> SCHEDULERS =
+        new WeakHashMap<Object, DiagramLayoutScheduler>();
+
+    /**
+     * The scheduler of figs which are not on a diagram.
+     */
+    private static final DiagramLayoutScheduler DETACHED =
+        new DiagramLayoutScheduler();
+
+    private final Map<UpdateKey, Update> pending =
+        new LinkedHashMap<UpdateKey, Update>();
+
+    private final Timer timer;
+
+    private long lastRun;
+
+    private long eventsReceived;
+
+    private long layoutsPerformed;
+
+    private DiagramLayoutScheduler() {
+        timer = new Timer(FRAME_INTERVAL, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                run();
+            }
+        });
+        timer.setRepeats(false);
+    }
+
+    /**
+     * @param fig a fig
+     * @return the scheduler of the diagram the fig is on
+     */
+    public static DiagramLayoutScheduler getInstance(Fig fig) {
+        Object diagram = null;
+        if (fig.getLayer() instanceof LayerPerspective) {
+            diagram = ((LayerPerspective) fig.getLayer()).getDiagram();
+        }
+        if (diagram == null) {
+            return DETACHED;
+        }
+        synchronized (SCHEDULERS) {
+            DiagramLayoutScheduler scheduler = SCHEDULERS.get(diagram);
+            if (scheduler == null) {
+                scheduler = new DiagramLayoutScheduler();
+                SCHEDULERS.put(diagram, scheduler);
+            }
+            return scheduler;
+        }
+    }
+
+    /**
+     * Schedule the update of the layout of a fig for a model event.
+     *
+     * @param fig the fig
+     * @param event the event
+     */
+    public synchronized void scheduleLayout(FigNodeModelElement fig,
+            UmlChangeEvent event) {
+        eventsReceived++;
+        UpdateKey key;
+        if (event instanceof AttributeChangeEvent) {
+            key = new UpdateKey(fig, event.getClass(), event.getSource(),
+                    event.getPropertyName(), null, null);
+        } else {
+            key = new UpdateKey(fig, event.getClass(), event.getSource(),
+                    event.getPropertyName(), event.getOldValue(),
+                    event.getNewValue());
+        }
+        // Keep the latest event, in the place of the first one
+        pending.put(key, new Update(fig, event));
+        schedule();
+    }
+
+    /**
+     * Schedule the rendering of a fig again, after a change of notation.
+     *
+     * @param fig the fig
+     */
+    public synchronized void scheduleRendering(FigNodeModelElement fig) {
+        eventsReceived++;
+        pending.put(new UpdateKey(fig, null, null, null, null, null),
+                new Update(fig, null));
+        schedule();
+    }
+
+    private void schedule() {
+        if (timer.isRunning()) {
+            return;
+        }
+        long wait = lastRun + FRAME_INTERVAL - System.currentTimeMillis();
+        timer.setInitialDelay((int) Math.max(0,
+                Math.min(wait, FRAME_INTERVAL)));
+        timer.start();
+    }
+
+    /**
+     * Do all pending updates now. Must be called on the event dispatch
+     * thread.
+     */
+    public void run() {
+        List<Update> updates;
+        synchronized (this) {
+            timer.stop();
+            lastRun = System.currentTimeMillis();
+            updates = new ArrayList<Update>(pending.values());
+            pending.clear();
+            layoutsPerformed += updates.size();
+        }
+        for (Update update : updates) {
+            update.run();
+        }
+        LOG.log(Level.FINE, "Did {0} fig updates", updates.size());
+    }
+
+    /**
+     * @return the number of updates asked for since the scheduler was
+     *         created
+     */
+    public synchronized long getEventsReceived() {
+        return eventsReceived;
+    }
+
+    /**
+     * @return the number of updates done since the scheduler was created
+     */
+    public synchronized long getLayoutsPerformed() {
+        return layoutsPerformed;
+    }
+
+    /**
+     * An update of a fig. Without an event, the fig is rendered again.
+     */
+    private static class Update {
+        private final FigNodeModelElement fig;
+        private final UmlChangeEvent event;
+
+        Update(FigNodeModelElement theFig, UmlChangeEvent theEvent) {
+            fig = theFig;
+            event = theEvent;
+        }
+
+        void run() {
+            // The fig may have been removed in the meantime
+            if (fig.getOwner() == null) {
+                return;
+            }
+            if (event == null) {
+                try {
+                    fig.renderingChanged();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.SEVERE, "Exception", e);
+                }
+                return;
+            }
+            try {
+                fig.updateLayout(event);
+            } catch (InvalidElementException e) {
+                LOG.log(Level.FINE, "Update of " + fig
+                        + " accessed deleted element", e);
+            }
+        }
+    }
+
+    /**
+     * What makes two updates the same.
+     */
+    private static class UpdateKey {
+        private final Object[] parts;
+
+        UpdateKey(Object... theParts) {
+            parts = theParts;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof UpdateKey
+                && Arrays.equals(parts, ((UpdateKey) obj).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(parts);
+        }
+    }
+}
@@ -1185,19 +1185,9 @@ public abstract class FigNodeModelElement
                 stereotypeChanged(event);
             }
 
-            Runnable doWorkRunnable = new Runnable() {
-                public void run() {
-                    try {
-                        updateLayout(event);
-                    } catch (InvalidElementException e) {
-                        if (LOG.isLoggable(Level.FINE)) {
-                            LOG.log(Level.FINE, "updateLayout method accessed deleted element "
-                                    + formatEvent(event), e);
-                        }
-                    }
-                }
-            };
-            SwingUtilities.invokeLater(doWorkRunnable);
+            // Many events may arrive for the same change of layout
+            DiagramLayoutScheduler.getInstance(this).scheduleLayout(this,
+                    event);
         }
     }
 
@@ -1760,11 +1750,7 @@ public abstract class FigNodeModelElement
         if (getOwner() == null) {
             return;
         }
-        try {
-            renderingChanged();
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE, "Exception", e);
-        }
+        DiagramLayoutScheduler.getInstance(this).scheduleRendering(this);
     }
 
     /**
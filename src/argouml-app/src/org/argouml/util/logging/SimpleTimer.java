@@ -133,6 +133,27 @@ public class SimpleTimer {
         }
     }
 
+    /**
+     * Returns the time between each mark and the next, in a form meant to
+     * be read by programs: one line for each mark with the label and the
+     * milliseconds, separated by a tab. No mark is added.
+     *
+     * @return the lines
+     */
+    public List<String> getReport() {
+        List<String> lines = new ArrayList<String>();
+        synchronized (points) {
+            for (int i = 1; i < points.size(); i++) {
+                String label = labels.get(i - 1);
+                if (label == null) {
+                    label = "phase " + i;
+                }
+                lines.add(label + "\t" + (points.get(i) - points.get(i - 1)));
+            }
+        }
+        return lines;
+    }
+
     /*
      * @see java.lang.Object#toString()
      */
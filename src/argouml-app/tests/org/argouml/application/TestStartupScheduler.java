@@ -0,0 +1,103 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the StartupScheduler class.
+ */
+public class TestStartupScheduler extends TestCase {
+
+    private List<String> order;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        order = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    /**
+     * Steps run after the steps they depend on, and the steps on the
+     * caller run on the calling thread.
+     */
+    public void testOrder() {
+        StartupScheduler scheduler = new StartupScheduler();
+        scheduler.add("a", new Record("a"));
+        scheduler.add("b", new Record("b"), "a");
+        scheduler.add("c", new Record("c"), "a");
+        final Thread caller = Thread.currentThread();
+        scheduler.addOnCaller("d", new Runnable() {
+            public void run() {
+                assertSame(caller, Thread.currentThread());
+                order.add("d");
+            }
+        }, "b", "c");
+        scheduler.run();
+
+        assertEquals(4, order.size());
+        assertEquals("a", order.get(0));
+        assertEquals("d", order.get(3));
+        assertEquals(4, scheduler.getReport().size());
+        assertTrue(scheduler.getReport().get(0).startsWith("a\t"));
+    }
+
+    /**
+     * A failing step stops the startup.
+     */
+    public void testFailure() {
+        StartupScheduler scheduler = new StartupScheduler();
+        scheduler.add("a", new Runnable() {
+            public void run() {
+                throw new IllegalArgumentException();
+            }
+        });
+        scheduler.add("b", new Record("b"), "a");
+        try {
+            scheduler.run();
+            fail("The failure wasn't reported");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertFalse(order.contains("b"));
+    }
+
+    /**
+     * Steps depending on each other can't be run.
+     */
+    public void testCircle() {
+        StartupScheduler scheduler = new StartupScheduler();
+        scheduler.add("a", new Record("a"), "b");
+        scheduler.add("b", new Record("b"), "a");
+        try {
+            scheduler.run();
+            fail("The circle wasn't found");
+        } catch (IllegalStateException e) {
+            assertTrue(order.isEmpty());
+        }
+    }
+
+    private class Record implements Runnable {
+        private final String name;
+
+        Record(String theName) {
+            name = theName;
+        }
+
+        public void run() {
+            order.add(name);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import junit.framework.TestCase;
+
+/**
+ * Testing the CriticStatistics.
+ */
+public class TestCriticStatistics extends TestCase {
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestCriticStatistics(String name) {
+        super(name);
+    }
+
+    /**
+     * Counters, mean and maximum.
+     */
+    public void testRecord() {
+        CriticStatistics stats = new CriticStatistics(new Critic());
+        assertEquals(0, stats.getMeanNanos());
+        assertEquals(0, stats.getPercentileNanos(95));
+
+        stats.record(100);
+        stats.record(300);
+        stats.recordItemPosted();
+        stats.recordException();
+        assertEquals(2, stats.getInvocations());
+        assertEquals(400, stats.getTotalNanos());
+        assertEquals(200, stats.getMeanNanos());
+        assertEquals(300, stats.getMaxNanos());
+        assertEquals(1, stats.getItemsPosted());
+        assertEquals(1, stats.getExceptions());
+
+        stats.setDemoted(true);
+        stats.reset();
+        assertEquals(0, stats.getInvocations());
+        assertEquals(0, stats.getMaxNanos());
+        assertTrue(stats.isDemoted());
+    }
+
+    /**
+     * Percentiles are bounded by the power of two above the sample and by
+     * the maximum.
+     */
+    public void testPercentile() {
+        CriticStatistics stats = new CriticStatistics(new Critic());
+        for (int i = 0; i < 99; i++) {
+            stats.record(1000);
+        }
+        stats.record(1000000);
+        long p50 = stats.getPercentileNanos(50);
+        assertTrue(p50 >= 1000 && p50 < 2048);
+        long p99 = stats.getPercentileNanos(99);
+        assertTrue(p99 >= 1000 && p99 < 2048);
+        assertEquals(1000000, stats.getPercentileNanos(100));
+    }
+
+    /**
+     * Critics are only demoted when a budget is set.
+     */
+    public void testDemotionNeedsBudget() {
+        CriticProfiler profiler = CriticProfiler.theProfiler();
+        boolean wasEnabled = profiler.isEnabled();
+        long oldBudget = profiler.getBudgetMicros();
+        Critic critic = new Critic();
+        try {
+            profiler.setEnabled(true);
+            profiler.setBudgetMicros(0);
+            long slowStart = System.nanoTime() - 1000000L;
+            for (int i = 0; i < 100; i++) {
+                profiler.finished(critic, slowStart);
+            }
+            assertFalse(profiler.isDemoted(critic));
+
+            profiler.setBudgetMicros(1);
+            profiler.finished(critic, slowStart);
+            assertTrue(profiler.isDemoted(critic));
+
+            profiler.promote(critic);
+            assertFalse(profiler.isDemoted(critic));
+        } finally {
+            profiler.setBudgetMicros(oldBudget);
+            profiler.setEnabled(wasEnabled);
+            profiler.reset();
+        }
+    }
+}
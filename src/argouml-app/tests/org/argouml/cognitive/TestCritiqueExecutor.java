@@ -0,0 +1,206 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Testing the CritiqueExecutors.
+ */
+public class TestCritiqueExecutor extends TestCase {
+
+    // Flag to enable performance testing - off by default
+    private static final boolean PERFORMANCE_TEST = false;
+
+    // Performance testing parameters
+    private static final int PERFORMANCE_ELEMENTS = 40000;
+    private static final int PERFORMANCE_WORK = 20000;
+
+    private static final int ELEMENTS = 500;
+
+    private Designer designer;
+
+    private OddCritic critic;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestCritiqueExecutor(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        designer = Designer.theDesigner();
+        designer.getToDoList().removeAllElements();
+        critic = new OddCritic();
+        Agency.register(critic, Material.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Agency.unregister(critic, Material.class);
+        designer.getToDoList().removeAllElements();
+        super.tearDown();
+    }
+
+    /**
+     * Both executors post the same items.
+     */
+    public void testSerialAndParallelAgree() {
+        List<Object> materials = makeMaterials(ELEMENTS);
+
+        CritiqueExecutor serial = new SerialCritiqueExecutor();
+        serial.critique(materials, designer, -1L);
+        List<ToDoItem> serialItems = postedItems();
+        assertEquals(ELEMENTS / 2, serialItems.size());
+
+        designer.getToDoList().removeAllElements();
+
+        ParallelCritiqueExecutor parallel = new ParallelCritiqueExecutor(4);
+        try {
+            parallel.critique(materials, designer, -1L);
+        } finally {
+            parallel.shutdown();
+        }
+        List<ToDoItem> parallelItems = postedItems();
+        assertEquals(serialItems.size(), parallelItems.size());
+        assertTrue(parallelItems.containsAll(serialItems));
+    }
+
+    /**
+     * Items posted on a collecting thread are not added to the ToDoList.
+     */
+    public void testCollectingItems() {
+        designer.startCollectingItems();
+        List<ToDoItem> collected;
+        try {
+            new SerialCritiqueExecutor().critique(makeMaterials(10),
+                    designer, -1L);
+        } finally {
+            collected = designer.stopCollectingItems();
+        }
+        assertEquals(5, collected.size());
+        assertTrue(postedItems().isEmpty());
+    }
+
+    /**
+     * Design material critiqued as soon as possible is not critiqued by
+     * critics the designer turned off since the active critics were
+     * determined.
+     */
+    public void testHotItemsSkipIrrelevantCritics() {
+        Agency.applyRelevantCritics(new Material(1), designer, -1L);
+        assertEquals(1, postedItems().size());
+
+        critic.setEnabled(false);
+        assertTrue(critic.isActive());
+        Agency.applyRelevantCritics(new Material(3), designer, -1L);
+        assertEquals(1, postedItems().size());
+    }
+
+    /**
+     * Compare the time for one pass over a large batch with an increasing
+     * number of threads.
+     */
+    public void testScaling() {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        critic.work = PERFORMANCE_WORK;
+        List<Object> materials = makeMaterials(PERFORMANCE_ELEMENTS);
+        int processors = Runtime.getRuntime().availableProcessors();
+        long serialTime = 0;
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            designer.getToDoList().removeAllElements();
+            CritiqueExecutor executor;
+            if (threads == 1) {
+                executor = new SerialCritiqueExecutor();
+            } else {
+                executor = new ParallelCritiqueExecutor(threads);
+            }
+            long start = System.currentTimeMillis();
+            executor.critique(materials, designer, -1L);
+            long time = System.currentTimeMillis() - start;
+            executor.shutdown();
+            if (threads == 1) {
+                serialTime = time;
+            }
+            System.out.println("Critiqued " + materials.size()
+                    + " elements on " + threads + " thread(s) in " + time
+                    + " msec (speedup "
+                    + ((double) serialTime / Math.max(time, 1)) + ")");
+        }
+    }
+
+    private List<Object> makeMaterials(int count) {
+        List<Object> materials = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            materials.add(new Material(i));
+        }
+        return materials;
+    }
+
+    private List<ToDoItem> postedItems() {
+        List<ToDoItem> result = new ArrayList<ToDoItem>();
+        List<ToDoItem> items = designer.getToDoList().getToDoItemList();
+        synchronized (items) {
+            for (ToDoItem item : items) {
+                if (item.getPoster() == critic) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Design material for the test critic.
+     */
+    static class Material {
+        private final int number;
+
+        Material(int n) {
+            number = n;
+        }
+
+        int getNumber() {
+            return number;
+        }
+    }
+
+    /**
+     * A critic complaining about every odd Material.
+     */
+    static class OddCritic extends Critic {
+        private int work;
+
+        OddCritic() {
+            setHeadline("Odd material");
+            addSupportedDecision(Decision.UNSPEC);
+        }
+
+        @Override
+        public boolean predicate(Object dm, Designer dsgr) {
+            int hash = 0;
+            for (int i = 0; i < work; i++) {
+                hash = 31 * hash + i;
+            }
+            return hash != 1 && ((Material) dm).getNumber() % 2 == 1;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Testing the CritiqueQueue.
+ */
+public class TestCritiqueQueue extends TestCase {
+
+    // Flag to enable performance testing - off by default
+    private static final boolean PERFORMANCE_TEST = false;
+
+    // Performance testing parameters
+    private static final int PERFORMANCE_ELEMENTS = 100000;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestCritiqueQueue(String name) {
+        super(name);
+    }
+
+    /**
+     * Elements come out in the order they went in, once each.
+     */
+    public void testOrderAndDuplicates() {
+        CritiqueQueue queue = new CritiqueQueue();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.add("a"));
+        assertTrue(queue.add("b"));
+        assertFalse(queue.add("a"));
+        assertTrue(queue.add("c"));
+        assertEquals(3, queue.size());
+        assertTrue(queue.contains("b"));
+
+        assertTrue(queue.remove("b"));
+        assertFalse(queue.remove("b"));
+        assertFalse(queue.contains("b"));
+
+        List<Object> head = queue.poll(1);
+        assertEquals(1, head.size());
+        assertEquals("a", head.get(0));
+        assertEquals("c", queue.poll(10).get(0));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Repeated additions merge their reason codes.
+     */
+    public void testReasonCodesAreMerged() {
+        CritiqueQueue queue = new CritiqueQueue();
+        queue.add("a", 1L);
+        queue.add("b", 2L);
+        queue.add("a", 4L);
+
+        List<Object> dms = new ArrayList<Object>();
+        List<Long> reasons = new ArrayList<Long>();
+        queue.drainTo(dms, reasons);
+        assertEquals(2, dms.size());
+        assertEquals("a", dms.get(0));
+        assertEquals(Long.valueOf(5L), reasons.get(0));
+        assertEquals(Long.valueOf(2L), reasons.get(1));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Elements queued for a priority reason are served first, also when
+     * the reason is only added later.
+     */
+    public void testPriority() {
+        CritiqueQueue queue = new CritiqueQueue(8L);
+        queue.add("a", 1L);
+        queue.add("b", 8L);
+        queue.add("c", 2L);
+        queue.add("c", 8L);
+
+        List<Object> dms = queue.poll(3);
+        assertEquals("b", dms.get(0));
+        assertEquals("c", dms.get(1));
+        assertEquals("a", dms.get(2));
+    }
+
+    /**
+     * Compare a full pass over a synthetic model with the ArrayList based
+     * queue the Designer used to have.
+     */
+    public void testPerformance() {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        List<Object> elements = new ArrayList<Object>(PERFORMANCE_ELEMENTS);
+        for (int i = 0; i < PERFORMANCE_ELEMENTS; i++) {
+            elements.add(new Object());
+        }
+
+        long start = System.currentTimeMillis();
+        List<Object> list = new ArrayList<Object>();
+        for (Object element : elements) {
+            if (!list.contains(element)) {
+                list.add(element);
+            }
+        }
+        while (list.size() > 0) {
+            list.remove(0);
+        }
+        long listTime = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        CritiqueQueue queue = new CritiqueQueue();
+        for (Object element : elements) {
+            queue.add(element);
+        }
+        while (!queue.isEmpty()) {
+            queue.poll(1);
+        }
+        long queueTime = System.currentTimeMillis() - start;
+
+        System.out.println("Queued and dequeued " + PERFORMANCE_ELEMENTS
+                + " elements: ArrayList " + listTime + " msec, "
+                + "CritiqueQueue " + queueTime + " msec");
+        assertTrue(queueTime <= listTime);
+    }
+}
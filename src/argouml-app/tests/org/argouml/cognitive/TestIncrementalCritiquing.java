@@ -0,0 +1,149 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.tigris.gef.util.ChildGenerator;
+
+/**
+ * Tests for critiquing only what changed once the design was swept.
+ */
+public class TestIncrementalCritiquing extends TestCase {
+
+    private Designer designer;
+
+    private NoNameCritic critic;
+
+    private Object model;
+
+    private Object rootBefore;
+
+    private ChildGenerator generatorBefore;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestIncrementalCritiquing(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        designer = Designer.theDesigner();
+        Designer.clearCritiquing();
+        critic = new NoNameCritic();
+        Agency.register(critic, (Class) Model.getMetaTypes().getUMLClass());
+        model = Model.getModelManagementFactory().createModel();
+        rootBefore = Designer.getCritiquingRoot();
+        generatorBefore = designer.getChildGenerator();
+        Designer.setCritiquingRoot(model);
+        designer.setChildGenerator(new ChildGenerator() {
+            public Enumeration gen(Object dm) {
+                if (Model.getFacade().isANamespace(dm)) {
+                    return Collections.enumeration(
+                            Model.getFacade().getOwnedElements(dm));
+                }
+                return Collections.enumeration(Collections.emptyList());
+            }
+        });
+        Designer.setUserWorking(true);
+        designer.setIncrementalCritiquing(true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        designer.setIncrementalCritiquing(false);
+        Designer.setUserWorking(false);
+        designer.setChildGenerator(generatorBefore);
+        Designer.setCritiquingRoot(rootBefore);
+        Agency.unregister(critic, (Class) Model.getMetaTypes().getUMLClass());
+        Designer.clearCritiquing();
+        Model.getUmlFactory().delete(model);
+        super.tearDown();
+    }
+
+    /**
+     * An element created after the design was swept is critiqued.
+     */
+    public void testElementCreatedAfterSweep() {
+        Object before = Model.getCoreFactory().buildClass(model);
+        sweep();
+        assertTrue(isPosted(before));
+
+        Object after = Model.getCoreFactory().buildClass(model);
+        Model.getPump().flushModelEvents();
+        designer.critiqueCurrentRoot();
+        assertTrue(isPosted(after));
+    }
+
+    /**
+     * An element moved to the design after the sweep is critiqued.
+     */
+    public void testElementMovedAfterSweep() {
+        Object other = Model.getModelManagementFactory().createModel();
+        Object moved = Model.getCoreFactory().buildClass(other);
+        sweep();
+        assertFalse(isPosted(moved));
+
+        Model.getCoreHelper().setNamespace(moved, model);
+        Model.getPump().flushModelEvents();
+        designer.critiqueCurrentRoot();
+        assertTrue(isPosted(moved));
+        Model.getUmlFactory().delete(other);
+    }
+
+    private void sweep() {
+        Model.getPump().flushModelEvents();
+        // The first cycle walks the design, the next one finds it done
+        designer.critiqueCurrentRoot();
+        designer.critiqueCurrentRoot();
+    }
+
+    private boolean isPosted(Object offender) {
+        List<ToDoItem> items = designer.getToDoList().getToDoItemList();
+        synchronized (items) {
+            for (ToDoItem item : items) {
+                if (item.getPoster() == critic
+                        && item.getOffenders().contains(offender)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A critic complaining about every class without a name.
+     */
+    static class NoNameCritic extends Critic {
+        NoNameCritic() {
+            setHeadline("Unnamed class");
+            addSupportedDecision(Decision.UNSPEC);
+        }
+
+        @Override
+        public boolean predicate(Object dm, Designer dsgr) {
+            String name = Model.getFacade().getName(dm);
+            return name == null || name.length() == 0;
+        }
+    }
+}
@@ -107,4 +107,50 @@ public class TestToDoItemList extends TestCase {
         // size should be 0 since item was removed
         assertTrue("ToDoList.size() is incorrect", list.size() == 0);
     }
+
+    /**
+     * Test the lookups by offender, poster and decision.
+     */
+    public void testIndexes() {
+        Critic critic1 = new Critic();
+        critic1.setHeadline("first");
+        critic1.addSupportedDecision(Decision.UNSPEC);
+        Critic critic2 = new Critic();
+        critic2.setHeadline("second");
+        Object offender1 = new Object();
+        Object offender2 = new Object();
+        Designer designer = Designer.theDesigner();
+        ToDoItem item1 = new ToDoItem(critic1, offender1, designer);
+        ToDoItem item2 = new ToDoItem(critic2, offender1, designer);
+        ToDoItem item3 = new ToDoItem(critic2, offender2, designer);
+
+        ToDoList list = new ToDoList();
+        assertEquals(0,
+                list.elementListForDecision(Decision.UNSPEC).size());
+        list.addElement(item1);
+        list.addElement(item2);
+        list.addElement(item3);
+
+        assertEquals(2, list.elementListForOffender(offender1).size());
+        assertEquals(item1, list.elementListForOffender(offender1).get(0));
+        assertTrue(list.hasElementsForOffender(offender2));
+        assertEquals(2, list.elementListForPoster(critic2).size());
+        assertEquals(1,
+                list.elementListForDecision(Decision.UNSPEC).size());
+        assertEquals(2, list.getOffenders().size());
+        assertEquals(2, list.getPosters().size());
+
+        list.removeElement(item3);
+        assertFalse(list.hasElementsForOffender(offender2));
+        assertEquals(1, list.elementListForPoster(critic2).size());
+
+        list.removeElement(item1);
+        assertEquals(0,
+                list.elementListForDecision(Decision.UNSPEC).size());
+        assertEquals(1, list.elementListForOffender(offender1).size());
+
+        list.removeAllElements();
+        assertEquals(0, list.elementListForOffender(offender1).size());
+        assertEquals(0, list.size());
+    }
 }
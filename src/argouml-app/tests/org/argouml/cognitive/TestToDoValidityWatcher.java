@@ -0,0 +1,140 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.cognitive;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.uml.cognitive.critics.CrDupRoleNames;
+import org.argouml.uml.cognitive.critics.CrUnnavigableAssoc;
+
+/**
+ * Tests for the ToDoValidityWatcher.
+ */
+public class TestToDoValidityWatcher extends TestCase {
+
+    private ToDoValidityWatcher watcher;
+
+    private Object model;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestToDoValidityWatcher(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        watcher = new ToDoValidityWatcher();
+        model = Model.getModelManagementFactory().createModel();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        watcher.clear();
+        Model.getUmlFactory().delete(model);
+        super.tearDown();
+    }
+
+    /**
+     * An unnavigable association made navigable through one of its ends,
+     * which is not the offender, gets its item checked.
+     */
+    public void testFixThroughAssociationEnd() {
+        Object c1 = Model.getCoreFactory().buildClass("A", model);
+        Object c2 = Model.getCoreFactory().buildClass("B", model);
+        Object assoc = Model.getCoreFactory().buildAssociation(c1, false,
+                c2, false, "a");
+        Designer designer = Designer.theDesigner();
+        Critic critic = new CrUnnavigableAssoc();
+        ToDoItem item = new ToDoItem(critic, assoc, designer);
+        assertTrue(item.stillValid(designer));
+        Model.getPump().flushModelEvents();
+
+        watcher.watch(item);
+        assertTrue(watcher.takeItemsToCheck(false).isEmpty());
+
+        Collection ends = Model.getFacade().getConnections(assoc);
+        Iterator it = ends.iterator();
+        Model.getCoreHelper().setNavigable(it.next(), true);
+        Model.getPump().flushModelEvents();
+
+        assertTrue(watcher.takeItemsToCheck(false).contains(item));
+        assertFalse(item.stillValid(designer));
+    }
+
+    /**
+     * With batching, the changes of a transaction mark the items depending
+     * on the changed elements as suspect once the batch is delivered.
+     */
+    public void testBatchedEvents() {
+        Object c1 = Model.getCoreFactory().buildClass("A", model);
+        Object c2 = Model.getCoreFactory().buildClass("B", model);
+        Object assoc = Model.getCoreFactory().buildAssociation(c1, false,
+                c2, false, "a");
+        Designer designer = Designer.theDesigner();
+        ToDoItem item =
+            new ToDoItem(new CrUnnavigableAssoc(), assoc, designer);
+        Model.getPump().flushModelEvents();
+        watcher.watch(item);
+
+        Model.getPump().setEventBatching(true);
+        try {
+            Iterator it = Model.getFacade().getConnections(assoc).iterator();
+            Model.getCoreHelper().setNavigable(it.next(), true);
+            Model.getCoreHelper().setName(c1, "C");
+            Model.getPump().flushModelEvents();
+        } finally {
+            Model.getPump().setEventBatching(false);
+        }
+
+        assertEquals(1, watcher.takeItemsToCheck(false).size());
+        assertTrue(watcher.takeItemsToCheck(false).isEmpty());
+    }
+
+    /**
+     * The items of critics that don't declare their dependencies are
+     * checked on every full pass, the others only when they change.
+     */
+    public void testFullPass() {
+        assertFalse(ToDoValidityWatcher.declaresDependencies(
+                new CrUnnavigableAssoc()));
+        assertTrue(ToDoValidityWatcher.declaresDependencies(
+                new CrDupRoleNames()));
+
+        Object c1 = Model.getCoreFactory().buildClass("A", model);
+        Object c2 = Model.getCoreFactory().buildClass("B", model);
+        Object assoc = Model.getCoreFactory().buildAssociation(c1, false,
+                c2, false, "a");
+        Designer designer = Designer.theDesigner();
+        ToDoItem undeclared =
+            new ToDoItem(new CrUnnavigableAssoc(), assoc, designer);
+        ToDoItem declared =
+            new ToDoItem(new CrDupRoleNames(), assoc, designer);
+        Model.getPump().flushModelEvents();
+        watcher.watch(undeclared);
+        watcher.watch(declared);
+
+        assertTrue(watcher.takeItemsToCheck(false).isEmpty());
+        Collection<ToDoItem> full = watcher.takeItemsToCheck(true);
+        assertTrue(full.contains(undeclared));
+        assertFalse(full.contains(declared));
+    }
+}
@@ -0,0 +1,106 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.kernel;
+
+import java.util.Collection;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.CoreFactory;
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.profile.init.InitProfileSubsystem;
+
+/**
+ * Tests for the ModelNameIndex class.
+ */
+public class TestModelNameIndex extends TestCase {
+
+    private Project project;
+    private Object model;
+    private ModelNameIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        new InitProfileSubsystem().init();
+        project = new ProjectImpl();
+        model = Model.getModelManagementFactory().createModel();
+        project.addModel(model);
+        index = project.getNameIndex();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.remove();
+        super.tearDown();
+    }
+
+    /**
+     * Exact names, prefixes, substrings and wildcards find the same
+     * elements as the string predicate.
+     */
+    public void testFind() {
+        CoreFactory cf = Model.getCoreFactory();
+        Object order = cf.buildClass("Order", model);
+        Object orderLine = cf.buildClass("OrderLine", model);
+        Object customer = cf.buildClass("Customer", model);
+
+        assertEquals(1, index.find("Order").size());
+        assertTrue(index.find("Order").contains(order));
+        assertEquals(2, index.find("Order*").size());
+        assertEquals(2, index.find("*der*").size());
+        Collection found = index.find("*Line");
+        assertEquals(1, found.size());
+        assertTrue(found.contains(orderLine));
+        assertTrue(index.find("C*r").contains(customer));
+        assertTrue(index.find("Or").isEmpty());
+        assertTrue(index.find("*xyz*").isEmpty());
+        assertFalse(ModelNameIndex.canFind("*"));
+        assertFalse(ModelNameIndex.canFind(""));
+    }
+
+    /**
+     * Renamed and deleted elements are found by their current names.
+     */
+    public void testUpdate() {
+        CoreFactory cf = Model.getCoreFactory();
+        Object order = cf.buildClass("Order", model);
+        assertEquals(1, index.findByName("Order").size());
+
+        Model.getCoreHelper().setName(order, "Invoice");
+        Model.getPump().flushModelEvents();
+        assertTrue(index.findByName("Order").isEmpty());
+        assertTrue(index.find("Inv*").contains(order));
+
+        Object item = cf.buildClass("Item", model);
+        Model.getPump().flushModelEvents();
+        assertTrue(index.findByName("Item").contains(item));
+
+        Model.getUmlFactory().delete(item);
+        Model.getPump().flushModelEvents();
+        assertTrue(index.findByName("Item").isEmpty());
+    }
+
+    /**
+     * Types are found through the index.
+     */
+    public void testFindType() {
+        Object pkg = Model.getModelManagementFactory().buildPackage("p");
+        Model.getCoreHelper().setNamespace(pkg, model);
+        Object type = Model.getCoreFactory().buildClass("Type", pkg);
+        assertEquals(type, project.findType("Type", false));
+        assertEquals(type, project.findTypeInModel("Type", pkg));
+        assertNull(project.findTypeInModel("Type",
+                Model.getCoreFactory().buildClass("Other", model)));
+    }
+}
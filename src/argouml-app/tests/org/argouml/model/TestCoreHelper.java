@@ -147,6 +147,33 @@ public class TestCoreHelper extends TestCase {
         assertTrue(Model.getCoreHelper().getChildren(ge).size() == 3);
     }
 
+    /**
+     * Test the supertypes on all levels, also after the hierarchy changed.
+     */
+    public void testGetAllSupertypes() {
+        Object model = Model.getModelManagementFactory().createModel();
+        CoreFactory coreFactory = Model.getCoreFactory();
+        Object a = coreFactory.buildClass("A", model);
+        Object b = coreFactory.buildClass("B", model);
+        Object c = coreFactory.buildClass("C", model);
+        Object attr = coreFactory.buildAttribute2(a, null);
+        coreFactory.buildGeneralization(b, a);
+        Object bc = coreFactory.buildGeneralization(c, b);
+
+        CoreHelper helper = Model.getCoreHelper();
+        assertEquals(2, helper.getAllSupertypes(c).size());
+        assertTrue(helper.isAncestor(a, c));
+        assertFalse(helper.isAncestor(c, a));
+        assertTrue(helper.getAllAttributes(c).contains(attr));
+        assertEquals(2, helper.getChildren(a).size());
+
+        Model.getUmlFactory().delete(bc);
+        assertTrue(helper.getAllSupertypes(c).isEmpty());
+        assertFalse(helper.isAncestor(a, c));
+        assertEquals(1, helper.getChildren(a).size());
+        assertEquals(1, helper.getAllSupertypes(b).size());
+    }
+
     /**
      * Test if adding a client to a binary dependency
      * actually increases the client count.
@@ -165,6 +192,46 @@ public class TestCoreHelper extends TestCase {
         assertEquals(class3, it.next());
     }
     
+    /**
+     * Test the possible namespaces of an association, which must see both
+     * participants.
+     */
+    public void testGetAllPossibleNamespaces() {
+        Object model = Model.getModelManagementFactory().createModel();
+        CoreFactory cf = Model.getCoreFactory();
+        Object p1 = Model.getModelManagementFactory().buildPackage("p1");
+        Object p2 = Model.getModelManagementFactory().buildPackage("p2");
+        Object p3 = Model.getModelManagementFactory().buildPackage("p3");
+        CoreHelper ch = Model.getCoreHelper();
+        ch.setNamespace(p1, model);
+        ch.setNamespace(p2, model);
+        ch.setNamespace(p3, p1);
+        Object a = cf.buildClass("A", p1);
+        Object c = cf.buildClass("C", p1);
+        Object assoc = cf.buildAssociation(a, c);
+
+        Collection namespaces = ch.getAllPossibleNamespaces(assoc, model);
+        assertTrue(namespaces.contains(p1));
+        assertTrue("Contents of owners are visible", namespaces.contains(p3));
+        assertFalse(namespaces.contains(p2));
+
+        ch.setNamespace(c, p2);
+        namespaces = ch.getAllPossibleNamespaces(assoc, model);
+        assertFalse(namespaces.contains(p1));
+        assertFalse(namespaces.contains(p2));
+
+        if (PERFORMANCE_TEST) {
+            for (int i = 0; i < 20000; i++) {
+                cf.buildClass("c" + i, p1);
+            }
+            long startTime = System.currentTimeMillis();
+            ch.getAllPossibleNamespaces(assoc, model);
+            long endTime = System.currentTimeMillis();
+            System.out.println("getAllPossibleNamespaces took "
+                    + (endTime - startTime) + " millisecs for 20000 classes.");
+        }
+    }
+
     /**
      * Test the getFirstSharedNamespace method for correctness
      * and, optionally, performance.
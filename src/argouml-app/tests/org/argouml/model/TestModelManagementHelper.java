@@ -50,6 +50,18 @@ import junit.framework.TestCase;
  */
 public class TestModelManagementHelper extends TestCase {
 
+    /**
+     * Flag to control performance testing. Set to true to time repeated
+     * queries of a large model.
+     */
+    private static final boolean PERFORMANCE_TEST = false;
+
+    private static final int PACKAGES = 50;
+
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    private static final int QUERIES = 1000;
+
     private Object theModel;
     private Object theGoodPackage;
     private Object theBadPackage;
@@ -184,4 +196,125 @@ public class TestModelManagementHelper extends TestCase {
                         tdPath.subList(1, 3), theModel);
         assertEquals("Found wrong element", theStereotype, st);
     }
+
+    /**
+     * Test that getAllModelElementsOfKind() follows changes to the
+     * namespaces after it has been called.
+     */
+    public void testGetAllModelElementsOfKindTracksChanges() {
+        setUpTestsOfTagDefinitionContainedInStereotype();
+        Object umlClass = Model.getMetaTypes().getUMLClass();
+        ModelManagementHelper mmh = Model.getModelManagementHelper();
+        assertTrue(mmh.getAllModelElementsOfKind(theGoodPackage, umlClass)
+                .contains(theClass));
+        assertTrue(mmh.getAllModelElementsOfKind(theBadPackage, umlClass)
+                .isEmpty());
+
+        Model.getCoreHelper().setNamespace(theClass, theBadPackage);
+        Model.getPump().flushModelEvents();
+        assertFalse("Moved class still in old namespace",
+                mmh.getAllModelElementsOfKind(theGoodPackage, umlClass)
+                        .contains(theClass));
+        assertTrue("Moved class not in new namespace",
+                mmh.getAllModelElementsOfKind(theBadPackage, umlClass)
+                        .contains(theClass));
+        assertTrue("Moved class not in model",
+                mmh.getAllModelElementsOfKind(theModel, umlClass)
+                        .contains(theClass));
+
+        Object other = Model.getCoreFactory().buildClass("Other",
+                theBadPackage);
+        Model.getPump().flushModelEvents();
+        assertEquals(2, mmh.getAllModelElementsOfKind(theBadPackage,
+                umlClass).size());
+        assertTrue(mmh.getAllModelElementsOfKind(theModel, umlClass)
+                .contains(other));
+
+        Model.getUmlFactory().delete(other);
+        Model.getPump().flushModelEvents();
+        assertFalse("Deleted class still in model",
+                mmh.getAllModelElementsOfKind(theModel, umlClass)
+                        .contains(other));
+        Collection classes =
+            mmh.getAllModelElementsOfKind(theBadPackage, umlClass);
+        assertEquals(1, classes.size());
+
+        // The result belongs to the caller
+        classes.clear();
+        assertEquals(1, mmh.getAllModelElementsOfKind(theBadPackage,
+                umlClass).size());
+    }
+
+    /**
+     * Test that getAllModelElementsOfKind() follows a namespace which is
+     * moved with its contents.
+     */
+    public void testGetAllModelElementsOfKindTracksMovedContents() {
+        setUpTestsOfTagDefinitionContainedInStereotype();
+        Object umlClass = Model.getMetaTypes().getUMLClass();
+        ModelManagementHelper mmh = Model.getModelManagementHelper();
+        Object inner = Model.getModelManagementFactory().buildPackage("Inner");
+        Model.getCoreHelper().setNamespace(inner, theGoodPackage);
+        Object innerClass = Model.getCoreFactory().buildClass("InnerClass",
+                inner);
+        Model.getPump().flushModelEvents();
+        assertTrue(mmh.getAllModelElementsOfKind(theGoodPackage, umlClass)
+                .contains(innerClass));
+        assertTrue(mmh.getAllModelElementsOfKind(theBadPackage, umlClass)
+                .isEmpty());
+
+        Model.getCoreHelper().setNamespace(inner, theBadPackage);
+        Model.getPump().flushModelEvents();
+        assertFalse("Moved contents still in old namespace",
+                mmh.getAllModelElementsOfKind(theGoodPackage, umlClass)
+                        .contains(innerClass));
+        assertTrue("Moved contents not in new namespace",
+                mmh.getAllModelElementsOfKind(theBadPackage, umlClass)
+                        .contains(innerClass));
+        assertTrue("Moved contents not in model",
+                mmh.getAllModelElementsOfKind(theModel, umlClass)
+                        .contains(innerClass));
+
+        Model.getUmlFactory().delete(inner);
+        Model.getPump().flushModelEvents();
+        assertTrue("Deleted contents still in namespace",
+                mmh.getAllModelElementsOfKind(theBadPackage, umlClass)
+                        .isEmpty());
+    }
+
+    /**
+     * Time repeated queries of a large model against the first query,
+     * which has to scan all instances of the metatype.
+     */
+    public void testGetAllModelElementsOfKindPerformance() {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        Object model = Model.getModelManagementFactory().createModel();
+        for (int i = 0; i < PACKAGES; i++) {
+            Object pkg = Model.getModelManagementFactory().buildPackage(
+                    "p" + i);
+            Model.getCoreHelper().setNamespace(pkg, model);
+            for (int j = 0; j < CLASSES_PER_PACKAGE; j++) {
+                Model.getCoreFactory().buildClass("c" + j, pkg);
+            }
+        }
+        Model.getPump().flushModelEvents();
+        Object umlClass = Model.getMetaTypes().getUMLClass();
+        ModelManagementHelper mmh = Model.getModelManagementHelper();
+
+        long start = System.nanoTime();
+        Collection classes = mmh.getAllModelElementsOfKind(model, umlClass);
+        long scan = System.nanoTime() - start;
+        assertEquals(PACKAGES * CLASSES_PER_PACKAGE, classes.size());
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            mmh.getAllModelElementsOfKind(model, umlClass);
+        }
+        long indexed = (System.nanoTime() - start) / QUERIES;
+        System.out.println("getAllModelElementsOfKind of "
+                + classes.size() + " classes: scan " + scan / 1000
+                + " usec, indexed " + indexed / 1000 + " usec");
+    }
 }
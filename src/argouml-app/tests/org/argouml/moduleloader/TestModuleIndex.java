@@ -0,0 +1,99 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.moduleloader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the ModuleIndex class and the service provider file of
+ * modules.
+ */
+public class TestModuleIndex extends TestCase {
+
+    private File jar;
+    private File indexFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        jar = File.createTempFile("module", ".jar");
+        indexFile = File.createTempFile("modules", ".index");
+        indexFile.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        jar.delete();
+        indexFile.delete();
+        super.tearDown();
+    }
+
+    /**
+     * The module classes are kept between instances, for the same contents
+     * of the jar file only.
+     */
+    public void testIndex() throws IOException {
+        writeJar("a.B\n");
+        String checksum = ModuleIndex.checksum(jar);
+        assertEquals(checksum, ModuleIndex.checksum(jar));
+
+        ModuleIndex index = new ModuleIndex(indexFile);
+        assertNull(index.get(jar, checksum));
+        index.put(jar, checksum, Arrays.asList("a.B", "c.D"));
+        index.put(new File("other.jar"), "1:2",
+                Collections.<String>emptyList());
+        index.save();
+
+        index = new ModuleIndex(indexFile);
+        assertEquals(Arrays.asList("a.B", "c.D"), index.get(jar, checksum));
+        assertTrue(index.get(new File("other.jar"), "1:2").isEmpty());
+
+        writeJar("a.B\nc.D\n");
+        String changed = ModuleIndex.checksum(jar);
+        assertFalse(checksum.equals(changed));
+        assertNull(index.get(jar, changed));
+    }
+
+    /**
+     * The module classes are read from the service provider file.
+     */
+    public void testServiceFile() throws IOException {
+        writeJar("# The modules\na.B\n  c.D  # the other\n\na.B\n");
+        JarFile jarfile = new JarFile(jar);
+        try {
+            List<String> classNames = ModuleLoader2.readServiceFile(jarfile);
+            assertEquals(Arrays.asList("a.B", "c.D"), classNames);
+        } finally {
+            jarfile.close();
+        }
+    }
+
+    private void writeJar(String services) throws IOException {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry(ModuleLoader2.SERVICE_FILE));
+            out.write(services.getBytes("UTF-8"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.notation;
+
+import java.beans.PropertyChangeEvent;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.ProjectFactory;
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.profile.init.InitProfileSubsystem;
+
+/**
+ * Tests for the NotationRenderCache class.
+ */
+public class TestNotationRenderCache extends TestCase {
+
+    private NotationRenderCache cache;
+    private Object aClass;
+    private Object otherClass;
+    private int generated;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        new InitProfileSubsystem().init();
+        Object model = Model.getModelManagementFactory().createModel();
+        aClass = Model.getCoreFactory().buildClass(model);
+        otherClass = Model.getCoreFactory().buildClass(model);
+        cache = NotationRenderCache.getInstance();
+        cache.clear();
+    }
+
+    /**
+     * A text is generated once for all providers of the same type.
+     */
+    public void testShared() {
+        NotationProvider first = new NameProvider();
+        NotationProvider second = new NameProvider();
+        first.initialiseListener(aClass);
+        second.initialiseListener(aClass);
+        NotationSettings settings = new NotationSettings();
+        assertEquals("A", cache.render(first, aClass, settings));
+        assertEquals("A", cache.render(second, aClass, settings));
+        assertEquals(1, generated);
+
+        settings.setShowVisibilities(!settings.isShowVisibilities());
+        cache.render(second, aClass, settings);
+        assertEquals("Other settings must give another text", 2, generated);
+        first.cleanListener();
+        second.cleanListener();
+    }
+
+    /**
+     * Only a change of a property the text depends on drops it.
+     */
+    public void testInvalidate() {
+        NotationProvider provider = new NameProvider();
+        provider.initialiseListener(aClass);
+        NotationSettings settings = new NotationSettings();
+        cache.render(provider, aClass, settings);
+
+        cache.invalidate(new PropertyChangeEvent(otherClass, "name",
+                null, "B"));
+        cache.invalidate(new PropertyChangeEvent(aClass, "isAbstract",
+                null, Boolean.TRUE));
+        cache.render(provider, aClass, settings);
+        assertEquals(1, generated);
+
+        cache.invalidate(new PropertyChangeEvent(aClass, "name", null, "C"));
+        cache.render(provider, aClass, settings);
+        assertEquals(2, generated);
+        provider.cleanListener();
+    }
+
+    /**
+     * Removing a project drops the texts, so that the model elements they
+     * were generated for are not kept.
+     */
+    public void testProjectRemoved() {
+        NotationProvider provider = new NameProvider();
+        provider.initialiseListener(aClass);
+        NotationSettings settings = new NotationSettings();
+        cache.render(provider, aClass, settings);
+
+        ProjectFactory.getInstance().createProject().remove();
+        cache.render(provider, aClass, settings);
+        assertEquals(2, generated);
+        provider.cleanListener();
+    }
+
+    /**
+     * Updating the listeners keeps a single registration of each.
+     */
+    public void testUpdateListener() {
+        NotationProvider provider = new NameProvider();
+        provider.initialiseListener(aClass);
+        provider.updateListener(aClass, null);
+        provider.updateListener(aClass, null);
+        assertEquals(1, provider.getDependencies().size());
+        provider.cleanListener();
+        assertTrue(provider.getDependencies().isEmpty());
+    }
+
+    private class NameProvider extends NotationProvider {
+
+        public String getParsingHelp() {
+            return null;
+        }
+
+        public void parse(Object modelElement, String text) {
+        }
+
+        public String toString(Object modelElement,
+                NotationSettings settings) {
+            generated++;
+            return "A";
+        }
+
+        @Override
+        public void initialiseListener(Object modelElement) {
+            addElementListener(modelElement, "name");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectMember;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.profile.ProfileFacade;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ProjectMemberDiagram;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+
+/**
+ * Checks that {@link PgmlWriter} writes exactly what PGML.tee does.
+ */
+public class TestPgmlWriter extends TestCase {
+
+    /**
+     * Flag to enable the save throughput comparison.
+     */
+    private static final boolean PERFORMANCE_TEST = false;
+
+    private static final String[] PROJECTS = {
+        "/testmodels/uml14/Alittlebitofeverything.zargo",
+        "/testmodels/uml14/GUITestPropertyPanels.zargo",
+        "/testmodels/uml14/i18n.zargo",
+    };
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestPgmlWriter(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ProfileFacade.reset();
+        super.tearDown();
+    }
+
+    /**
+     * Compare the output for every diagram of the test projects.
+     *
+     * @throws Exception if a project can't be loaded or saved
+     */
+    public void testSameAsTemplate() throws Exception {
+        DiagramMemberFilePersister persister =
+            new DiagramMemberFilePersister();
+        int diagrams = 0;
+        for (String name : PROJECTS) {
+            Project p = load(name);
+            for (ProjectMember member : getDiagramMembers(p)) {
+                ByteArrayOutputStream expected = new ByteArrayOutputStream();
+                persister.saveFromTemplate(member, expected);
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                persister.save(member, actual);
+                assertEquals(name + " " + member.getZipName(),
+                        expected.toString("UTF-8"), actual.toString("UTF-8"));
+                diagrams++;
+            }
+            p.remove();
+        }
+        assertTrue(diagrams > 0);
+    }
+
+    /**
+     * Compare the time taken to save the diagrams both ways.
+     *
+     * @throws Exception if a project can't be loaded or saved
+     */
+    public void testSaveThroughput() throws Exception {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        DiagramMemberFilePersister persister =
+            new DiagramMemberFilePersister();
+        Project p = load(PROJECTS[1]);
+        List<ProjectMember> members = getDiagramMembers(p);
+        for (int pass = 0; pass < 3; pass++) {
+            long start = System.currentTimeMillis();
+            long bytes = 0;
+            for (int i = 0; i < 100; i++) {
+                for (ProjectMember member : members) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    persister.saveFromTemplate(member, out);
+                    bytes += out.size();
+                }
+            }
+            long template = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            for (int i = 0; i < 100; i++) {
+                for (ProjectMember member : members) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    persister.save(member, out);
+                }
+            }
+            long direct = System.currentTimeMillis() - start;
+            System.out.println("Saved " + (100 * members.size())
+                    + " diagrams (" + bytes + " bytes) from the template in "
+                    + template + " msec, directly in " + direct + " msec");
+        }
+        p.remove();
+    }
+
+    private Project load(String name) throws Exception {
+        ProjectFile file = new ProjectFile(name);
+        try {
+            return new ZargoFilePersister().doLoad(file.getFile());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private List<ProjectMember> getDiagramMembers(Project p) {
+        List<ProjectMember> members = new ArrayList<ProjectMember>();
+        for (ProjectMember member : p.getMembers()) {
+            if (member instanceof ProjectMemberDiagram) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
+}
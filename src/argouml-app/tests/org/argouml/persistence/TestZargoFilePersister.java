@@ -38,17 +38,29 @@
 
 package org.argouml.persistence;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.swing.SwingUtilities;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.argouml.configuration.Configuration;
 import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectMember;
 import org.argouml.model.Facade;
 import org.argouml.model.InitializeModel;
 import org.argouml.model.Model;
@@ -57,6 +69,7 @@ import org.argouml.notation.providers.java.InitNotationJava;
 import org.argouml.notation.providers.uml.InitNotationUml;
 import org.argouml.profile.ProfileFacade;
 import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
 import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
 import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
@@ -189,6 +202,36 @@ public class TestZargoFilePersister extends TestCase {
         p.remove();
     }
 
+    /**
+     * Test that a UML 1.4 zargo of the current version is loaded straight
+     * from the archive, without combining it into a .uml file first.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testDoLoadCurrentVersionUml14() throws Exception {
+        ProjectFile file = new ProjectFile("zargo");
+
+        Project p = doLoad(file.getFile());
+        int diagrams = p.getDiagramCount();
+        File savedFile =
+                File.createTempFile("TestZargoFilePersister_Current", ".zargo");
+        savedFile.delete();
+        savedFile.deleteOnExit();
+        new File(savedFile.getPath() + "~").deleteOnExit();
+        new OldZargoFilePersister().save(p, savedFile);
+        p.remove();
+
+        ZargoFilePersister persister = new ZargoFilePersister();
+        p = persister.doLoad(savedFile);
+        assertEquals("Not loaded from the archive", 1,
+                persister.getDirectLoads());
+        assertEquals("Combined into a .uml file", 0,
+                persister.getCombinedFiles());
+        p.loadPendingDiagrams();
+        assertEquals(diagrams, p.getDiagramCount());
+        p.remove();
+    }
+
     /**
      * Test loading a native UML 1.4 zargo with i18n character.
      *
@@ -202,7 +245,54 @@ public class TestZargoFilePersister extends TestCase {
         p.remove();
     }
 
-    
+    /**
+     * Test that diagrams whose loading is put off all get loaded.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testDoLoadLazyDiagrams() throws Exception {
+        ProjectFile file = new ProjectFile(
+                "/testmodels/uml14/GUITestPropertyPanels.zargo");
+
+        Project p = doLoad(file.getFile());
+        int diagrams = p.getDiagramCount();
+        p.remove();
+
+        boolean lazy = Configuration.getBoolean(
+                PersistenceManager.KEY_LAZY_DIAGRAMS, false);
+        Configuration.setBoolean(PersistenceManager.KEY_LAZY_DIAGRAMS, true);
+        try {
+            // Loaded on the event dispatch thread, so that none of the
+            // diagrams put off is loaded before they are counted
+            final File zargo = file.getFile();
+            final Project[] loaded = new Project[1];
+            final int[] loadedDiagrams = new int[1];
+            final Exception[] failure = new Exception[1];
+            SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() {
+                    try {
+                        loaded[0] = doLoad(zargo);
+                        loadedDiagrams[0] = loaded[0].getDiagramCount();
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            p = loaded[0];
+            assertTrue(diagrams > 1);
+            assertEquals("Diagrams not put off", 1, loadedDiagrams[0]);
+            p.loadPendingDiagrams();
+            assertEquals(diagrams, p.getDiagramCount());
+            p.remove();
+        } finally {
+            Configuration.setBoolean(PersistenceManager.KEY_LAZY_DIAGRAMS,
+                    lazy);
+        }
+    }
+
     /**
      * Test saving a zargo.
      *
@@ -222,6 +312,99 @@ public class TestZargoFilePersister extends TestCase {
         p.remove();
     }
 
+    /**
+     * Test that saving an unchanged project again reuses the entries of the
+     * previous save, and that the result loads.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testIncrementalSave() throws Exception {
+        ProjectFile file = new ProjectFile("zargo");
+
+        Project p = doLoad(file.getFile());
+        OldZargoFilePersister persister = new OldZargoFilePersister();
+        File savedFile =
+                File.createTempFile("TestZargoFilePersister_Incr", ".zargo");
+        savedFile.delete();
+        savedFile.deleteOnExit();
+        new File(savedFile.getPath() + "~").deleteOnExit();
+        persister.save(p, savedFile);
+        Map<String, byte[]> first = readEntries(savedFile);
+        persister.save(p, savedFile);
+        Map<String, byte[]> second = readEntries(savedFile);
+
+        assertEquals(first.keySet(), second.keySet());
+        for (ProjectMember member : p.getMembers()) {
+            if ("xmi".equals(member.getType())) {
+                assertTrue(Arrays.equals(first.get(member.getZipName()),
+                        second.get(member.getZipName())));
+            }
+        }
+        p.remove();
+
+        p = doLoad(savedFile);
+        p.remove();
+    }
+
+    /**
+     * Test that renaming a diagram which is not on display gets it saved
+     * again by the next incremental save.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testIncrementalSaveRenamedDiagram() throws Exception {
+        ProjectFile file = new ProjectFile("zargo");
+
+        Project p = doLoad(file.getFile());
+        p.loadPendingDiagrams();
+        ArgoDiagram diagram = null;
+        for (ArgoDiagram d : p.getDiagramList()) {
+            if (d != p.getActiveDiagram()) {
+                diagram = d;
+                break;
+            }
+        }
+        assertNotNull("No diagram besides the active one", diagram);
+        OldZargoFilePersister persister = new OldZargoFilePersister();
+        File savedFile =
+                File.createTempFile("TestZargoFilePersister_Rename", ".zargo");
+        savedFile.delete();
+        savedFile.deleteOnExit();
+        new File(savedFile.getPath() + "~").deleteOnExit();
+        persister.save(p, savedFile);
+        String name = "Renamed " + diagram.getName();
+        diagram.setName(name);
+        persister.save(p, savedFile);
+        p.remove();
+
+        p = doLoad(savedFile);
+        assertNotNull("Rename not saved", p.getDiagram(name));
+        p.remove();
+    }
+
+    private Map<String, byte[]> readEntries(File file) throws IOException {
+        Map<String, byte[]> entries = new HashMap<String, byte[]>();
+        ZipFile zip = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> e = zip.entries();
+            while (e.hasMoreElements()) {
+                ZipEntry entry = e.nextElement();
+                InputStream in = zip.getInputStream(entry);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                int len;
+                while ((len = in.read(buf)) != -1) {
+                    out.write(buf, 0, len);
+                }
+                in.close();
+                entries.put(entry.getName(), out.toByteArray());
+            }
+        } finally {
+            zip.close();
+        }
+        return entries;
+    }
+
     /**
      * Test loading some garbage in a zargo.
      */
@@ -279,4 +462,34 @@ public class TestZargoFilePersister extends TestCase {
         
         p.remove();
     }
+
+    /**
+     * Test upgrading a directory holding an old project without loading it.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testUpgradeProjects() throws Exception {
+        ProjectFile file =
+                new ProjectFile(
+                        "/testmodels/uml13/Alittlebitofeverything.zargo");
+        File directory = File.createTempFile("TestZargoFilePersister", "");
+        directory.delete();
+        directory.mkdir();
+        directory.deleteOnExit();
+        File copy = new File(directory, "Alittlebitofeverything.zargo");
+        copy.deleteOnExit();
+        UmlFilePersister persister = new UmlFilePersister();
+        persister.copyFile(file.getFile(), copy);
+
+        assertTrue(new UpgradeProjects().doCommand(directory.getPath()));
+
+        File upgraded = new File(new File(directory,
+                UpgradeProjects.OUTPUT_DIRECTORY),
+                "Alittlebitofeverything.uml");
+        upgraded.deleteOnExit();
+        upgraded.getParentFile().deleteOnExit();
+        assertTrue("No upgraded file", upgraded.exists());
+        assertEquals(UmlFilePersister.PERSISTENCE_VERSION,
+                persister.getPersistenceVersionFromFile(upgraded));
+    }
 }
@@ -58,6 +58,12 @@ import org.argouml.profile.internal.ocl.uml14.Uml14ModelInterpreter;
  * @author maurelio1234
  */
 public class TestDefaultOclEvaluator extends TestCase {
+
+    /**
+     * Flag to enable the comparison of evaluation with and without the
+     * parse tree cache.
+     */
+    private static final boolean PERFORMANCE_TEST = false;
     
     @SuppressWarnings("unused")
     private class DummyModelInterpreter implements ModelInterpreter {
@@ -371,6 +377,71 @@ public class TestDefaultOclEvaluator extends TestCase {
                 "Set{1,2,3,4,5}->exists(x|x>40)"), false);
         
     }
-        
-}
 
+    /**
+     * Test that expressions are only parsed once.
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParseTreeCache() throws Exception {
+        DefaultOclEvaluator evaluator = new DefaultOclEvaluator(1);
+        Object tree = evaluator.parse("Set{1,2,3}->size()");
+        assertSame(tree, evaluator.parse("Set{1,2,3}->size()"));
+        evaluator.parse("true");
+        assertNotSame("Only one tree should be kept", tree,
+                evaluator.parse("Set{1,2,3}->size()"));
+
+        HashMap<String, Object> vt = new HashMap<String, Object>();
+        ModelInterpreter mi = new Uml14ModelInterpreter();
+        assertEquals(3, evaluator.evaluate(vt, mi, "Set{1,2,3}->size()"));
+        assertEquals(3, evaluator.evaluate(vt, mi, "Set{1,2,3}->size()"));
+    }
+
+    /**
+     * Compare the time taken to evaluate typical critic expressions with
+     * and without the parse tree cache.
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testEvaluationThroughput() throws Exception {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        Object model = Model.getModelManagementFactory().createModel();
+        Object cls = Model.getCoreFactory().buildClass("A", model);
+        Object type = Model.getCoreFactory().buildClass("B", model);
+        for (int i = 0; i < 20; i++) {
+            Model.getCoreFactory().buildOperation2(cls, type, "op" + i);
+            Model.getCoreFactory().buildAttribute2(cls, type);
+        }
+        String[] expressions = {
+            "self.name.size() > 0",
+            "self.allOperations->forAll(o | o.name.size() > 0)",
+            "self.allAttributes->select(a | a.visibility = #public)"
+                + "->isEmpty()",
+            "self.feature->exists(f | f.oclIsKindOf(Operation))",
+        };
+        ModelInterpreter mi = new Uml14ModelInterpreter();
+        HashMap<String, Object> vt = new HashMap<String, Object>();
+        vt.put("self", cls);
+        OclExpressionEvaluator[] evaluators = {
+            new DefaultOclEvaluator(0),
+            new DefaultOclEvaluator(DefaultOclEvaluator.CACHE_SIZE),
+        };
+        for (int pass = 0; pass < 3; pass++) {
+            long[] times = new long[evaluators.length];
+            for (int e = 0; e < evaluators.length; e++) {
+                long start = System.currentTimeMillis();
+                for (int i = 0; i < 1000; i++) {
+                    for (String ocl : expressions) {
+                        evaluators[e].evaluate(vt, mi, ocl);
+                    }
+                }
+                times[e] = System.currentTimeMillis() - start;
+            }
+            System.out.println("Evaluated " + (1000 * expressions.length)
+                    + " expressions in " + times[0] + " msec parsing them"
+                    + " every time, " + times[1] + " msec parsing them once");
+        }
+    }
+}
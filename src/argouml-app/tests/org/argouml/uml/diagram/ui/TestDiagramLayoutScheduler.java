@@ -0,0 +1,212 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.uml.diagram.ui;
+
+import java.awt.Rectangle;
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.SwingUtilities;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.AddAssociationEvent;
+import org.argouml.model.AttributeChangeEvent;
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.model.UmlChangeEvent;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.uml.diagram.static_structure.ui.FigClass;
+
+/**
+ * Tests for the DiagramLayoutScheduler.
+ */
+public class TestDiagramLayoutScheduler extends TestCase {
+
+    private Object model;
+
+    private Object clazz;
+
+    private Object op1;
+
+    private Object op2;
+
+    private CountingFig fig;
+
+    private DiagramLayoutScheduler scheduler;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name of the test.
+     */
+    public TestDiagramLayoutScheduler(String name) {
+        super(name);
+    }
+
+    /*
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitProfileSubsystem()).init();
+        ProjectManager.getManager().makeEmptyProject();
+        model = Model.getModelManagementFactory().createModel();
+        clazz = Model.getCoreFactory().buildClass("A", model);
+        op1 = Model.getCoreFactory().buildOperation(clazz, null);
+        op2 = Model.getCoreFactory().buildOperation(clazz, null);
+        fig = new CountingFig(clazz);
+        scheduler = DiagramLayoutScheduler.getInstance(fig);
+        // Don't count what was scheduled before the test
+        Model.getPump().flushModelEvents();
+        runScheduler();
+        fig.reset();
+    }
+
+    /*
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        Model.getUmlFactory().delete(model);
+        super.tearDown();
+    }
+
+    /**
+     * Several changes of the same attribute of the same element lay the
+     * fig out once, with the last event. A change of another attribute is
+     * a separate update.
+     *
+     * @throws Exception if the scheduler can't be run
+     */
+    public void testAttributeChangesCoalesced() throws Exception {
+        long received = scheduler.getEventsReceived();
+        long performed = scheduler.getLayoutsPerformed();
+        UmlChangeEvent last = nameChange("B", "C");
+        scheduler.scheduleLayout(fig, nameChange("A", "B"));
+        scheduler.scheduleLayout(fig, last);
+        scheduler.scheduleLayout(fig, new AttributeChangeEvent(clazz,
+                "isAbstract", Boolean.FALSE, Boolean.TRUE, null));
+        runScheduler();
+
+        assertEquals(2, fig.layouts);
+        // The latest event takes the place of the first one
+        assertSame(last, fig.firstEvent);
+        assertEquals(received + 3, scheduler.getEventsReceived());
+        assertEquals(performed + 2, scheduler.getLayoutsPerformed());
+    }
+
+    /**
+     * Other events are only merged when they are equal.
+     *
+     * @throws Exception if the scheduler can't be run
+     */
+    public void testOtherEventsMergedWhenEqual() throws Exception {
+        long performed = scheduler.getLayoutsPerformed();
+        scheduler.scheduleLayout(fig, featureAdded(op1));
+        scheduler.scheduleLayout(fig, featureAdded(op1));
+        scheduler.scheduleLayout(fig, featureAdded(op2));
+        runScheduler();
+
+        assertEquals(2, fig.layouts);
+        assertEquals(performed + 2, scheduler.getLayoutsPerformed());
+    }
+
+    /**
+     * Rendering a fig again is done once, however often it is asked for,
+     * and nothing is done twice when the scheduler runs again.
+     *
+     * @throws Exception if the scheduler can't be run
+     */
+    public void testRenderingOnce() throws Exception {
+        long received = scheduler.getEventsReceived();
+        long performed = scheduler.getLayoutsPerformed();
+        scheduler.scheduleRendering(fig);
+        scheduler.scheduleRendering(fig);
+        scheduler.scheduleRendering(fig);
+        runScheduler();
+        runScheduler();
+
+        assertEquals(1, fig.renderings);
+        assertEquals(0, fig.layouts);
+        assertEquals(received + 3, scheduler.getEventsReceived());
+        assertEquals(performed + 1, scheduler.getLayoutsPerformed());
+    }
+
+    private UmlChangeEvent nameChange(String oldName, String newName) {
+        return new AttributeChangeEvent(clazz, "name", oldName, newName,
+                null);
+    }
+
+    private UmlChangeEvent featureAdded(Object feature) {
+        return new AddAssociationEvent(clazz, "feature", null, feature,
+                feature, null);
+    }
+
+    /**
+     * Run the scheduler on the event dispatch thread, after its timer if
+     * that fired already.
+     */
+    private void runScheduler() throws InterruptedException,
+        InvocationTargetException {
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+                scheduler.run();
+            }
+        });
+    }
+
+    /**
+     * A fig counting its updates instead of doing them.
+     */
+    private static class CountingFig extends FigClass {
+
+        private int layouts;
+
+        private int renderings;
+
+        private UmlChangeEvent firstEvent;
+
+        CountingFig(Object owner) {
+            super(owner, new Rectangle(0, 0, 100, 100),
+                    new DiagramSettings());
+        }
+
+        @Override
+        protected void updateLayout(UmlChangeEvent event) {
+            layouts++;
+            if (firstEvent == null) {
+                firstEvent = event;
+            }
+        }
+
+        @Override
+        public void renderingChanged() {
+            renderings++;
+        }
+
+        void reset() {
+            layouts = 0;
+            renderings = 0;
+            firstEvent = null;
+        }
+    }
+}
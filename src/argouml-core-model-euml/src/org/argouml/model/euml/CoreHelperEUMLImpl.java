@@ -687,6 +687,10 @@ class CoreHelperEUMLImpl implements CoreHelper {
         return ((Classifier) classifier).allParents();
     }
 
+    public boolean isAncestor(Object ancestor, Object element) {
+        return getAllSupertypes(element).contains(ancestor);
+    }
+
     public Collection getAllVisibleElements(Object ns) {
         if (!(ns instanceof Namespace)) {
             throw new IllegalArgumentException(
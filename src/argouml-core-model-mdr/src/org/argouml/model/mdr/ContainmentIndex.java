@@ -0,0 +1,352 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model.mdr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jmi.model.AggregationKindEnum;
+import javax.jmi.model.Association;
+import javax.jmi.model.AssociationEnd;
+import javax.jmi.model.NameNotFoundException;
+import javax.jmi.reflect.InvalidObjectException;
+import javax.jmi.reflect.RefAssociation;
+import javax.jmi.reflect.RefObject;
+
+import org.argouml.model.InvalidElementException;
+import org.netbeans.api.mdr.events.AssociationEvent;
+import org.netbeans.api.mdr.events.AttributeEvent;
+import org.netbeans.api.mdr.events.ExtentEvent;
+import org.netbeans.api.mdr.events.InstanceEvent;
+import org.netbeans.api.mdr.events.MDRChangeEvent;
+import org.netbeans.api.mdr.events.MDRPreChangeListener;
+
+/**
+ * Index of the elements of each metatype contained, directly or
+ * indirectly, in a namespace, used by
+ * {@link ModelManagementHelperMDRImpl#getAllModelElementsOfKind(Object, Object)}.
+ * <p>
+ * An entry is built the first time a namespace is queried for a
+ * metatype, and from then on kept up to date. When a link of a composite
+ * association is added or removed, the part and everything it contains
+ * are added to or removed from the entries of the composite and of the
+ * namespaces containing it. A deleted element is removed from the entries
+ * of the namespaces containing it. Only creating or deleting an extent
+ * clears the index.
+ * <p>
+ * The index listens to MDR directly, so that it is updated before the
+ * change takes place and a query made later in the same transaction sees
+ * it. A cancelled change clears the index. A generation count keeps a
+ * result computed while the containment was changing from being stored.
+ */
+class ContainmentIndex implements MDRPreChangeListener {
+
+    private static final Logger LOG =
+        Logger.getLogger(ContainmentIndex.class.getName());
+
+    /**
+     * The fixed element of an association event is the composite.
+     */
+    private static final int FIXED_COMPOSITE = 1;
+
+    /**
+     * The old or new element of an association event is the composite.
+     */
+    private static final int END_COMPOSITE = 2;
+
+    private static final int NOT_COMPOSITE = 0;
+
+    private final MDRModelImplementation modelImpl;
+
+    private final Map<Object, Map<Class, Set<Object>>> byContainer =
+        new HashMap<Object, Map<Class, Set<Object>>>();
+
+    /**
+     * Which end of an association is the composite, by association and
+     * name of the end of the old or new element.
+     */
+    private final Map<String, Integer> compositeEnds =
+        new HashMap<String, Integer>();
+
+    private long generation;
+
+    /**
+     * @param implementation the model implementation, to find what an
+     *            element contains
+     */
+    ContainmentIndex(MDRModelImplementation implementation) {
+        modelImpl = implementation;
+    }
+
+    /**
+     * @param container the namespace
+     * @param type the metatype
+     * @return a copy of the indexed elements, or null if they need to be
+     *         computed
+     */
+    synchronized Set<Object> get(Object container, Class type) {
+        Map<Class, Set<Object>> byType = byContainer.get(container);
+        if (byType == null || !byType.containsKey(type)) {
+            return null;
+        }
+        return new LinkedHashSet<Object>(byType.get(type));
+    }
+
+    /**
+     * @return the generation to pass to {@link #put} for a result which is
+     *         about to be computed
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Store a computed result, unless the containment changed since its
+     * computation started.
+     *
+     * @param container the namespace
+     * @param type the metatype
+     * @param elements the elements of the metatype in the namespace
+     * @param startGeneration the generation when the computation started
+     */
+    synchronized void put(Object container, Class type, Set<Object> elements,
+            long startGeneration) {
+        if (startGeneration != generation) {
+            return;
+        }
+        Map<Class, Set<Object>> byType = byContainer.get(container);
+        if (byType == null) {
+            byType = new HashMap<Class, Set<Object>>();
+            byContainer.put(container, byType);
+        }
+        byType.put(type, new LinkedHashSet<Object>(elements));
+    }
+
+    /**
+     * Forget everything.
+     */
+    synchronized void clear() {
+        generation++;
+        byContainer.clear();
+    }
+
+    /*
+     * @see org.netbeans.api.mdr.events.MDRPreChangeListener#plannedChange(org.netbeans.api.mdr.events.MDRChangeEvent)
+     */
+    public void plannedChange(MDRChangeEvent e) {
+        try {
+            if (e instanceof AssociationEvent) {
+                associationChange((AssociationEvent) e);
+            } else if (e instanceof AttributeEvent) {
+                // Values of class typed attributes are always contained
+                AttributeEvent ae = (AttributeEvent) e;
+                if (ae.getOldElement() instanceof RefObject) {
+                    update(ae.getSource(), ae.getOldElement(), false);
+                }
+                if (ae.getNewElement() instanceof RefObject) {
+                    update(ae.getSource(), ae.getNewElement(), true);
+                }
+            } else if (e instanceof InstanceEvent) {
+                if (e.isOfType(InstanceEvent.EVENT_INSTANCE_DELETE)) {
+                    delete(((InstanceEvent) e).getInstance());
+                }
+                // A new instance isn't contained in anything yet
+            } else if (e instanceof ExtentEvent) {
+                clear();
+            }
+        } catch (InvalidObjectException ex) {
+            clear();
+        } catch (InvalidElementException ex) {
+            clear();
+        }
+    }
+
+    /*
+     * @see org.netbeans.api.mdr.events.MDRChangeListener#change(org.netbeans.api.mdr.events.MDRChangeEvent)
+     */
+    public void change(MDRChangeEvent e) {
+        if (e instanceof ExtentEvent) {
+            clear();
+        }
+    }
+
+    /*
+     * @see org.netbeans.api.mdr.events.MDRPreChangeListener#changeCancelled(org.netbeans.api.mdr.events.MDRChangeEvent)
+     */
+    public void changeCancelled(MDRChangeEvent e) {
+        // The index was updated for a change which didn't happen
+        clear();
+    }
+
+    private void associationChange(AssociationEvent ae) {
+        Object fixed = ae.getFixedElement();
+        switch (getCompositeEnd(ae)) {
+        case FIXED_COMPOSITE:
+            if (ae.getOldElement() != null) {
+                update(fixed, ae.getOldElement(), false);
+            }
+            if (ae.getNewElement() != null) {
+                update(fixed, ae.getNewElement(), true);
+            }
+            break;
+        case END_COMPOSITE:
+            if (ae.getOldElement() != null) {
+                update(ae.getOldElement(), fixed, false);
+            }
+            if (ae.getNewElement() != null) {
+                update(ae.getNewElement(), fixed, true);
+            }
+            break;
+        default:
+            // Not a change of containment
+        }
+    }
+
+    /**
+     * Find out from the metamodel which end of the association of an event
+     * is the composite.
+     */
+    private int getCompositeEnd(AssociationEvent ae) {
+        RefAssociation ra = (RefAssociation) ae.getSource();
+        Association a = (Association) ra.refMetaObject();
+        String key = a.refMofId() + '/' + ae.getEndName();
+        synchronized (this) {
+            Integer known = compositeEnds.get(key);
+            if (known != null) {
+                return known;
+            }
+        }
+        int compositeEnd = NOT_COMPOSITE;
+        try {
+            AssociationEnd end =
+                (AssociationEnd) a.lookupElementExtended(ae.getEndName());
+            if (AggregationKindEnum.COMPOSITE.equals(end.getAggregation())) {
+                compositeEnd = END_COMPOSITE;
+            } else if (AggregationKindEnum.COMPOSITE.equals(
+                    end.otherEnd().getAggregation())) {
+                compositeEnd = FIXED_COMPOSITE;
+            }
+        } catch (NameNotFoundException e) {
+            LOG.log(Level.SEVERE, "Failed to find end of association : "
+                    + ae.getSource() + " -> " + ae.getEndName());
+        }
+        synchronized (this) {
+            compositeEnds.put(key, compositeEnd);
+        }
+        return compositeEnd;
+    }
+
+    /**
+     * Add a part and everything it contains to, or remove them from, the
+     * entries of a composite and of the namespaces containing it.
+     * The repository is only called outside of the lock, which must never
+     * be held while doing so.
+     *
+     * @param composite the composite the part is added to or removed from
+     * @param part the part
+     * @param add true to add, false to remove
+     */
+    private void update(Object composite, Object part, boolean add) {
+        List<Object> containers = getContainers(composite);
+        synchronized (this) {
+            generation++;
+            containers.retainAll(byContainer.keySet());
+            if (containers.isEmpty()) {
+                return;
+            }
+        }
+        List<Object> parts = getContents(part);
+        synchronized (this) {
+            for (Object container : containers) {
+                Map<Class, Set<Object>> byType = byContainer.get(container);
+                if (byType == null) {
+                    continue;
+                }
+                for (Map.Entry<Class, Set<Object>> entry
+                        : byType.entrySet()) {
+                    for (Object element : parts) {
+                        if (!entry.getKey().isInstance(element)) {
+                            continue;
+                        }
+                        if (add) {
+                            entry.getValue().add(element);
+                        } else {
+                            entry.getValue().remove(element);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove an element about to be deleted from the entries of the
+     * namespaces containing it, and forget its own entries. What it
+     * contains is deleted too, each with an event of its own.
+     */
+    private void delete(Object element) {
+        Object composite = ((RefObject) element).refImmediateComposite();
+        if (composite != null) {
+            List<Object> containers = getContainers(composite);
+            synchronized (this) {
+                for (Object container : containers) {
+                    Map<Class, Set<Object>> byType =
+                        byContainer.get(container);
+                    if (byType != null) {
+                        for (Set<Object> elements : byType.values()) {
+                            elements.remove(element);
+                        }
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            generation++;
+            byContainer.remove(element);
+        }
+    }
+
+    /**
+     * @return the given composite and the namespaces containing it
+     */
+    private List<Object> getContainers(Object composite) {
+        List<Object> containers = new ArrayList<Object>();
+        Object current = composite;
+        while (current instanceof RefObject) {
+            containers.add(current);
+            current = ((RefObject) current).refImmediateComposite();
+        }
+        return containers;
+    }
+
+    /**
+     * @return the given element and everything it contains
+     */
+    private List<Object> getContents(Object element) {
+        List<Object> contents = new ArrayList<Object>();
+        contents.add(element);
+        for (int i = 0; i < contents.size(); i++) {
+            for (Object child : modelImpl.getFacade().getModelElementContents(
+                    contents.get(i))) {
+                if (child instanceof RefObject) {
+                    contents.add(child);
+                }
+            }
+        }
+        return contents;
+    }
+}
@@ -219,26 +219,16 @@ class CoreHelperMDRImpl implements CoreHelper {
             throw new IllegalArgumentException();
         }
 
-        GeneralizableElement ge = (GeneralizableElement) cls1;
+        return modelImpl.getGeneralizationIndex().getAllSupertypes(
+                (GeneralizableElement) cls1);
+    }
 
-        Collection<GeneralizableElement> result =
-            new HashSet<GeneralizableElement>();
-        try {
-            Collection<GeneralizableElement> toBeAdded = getSupertypes(ge);
-            do {
-                Collection<GeneralizableElement> newlyAdded =
-                    new HashSet<GeneralizableElement>();
-                for (GeneralizableElement element : toBeAdded) {
-                    newlyAdded.addAll(getSupertypes(element));
-                }
-                result.addAll(toBeAdded);
-                toBeAdded = newlyAdded;
-                toBeAdded.removeAll(result);
-            } while (!toBeAdded.isEmpty());
-        } catch (InvalidObjectException e) {
-            throw new InvalidElementException(e);
+    public boolean isAncestor(Object ancestor, Object element) {
+        if (!(element instanceof GeneralizableElement)) {
+            throw new IllegalArgumentException();
         }
-        return result;
+        return modelImpl.getGeneralizationIndex().getAllSupertypes(
+                (GeneralizableElement) element).contains(ancestor);
     }
 
     public Collection<GeneralizableElement> getSupertypes(Object genElement) {
@@ -261,6 +251,26 @@ class CoreHelperMDRImpl implements CoreHelper {
         throw new NotImplementedException("UML 1.4 artifacts have no manifestations with utilized elements");
     }
 
+    /**
+     * Get the classifiers a classifier inherits from on all levels, nearest
+     * first. The classifier itself is left out, even if the inheritance is
+     * circular.
+     *
+     * @param classifier the classifier
+     * @return the supertypes which are classifiers
+     */
+    private Collection<Classifier> getAllSuperclassifiers(
+            Classifier classifier) {
+        Collection<Classifier> result = new ArrayList<Classifier>();
+        for (GeneralizableElement supertype : modelImpl
+                .getGeneralizationIndex().getAllSupertypes(classifier)) {
+            if (supertype != classifier && supertype instanceof Classifier) {
+                result.add((Classifier) supertype);
+            }
+        }
+        return result;
+    }
+
     public Collection<AssociationEnd> getAssociateEndsInh(Object classifier1) {
         if (!(classifier1 instanceof Classifier)) {
             throw new IllegalArgumentException();
@@ -270,9 +280,8 @@ class CoreHelperMDRImpl implements CoreHelper {
         Collection<AssociationEnd> result = new ArrayList<AssociationEnd>();
         try {
             result.addAll(modelImpl.getFacade().getAssociationEnds(classifier));
-            for (Generalization gen : classifier.getGeneralization()) {
-                Object parent = gen.getParent();
-                result.addAll(getAssociateEndsInh(parent));
+            for (Classifier parent : getAllSuperclassifiers(classifier)) {
+                result.addAll(modelImpl.getFacade().getAssociationEnds(parent));
             }
         } catch (InvalidObjectException e) {
             throw new InvalidElementException(e);
@@ -361,9 +370,10 @@ class CoreHelperMDRImpl implements CoreHelper {
         try {
             result.addAll(modelImpl.getFacade().getStructuralFeatures(
                     classifier));
-            for (Generalization gen : ((Classifier) classifier)
-                    .getGeneralization()) {
-                result.addAll(getAttributesInh(gen.getParent()));
+            for (Classifier parent
+                    : getAllSuperclassifiers((Classifier) classifier)) {
+                result.addAll(modelImpl.getFacade().getStructuralFeatures(
+                        parent));
             }
         } catch (InvalidObjectException e) {
             throw new InvalidElementException(e);
@@ -380,9 +390,9 @@ class CoreHelperMDRImpl implements CoreHelper {
         Collection<Operation> result = new ArrayList<Operation>();
         try {
             result.addAll(modelImpl.getFacade().getOperations(classifier));
-            for (Generalization gen : ((Classifier) classifier)
-                    .getGeneralization()) {
-                result.addAll(getOperationsInh(gen.getParent()));
+            for (Classifier parent
+                    : getAllSuperclassifiers((Classifier) classifier)) {
+                result.addAll(modelImpl.getFacade().getOperations(parent));
             }
         } catch (InvalidObjectException e) {
             throw new InvalidElementException(e);
@@ -991,13 +1001,10 @@ class CoreHelperMDRImpl implements CoreHelper {
 
         List<Attribute> list = new ArrayList<Attribute>();
         try {
-            for (Feature feature : ((Classifier) clazz).getFeature()) {
-                if (feature instanceof Attribute) {
-                    list.add((Attribute) feature);
-                }
-            }
-            for (Object gen : modelImpl.getFacade().getGeneralizations(clazz)) {
-                list.addAll(getAllAttributes(gen));
+            addAttributes(list, (Classifier) clazz);
+            for (Classifier parent
+                    : getAllSuperclassifiers((Classifier) clazz)) {
+                addAttributes(list, parent);
             }
         } catch (InvalidObjectException e) {
             throw new InvalidElementException(e);
@@ -1005,6 +1012,15 @@ class CoreHelperMDRImpl implements CoreHelper {
         return list;
     }
 
+    private static void addAttributes(List<Attribute> list,
+            Classifier classifier) {
+        for (Feature feature : classifier.getFeature()) {
+            if (feature instanceof Attribute) {
+                list.add((Attribute) feature);
+            }
+        }
+    }
+
 
     public Collection<ModelElement> getAllVisibleElements(Object ns) {
         if (!(ns instanceof Namespace)) {
@@ -1605,9 +1621,7 @@ class CoreHelperMDRImpl implements CoreHelper {
 
         //  self.allConnections->forAll(r
         // | self.namespace.allContents->includes(r.participant) )
-        Collection nsAllContents =
-            modelImpl.getModelManagementHelper().getAllContents(ns);
-        if (nsAllContents.contains(element)) {
+        if (modelImpl.getVisibilityIndex().isInAllContents(element, ns)) {
             return true;
         }
         // or
@@ -1681,7 +1695,7 @@ class CoreHelperMDRImpl implements CoreHelper {
      *         publicly visible.
      */
     private boolean isVisiblyOwned(ModelElement me, Namespace ns) {
-        return ns.getOwnedElement().contains(me)
+        return me.getNamespace() == ns
                 && VisibilityKindEnum.VK_PUBLIC.equals(me.getVisibility());
     }
 
@@ -1811,55 +1825,12 @@ class CoreHelperMDRImpl implements CoreHelper {
 
     public Collection<GeneralizableElement> getChildren(Object o) {
         if (o instanceof GeneralizableElement) {
-            Collection<GeneralizableElement> col =
-                new ArrayList<GeneralizableElement>();
-            Collection<Generalization> generalizations = new ArrayList<Generalization>();
-            try {
-                if (o instanceof GeneralizableElement) {
-                    Collection<Generalization> specializations =
-                        Model.getFacade().getSpecializations(o);
-                    for (Generalization specialization : specializations) {
-                        getChildren(col, specialization, generalizations);
-                    }
-                }
-            } catch (InvalidObjectException e) {
-                throw new InvalidElementException(e);
-            }
-            return col;
+            return modelImpl.getGeneralizationIndex().getAllSubtypes(
+                    (GeneralizableElement) o);
         }
         throw new IllegalArgumentException("Illegal arguments: " + o);
     }
 
-    /**
-     * Adds all children recursively to the Collection in the first argument.
-     * The algorithm assumes that there is a cycle when a node has been visited
-     * twice using already known generalizations.
-     *
-     * @param currentChildren
-     *            collection to collect them in.
-     * @param gen
-     *            element whose children are added.
-     * @param generalizations
-     *            the list of already traversed generalizations.
-     * @throws IllegalStateException
-     *             if there is a circular reference.
-     */
-    private void getChildren(Collection<GeneralizableElement> currentChildren,
-            Generalization gen, Collection<Generalization> generalizations) {
-        GeneralizableElement child = gen.getChild();
-        if (currentChildren.contains(child) && generalizations.contains(gen)) {
-            throw new IllegalStateException("Circular inheritance occured.");
-        } else {
-            currentChildren.add(child);
-            generalizations.add(gen);
-        }
-        Collection<Generalization> specializations =
-            Model.getFacade().getSpecializations(child);
-        for (Generalization specialization : specializations) {
-            getChildren(currentChildren, specialization, generalizations);
-        }
-    }
-
 
     public Collection getAllRealizedInterfaces(Object o) {
         try {
@@ -0,0 +1,252 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model.mdr;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jmi.reflect.InvalidObjectException;
+
+import org.argouml.model.InvalidElementException;
+import org.netbeans.api.mdr.events.AssociationEvent;
+import org.netbeans.api.mdr.events.InstanceEvent;
+import org.netbeans.api.mdr.events.MDRChangeEvent;
+import org.omg.uml.foundation.core.GeneralizableElement;
+import org.omg.uml.foundation.core.Generalization;
+
+/**
+ * The supertypes and subtypes on all levels of the generalizable elements
+ * of the model, so they don't have to be searched for every time they are
+ * asked for.<p>
+ *
+ * The closure of an element is found the first time it is asked for. The
+ * event pump passes on each change before it is made, and the closures
+ * going through an element whose generalizations change are dropped. The
+ * closures of other hierarchies are kept.<p>
+ *
+ * The closures are found without holding the lock of the index, since
+ * reading the model may wait for a change which has to get the lock to
+ * announce itself. A closure found while a change was announced is not
+ * kept.
+ */
+class GeneralizationIndex {
+
+    /**
+     * The names of the ends of the associations between generalizable
+     * elements and generalizations.
+     */
+    private static final Set<String> END_NAMES = new HashSet<String>(
+            Arrays.asList("child", "generalization", "parent",
+                    "specialization"));
+
+    private final MDRModelImplementation modelImpl;
+
+    private final Map<GeneralizableElement, Set<GeneralizableElement>>
+        supertypes =
+            new HashMap<GeneralizableElement, Set<GeneralizableElement>>();
+
+    private final Map<GeneralizableElement, Set<GeneralizableElement>>
+        subtypes =
+            new HashMap<GeneralizableElement, Set<GeneralizableElement>>();
+
+    /**
+     * Counts the changes, so a closure found while one was made is not
+     * kept.
+     */
+    private long generation;
+
+    /**
+     * The constructor.
+     *
+     * @param theModelImpl the model implementation
+     */
+    GeneralizationIndex(MDRModelImplementation theModelImpl) {
+        modelImpl = theModelImpl;
+    }
+
+    /**
+     * @param element the element
+     * @return the direct and indirect supertypes of the element, nearest
+     *         first
+     */
+    Set<GeneralizableElement> getAllSupertypes(GeneralizableElement element) {
+        long before;
+        synchronized (this) {
+            Set<GeneralizableElement> closure = supertypes.get(element);
+            if (closure != null) {
+                return closure;
+            }
+            before = generation;
+        }
+        Set<GeneralizableElement> closure =
+            Collections.unmodifiableSet(findSupertypes(element));
+        synchronized (this) {
+            if (generation == before) {
+                supertypes.put(element, closure);
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param element the element
+     * @return the direct and indirect subtypes of the element, depth first
+     * @throws IllegalStateException if there is a circular reference
+     */
+    Set<GeneralizableElement> getAllSubtypes(GeneralizableElement element) {
+        long before;
+        synchronized (this) {
+            Set<GeneralizableElement> closure = subtypes.get(element);
+            if (closure != null) {
+                return closure;
+            }
+            before = generation;
+        }
+        Set<GeneralizableElement> closure =
+            new LinkedHashSet<GeneralizableElement>();
+        findSubtypes(element, closure, new HashSet<GeneralizableElement>());
+        closure = Collections.unmodifiableSet(closure);
+        synchronized (this) {
+            if (generation == before) {
+                subtypes.put(element, closure);
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Drop the closures which a change of the model is going to make out
+     * of date. Called before the change is made.
+     *
+     * @param event the change
+     */
+    void plannedChange(MDRChangeEvent event) {
+        if (event instanceof AssociationEvent) {
+            AssociationEvent ae = (AssociationEvent) event;
+            if (END_NAMES.contains(ae.getEndName())) {
+                invalidate(ae.getFixedElement());
+                invalidate(ae.getNewElement());
+                invalidate(ae.getOldElement());
+            }
+        } else if (event instanceof InstanceEvent
+                && event.isOfType(InstanceEvent.EVENT_INSTANCE_DELETE)) {
+            invalidate(((InstanceEvent) event).getInstance());
+        }
+    }
+
+    /**
+     * Forget all closures.
+     */
+    synchronized void clear() {
+        supertypes.clear();
+        subtypes.clear();
+        generation++;
+    }
+
+    private synchronized void invalidate(Object element) {
+        if (element instanceof Generalization) {
+            Generalization generalization = (Generalization) element;
+            try {
+                invalidate(generalization.getChild());
+                invalidate(generalization.getParent());
+            } catch (InvalidObjectException e) {
+                // Already deleted, so its ends have been dropped before
+            }
+        } else if (element instanceof GeneralizableElement) {
+            generation++;
+            drop(supertypes, (GeneralizableElement) element);
+            drop(subtypes, (GeneralizableElement) element);
+        }
+    }
+
+    /**
+     * Drop the closure of an element and the closures going through it.
+     */
+    private static void drop(
+            Map<GeneralizableElement, Set<GeneralizableElement>> closures,
+            GeneralizableElement element) {
+        closures.remove(element);
+        Iterator<Set<GeneralizableElement>> it =
+            closures.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().contains(element)) {
+                it.remove();
+            }
+        }
+    }
+
+    private Set<GeneralizableElement> findSupertypes(
+            GeneralizableElement element) {
+        Set<GeneralizableElement> result =
+            new LinkedHashSet<GeneralizableElement>();
+        try {
+            Collection<GeneralizableElement> toBeAdded =
+                getParents(element);
+            do {
+                Collection<GeneralizableElement> newlyAdded =
+                    new LinkedHashSet<GeneralizableElement>();
+                for (GeneralizableElement ge : toBeAdded) {
+                    newlyAdded.addAll(getParents(ge));
+                }
+                result.addAll(toBeAdded);
+                toBeAdded = newlyAdded;
+                toBeAdded.removeAll(result);
+            } while (!toBeAdded.isEmpty());
+        } catch (InvalidObjectException e) {
+            throw new InvalidElementException(e);
+        }
+        return result;
+    }
+
+    private static Collection<GeneralizableElement> getParents(
+            GeneralizableElement element) {
+        Collection<GeneralizableElement> result =
+            new LinkedHashSet<GeneralizableElement>();
+        for (Generalization gen : element.getGeneralization()) {
+            result.add(gen.getParent());
+        }
+        return result;
+    }
+
+    /**
+     * Add the subtypes of an element depth first. An element met again
+     * while its own subtypes are being added means there is a cycle.
+     */
+    private void findSubtypes(GeneralizableElement element,
+            Set<GeneralizableElement> result,
+            Set<GeneralizableElement> path) {
+        path.add(element);
+        try {
+            Collection<Generalization> specializations =
+                modelImpl.getFacade().getSpecializations(element);
+            for (Generalization specialization : specializations) {
+                GeneralizableElement child = specialization.getChild();
+                if (path.contains(child)) {
+                    throw new IllegalStateException(
+                            "Circular inheritance occured.");
+                }
+                if (result.add(child)) {
+                    findSubtypes(child, result, path);
+                }
+            }
+        } catch (InvalidObjectException e) {
+            throw new InvalidElementException(e);
+        }
+        path.remove(element);
+    }
+}
@@ -207,6 +207,17 @@ public class MDRModelImplementation implements ModelImplementation {
 
     private List<String> searchDirs = new ArrayList<String>();
 
+    /**
+     * The supertypes and subtypes on all levels of the model elements.
+     */
+    private GeneralizationIndex generalizationIndex =
+        new GeneralizationIndex(this);
+
+    /**
+     * Whether model elements are visible from namespaces.
+     */
+    private VisibilityIndex visibilityIndex = new VisibilityIndex(this);
+
 
     /**
      * Set of extents and their read-only status.
@@ -907,6 +918,20 @@ public class MDRModelImplementation implements ModelImplementation {
         return objectToId;
     }
 
+    /**
+     * @return the index of the supertypes and subtypes of the model elements
+     */
+    GeneralizationIndex getGeneralizationIndex() {
+        return generalizationIndex;
+    }
+
+    /**
+     * @return the index of the elements visible from namespaces
+     */
+    VisibilityIndex getVisibilityIndex() {
+        return visibilityIndex;
+    }
+
     /**
      * Return map of maps keyed first by system id, then xmi.id with object as
      * value.
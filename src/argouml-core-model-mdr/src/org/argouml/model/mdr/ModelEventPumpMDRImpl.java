@@ -40,14 +40,17 @@ package org.argouml.model.mdr;
 
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -71,6 +74,8 @@ import org.argouml.model.AttributeChangeEvent;
 import org.argouml.model.DeleteInstanceEvent;
 import org.argouml.model.InvalidElementException;
 import org.argouml.model.Model;
+import org.argouml.model.ModelEventBatch;
+import org.argouml.model.ModelEventBatchListener;
 import org.argouml.model.NotImplementedException;
 import org.argouml.model.RemoveAssociationEvent;
 import org.argouml.model.UmlChangeEvent;
@@ -111,8 +116,6 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     private MDRModelImplementation modelImpl;
 
-    private Object registrationMutex = new Byte[0];
-
     private MDRepository repository;
 
     private Boolean eventCountMutex = new Boolean(false);
@@ -120,6 +123,15 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     private Thread eventThread;
 
+    private volatile boolean batching;
+
+    /**
+     * While batching, the events held back for each batch listener in the
+     * order they were fired.
+     */
+    private final Map<ModelEventBatchListener, List<UmlChangeEvent>> batches =
+        new LinkedHashMap<ModelEventBatchListener, List<UmlChangeEvent>>();
+
     /**
      * Map of Element/attribute tuples and the listeners they have registered.
      */
@@ -283,6 +295,11 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             eventThread = Thread.currentThread();
         }
 
+        if (batching) {
+            changeBatching(mdrEvent);
+            return;
+        }
+
         // TODO: This should be done after all events are delivered, but leave
         // it here for now to avoid last minute synchronization problems
         decrementEvents();
@@ -295,6 +312,39 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
         handleEvent(mdrEvent);
       }
+
+      /**
+       * Handle an event while batching. The held back events are delivered
+       * at the end of the transaction, or once no more events are pending
+       * in case the end of the transaction is not seen. This is also done
+       * when a listener called for the event throws, so that the batch
+       * isn't held back until some later change. The event only stops
+       * being pending after that, so that flushModelEvents() also waits
+       * for the batches.
+       */
+      private void changeBatching(MDRChangeEvent mdrEvent) {
+          boolean end = false;
+          try {
+              if (mdrEvent instanceof TransactionEvent) {
+                  end = mdrEvent.isOfType(
+                          TransactionEvent.EVENT_TRANSACTION_END);
+              } else {
+                  handleEvent(mdrEvent);
+              }
+          } finally {
+              boolean last;
+              synchronized (eventCountMutex) {
+                  last = pendingEvents <= 1;
+              }
+              try {
+                  if (end || last) {
+                      deliverBatches();
+                  }
+              } finally {
+                  decrementEvents();
+              }
+          }
+      }
       
       private void handleEvent(MDRChangeEvent mdrEvent) {
           List<UmlChangeEvent> events = new ArrayList<UmlChangeEvent>();
@@ -462,6 +512,9 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             }
         }
 
+        modelImpl.getGeneralizationIndex().plannedChange(e);
+        modelImpl.getVisibilityIndex().plannedChange(e);
+
         synchronized (eventCountMutex) {
             pendingEvents++;
         }
@@ -510,18 +563,13 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
         String mofId = ((RefBaseObject) event.getSource()).refMofId();
         String className  = getClassName(event.getSource());
 
-        // Any given listener is only called once even if it is
-        // registered for multiple relevant matches
-        Set<PropertyChangeListener> listeners =
-                new HashSet<PropertyChangeListener>();
-        synchronized (registrationMutex) {
-            listeners.addAll(elements.getMatches(mofId, event
-                    .getPropertyName()));
-
-            // This will include all subtypes registered
-            listeners.addAll(listenedClasses.getMatches(className, event
-                    .getPropertyName()));
-        }
+        // The registries are read without locking and the arrays are
+        // shared, so nothing is allocated here
+        Object[] elementListeners =
+            elements.getMatchArray(mofId, event.getPropertyName());
+        // This will include all subtypes registered
+        Object[] classListeners =
+            listenedClasses.getMatchArray(className, event.getPropertyName());
 
         if (LOG.isLoggable(Level.FINE)) {
             LOG.log(Level.FINE, "Firing "
@@ -535,13 +583,16 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + "->" + formatElement(event.getNewValue()));
         }
 
-        if (!listeners.isEmpty()) {
-            for (PropertyChangeListener pcl : listeners) {
-                if (false /*(LOG.isDebugEnabled()*/) {
-                    LOG.log(Level.FINE, "Firing event on " + pcl.getClass().getName()
-                            + "[" + pcl + "]");
+        if (elementListeners.length > 0 || classListeners.length > 0) {
+            for (Object pcl : elementListeners) {
+                deliver(pcl, event);
+            }
+            for (Object pcl : classListeners) {
+                // Any given listener is only called once even if it is
+                // registered for multiple relevant matches
+                if (!contains(elementListeners, pcl)) {
+                    deliver(pcl, event);
                 }
-                pcl.propertyChange(event);
             }
         } else {
             // For debugging you probably want either this
@@ -561,6 +612,77 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
     }
 
 
+    /**
+     * Deliver an event to a listener, or hold it back for the listener's
+     * batch.
+     */
+    private void deliver(Object listener, UmlChangeEvent event) {
+        if (batching && listener instanceof ModelEventBatchListener) {
+            synchronized (batches) {
+                List<UmlChangeEvent> batch = batches.get(listener);
+                if (batch == null) {
+                    batch = new ArrayList<UmlChangeEvent>();
+                    batches.put((ModelEventBatchListener) listener, batch);
+                }
+                batch.add(event);
+            }
+        } else {
+            ((PropertyChangeListener) listener).propertyChange(event);
+        }
+    }
+
+    /**
+     * Hand the held back events over to the batch listeners.
+     */
+    private void deliverBatches() {
+        List<Map.Entry<ModelEventBatchListener, List<UmlChangeEvent>>> pending;
+        synchronized (batches) {
+            if (batches.isEmpty()) {
+                return;
+            }
+            pending =
+                new ArrayList<Map.Entry<ModelEventBatchListener,
+                    List<UmlChangeEvent>>>(batches.entrySet());
+            batches.clear();
+        }
+        for (Map.Entry<ModelEventBatchListener, List<UmlChangeEvent>> entry
+                : pending) {
+            try {
+                entry.getKey().modelEventsChanged(
+                        new ModelEventBatch(this, entry.getValue()));
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Exception delivering model events to "
+                        + entry.getKey(), e);
+            }
+        }
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventPump#setEventBatching(boolean)
+     */
+    public void setEventBatching(boolean b) {
+        batching = b;
+        if (!b) {
+            deliverBatches();
+        }
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventPump#isEventBatching()
+     */
+    public boolean isEventBatching() {
+        return batching;
+    }
+
+    private static boolean contains(Object[] listeners, Object listener) {
+        for (Object l : listeners) {
+            if (l.equals(listener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Register a listener for a Model Event.  The ModelElement's
      * MofID is used as the string to match against.
@@ -588,9 +710,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + ", listener:" + listener
                     + "]");
         }
-        synchronized (registrationMutex) {
-            elements.register(listener, mofId, propertyNames);
-        }
+        elements.register(listener, mofId, propertyNames);
     }
 
     /**
@@ -617,9 +737,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + ", listener:" + listener
                     + "]");
         }
-        synchronized (registrationMutex) {
-            elements.unregister(listener, mofId, propertyNames);
-        }
+        elements.unregister(listener, mofId, propertyNames);
     }
 
     /**
@@ -643,11 +761,9 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             }
             Collection<String> subtypes = subtypeMap.get(className);
             verifyAttributeNames(className, propertyNames);
-            synchronized (registrationMutex) {
-                listenedClasses.register(listener, className, propertyNames);
-                for (String subtype : subtypes) {
-                    listenedClasses.register(listener, subtype, propertyNames);
-                }
+            listenedClasses.register(listener, className, propertyNames);
+            for (String subtype : subtypes) {
+                listenedClasses.register(listener, subtype, propertyNames);
             }
             return;
         }
@@ -671,12 +787,10 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                         + ", listener:" + listener + "]");
             }
             Collection<String> subtypes = subtypeMap.get(className);
-            synchronized (registrationMutex) {
-                listenedClasses.unregister(listener, className, propertyNames);
-                for (String subtype : subtypes) {
-                    listenedClasses.unregister(listener, subtype,
-                            propertyNames);
-                }
+            listenedClasses.unregister(listener, className, propertyNames);
+            for (String subtype : subtypes) {
+                listenedClasses.unregister(listener, subtype,
+                        propertyNames);
             }
             return;
         }
@@ -695,6 +809,9 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
     public void startPumpingEvents() {
         LOG.log(Level.FINE, "Start pumping events");
         repository.addListener(this);
+        // Nothing told the index about the changes made in the meantime
+        modelImpl.getGeneralizationIndex().clear();
+        modelImpl.getVisibilityIndex().clear();
     }
 
     /*
@@ -959,7 +1076,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
     public List getDebugInfo() {
         List info = new ArrayList();
         info.add("Event Listeners");
-        for (Iterator it = elements.registry.entrySet().iterator();
+        for (Iterator it = elements.getRegistrations().entrySet().iterator();
                 it.hasNext(); ) {
             Map.Entry entry = (Map.Entry) it.next();
             String item = entry.getKey().toString();
@@ -1008,7 +1125,13 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
 
 /**
- * A simple typed registry which supports two levels of string keys.
+ * A simple typed registry which supports two levels of string keys.<p>
+ *
+ * The registry is safe for concurrent use without external locking.
+ * Changes to the registrations of one primary key are serialized on that
+ * key's entry only, and replace an immutable snapshot of the entry, so
+ * lookups never block. The result of a lookup is cached in the snapshot
+ * as an array, so repeated lookups of the same key pair allocate nothing.
  *
  * @param <T> type of object to be registered
  * @author Tom Morris
@@ -1017,14 +1140,20 @@ class Registry<T> {
 
     private static final Logger LOG = Logger.getLogger(Registry.class.getName());
 
-    Map<String, Map<String, List<T>>> registry;
+    private static final Object[] NONE = new Object[0];
+
+    /**
+     * The subkey used for registrations under the primary key only.
+     */
+    private static final String ANY = "";
+
+    final ConcurrentMap<String, Entry> registry;
 
     /**
      * Construct a new registry for the given type of object.
      */
     Registry() {
-        registry = Collections
-                .synchronizedMap(new HashMap<String, Map<String, List<T>>>());
+        registry = new ConcurrentHashMap<String, Entry>();
     }
 
     /**
@@ -1043,33 +1172,47 @@ class Registry<T> {
     void register(T item, String key,
             String[] subkeys) {
 
-        // Lookup primary key, creating new entry if needed
-        Map<String, List<T>> entry = registry.get(key);
-        if (entry == null) {
-            entry = new HashMap<String, List<T>>();
-            registry.put(key, entry);
-        }
-
         // If there are no subkeys, register using our special value
         // to indicate that this is a primary key only registration
         if (subkeys == null || subkeys.length < 1) {
             subkeys =
                 new String[] {
-                    "",
+                    ANY,
                 };
         }
 
-        for (int i = 0; i < subkeys.length; i++) {
-            List<T> list = entry.get(subkeys[i]);
-            if (list == null) {
-                list = new ArrayList<T>();
-                entry.put(subkeys[i], list);
+        while (true) {
+            // Lookup primary key, creating new entry if needed
+            Entry entry = registry.get(key);
+            if (entry == null) {
+                Entry newEntry = new Entry();
+                entry = registry.putIfAbsent(key, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                }
             }
-            if (!list.contains(item)) {
-                list.add(item);
-            } else {
-                LOG.log(Level.FINE, "Duplicate registration attempt for {0}: {1} Listener: {2}",
-                        new Object[]{key,subkeys,item});
+            synchronized (entry) {
+                if (entry.removed) {
+                    // Lost a race with the removal of the last item
+                    continue;
+                }
+                Map<String, Object[]> bySubkey =
+                    new HashMap<String, Object[]>(entry.snapshot.bySubkey);
+                for (int i = 0; i < subkeys.length; i++) {
+                    Object[] list = bySubkey.get(subkeys[i]);
+                    if (list == null) {
+                        bySubkey.put(subkeys[i], new Object[] {item});
+                    } else if (indexOf(list, item) < 0) {
+                        Object[] newList = Arrays.copyOf(list, list.length + 1);
+                        newList[list.length] = item;
+                        bySubkey.put(subkeys[i], newList);
+                    } else {
+                        LOG.log(Level.FINE, "Duplicate registration attempt for {0}: {1} Listener: {2}",
+                                new Object[]{key,subkeys,item});
+                    }
+                }
+                entry.snapshot = new Snapshot(bySubkey);
+                return;
             }
         }
     }
@@ -1084,27 +1227,39 @@ class Registry<T> {
      * key only.
      */
     void unregister(T item, String key, String[] subkeys) {
-        Map<String, List<T>> entry = registry.get(key);
+        Entry entry = registry.get(key);
         if (entry == null) {
             return;
         }
 
-        if (subkeys != null && subkeys.length > 0) {
-            for (int i = 0; i < subkeys.length; i++) {
-                lookupRemoveItem(entry, subkeys[i], item);
+        synchronized (entry) {
+            if (entry.removed) {
+                return;
             }
-        } else {
-            if (item == null) {
-                registry.remove(key);
+            Map<String, Object[]> bySubkey =
+                new HashMap<String, Object[]>(entry.snapshot.bySubkey);
+            if (subkeys != null && subkeys.length > 0) {
+                for (int i = 0; i < subkeys.length; i++) {
+                    lookupRemoveItem(bySubkey, subkeys[i], item);
+                }
             } else {
-                lookupRemoveItem(entry, "", item);
+                if (item == null) {
+                    bySubkey.clear();
+                } else {
+                    lookupRemoveItem(bySubkey, ANY, item);
+                }
             }
+            if (bySubkey.isEmpty()) {
+                entry.removed = true;
+                registry.remove(key, entry);
+            }
+            entry.snapshot = new Snapshot(bySubkey);
         }
     }
 
-    private void lookupRemoveItem(Map<String, List<T>> map, String key,
+    private void lookupRemoveItem(Map<String, Object[]> map, String key,
             T item) {
-        List<T> list = map.get(key);
+        Object[] list = map.get(key);
         if (list == null) {
             return;
         }
@@ -1112,19 +1267,22 @@ class Registry<T> {
             map.remove(key);
             return;
         }
-        if (LOG.isLoggable(Level.FINE)) {
-            if (!list.contains(item)) {
-                LOG.log(Level.FINE,
-                        "Attempt to unregister non-existant registration {0} Listener: {1}",
-                        new Object[]{key, item});
-            }
-        }
-        while (list.contains(item)) {
-            list.remove(item);
+        int index = indexOf(list, item);
+        if (index < 0) {
+            LOG.log(Level.FINE,
+                    "Attempt to unregister non-existant registration {0} Listener: {1}",
+                    new Object[]{key, item});
+            return;
         }
-        if (list.isEmpty()) {
+        if (list.length == 1) {
             map.remove(key);
+            return;
         }
+        Object[] newList = new Object[list.length - 1];
+        System.arraycopy(list, 0, newList, 0, index);
+        System.arraycopy(list, index + 1, newList, index,
+                list.length - index - 1);
+        map.put(key, newList);
     }
 
     /**
@@ -1135,18 +1293,112 @@ class Registry<T> {
      * @param subkey
      * @return collection of items previously registered.
      */
+    @SuppressWarnings("unchecked")
     Collection<T> getMatches(String key, String subkey) {
-        List<T> results = new ArrayList<T>();
-        Map<String, List<T>> entry = registry.get(key);
-        if (entry != null) {
-            if (entry.containsKey(subkey)) {
-                results.addAll(entry.get(subkey));
+        return (Collection<T>) Arrays.asList(getMatchArray(key, subkey));
+    }
+
+    /**
+     * Return the items which have been registered for the given key pair
+     * or for the primary key only, each of them once. The array is shared
+     * and must not be modified.
+     *
+     * @param key the primary key
+     * @param subkey the subkey
+     * @return the items, an empty array if there are none
+     */
+    Object[] getMatchArray(String key, String subkey) {
+        Entry entry = registry.get(key);
+        if (entry == null) {
+            return NONE;
+        }
+        Snapshot snapshot = entry.snapshot;
+        if (subkey == null) {
+            subkey = ANY;
+        }
+        Object[] matches = snapshot.matches.get(subkey);
+        if (matches == null) {
+            matches = snapshot.computeMatches(subkey);
+            snapshot.matches.put(subkey, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * @return the registrations, primary key to subkey to items, for
+     *         debugging
+     */
+    Map<String, Map<String, List<Object>>> getRegistrations() {
+        Map<String, Map<String, List<Object>>> result =
+            new HashMap<String, Map<String, List<Object>>>();
+        for (Map.Entry<String, Entry> entry : registry.entrySet()) {
+            Map<String, List<Object>> bySubkey =
+                new HashMap<String, List<Object>>();
+            for (Map.Entry<String, Object[]> subkeyEntry
+                    : entry.getValue().snapshot.bySubkey.entrySet()) {
+                bySubkey.put(subkeyEntry.getKey(),
+                        Arrays.asList(subkeyEntry.getValue()));
             }
-            if (entry.containsKey("")) {
-                results.addAll(entry.get(""));
+            result.put(entry.getKey(), bySubkey);
+        }
+        return result;
+    }
+
+    private static int indexOf(Object[] list, Object item) {
+        for (int i = 0; i < list.length; i++) {
+            if (list[i].equals(item)) {
+                return i;
             }
         }
-        return results;
+        return -1;
+    }
+
+    /**
+     * The registrations for one primary key.
+     */
+    private static final class Entry {
+        private volatile Snapshot snapshot =
+            new Snapshot(Collections.<String, Object[]>emptyMap());
+
+        /**
+         * Set once the last registration is gone and the entry has been
+         * taken out of the registry.
+         */
+        private boolean removed;
     }
 
+    /**
+     * An immutable state of an entry together with the lookups done
+     * against it.
+     */
+    private static final class Snapshot {
+        private final Map<String, Object[]> bySubkey;
+
+        private final ConcurrentMap<String, Object[]> matches =
+            new ConcurrentHashMap<String, Object[]>();
+
+        Snapshot(Map<String, Object[]> map) {
+            bySubkey = map;
+        }
+
+        Object[] computeMatches(String subkey) {
+            Object[] specific = ANY.equals(subkey) ? null : bySubkey.get(subkey);
+            Object[] any = bySubkey.get(ANY);
+            if (specific == null) {
+                return any == null ? NONE : any;
+            }
+            if (any == null) {
+                return specific;
+            }
+            Object[] result = Arrays.copyOf(specific,
+                    specific.length + any.length);
+            int size = specific.length;
+            for (Object item : any) {
+                if (indexOf(specific, item) < 0) {
+                    result[size++] = item;
+                }
+            }
+            return size == result.length ? result : Arrays.copyOf(result, size);
+        }
+    }
 }
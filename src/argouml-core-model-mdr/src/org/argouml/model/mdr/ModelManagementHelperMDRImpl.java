@@ -43,6 +43,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -89,6 +90,11 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
      */
     private MDRModelImplementation modelImpl;
 
+    /**
+     * The results of getAllModelElementsOfKind by namespace and metatype.
+     */
+    private final ContainmentIndex containmentIndex;
+
     /**
      * Construct a ModelManagementHelper.  Not for use outside of the
      * Model subsystem implementation.
@@ -98,6 +104,8 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
      */
     ModelManagementHelperMDRImpl(MDRModelImplementation implementation) {
         modelImpl = implementation;
+        containmentIndex = new ContainmentIndex(implementation);
+        implementation.getRepository().addListener(containmentIndex);
     }
 
 
@@ -184,9 +192,14 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
     }
 
 
+    /*
+     * Performance critical method. After the first query of a namespace
+     * for a metatype, the result is served from the containment index,
+     * which keeps it up to date as the model changes. That makes it
+     * proportional to the size of the result. A copy is returned because
+     * callers are free to modify it.
+     */
     public Collection getAllModelElementsOfKind(Object nsa, Object type) {
-        // TODO: Performance critical method
-        long startTime = System.currentTimeMillis();
         if (nsa == null || type == null) {
             return Collections.EMPTY_LIST;
         }
@@ -197,13 +210,28 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
             throw new IllegalArgumentException("illegal argument - namespace: "
                     + nsa + " type: " + type);
         }
+        Set<Object> indexed = containmentIndex.get(nsa, (Class) type);
+        if (indexed == null) {
+            long generation = containmentIndex.getGeneration();
+            indexed = findAllModelElementsOfKind(nsa, (Class) type);
+            containmentIndex.put(nsa, (Class) type, indexed, generation);
+        }
+        return indexed;
+    }
+
+    /**
+     * Find all elements of a metatype in a namespace by scanning all
+     * instances of the metatype in the extent.
+     */
+    private Set<Object> findAllModelElementsOfKind(Object nsa, Class type) {
+        long startTime = System.currentTimeMillis();
 
         /*
          * Because we get the metatype class stripped of its reflective
          * proxies, we need to jump through a hoop or two to find it
          * in the metamodel, then work from there to get its proxy.
          */
-        String name = ((Class) type).getName();
+        String name = type.getName();
         name = name.substring(name.lastIndexOf(".") + 1);
         if (name.startsWith("Uml")) {
             name = name.substring(3);
@@ -220,12 +248,9 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
         }
 
         // Remove any elements not in requested namespace
-        Collection returnElements = new ArrayList();
-        // TODO: Perhaps use a HashSet or other collection with faster lookup
-        // performance in case our callers are doing naive .contains() lookups
+        Set<Object> returnElements = new LinkedHashSet<Object>();
         for (Iterator i = allOfType.iterator(); i.hasNext();) {
             Object me = i.next();
-            // TODO: Optimize for root model case? - tfm
             if (contained(nsa, me)) {
                 returnElements.add(me);
             }
@@ -0,0 +1,221 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model.mdr;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jmi.reflect.InvalidObjectException;
+
+import org.argouml.model.InvalidElementException;
+import org.netbeans.api.mdr.events.AssociationEvent;
+import org.netbeans.api.mdr.events.AttributeEvent;
+import org.netbeans.api.mdr.events.InstanceEvent;
+import org.netbeans.api.mdr.events.MDRChangeEvent;
+import org.omg.uml.foundation.core.Classifier;
+import org.omg.uml.foundation.core.GeneralizableElement;
+import org.omg.uml.foundation.core.ModelElement;
+import org.omg.uml.foundation.core.Namespace;
+import org.omg.uml.foundation.core.Stereotype;
+import org.omg.uml.foundation.datatypes.VisibilityKindEnum;
+import org.omg.uml.modelmanagement.ElementImport;
+import org.omg.uml.modelmanagement.UmlPackage;
+
+/**
+ * Answers whether a model element is among the contents of a namespace,
+ * as {@link ModelManagementHelperMDRImpl#getAllContents(Object)} would
+ * return them, without collecting all the contents.<p>
+ *
+ * An element is owned by a namespace if the namespace is its namespace, so
+ * the owned elements of a namespace and its owners are checked by walking
+ * up from the namespace. The inherited contents are checked the same way
+ * for each parent. Only the elements imported through permissions and
+ * element imports have to be collected. They are kept for each namespace,
+ * and all of them are dropped when the event pump announces a change of
+ * the ownership, generalizations, dependencies, element imports,
+ * stereotypes or visibility of any element.
+ */
+class VisibilityIndex {
+
+    /**
+     * The names of the association ends which matter for the imported
+     * elements.
+     */
+    private static final Set<String> END_NAMES = new HashSet<String>(
+            Arrays.asList("ownedElement", "namespace", "elementImport",
+                    "importedElement", "package", "clientDependency",
+                    "client", "supplier", "supplierDependency",
+                    "stereotype", "extendedElement", "child",
+                    "generalization", "parent", "specialization"));
+
+    private final MDRModelImplementation modelImpl;
+
+    private final Map<Namespace, Set<ModelElement>> imported =
+        new HashMap<Namespace, Set<ModelElement>>();
+
+    /**
+     * Counts the changes, so imported elements collected while one was
+     * made are not kept.
+     */
+    private long generation;
+
+    /**
+     * The constructor.
+     *
+     * @param theModelImpl the model implementation
+     */
+    VisibilityIndex(MDRModelImplementation theModelImpl) {
+        modelImpl = theModelImpl;
+    }
+
+    /**
+     * @param element the element to look for
+     * @param ns the namespace
+     * @return true if the element is in the contents of the namespace on
+     *         all levels
+     */
+    boolean isInAllContents(ModelElement element, Namespace ns) {
+        try {
+            return isInAllContents(element, ns, new HashSet<ModelElement>());
+        } catch (InvalidObjectException e) {
+            throw new InvalidElementException(e);
+        }
+    }
+
+    private boolean isInAllContents(ModelElement element, ModelElement pack,
+            Set<ModelElement> visited) {
+        if (pack == null || !visited.add(pack)) {
+            return false;
+        }
+        if (pack instanceof Namespace
+                && isInContents(element, (Namespace) pack)) {
+            return true;
+        }
+        if (!(pack instanceof Classifier || pack instanceof UmlPackage)) {
+            return false;
+        }
+        // Everything else must be public or protected
+        if (!VisibilityKindEnum.VK_PUBLIC.equals(element.getVisibility())
+                && !VisibilityKindEnum.VK_PROTECTED.equals(
+                        element.getVisibility())) {
+            return false;
+        }
+        Collection<GeneralizableElement> parents =
+            CoreHelperMDRImpl.getParents((GeneralizableElement) pack);
+        for (GeneralizableElement parent : parents) {
+            if (isInAllContents(element, parent, visited)) {
+                return true;
+            }
+        }
+        if (pack instanceof UmlPackage) {
+            if (getAllImportedElements((Namespace) pack).contains(element)) {
+                return true;
+            }
+            for (GeneralizableElement parent : parents) {
+                if (parent instanceof Namespace
+                        && getAllImportedElements((Namespace) parent)
+                            .contains(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The contents of a namespace are its owned elements and those of its
+     * owners, and for a package the elements it imports.
+     */
+    private static boolean isInContents(ModelElement element,
+            Namespace ns) {
+        Namespace owner = element.getNamespace();
+        if (owner != null) {
+            for (Namespace n = ns; n != null; n = n.getNamespace()) {
+                if (n == owner) {
+                    return true;
+                }
+            }
+        }
+        if (ns instanceof UmlPackage) {
+            for (ElementImport ei : ((UmlPackage) ns).getElementImport()) {
+                if (element.equals(ei.getImportedElement())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param ns the namespace
+     * @return the elements imported by the namespace
+     * @see ModelManagementHelperMDRImpl#getAllImportedElements(Object)
+     */
+    Set<ModelElement> getAllImportedElements(Namespace ns) {
+        long before;
+        synchronized (this) {
+            Set<ModelElement> elements = imported.get(ns);
+            if (elements != null) {
+                return elements;
+            }
+            before = generation;
+        }
+        Set<ModelElement> elements = new HashSet<ModelElement>(
+                modelImpl.getModelManagementHelper()
+                    .getAllImportedElements(ns));
+        elements = Collections.unmodifiableSet(elements);
+        synchronized (this) {
+            if (generation == before) {
+                imported.put(ns, elements);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Drop the imported elements if a change of the model could change
+     * them. Called before the change is made.
+     *
+     * @param event the change
+     */
+    void plannedChange(MDRChangeEvent event) {
+        if (event instanceof AssociationEvent) {
+            if (END_NAMES.contains(((AssociationEvent) event).getEndName())) {
+                clear();
+            }
+        } else if (event instanceof AttributeEvent) {
+            AttributeEvent ae = (AttributeEvent) event;
+            if ("visibility".equals(ae.getAttributeName())
+                    || (ae.getSource() instanceof Stereotype
+                            && "name".equals(ae.getAttributeName()))) {
+                clear();
+            }
+        } else if (event instanceof InstanceEvent
+                && event.isOfType(InstanceEvent.EVENT_INSTANCE_DELETE)) {
+            clear();
+        }
+    }
+
+    /**
+     * Forget all imported elements.
+     */
+    synchronized void clear() {
+        if (!imported.isEmpty()) {
+            imported.clear();
+        }
+        generation++;
+    }
+}
@@ -0,0 +1,291 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model.mdr;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.AttributeChangeEvent;
+import org.argouml.model.ModelEventBatch;
+import org.argouml.model.ModelEventBatchListener;
+import org.argouml.model.ModelEventPump;
+import org.argouml.model.UmlChangeEvent;
+import org.argouml.model.UmlException;
+
+/**
+ * Tests for the batched delivery of model events by the MDR event pump.
+ */
+public class TestModelEventBatching extends TestCase {
+
+    /**
+     * The ModelImplementation, shared since the MDR can't be initialized
+     * more than once.
+     */
+    private static MDRModelImplementation modelImplementation;
+
+    static {
+        try {
+            modelImplementation = new MDRModelImplementation();
+        } catch (UmlException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private ModelEventPump pump;
+
+    private Object model;
+
+    private List<Object[]> registrations;
+
+    /*
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        assertNotNull(modelImplementation);
+        pump = modelImplementation.getModelEventPump();
+        model = modelImplementation.getModelManagementFactory().createModel();
+        registrations = new ArrayList<Object[]>();
+    }
+
+    /*
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+        pump.setEventBatching(false);
+        for (Object[] registration : registrations) {
+            pump.removeModelEventListener(
+                    (PropertyChangeListener) registration[0], registration[1],
+                    "name");
+        }
+        modelImplementation.getUmlFactory().delete(model);
+        pump.flushModelEvents();
+        super.tearDown();
+    }
+
+    /**
+     * The events of a transaction reach a batch listener at once when the
+     * transaction ends, with the changes of a property collapsed.
+     */
+    public void testDeliveryAtTransactionEnd() {
+        Object c = createClass("start");
+        Recorder recorder = new Recorder();
+        listen(recorder, c);
+        pump.setEventBatching(true);
+
+        modelImplementation.getRepository().beginTrans(true);
+        try {
+            setName(c, "a");
+            setName(c, "b");
+        } finally {
+            modelImplementation.getRepository().endTrans();
+        }
+        pump.flushModelEvents();
+
+        assertEquals(0, recorder.getEvents().size());
+        assertEquals(1, recorder.getBatches().size());
+        List<UmlChangeEvent> events =
+            recorder.getBatches().get(0).getEvents();
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof AttributeChangeEvent);
+        assertEquals("start", events.get(0).getOldValue());
+        assertEquals("b", events.get(0).getNewValue());
+    }
+
+    /**
+     * A batch keeps the events in the order they were fired, and a
+     * collapsed change takes the place of the last change it replaces.
+     */
+    public void testOrdering() {
+        Object c1 = createClass("c1");
+        Object c2 = createClass("c2");
+        Recorder recorder = new Recorder();
+        listen(recorder, c1);
+        listen(recorder, c2);
+        pump.setEventBatching(true);
+
+        modelImplementation.getRepository().beginTrans(true);
+        try {
+            setName(c1, "x");
+            setName(c2, "y");
+        } finally {
+            modelImplementation.getRepository().endTrans();
+        }
+        pump.flushModelEvents();
+
+        assertEquals(1, recorder.getBatches().size());
+        ModelEventBatch batch = recorder.getBatches().get(0);
+        assertEquals(2, batch.getEvents().size());
+        Iterator it = batch.getElements().iterator();
+        assertSame(c1, it.next());
+        assertSame(c2, it.next());
+
+        modelImplementation.getRepository().beginTrans(true);
+        try {
+            setName(c1, "x1");
+            setName(c2, "y1");
+            setName(c1, "x2");
+        } finally {
+            modelImplementation.getRepository().endTrans();
+        }
+        pump.flushModelEvents();
+
+        assertEquals(2, recorder.getBatches().size());
+        batch = recorder.getBatches().get(1);
+        assertEquals(2, batch.getEvents().size());
+        assertSame(c2, batch.getEvents().get(0).getSource());
+        assertSame(c1, batch.getEvents().get(1).getSource());
+        assertEquals("x", batch.getEvents().get(1).getOldValue());
+        assertEquals("x2", batch.getEvents().get(1).getNewValue());
+    }
+
+    /**
+     * Plain listeners receive each event as it is fired while batching,
+     * and batch listeners do so again when batching is switched off.
+     */
+    public void testPlainListeners() {
+        Object c = createClass("start");
+        Recorder recorder = new Recorder();
+        listen(recorder, c);
+        final List<PropertyChangeEvent> plainEvents =
+            Collections.synchronizedList(new ArrayList<PropertyChangeEvent>());
+        PropertyChangeListener plain = new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                plainEvents.add(evt);
+            }
+        };
+        listen(plain, c);
+        pump.setEventBatching(true);
+
+        modelImplementation.getRepository().beginTrans(true);
+        try {
+            setName(c, "a");
+            setName(c, "b");
+        } finally {
+            modelImplementation.getRepository().endTrans();
+        }
+        pump.flushModelEvents();
+
+        assertEquals(2, plainEvents.size());
+        assertEquals(1, recorder.getBatches().size());
+
+        pump.setEventBatching(false);
+        setName(c, "c");
+        pump.flushModelEvents();
+
+        assertEquals(1, recorder.getBatches().size());
+        assertEquals(1, recorder.getEvents().size());
+        assertEquals("c", recorder.getEvents().get(0).getNewValue());
+    }
+
+    /**
+     * A listener that throws doesn't hold back the batches: the other batch
+     * listeners still get theirs, and so does the next transaction.
+     */
+    public void testFlushWhenListenerThrows() {
+        Object c = createClass("start");
+        Recorder failing = new Recorder() {
+            @Override
+            public void modelEventsChanged(ModelEventBatch batch) {
+                super.modelEventsChanged(batch);
+                throw new IllegalStateException("batch listener failure");
+            }
+        };
+        Recorder recorder = new Recorder();
+        PropertyChangeListener plain = new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent evt) {
+                throw new IllegalStateException("listener failure");
+            }
+        };
+        listen(failing, c);
+        listen(recorder, c);
+        // Last, so that the batch listeners have the event when it throws
+        listen(plain, c);
+        pump.setEventBatching(true);
+
+        modelImplementation.getRepository().beginTrans(true);
+        try {
+            setName(c, "a");
+        } finally {
+            modelImplementation.getRepository().endTrans();
+        }
+        pump.flushModelEvents();
+
+        assertEquals(1, failing.getBatches().size());
+        assertEquals(1, recorder.getBatches().size());
+
+        setName(c, "b");
+        pump.flushModelEvents();
+
+        assertEquals(2, failing.getBatches().size());
+        assertEquals(2, recorder.getBatches().size());
+        assertEquals("b",
+                recorder.getBatches().get(1).getEvents().get(0).getNewValue());
+    }
+
+    private Object createClass(String name) {
+        Object c = modelImplementation.getCoreFactory().buildClass(model);
+        setName(c, name);
+        pump.flushModelEvents();
+        return c;
+    }
+
+    private void setName(Object element, String name) {
+        modelImplementation.getCoreHelper().setName(element, name);
+    }
+
+    private void listen(PropertyChangeListener listener, Object element) {
+        pump.addModelEventListener(listener, element, "name");
+        registrations.add(new Object[] {listener, element});
+    }
+
+    /**
+     * A batch listener remembering what it receives.
+     */
+    private static class Recorder implements ModelEventBatchListener {
+
+        private final List<ModelEventBatch> batches =
+            Collections.synchronizedList(new ArrayList<ModelEventBatch>());
+
+        private final List<PropertyChangeEvent> events =
+            Collections.synchronizedList(new ArrayList<PropertyChangeEvent>());
+
+        /*
+         * @see org.argouml.model.ModelEventBatchListener#modelEventsChanged(org.argouml.model.ModelEventBatch)
+         */
+        public void modelEventsChanged(ModelEventBatch batch) {
+            batches.add(batch);
+        }
+
+        /*
+         * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+         */
+        public void propertyChange(PropertyChangeEvent evt) {
+            events.add(evt);
+        }
+
+        List<ModelEventBatch> getBatches() {
+            return batches;
+        }
+
+        List<PropertyChangeEvent> getEvents() {
+            return events;
+        }
+    }
+}
@@ -38,7 +38,9 @@
 
 package org.argouml.model.mdr;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -49,6 +51,14 @@ import junit.framework.TestCase;
  */
 public class TestModelEventPump extends TestCase {
 
+    // Flag to enable performance testing - off by default
+    private static final boolean PERFORMANCE_TEST = false;
+
+    // Performance testing parameters
+    private static final int PERFORMANCE_THREADS = 8;
+    private static final int PERFORMANCE_KEYS = 10000;
+    private static final int PERFORMANCE_ROUNDS = 20;
+
     private Registry<String> registry;
     
     /*
@@ -152,6 +162,110 @@ public class TestModelEventPump extends TestCase {
 
     }
     
+    /**
+     * An item registered for a subkey and for the primary key only is
+     * matched once, and lookups return the same array until the
+     * registrations change.
+     */
+    public void testRegistryMatchArray() {
+        registry.register("both", "key1", null);
+        registry.register("both", "key1", new String[] {"subkey"});
+        registry.register("sub", "key1", new String[] {"subkey"});
+        Object[] matches = registry.getMatchArray("key1", "subkey");
+        assertEquals(2, matches.length);
+        assertSame(matches, registry.getMatchArray("key1", "subkey"));
+
+        registry.unregister("sub", "key1", new String[] {"subkey"});
+        matches = registry.getMatchArray("key1", "subkey");
+        assertEquals(1, matches.length);
+        assertEquals("both", matches[0]);
+
+        assertEquals(0, registry.getMatchArray("key2", "subkey").length);
+    }
+
+    /**
+     * Registrations made by several threads at once are all kept.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    public void testRegistryConcurrentRegistration()
+        throws InterruptedException {
+        final int keys = 200;
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final String item = "item" + t;
+            threads.add(new Thread() {
+                public void run() {
+                    for (int round = 0; round < 10; round++) {
+                        for (int k = 0; k < keys; k++) {
+                            registry.register(item, "key" + k, null);
+                        }
+                        for (int k = 0; k < keys; k++) {
+                            registry.unregister(item, "key" + k, null);
+                        }
+                    }
+                    for (int k = 0; k < keys; k++) {
+                        registry.register(item, "key" + k, null);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int k = 0; k < keys; k++) {
+            assertEquals(4, registry.getMatches("key" + k, "foo").size());
+        }
+    }
+
+    /**
+     * Measure lookups while other threads register and unregister.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    public void testRegistryPerformance() throws InterruptedException {
+        if (!PERFORMANCE_TEST) {
+            return;
+        }
+        for (int k = 0; k < PERFORMANCE_KEYS; k++) {
+            registry.register("listener", "key" + k, null);
+            registry.register("name", "key" + k, new String[] {"name"});
+        }
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < PERFORMANCE_THREADS; t++) {
+            final boolean writer = t % 2 == 0;
+            final String item = "item" + t;
+            threads.add(new Thread() {
+                public void run() {
+                    for (int round = 0; round < PERFORMANCE_ROUNDS; round++) {
+                        for (int k = 0; k < PERFORMANCE_KEYS; k++) {
+                            if (writer) {
+                                registry.register(item, "key" + k, null);
+                                registry.unregister(item, "key" + k, null);
+                            } else {
+                                registry.getMatchArray("key" + k, "name");
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        long start = System.currentTimeMillis();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(PERFORMANCE_THREADS + " threads, "
+                + PERFORMANCE_ROUNDS * PERFORMANCE_KEYS
+                + " operations each: "
+                + (System.currentTimeMillis() - start) + " msec");
+    }
+
     private void checkSingle(String value, Collection<String> matches) {
         assertEquals(1, matches.size());
         assertEquals(value, matches.iterator().next()); 
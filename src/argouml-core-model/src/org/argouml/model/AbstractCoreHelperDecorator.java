@@ -91,6 +91,10 @@ public abstract class AbstractCoreHelperDecorator implements CoreHelper {
         return impl.getAllSupertypes(cls1);
     }
 
+    public boolean isAncestor(Object ancestor, Object element) {
+        return impl.isAncestor(ancestor, element);
+    }
+
     public Collection getSupertypes(Object generalizableElement) {
         return impl.getSupertypes(generalizableElement);
     }
@@ -179,4 +179,18 @@ public abstract class AbstractModelEventPump implements ModelEventPump {
 
     }
 
+    /*
+     * @see org.argouml.model.ModelEventPump#setEventBatching(boolean)
+     */
+    public void setEventBatching(boolean batching) {
+        // Batching is not supported by default
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventPump#isEventBatching()
+     */
+    public boolean isEventBatching() {
+        return false;
+    }
+
 }
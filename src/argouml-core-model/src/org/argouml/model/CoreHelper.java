@@ -70,6 +70,18 @@ public interface CoreHelper {
      */
     Collection getAllSupertypes(Object element);
 
+    /**
+     * Return whether a GeneralizableElement is a direct or indirect
+     * supertype of another one. This is the same as asking whether the
+     * supertypes returned by {@link #getAllSupertypes(Object)} contain it,
+     * but the implementation may answer it without creating the collection.
+     *
+     * @param ancestor the possible supertype
+     * @param element the GeneralizableElement
+     * @return true if the ancestor is a supertype of the element
+     */
+    boolean isAncestor(Object ancestor, Object element);
+
     /**
      * Return the immediate supertypes of a GeneralizableElement.
      * 
@@ -0,0 +1,164 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The model events of one transaction, delivered at once to a
+ * {@link ModelEventBatchListener} when the ModelEventPump is batching
+ * events.<p>
+ *
+ * Repeated {@link AttributeChangeEvent}s for the same property of the same
+ * element are collapsed into one event carrying the value from before the
+ * first change and the value after the last one. The other events are kept
+ * as they are, in the order they were fired.
+ *
+ * @see ModelEventPump#setEventBatching(boolean)
+ */
+public class ModelEventBatch extends EventObject {
+
+    private final List<UmlChangeEvent> events;
+
+    /**
+     * Construct a batch, collapsing repeated attribute changes.
+     *
+     * @param source the ModelEventPump delivering the batch
+     * @param firedEvents the events in the order they were fired
+     */
+    public ModelEventBatch(Object source, List<UmlChangeEvent> firedEvents) {
+        super(source);
+        events = Collections.unmodifiableList(coalesce(firedEvents));
+    }
+
+    /**
+     * @return the events of the batch
+     */
+    public List<UmlChangeEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return the elements that are the source of an event of the batch
+     */
+    public Set<Object> getElements() {
+        Set<Object> elements = new LinkedHashSet<Object>();
+        for (UmlChangeEvent event : events) {
+            elements.add(event.getSource());
+        }
+        return elements;
+    }
+
+    /**
+     * Collapse the attribute changes. Each collapsed event takes the place
+     * of the last change it replaces.
+     *
+     * @param firedEvents the events in the order they were fired
+     * @return the collapsed events
+     */
+    private static List<UmlChangeEvent> coalesce(
+            List<UmlChangeEvent> firedEvents) {
+        Map<PropertyKey, Integer> lastChange =
+            new HashMap<PropertyKey, Integer>();
+        Map<PropertyKey, Object> firstOldValue =
+            new HashMap<PropertyKey, Object>();
+        for (int i = 0; i < firedEvents.size(); i++) {
+            UmlChangeEvent event = firedEvents.get(i);
+            if (event instanceof AttributeChangeEvent) {
+                PropertyKey key = new PropertyKey(event);
+                if (!lastChange.containsKey(key)) {
+                    firstOldValue.put(key, event.getOldValue());
+                }
+                lastChange.put(key, i);
+            }
+        }
+        if (lastChange.size() == countAttributeChanges(firedEvents)) {
+            return new ArrayList<UmlChangeEvent>(firedEvents);
+        }
+
+        List<UmlChangeEvent> result =
+            new ArrayList<UmlChangeEvent>(firedEvents.size());
+        for (int i = 0; i < firedEvents.size(); i++) {
+            UmlChangeEvent event = firedEvents.get(i);
+            if (!(event instanceof AttributeChangeEvent)) {
+                result.add(event);
+                continue;
+            }
+            PropertyKey key = new PropertyKey(event);
+            if (lastChange.get(key) != i) {
+                continue;
+            }
+            Object oldValue = firstOldValue.get(key);
+            if (oldValue == event.getOldValue()) {
+                result.add(event);
+            } else {
+                result.add(new AttributeChangeEvent(event.getSource(),
+                        event.getPropertyName(), oldValue,
+                        event.getNewValue(), event.getOriginalEvent()));
+            }
+        }
+        return result;
+    }
+
+    private static int countAttributeChanges(List<UmlChangeEvent> list) {
+        int count = 0;
+        for (UmlChangeEvent event : list) {
+            if (event instanceof AttributeChangeEvent) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * An element and one of its properties.
+     */
+    private static final class PropertyKey {
+        private final Object element;
+
+        private final String property;
+
+        PropertyKey(UmlChangeEvent event) {
+            element = event.getSource();
+            property = event.getPropertyName();
+        }
+
+        @Override
+        public int hashCode() {
+            return element.hashCode() * 31
+                + (property == null ? 0 : property.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PropertyKey)) {
+                return false;
+            }
+            PropertyKey other = (PropertyKey) o;
+            return element.equals(other.element)
+                && (property == null
+                        ? other.property == null
+                        : property.equals(other.property));
+        }
+    }
+
+    /**
+     * The UID.
+     */
+    private static final long serialVersionUID = -4403326255651713021L;
+}
@@ -0,0 +1,34 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2026 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************
+ */
+
+package org.argouml.model;
+
+import java.beans.PropertyChangeListener;
+
+/**
+ * A listener that can take the events of a whole transaction at once.
+ * It is registered with the ModelEventPump like any other
+ * PropertyChangeListener. While the pump is batching events it receives
+ * the events it is registered for through
+ * {@link #modelEventsChanged(ModelEventBatch)} at the end of the
+ * transaction instead of through
+ * {@link PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)}.
+ *
+ * @see ModelEventPump#setEventBatching(boolean)
+ */
+public interface ModelEventBatchListener extends PropertyChangeListener {
+
+    /**
+     * Receive the events of a transaction.
+     *
+     * @param batch the events this listener is registered for
+     */
+    void modelEventsChanged(ModelEventBatch batch);
+}
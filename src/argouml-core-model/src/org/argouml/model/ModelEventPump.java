@@ -303,6 +303,22 @@ public interface ModelEventPump {
      * method which has been invoked by the ModelEventPump.
      */
     void flushModelEvents();
+
+    /**
+     * Switch batching of events on or off. While batching, the events
+     * for a {@link ModelEventBatchListener} are held back until the end of
+     * the transaction that caused them and delivered as a single
+     * {@link ModelEventBatch}. Other listeners receive each event as it
+     * happens. Implementations that do not support batching ignore this.
+     *
+     * @param batching true to batch events
+     */
+    void setEventBatching(boolean batching);
+
+    /**
+     * @return true if events are being batched
+     */
+    boolean isEventBatching();
     
     /**
      * Get debug info for the event pump. Information returned is implementation